@@ -0,0 +1,107 @@
+package com.paymaster.backend.benchmark;
+
+import com.paymaster.backend.PayMasterApplication;
+import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.service.CustomerService;
+import com.paymaster.backend.domain.valueobject.CustomerStatus;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+
+/**
+ * **راه‌اندازی برنامه برای بنچمارک‌های انتها به انتها** (Benchmark Context).
+ * برنامه بدون وب‌سرور (مگر با {@link #startWeb}) و با پایگاه داده H2 در حافظه اجرا می‌شود تا نتایج مستقل از داده‌های واقعی باشند.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * اجرای برنامه با پایگاه داده خالی در حافظه.
+     * (آرگومان‌های خط فرمان بر application.properties اولویت دارند.)
+     * @param databaseName نام پایگاه داده در حافظه (برای جدا بودن بنچمارک‌ها).
+     * @param properties تنظیمات اضافه به شکل آرگومان خط فرمان (مثلاً {@code --paymaster.entity-cache.enabled=false}).
+     * @return Context برنامه.
+     */
+    static ConfigurableApplicationContext start(String databaseName, String... properties) {
+        return run(WebApplicationType.NONE, databaseName, properties);
+    }
+
+    /**
+     * اجرای برنامه همراه با وب‌سرور روی یک پورت آزاد (برای آزمون‌های بار HTTP)؛ پورت با {@link #port} خوانده می‌شود.
+     * @param databaseName نام پایگاه داده در حافظه.
+     * @param properties تنظیمات اضافه به شکل آرگومان خط فرمان.
+     * @return Context برنامه.
+     */
+    static ConfigurableApplicationContext startWeb(String databaseName, String... properties) {
+        String[] webProperties = Arrays.copyOf(properties, properties.length + 1);
+        webProperties[properties.length] = "--server.port=0";
+        return run(WebApplicationType.SERVLET, databaseName, webProperties);
+    }
+
+    /**
+     * پورت وب‌سرور برنامه‌ای که با {@link #startWeb} اجرا شده است.
+     */
+    static int port(ConfigurableApplicationContext context) {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    private static ConfigurableApplicationContext run(WebApplicationType type, String databaseName, String... properties) {
+        String[] args = {"--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.devtools.restart.enabled=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"};
+        String[] allArgs = Arrays.copyOf(args, args.length + properties.length);
+        System.arraycopy(properties, 0, allArgs, args.length, properties.length);
+        return new SpringApplicationBuilder(PayMasterApplication.class)
+                .web(type)
+                .logStartupInfo(false)
+                .run(allArgs);
+    }
+
+    /**
+     * اجرای نمونه دوم برنامه روی پایگاه داده در حافظه‌ای که {@link #start} ساخته است (بدون تغییر Schema)،
+     * برای شبیه‌سازی چند نمونه برنامه که قفل‌های داخل برنامه آن‌ها مشترک نیست.
+     * @param databaseName نام پایگاه داده در حافظه.
+     * @return Context نمونه دوم.
+     */
+    static ConfigurableApplicationContext join(String databaseName) {
+        return new SpringApplicationBuilder(PayMasterApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=none",
+                        "--spring.devtools.restart.enabled=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+    }
+
+    /**
+     * ایجاد یک مشتری فعال آزمایشی.
+     * @param context Context برنامه.
+     * @return مشتری ذخیره شده.
+     */
+    static Customer createCustomer(ConfigurableApplicationContext context) {
+        return createCustomer(context, 0);
+    }
+
+    /**
+     * ایجاد مشتری فعال آزمایشی با کد ملی و موبایل یکتا (برای بنچمارک‌هایی که بیش از یک مشتری دارند).
+     * @param context Context برنامه.
+     * @param index شماره مشتری (0 همان مشتری {@link #createCustomer(ConfigurableApplicationContext)}).
+     * @return مشتری ذخیره شده.
+     */
+    static Customer createCustomer(ConfigurableApplicationContext context, int index) {
+        Customer customer = Customer.builder()
+                .fullName("مشتری بنچمارک")
+                .nationalCode(index == 0 ? "0012345679" : String.format("%010d", index))
+                .mobile(String.format("0912%07d", index))
+                .status(CustomerStatus.ACTIVE)
+                .build();
+        return context.getBean(CustomerService.class).save(customer);
+    }
+}
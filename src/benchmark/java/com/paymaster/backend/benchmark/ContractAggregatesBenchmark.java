@@ -0,0 +1,81 @@
+package com.paymaster.backend.benchmark;
+
+import com.paymaster.backend.domain.entity.Contract;
+import com.paymaster.backend.domain.entity.Installment;
+import com.paymaster.backend.domain.valueobject.ContractStatus;
+import com.paymaster.backend.domain.valueobject.InstallmentStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * **بنچمارک متدهای تجمیعی قرارداد** (Contract Aggregates Benchmark).
+ * {@code getRemainingAmount} و {@code getProgressPercentage} روی قراردادی با 60 قسط که بخشی از آن پرداخت شده است.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContractAggregatesBenchmark {
+
+    @Param({"60"})
+    private int installmentCount;
+
+    private Contract contract;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long installmentAmount = 2_000_000;
+        contract = Contract.builder()
+                .contractNumber("C14040001")
+                .principalAmount(installmentAmount * installmentCount * 100 / 118)
+                .interestRate(18.0)
+                .totalAmount(installmentAmount * installmentCount)
+                .installmentCount(installmentCount)
+                .installmentAmount(installmentAmount)
+                .startDate(LocalDate.of(2025, 3, 21))
+                .status(ContractStatus.ACTIVE)
+                .build();
+
+        for (int i = 1; i <= installmentCount; i++) {
+            boolean paid = i <= installmentCount / 2;
+            contract.getInstallments().add(Installment.builder()
+                    .contract(contract)
+                    .installmentNumber(i)
+                    .amount(installmentAmount)
+                    .dueDate(LocalDate.of(2025, 3, 21).plusMonths(i))
+                    .paidAmount(paid ? installmentAmount : (i % 3 == 0 ? installmentAmount / 2 : 0))
+                    .status(paid ? InstallmentStatus.PAID : InstallmentStatus.PENDING)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public Long remainingAmount() {
+        return contract.getRemainingAmount();
+    }
+
+    @Benchmark
+    public int progressPercentage() {
+        return contract.getProgressPercentage();
+    }
+
+    @Benchmark
+    public int paidInstallmentsCount() {
+        return contract.getPaidInstallmentsCount();
+    }
+}
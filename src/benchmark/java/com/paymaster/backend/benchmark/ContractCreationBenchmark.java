@@ -0,0 +1,62 @@
+package com.paymaster.backend.benchmark;
+
+import com.paymaster.backend.domain.entity.Contract;
+import com.paymaster.backend.domain.service.ContractService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * **بنچمارک ایجاد قرارداد** (Contract Creation Benchmark).
+ * {@code ContractService.createContract} با 60 قسط روی H2 در حافظه (تخصیص شماره قرارداد، INSERT دسته‌ای اقساط و آمار پرتفوی)؛
+ * نسخه چند رشته‌ای یکتایی شماره قراردادها را تحت بار هم‌زمان نیز می‌سنجد (تکرار شماره باعث خطای کلید یکتا می‌شود).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContractCreationBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private ContractService contractService;
+    private Long customerId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("contract-creation-benchmark");
+        contractService = context.getBean(ContractService.class);
+        customerId = BenchmarkContext.createCustomer(context).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Contract createContract() {
+        return contractService.createContract(customerId, 120_000_000L, 18.0, 60, LocalDate.now(), 0.5, null);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Contract createContractConcurrent() {
+        return contractService.createContract(customerId, 120_000_000L, 18.0, 60, LocalDate.now(), 0.5, null);
+    }
+}
@@ -0,0 +1,115 @@
+package com.paymaster.backend.benchmark;
+
+import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.service.ContractService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * **آزمون بار داشبورد** (Dashboard Load Benchmark).
+ * در هر دور {@code users} کاربر هم‌زمان صفحه {@code /dashboard} را از طریق HTTP درخواست می‌کنند و زمان پاسخ
+ * آخرین کاربر اندازه گرفته می‌شود؛ با ترکیب‌های مختلف {@code virtualThreads} (رشته‌های Tomcat یا Virtual Thread)
+ * و {@code parallel} (اجرای هم‌زمان یا پشت سر هم کوئری‌های داشبورد).
+ * پاسخ غیر از 200 یا صفحه خطا ({@code GlobalExceptionHandler} آن را با وضعیت 200 برمی‌گرداند) اجرا را با خطا متوقف می‌کند.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DashboardLoadBenchmark {
+
+    private static final int CONTRACTS = 200;
+    private static final String DASHBOARD_TITLE = "<title>داشبورد | پی‌مستر</title>";
+
+    @Param({"1", "16", "64", "256"})
+    private int users;
+
+    @Param({"true", "false"})
+    private boolean virtualThreads;
+
+    @Param({"true", "false"})
+    private boolean parallel;
+
+    private ConfigurableApplicationContext context;
+    private ExecutorService clients;
+    private HttpClient httpClient;
+    private HttpRequest dashboard;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startWeb("dashboard-load-benchmark",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--paymaster.parallel-queries.enabled=" + parallel,
+                "--paymaster.query-count.enabled=false");
+
+        // نیمی از قراردادها از یک سال پیش شروع شده‌اند تا ویجت اقساط معوق هم داده داشته باشد
+        ContractService contractService = context.getBean(ContractService.class);
+        Customer customer = BenchmarkContext.createCustomer(context);
+        for (int i = 0; i < CONTRACTS; i++) {
+            LocalDate startDate = i % 2 == 0 ? LocalDate.now().minusYears(1) : LocalDate.now();
+            contractService.createContract(customer.getId(), 10_000_000L, 18.0, 12, startDate, 0.5, "load benchmark");
+        }
+
+        clients = Executors.newVirtualThreadPerTaskExecutor();
+        httpClient = HttpClient.newBuilder().executor(clients).connectTimeout(Duration.ofSeconds(10)).build();
+        dashboard = HttpRequest.newBuilder(URI.create("http://localhost:" + BenchmarkContext.port(context) + "/dashboard"))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        httpClient.close();
+        clients.close();
+        context.close();
+    }
+
+    @Benchmark
+    public long concurrentDashboards() throws Exception {
+        List<Future<HttpResponse<byte[]>>> responses = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            responses.add(clients.submit(() -> httpClient.send(dashboard, HttpResponse.BodyHandlers.ofByteArray())));
+        }
+        long bytes = 0;
+        for (Future<HttpResponse<byte[]>> future : responses) {
+            HttpResponse<byte[]> response = future.get();
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("GET /dashboard returned " + response.statusCode());
+            }
+            if (!new String(response.body(), StandardCharsets.UTF_8).contains(DASHBOARD_TITLE)) {
+                throw new IllegalStateException("GET /dashboard returned the error page");
+            }
+            bytes += response.body().length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,113 @@
+package com.paymaster.backend.benchmark;
+
+import com.github.mfathi91.time.PersianDate;
+import com.paymaster.backend.domain.service.DateUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * **بنچمارک تبدیل تاریخ** (DateUtils Benchmark).
+ * تبدیل میلادی به شمسی و برعکس و افزودن ماه شمسی روی تاریخ‌های تصادفی سال‌های 1390 تا 1420،
+ * در مقایسه با فراخوانی مستقیم کتابخانه PersianDate (متدهای {@code *Library}).
+ * (برابری نتایج با کتابخانه برای تک تک روزهای جدول در {@code PersianCalendarTableTest} بررسی می‌شود.)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateUtilsBenchmark {
+
+    private static final int SIZE = 1024;
+
+    private final DateUtils dateUtils = new DateUtils();
+
+    private final LocalDate[] gregorianDates = new LocalDate[SIZE];
+    private final String[] persianDates = new String[SIZE];
+    private final int[] months = new int[SIZE];
+
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(1404);
+        LocalDate from = LocalDate.of(2011, 3, 21);
+        for (int i = 0; i < SIZE; i++) {
+            gregorianDates[i] = from.plusDays(random.nextInt(0, 30 * 365));
+            persianDates[i] = dateUtils.toPersianDate(gregorianDates[i]);
+            months[i] = random.nextInt(1, 61);
+        }
+    }
+
+    private static LocalDate libraryToGregorian(String persianDate) {
+        String[] parts = persianDate.split("/");
+        try {
+            return PersianDate.of(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2])).toGregorian();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private int next() {
+        return index = (index + 1) & (SIZE - 1);
+    }
+
+    @Benchmark
+    public String toPersianDate() {
+        return dateUtils.toPersianDate(gregorianDates[next()]);
+    }
+
+    @Benchmark
+    public String toPersianDateLibrary() {
+        PersianDate persianDate = PersianDate.fromGregorian(gregorianDates[next()]);
+        return String.format("%04d/%02d/%02d", persianDate.getYear(), persianDate.getMonthValue(), persianDate.getDayOfMonth());
+    }
+
+    @Benchmark
+    public LocalDate toGregorianDate() {
+        return dateUtils.toGregorianDate(persianDates[next()]);
+    }
+
+    @Benchmark
+    public LocalDate toGregorianDateLibrary() {
+        return libraryToGregorian(persianDates[next()]);
+    }
+
+    @Benchmark
+    public LocalDate addMonthsToPersianDate() {
+        int i = next();
+        return dateUtils.addMonthsToPersianDate(gregorianDates[i], months[i]);
+    }
+
+    @Benchmark
+    public LocalDate addMonthsToPersianDateLibrary() {
+        int i = next();
+        return PersianDate.fromGregorian(gregorianDates[i]).plusMonths(months[i]).toGregorian();
+    }
+
+    /**
+     * تولید تاریخ‌های سررسید یک جدول 60 قسطی (همان الگوی ContractService.generateInstallments).
+     */
+    @Benchmark
+    public LocalDate installmentDueDates() {
+        LocalDate dueDate = gregorianDates[next()];
+        for (int n = 0; n < 60; n++) {
+            dueDate = dateUtils.addMonthsToPersianDate(dueDate, 1);
+        }
+        return dueDate;
+    }
+}
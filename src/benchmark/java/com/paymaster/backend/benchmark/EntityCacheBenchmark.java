@@ -0,0 +1,118 @@
+package com.paymaster.backend.benchmark;
+
+import com.paymaster.backend.domain.entity.Contract;
+import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.entity.Installment;
+import com.paymaster.backend.domain.service.ContractService;
+import com.paymaster.backend.domain.service.InstallmentService;
+import com.paymaster.backend.domain.valueobject.PaymentMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * **بنچمارک کش سطح دوم** (Entity Cache Benchmark).
+ * چرخه پرداخت قسط و سپس بازگشت به {@code /contracts/view/{id}} با و بدون کش ({@code cacheEnabled}):
+ * پرداخت 1 ریالی و سپس خواندن قرارداد، مشتری و اقساط آن به همان شکلی که کنترلر و قالب صفحه می‌خوانند
+ * (در یک تراکنش فقط خواندنی، معادل Session باز در طول درخواست).
+ * {@code viewOnly} فقط نمایش صفحه را بدون پرداخت میان دو نمایش اندازه می‌گیرد و {@code payThenViewOther} پس از
+ * پرداخت، قرارداد مشتری دیگری را نمایش می‌دهد (پرداخت نباید کش مشتریان دیگر را باطل کند).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityCacheBenchmark {
+
+    @Param({"true", "false"})
+    private boolean cacheEnabled;
+
+    private ConfigurableApplicationContext context;
+    private ContractService contractService;
+    private InstallmentService installmentService;
+    private TransactionTemplate readOnly;
+    private Long contractId;
+    private Long otherContractId;
+    private long[] installmentIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("entity-cache-benchmark-" + cacheEnabled,
+                "--paymaster.entity-cache.enabled=" + cacheEnabled);
+        contractService = context.getBean(ContractService.class);
+        installmentService = context.getBean(InstallmentService.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        Customer customer = BenchmarkContext.createCustomer(context);
+        Contract contract = contractService.createContract(customer.getId(),
+                100_000_000_000L, 18.0, 60, LocalDate.now(), 0.5, "benchmark");
+        contractId = contract.getId();
+        otherContractId = contractService.createContract(BenchmarkContext.createCustomer(context, 1).getId(),
+                100_000_000_000L, 18.0, 60, LocalDate.now(), 0.5, "benchmark").getId();
+        installmentIds = installmentService.findByContractId(contractId).stream().mapToLong(Installment::getId).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index;
+    }
+
+    @Benchmark
+    public long payThenView(Cursor cursor) {
+        long installmentId = installmentIds[Math.floorMod(cursor.index++, installmentIds.length)];
+        installmentService.payInstallment(installmentId, 1L, PaymentMethod.CASH, null, null, null);
+        return viewContract(contractId);
+    }
+
+    @Benchmark
+    public long payThenViewOther(Cursor cursor) {
+        long installmentId = installmentIds[Math.floorMod(cursor.index++, installmentIds.length)];
+        installmentService.payInstallment(installmentId, 1L, PaymentMethod.CASH, null, null, null);
+        return viewContract(otherContractId);
+    }
+
+    @Benchmark
+    public long viewOnly() {
+        return viewContract(contractId);
+    }
+
+    /**
+     * داده‌هایی که صفحه مشاهده قرارداد نمایش می‌دهد.
+     */
+    private long viewContract(Long contractId) {
+        return readOnly.execute(status -> {
+            Contract contract = contractService.findById(contractId).orElseThrow();
+            List<Installment> installments = installmentService.findByContractId(contractId);
+            long checksum = contract.getRemainingAmount() + contract.getCustomer().getFullName().length();
+            for (Installment installment : installments) {
+                checksum += installment.getRemainingAmount();
+            }
+            return checksum;
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package com.paymaster.backend.benchmark;
+
+import com.paymaster.backend.domain.entity.Contract;
+import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.entity.Installment;
+import com.paymaster.backend.domain.service.ContractService;
+import com.paymaster.backend.domain.service.InstallmentService;
+import com.paymaster.backend.domain.valueobject.PaymentMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * **بنچمارک انتها به انتهای پرداخت قسط** (Payment Benchmark).
+ * {@code InstallmentService.payInstallment} روی پایگاه داده H2 در حافظه (تراکنش، جریمه، آمار پرتفوی و بررسی تکمیل قرارداد).
+ * هر فراخوانی 1 ریال به یکی از اقساط یک قرارداد 60 قسطی با مبالغ بزرگ پرداخت می‌کند
+ * تا هیچ قسطی در طول اجرا تسویه نشود و هزینه هر تکرار ثابت بماند.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private InstallmentService installmentService;
+    private long[] installmentIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("payment-benchmark");
+        installmentService = context.getBean(InstallmentService.class);
+
+        Customer customer = BenchmarkContext.createCustomer(context);
+        Contract contract = context.getBean(ContractService.class).createContract(customer.getId(),
+                100_000_000_000L, 18.0, 60, LocalDate.now(), 0.5, "benchmark");
+        List<Installment> installments = installmentService.findByContractId(contract.getId());
+        installmentIds = installments.stream().mapToLong(Installment::getId).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index;
+    }
+
+    @Benchmark
+    public Installment payInstallment(Cursor cursor) {
+        long installmentId = installmentIds[Math.floorMod(cursor.index++, installmentIds.length)];
+        return installmentService.payInstallment(installmentId, 1L, PaymentMethod.CASH, null, null, null);
+    }
+}
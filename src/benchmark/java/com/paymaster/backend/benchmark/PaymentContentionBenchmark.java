@@ -0,0 +1,115 @@
+package com.paymaster.backend.benchmark;
+
+import com.paymaster.backend.domain.entity.Contract;
+import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.entity.Installment;
+import com.paymaster.backend.domain.repository.InstallmentRepository;
+import com.paymaster.backend.domain.service.ContractService;
+import com.paymaster.backend.domain.service.InstallmentService;
+import com.paymaster.backend.domain.service.PortfolioCountersService;
+import com.paymaster.backend.domain.valueobject.PaymentMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * **آزمون فشار پرداخت هم‌زمان** (Payment Contention Benchmark).
+ * 200 رشته هم‌زمان 1 ریال به اقساط یک قرارداد 12 قسطی پرداخت می‌کنند؛ نیمی از رشته‌ها از نمونه دوم برنامه
+ * (روی همان پایگاه داده، با قفل‌های داخلی جداگانه) استفاده می‌کنند تا تداخل نسخه و تلاش دوباره واقعاً رخ دهد.
+ * در پایان، مجموع مبالغ پرداخت شده اقساط با تعداد پرداخت‌های موفق مقایسه و آمار پرتفوی تطبیق داده می‌شود؛
+ * هر اختلافی (پرداخت گم شده یا تکراری) اجرا را با خطا متوقف می‌کند.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentContentionBenchmark {
+
+    private static final String DATABASE = "payment-contention-benchmark";
+
+    private ConfigurableApplicationContext primary;
+    private ConfigurableApplicationContext secondary;
+    private InstallmentService[] nodes;
+    private long[] installmentIds;
+    private Long contractId;
+
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private final AtomicLong posted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        primary = BenchmarkContext.start(DATABASE);
+        secondary = BenchmarkContext.join(DATABASE);
+        nodes = new InstallmentService[]{
+                primary.getBean(InstallmentService.class), secondary.getBean(InstallmentService.class)};
+
+        Customer customer = BenchmarkContext.createCustomer(primary);
+        Contract contract = primary.getBean(ContractService.class).createContract(customer.getId(),
+                100_000_000_000L, 18.0, 12, LocalDate.now(), 0.5, "contention benchmark");
+        contractId = contract.getId();
+        List<Installment> installments = nodes[0].findByContractId(contractId);
+        installmentIds = installments.stream().mapToLong(Installment::getId).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        try {
+            long paid = primary.getBean(InstallmentRepository.class).findByContractIdOrderByInstallmentNumberAsc(contractId)
+                    .stream().mapToLong(Installment::getPaidAmount).sum();
+            Map<String, Long> drift = primary.getBean(PortfolioCountersService.class).reconcile();
+            System.out.printf("%nposted=%d rejected=%d paid=%d counters drift=%s%n", posted.get(), rejected.get(), paid, drift);
+            if (paid != posted.get() || !drift.isEmpty()) {
+                throw new IllegalStateException("Paid totals do not reconcile: posted=" + posted.get()
+                        + ", installments paid=" + paid + ", counters drift=" + drift);
+            }
+        } finally {
+            secondary.close();
+            primary.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Node {
+        InstallmentService service;
+
+        @Setup(Level.Trial)
+        public void pick(PaymentContentionBenchmark benchmark) {
+            service = benchmark.nodes[benchmark.threadCounter.getAndIncrement() % benchmark.nodes.length];
+        }
+    }
+
+    @Benchmark
+    @Threads(200)
+    public void payContended(Node node) {
+        long installmentId = installmentIds[ThreadLocalRandom.current().nextInt(installmentIds.length)];
+        try {
+            node.service.payInstallment(installmentId, 1L, PaymentMethod.CASH, null, null, null);
+            posted.incrementAndGet();
+        } catch (IllegalArgumentException e) {
+            // تداخل پس از تمام تلاش‌ها: پرداخت نباید ثبت شده باشد
+            rejected.incrementAndGet();
+        }
+    }
+}
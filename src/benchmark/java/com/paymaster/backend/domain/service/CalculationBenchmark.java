@@ -0,0 +1,106 @@
+package com.paymaster.backend.domain.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * **بنچمارک محاسبات مالی** (Calculation Benchmark).
+ * مقایسه مسیر ممیز ثابت {@link CalculationService} با پیاده‌سازی مرجع BigDecimal ({@link ReferenceCalculations}).
+ * (برابری نتایج دو پیاده‌سازی در {@code CalculationServiceTest} بررسی می‌شود.)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculationBenchmark {
+
+    private static final int SIZE = 1024;
+
+    private final CalculationService calculationService = new CalculationService();
+
+    private final long[] principals = new long[SIZE];
+    private final double[] annualRates = new double[SIZE];
+    private final int[] months = new int[SIZE];
+    private final double[] penaltyRates = new double[SIZE];
+    private final long[] delayDays = new long[SIZE];
+    private final double[] discountRates = new double[SIZE];
+
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(1404);
+        for (int i = 0; i < SIZE; i++) {
+            principals[i] = random.nextLong(1_000_000, 5_000_000_000L);
+            annualRates[i] = random.nextInt(0, 4001) / 100.0;
+            months[i] = random.nextInt(1, 61);
+            penaltyRates[i] = random.nextInt(1, 101) / 100.0;
+            delayDays[i] = random.nextLong(1, 365);
+            discountRates[i] = random.nextInt(0, 10001) / 100.0;
+        }
+    }
+
+    private int next() {
+        return index = (index + 1) & (SIZE - 1);
+    }
+
+    @Benchmark
+    public long simpleInterest() {
+        int i = next();
+        return calculationService.calculateSimpleInterest(principals[i], annualRates[i], months[i]);
+    }
+
+    @Benchmark
+    public long simpleInterestReference() {
+        int i = next();
+        return ReferenceCalculations.calculateSimpleInterest(principals[i], annualRates[i], months[i]);
+    }
+
+    @Benchmark
+    public long penalty() {
+        int i = next();
+        return calculationService.calculatePenalty(principals[i], penaltyRates[i], delayDays[i]);
+    }
+
+    @Benchmark
+    public long penaltyReference() {
+        int i = next();
+        return ReferenceCalculations.calculatePenalty(principals[i], penaltyRates[i], delayDays[i]);
+    }
+
+    @Benchmark
+    public long earlySettlement() {
+        int i = next();
+        return calculationService.calculateEarlySettlementAmount(principals[i], principals[i] / 5, discountRates[i]);
+    }
+
+    @Benchmark
+    public long earlySettlementReference() {
+        int i = next();
+        return ReferenceCalculations.calculateEarlySettlementAmount(principals[i], principals[i] / 5, discountRates[i]);
+    }
+
+    @Benchmark
+    public void installmentSchedule(Blackhole blackhole) {
+        int i = next();
+        long interest = calculationService.calculateSimpleInterest(principals[i], annualRates[i], months[i]);
+        blackhole.consume(calculationService.calculateInstallmentAmount(principals[i] + interest, months[i]));
+        blackhole.consume(calculationService.calculatePrincipalPortion(principals[i], months[i]));
+        blackhole.consume(calculationService.calculateInterestPortion(interest, months[i]));
+    }
+}
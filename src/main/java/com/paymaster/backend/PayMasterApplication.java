@@ -2,12 +2,15 @@ package com.paymaster.backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * **کلاس اصلی برنامه پی‌مستر** (Main Application Class).
  * این کلاس نقطه ورود برنامه کاربردی Spring Boot است که سیستم مدیریت اقساط را اجرا می‌کند.
+ * زمان‌بندی (Scheduling) برای اجرای کارهای دوره‌ای مانند تطبیق آمار فعال است.
  */
 @SpringBootApplication
+@EnableScheduling
 public class PayMasterApplication {
 
     /**
@@ -22,10 +22,12 @@ public abstract class BaseEntity {
 
     /**
      * شناسه منحصر به فرد (Primary Key) موجودیت.
-     * با استفاده از استراتژی IDENTITY به صورت خودکار تولید می‌شود.
+     * با استفاده از استراتژی SEQUENCE (یک Sequence جداگانه برای هر موجودیت، با رزرو 50 شناسه در هر فراخوانی)
+     * تولید می‌شود تا Hibernate بتواند دستورات INSERT را به صورت دسته‌ای (JDBC Batch) ارسال کند.
+     * (استراتژی IDENTITY دسته‌بندی INSERT را غیرفعال می‌کند.)
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
 
     /**
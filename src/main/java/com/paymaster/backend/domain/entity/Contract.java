@@ -1,10 +1,12 @@
 package com.paymaster.backend.domain.entity;
 
 import com.paymaster.backend.domain.valueobject.ContractStatus;
-import com.paymaster.backend.domain.valueobject.InstallmentStatus;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -15,12 +17,18 @@ import java.util.List;
  * شامل اطلاعات مالی اصلی قرارداد، وضعیت، و ارتباط با مشتری و لیست اقساط.
  */
 @Entity
-@Table(name = "contracts")
+@Table(name = "contracts", indexes = {
+        @Index(name = "idx_contracts_keyset", columnList = "created_at DESC, id DESC"),
+        @Index(name = "idx_contracts_status", columnList = "status, id"),
+        @Index(name = "idx_contracts_customer", columnList = "customer_id, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "contracts")
 public class Contract extends BaseEntity {
 
     /**
@@ -114,6 +122,51 @@ public class Contract extends BaseEntity {
     @Size(max = 500, message = "توضیحات نمی‌تواند بیشتر از 500 کاراکتر باشد")
     private String description;
 
+    /**
+     * نسخه ردیف برای قفل خوش‌بینانه (Optimistic Locking).
+     * هر پرداخت روی اقساط قرارداد نیز آن را افزایش می‌دهد (نگاه کنید به {@code ContractRepository.findForPaymentById})
+     * تا دو پرداخت هم‌زمان روی یک قرارداد نتوانند بررسی تکمیل قرارداد را از دست بدهند.
+     * (مقدار پیش‌فرض 0 برای ردیف‌های موجود هنگام افزودن ستون.)
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version")
+    private Long version;
+
+    // --- مانده‌های ذخیره شده (نگهداری شده توسط AccountBalanceService و کارهای شبانه) ---
+
+    /**
+     * مجموع مبالغ پرداخت شده اقساط (شامل جریمه‌های پرداخت شده).
+     */
+    @ColumnDefault("0")
+    @Column(name = "paid_total", nullable = false)
+    @Builder.Default
+    private Long paidTotal = 0L;
+
+    /**
+     * مبلغ باقیمانده: مبلغ کل منهای {@link #paidTotal}.
+     */
+    @ColumnDefault("0")
+    @Column(name = "remaining_total", nullable = false)
+    @Builder.Default
+    private Long remainingTotal = 0L;
+
+    /**
+     * تعداد اقساط با وضعیت "پرداخت شده".
+     */
+    @ColumnDefault("0")
+    @Column(name = "paid_count", nullable = false)
+    @Builder.Default
+    private Long paidCount = 0L;
+
+    /**
+     * تعداد اقساط با وضعیت "سررسید گذشته".
+     */
+    @ColumnDefault("0")
+    @Column(name = "overdue_count", nullable = false)
+    @Builder.Default
+    private Long overdueCount = 0L;
+
     // --- روابط ---
 
     /**
@@ -129,48 +182,40 @@ public class Contract extends BaseEntity {
      * لیست اقساط مربوط به این قرارداد (One-to-Many).
      * شامل تمامی عملیات Cascade (حذف، به‌روزرسانی و ...).
      * مرتب‌سازی بر اساس تاریخ سررسید (dueDate) به صورت صعودی.
+     * شناسه‌های اقساط در کش سطح دوم نگهداری می‌شوند و خود اقساط از کش موجودیت قسط خوانده می‌شوند.
      */
     @OneToMany(mappedBy = "contract", cascade = CascadeType.ALL, orphanRemoval = true)
     @OrderBy("dueDate ASC")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "contract-installments")
     @Builder.Default
     private List<Installment> installments = new ArrayList<>();
 
     // --- متدهای کمکی (Helper Methods) ---
 
     /**
-     * محاسبه مبلغ باقیمانده برای پرداخت.
+     * مبلغ باقیمانده برای پرداخت (از ستون ذخیره شده، بدون بارگذاری اقساط).
      * @return مبلغ کل منهای مجموع مبالغ پرداخت شده.
      */
     public Long getRemainingAmount() {
-        if (totalAmount == null) return 0L;
-        long paidAmount = installments.stream()
-                .mapToLong(Installment::getPaidAmount)
-                .sum();
-        return totalAmount - paidAmount;
+        return remainingTotal;
     }
 
     /**
-     * تعداد اقساطی که وضعیت آن‌ها "پرداخت شده" است.
+     * تعداد اقساطی که وضعیت آن‌ها "پرداخت شده" است (از ستون ذخیره شده).
      * @return تعداد اقساط پرداخت شده.
      */
     public int getPaidInstallmentsCount() {
-        return (int) installments.stream()
-                .filter(i -> i.getStatus() == InstallmentStatus.PAID)
-                .count();
+        return paidCount.intValue();
     }
 
     /**
-     * محاسبه درصد پیشرفت پرداخت کل مبلغ قرارداد.
+     * محاسبه درصد پیشرفت پرداخت کل مبلغ قرارداد (از ستون ذخیره شده).
      * @return درصد (بین 0 تا 100).
      */
     public int getProgressPercentage() {
         if (totalAmount == null || totalAmount == 0) return 0;
 
-        long paidAmount = installments.stream()
-                .mapToLong(Installment::getPaidAmount)
-                .sum();
-
         // جلوگیری از خطای تقسیم بر صفر و اطمینان از نتیجه صحیح
-        return (int) Math.min(100, (paidAmount * 100L) / totalAmount);
+        return (int) Math.min(100, (paidTotal * 100L) / totalAmount);
     }
 }
\ No newline at end of file
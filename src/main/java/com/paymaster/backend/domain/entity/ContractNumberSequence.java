@@ -0,0 +1,35 @@
+package com.paymaster.backend.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+
+/**
+ * موجودیت **شمارنده شماره قرارداد** (Contract Number Sequence).
+ * برای هر سال شمسی یک ردیف نگهداری می‌شود که اولین شماره ترتیبی رزرو نشده آن سال را در خود دارد.
+ * شماره‌ها به صورت بلوکی رزرو شده و در حافظه توزیع می‌شوند (نگاه کنید به {@code ContractNumberAllocator}).
+ */
+@Entity
+@Table(name = "contract_number_sequences")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContractNumberSequence {
+
+    /**
+     * سال شمسی (مثلاً 1404).
+     */
+    @Id
+    @Column(name = "persian_year")
+    private Integer persianYear;
+
+    /**
+     * اولین شماره ترتیبی که هنوز رزرو نشده است.
+     */
+    @Column(name = "next_value", nullable = false)
+    private long nextValue;
+}
@@ -1,10 +1,12 @@
 package com.paymaster.backend.domain.entity;
 
-import com.paymaster.backend.domain.valueobject.ContractStatus;
 import com.paymaster.backend.domain.valueobject.CustomerStatus;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,12 +16,17 @@ import java.util.List;
  * شامل اطلاعات شناسایی و ارتباطی کامل مشتریان سیستم.
  */
 @Entity
-@Table(name = "customers")
+@Table(name = "customers", indexes = {
+        @Index(name = "idx_customers_keyset", columnList = "created_at DESC, id DESC"),
+        @Index(name = "uk_customers_mobile", columnList = "mobile", unique = true)
+}, uniqueConstraints = @UniqueConstraint(name = "uk_customers_national_code", columnNames = "national_code"))
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customers")
 public class Customer extends BaseEntity {
 
     /**
@@ -35,7 +42,7 @@ public class Customer extends BaseEntity {
      */
     @NotBlank(message = "کد ملی الزامی است")
     @Pattern(regexp = "^\\d{10}$", message = "کد ملی باید 10 رقم باشد")
-    @Column(name = "national_code", unique = true, nullable = false, length = 10)
+    @Column(name = "national_code", nullable = false, length = 10)
     private String nationalCode;
 
     /**
@@ -89,6 +96,26 @@ public class Customer extends BaseEntity {
     @Size(max = 1000, message = "یادداشت‌ها نمی‌تواند بیشتر از 1000 کاراکتر باشد")
     private String notes;
 
+    // --- مانده‌های ذخیره شده ---
+    // فقط با UPDATE نسبی AccountBalanceService و کارهای شبانه تغییر می‌کنند (نه با ذخیره موجودیت)،
+    // تا پرداخت‌های هم‌زمان روی قراردادهای مختلف یک مشتری تغییرات یکدیگر را بازنویسی نکنند.
+
+    /**
+     * تعداد قراردادهای فعال (ACTIVE).
+     */
+    @ColumnDefault("0")
+    @Column(name = "active_contracts", nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Long activeContracts = 0L;
+
+    /**
+     * مجموع مبلغ باقیمانده قراردادهای فعال.
+     */
+    @ColumnDefault("0")
+    @Column(name = "total_debt", nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Long totalDebt = 0L;
+
     // --- روابط ---
 
     /**
@@ -102,24 +129,10 @@ public class Customer extends BaseEntity {
     // --- متدهای کمکی (Helper Methods) ---
 
     /**
-     * تعداد قراردادهایی که وضعیت آن‌ها "فعال" (ACTIVE) است.
+     * تعداد قراردادهایی که وضعیت آن‌ها "فعال" (ACTIVE) است (از ستون ذخیره شده، بدون بارگذاری قراردادها).
      * @return تعداد قراردادهای فعال.
      */
     public int getActiveContractsCount() {
-        return (int) contracts.stream()
-                .filter(c -> c.getStatus() == ContractStatus.ACTIVE)
-                .count();
-    }
-
-    /**
-     * مجموع کل مبلغ باقیمانده (بدهی) مشتری از تمام قراردادهای فعال.
-     * از متد {@code getRemainingAmount()} در موجودیت Contract استفاده می‌شود.
-     * @return مجموع بدهی مشتری.
-     */
-    public Long getTotalDebt() {
-        return contracts.stream()
-                .filter(c -> c.getStatus() == ContractStatus.ACTIVE)
-                .mapToLong(Contract::getRemainingAmount)
-                .sum();
+        return activeContracts.intValue();
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.paymaster.backend.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * موجودیت **کلید یکتایی درخواست پرداخت** (Idempotency Record).
+ * برای هر پرداختی که با کلید یکتایی (Idempotency Key) ارسال شده، یک ردیف در همان تراکنش پرداخت ذخیره می‌شود؛
+ * تکرار همان درخواست (مثلاً ارسال دوباره فرم یا تلاش دوباره شبکه) به جای پرداخت دوباره، نتیجه قبلی را برمی‌گرداند.
+ * ردیف‌ها پس از {@code expiresAt} توسط {@code IdempotencyPurgeJob} حذف می‌شوند.
+ */
+@Entity
+@Table(name = "idempotency_records", indexes = @Index(name = "idx_idempotency_expires_at", columnList = "expires_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    /**
+     * کلید یکتایی ارسال شده توسط کلاینت.
+     */
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    /**
+     * اثر انگشت درخواست (عملیات، قسط، مبلغ و روش پرداخت) برای تشخیص استفاده دوباره از کلید برای درخواست دیگر.
+     */
+    @Column(name = "request_fingerprint", nullable = false, length = 200)
+    private String requestFingerprint;
+
+    /**
+     * شناسه قسطی که پرداخت روی آن ثبت شد (نتیجه درخواست)؛ در پرداخت یکجای قرارداد، نخستین قسط تخصیص یافته.
+     */
+    @Column(name = "installment_id", nullable = false)
+    private Long installmentId;
+
+    /**
+     * پاسخ درخواست‌هایی که نتیجه آن‌ها بیش از یک قسط است (JSON تخصیص پرداخت یکجای قرارداد)؛ برای پرداخت قسط خالی است.
+     */
+    @Column(name = "response", length = 8000)
+    private String response;
+
+    /**
+     * زمان ثبت درخواست.
+     */
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * زمانی که پس از آن کلید منقضی و قابل حذف است.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
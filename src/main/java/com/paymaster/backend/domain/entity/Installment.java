@@ -7,6 +7,9 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -17,12 +20,19 @@ import java.time.temporal.ChronoUnit;
  * جزئیات مربوط به هر قسط از یک قرارداد مشخص.
  */
 @Entity
-@Table(name = "installments")
+@Table(name = "installments", indexes = {
+        @Index(name = "idx_installments_keyset", columnList = "created_at DESC, id DESC"),
+        @Index(name = "idx_installments_receipt_number", columnList = "receipt_number"),
+        @Index(name = "idx_installments_status_due", columnList = "status, due_date, id"),
+        @Index(name = "idx_installments_contract_number", columnList = "contract_id, installment_number")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "installments")
 public class Installment extends BaseEntity {
 
     /**
@@ -76,6 +86,13 @@ public class Installment extends BaseEntity {
     @Builder.Default
     private Long penaltyAmount = 0L;
 
+    /**
+     * آخرین تاریخی که جریمه دیرکرد تا آن روز محاسبه و در penaltyAmount ذخیره شده است.
+     * (توسط {@code PenaltyAccrualService} به‌روزرسانی می‌شود؛ null یعنی هنوز جریمه‌ای محاسبه نشده است.)
+     */
+    @Column(name = "penalty_accrued_through")
+    private LocalDate penaltyAccruedThrough;
+
     /**
      * تاریخ و زمان انجام پرداخت (در صورت پرداخت).
      */
@@ -112,6 +129,17 @@ public class Installment extends BaseEntity {
     @Size(max = 500, message = "یادداشت‌ها نمی‌تواند بیشتر از 500 کاراکتر باشد")
     private String notes;
 
+    /**
+     * نسخه ردیف برای قفل خوش‌بینانه (Optimistic Locking).
+     * به‌روزرسانی هم‌زمان یک قسط (مثلاً دو صندوقدار یا دو کلیک روی پرداخت سریع) به جای بازنویسی مبلغ پرداخت شده،
+     * با خطای تداخل رد و توسط {@code PaymentPostingService} دوباره اجرا می‌شود.
+     * (مقدار پیش‌فرض 0 برای ردیف‌های موجود هنگام افزودن ستون.)
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version")
+    private Long version;
+
     // --- روابط ---
 
     /**
@@ -145,30 +173,9 @@ public class Installment extends BaseEntity {
         return 0;
     }
 
-    /**
-     * محاسبه مبلغ جریمه دیرکرد (Penalty) بر اساس نرخ قرارداد و روزهای تأخیر.
-     * جریمه تنها بر روی مبلغ باقیمانده اعمال می‌شود.
-     * @return مبلغ جریمه محاسبه شده.
-     */
-    public Long calculatePenalty() {
-        long delayDays = getDelayDays();
-        // اطمینان از وجود قرارداد و روزهای تأخیر
-        if (delayDays > 0 && contract != null && contract.getPenaltyRate() != null) {
-            // نرخ جریمه از درصد به ضریب تبدیل می‌شود
-            double penaltyRate = contract.getPenaltyRate() / 100.0;
-            // مبلغ باقی‌مانده برای محاسبه جریمه (مبلغ کل قسط منهای مبلغ پرداخت شده)
-            long principalForPenalty = amount - paidAmount;
-
-            // محاسبه جریمه (مبلغ * نرخ روزانه * روزهای تأخیر)
-            // از Math.round استفاده می‌کنیم تا به نزدیک‌ترین عدد صحیح گرد شود.
-            return Math.round(principalForPenalty * penaltyRate * delayDays);
-        }
-        return 0L;
-    }
-
     /**
      * مبلغ باقیمانده کل (شامل اصل قسط پرداخت نشده + جریمه‌های انباشته شده).
-     * توجه: این متد فرض می‌کند penaltyAmount جریمه انباشته شده است.
+     * توجه: penaltyAmount جریمه انباشته شده تا {@code penaltyAccruedThrough} است.
      * @return مبلغ کل باقیمانده.
      */
     public Long getRemainingAmount() {
@@ -0,0 +1,43 @@
+package com.paymaster.backend.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * موجودیت **اجاره اجرای کار زمان‌بندی شده** (Job Lease).
+ * برای هر کار یک ردیف نگهداری می‌شود؛ تنها نمونه‌ای از برنامه که اجاره معتبر را در اختیار دارد کار را اجرا می‌کند
+ * (نگاه کنید به {@code ScheduledJobRunner}). اجاره پس از زمان انقضا توسط نمونه دیگری قابل تصاحب است.
+ */
+@Entity
+@Table(name = "job_leases")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobLease {
+
+    /**
+     * نام کار (مثلاً status-sweep).
+     */
+    @Id
+    @Column(name = "job_name", length = 50)
+    private String jobName;
+
+    /**
+     * شناسه نمونه‌ای از برنامه که اجاره را در اختیار دارد.
+     */
+    @Column(name = "owner", length = 100)
+    private String owner;
+
+    /**
+     * زمان انقضای اجاره.
+     */
+    @Column(name = "leased_until", nullable = false)
+    private LocalDateTime leasedUntil;
+}
@@ -0,0 +1,64 @@
+package com.paymaster.backend.domain.entity;
+
+import com.paymaster.backend.domain.valueobject.JobRunStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * موجودیت **سابقه اجرای کار زمان‌بندی شده** (Job Run).
+ * هر اجرای کار با مدت زمان و تعداد ردیف‌های تغییر یافته ثبت می‌شود.
+ */
+@Entity
+@Table(name = "job_runs", indexes = @Index(name = "idx_job_runs_job_started", columnList = "job_name, started_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobRun extends BaseEntity {
+
+    /**
+     * نام کار.
+     */
+    @Column(name = "job_name", nullable = false, length = 50)
+    private String jobName;
+
+    /**
+     * شناسه نمونه‌ای از برنامه که کار را اجرا کرده است.
+     */
+    @Column(name = "owner", length = 100)
+    private String owner;
+
+    /**
+     * زمان شروع اجرا.
+     */
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    /**
+     * مدت زمان اجرا (میلی‌ثانیه).
+     */
+    @Column(name = "duration_ms", nullable = false)
+    private long durationMs;
+
+    /**
+     * تعداد ردیف‌هایی که در این اجرا تغییر کرده‌اند.
+     */
+    @Column(name = "rows_affected", nullable = false)
+    private long rowsAffected;
+
+    /**
+     * نتیجه اجرا.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private JobRunStatus status;
+
+    /**
+     * پیام خطا (در صورت شکست).
+     */
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+}
@@ -0,0 +1,101 @@
+package com.paymaster.backend.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * موجودیت **شمارنده‌های تجمیعی پرتفوی** (Portfolio Counters).
+ * یک ردیف واحد (با شناسه ثابت {@link #SINGLETON_ID}) که آمار داشبورد را به صورت افزایشی نگه می‌دارد
+ * تا نمایش داشبورد به جای چندین COUNT/SUM روی کل جداول، تنها یک خواندن بر اساس کلید اصلی باشد.
+ * این ردیف در همان تراکنشی که قرارداد/قسط/مشتری تغییر می‌کند به‌روزرسانی می‌شود.
+ */
+@Entity
+@Table(name = "portfolio_counters")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PortfolioCounters {
+
+    /**
+     * شناسه ثابت تنها ردیف جدول.
+     */
+    public static final Long SINGLETON_ID = 1L;
+
+    @Id
+    private Long id;
+
+    /**
+     * تعداد کل مشتریان.
+     */
+    @Column(name = "total_customers", nullable = false)
+    private long totalCustomers;
+
+    /**
+     * تعداد مشتریان فعال.
+     */
+    @Column(name = "active_customers", nullable = false)
+    private long activeCustomers;
+
+    /**
+     * تعداد کل قراردادها.
+     */
+    @Column(name = "total_contracts", nullable = false)
+    private long totalContracts;
+
+    /**
+     * تعداد قراردادهای فعال.
+     */
+    @Column(name = "active_contracts", nullable = false)
+    private long activeContracts;
+
+    /**
+     * مجموع مبلغ کل قراردادهای فعال (کل مطالبات).
+     */
+    @Column(name = "total_receivable", nullable = false)
+    private long totalReceivable;
+
+    /**
+     * مجموع مبلغ پرداخت شده اقساطی که به طور کامل تسویه شده‌اند.
+     */
+    @Column(name = "total_received", nullable = false)
+    private long totalReceived;
+
+    /**
+     * مجموع جریمه‌های ثبت شده روی اقساط.
+     */
+    @Column(name = "total_penalty", nullable = false)
+    private long totalPenalty;
+
+    /**
+     * تعداد اقساط معوق (معتبر برای تاریخ {@link #overdueAsOf}).
+     */
+    @Column(name = "overdue_installments", nullable = false)
+    private long overdueInstallments;
+
+    /**
+     * مجموع مبلغ باقیمانده اقساط معوق (معتبر برای تاریخ {@link #overdueAsOf}).
+     */
+    @Column(name = "total_overdue", nullable = false)
+    private long totalOverdue;
+
+    /**
+     * تاریخی که آمار معوقات برای آن محاسبه شده است.
+     * آمار معوقات وابسته به تاریخ روز است و با تغییر روز باید دوباره محاسبه شود.
+     */
+    @Column(name = "overdue_as_of")
+    private LocalDate overdueAsOf;
+
+    /**
+     * زمان آخرین محاسبه کامل (Reconciliation).
+     */
+    @Column(name = "reconciled_at")
+    private LocalDateTime reconciledAt;
+}
@@ -0,0 +1,82 @@
+package com.paymaster.backend.domain.entity;
+
+import com.paymaster.backend.domain.valueobject.ReconciliationItemStatus;
+import com.paymaster.backend.domain.valueobject.ReconciliationReason;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * موجودیت **ردیف صف بررسی تطبیق صورتحساب** (Reconciliation Item).
+ * ردیف‌هایی از فایل تسویه بانک/POS که به صورت خودکار با یک قسط تطبیق داده نشدند، برای بررسی دستی در این جدول می‌مانند.
+ */
+@Entity
+@Table(name = "reconciliation_items", indexes = {
+        @Index(name = "idx_reconciliation_items_reference", columnList = "reference"),
+        @Index(name = "idx_reconciliation_items_status", columnList = "status, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationItem extends BaseEntity {
+
+    /**
+     * شماره مرجع/پیگیری تراکنش در فایل بانک.
+     */
+    @Column(name = "reference", nullable = false, length = 50)
+    private String reference;
+
+    /**
+     * مبلغ تراکنش (ریال).
+     */
+    @Column(name = "amount", nullable = false)
+    private long amount;
+
+    /**
+     * کد ملی یا شماره موبایل پرداخت کننده (همان‌طور که در فایل آمده است).
+     */
+    @Column(name = "payer", length = 20)
+    private String payer;
+
+    /**
+     * تاریخ تراکنش در فایل بانک.
+     */
+    @Column(name = "transaction_date")
+    private LocalDate transactionDate;
+
+    /**
+     * شماره خط در فایل ورودی.
+     */
+    @Column(name = "line_number", nullable = false)
+    private int lineNumber;
+
+    /**
+     * دلیل ارجاع به بررسی دستی.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reason", nullable = false, length = 30)
+    private ReconciliationReason reason;
+
+    /**
+     * قسط پیشنهادی (قدیمی‌ترین قسط باز پرداخت کننده)، در صورت وجود.
+     */
+    @Column(name = "candidate_installment_id")
+    private Long candidateInstallmentId;
+
+    /**
+     * وضعیت بررسی.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private ReconciliationItemStatus status = ReconciliationItemStatus.PENDING;
+
+    /**
+     * قسطی که ردیف پس از بررسی روی آن ثبت شد.
+     */
+    @Column(name = "posted_installment_id")
+    private Long postedInstallmentId;
+}
@@ -0,0 +1,27 @@
+package com.paymaster.backend.domain.repository;
+
+import com.paymaster.backend.domain.entity.ContractNumberSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * **ریپازیتوری شمارنده شماره قرارداد** (Contract Number Sequence Repository).
+ */
+@Repository
+public interface ContractNumberSequenceRepository extends JpaRepository<ContractNumberSequence, Integer> {
+
+    /**
+     * خواندن شمارنده یک سال با قفل نوشتن (SELECT ... FOR UPDATE) برای رزرو بلوک جدید.
+     * @param persianYear سال شمسی.
+     * @return یک Optional شامل شمارنده (در صورت وجود).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ContractNumberSequence s WHERE s.persianYear = :persianYear")
+    Optional<ContractNumberSequence> findForUpdate(@Param("persianYear") Integer persianYear);
+}
@@ -1,17 +1,27 @@
 package com.paymaster.backend.domain.repository;
 
 import com.paymaster.backend.domain.entity.Contract;
+import com.paymaster.backend.domain.valueobject.ContractListRow;
 import com.paymaster.backend.domain.valueobject.ContractStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * **ریپازیتوری قراردادها** (Contract Repository).
@@ -23,8 +33,14 @@ public interface ContractRepository extends JpaRepository<Contract, Long> {
     /**
      * جستجوی قرارداد بر اساس شماره قرارداد.
      * @param contractNumber شماره قرارداد.
+     * شناسه نتیجه در ناحیه {@code contracts-by-number} کش کوئری نگهداری می‌شود (با هر تغییر جدول قراردادها باطل می‌شود)
+     * و خود قرارداد از کش موجودیت خوانده می‌شود.
      * @return یک Optional شامل قرارداد پیدا شده (در صورت وجود).
      */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "contracts-by-number")
+    })
     Optional<Contract> findByContractNumber(String contractNumber);
 
     /**
@@ -34,6 +50,26 @@ public interface ContractRepository extends JpaRepository<Contract, Long> {
      */
     boolean existsByContractNumber(String contractNumber);
 
+    /**
+     * خواندن قرارداد برای ثبت پرداخت با افزایش اجباری نسخه (OPTIMISTIC_FORCE_INCREMENT) هنگام commit.
+     * به این ترتیب دو پرداخت هم‌زمان روی اقساط مختلف یک قرارداد نیز با هم تداخل دارند و یکی دوباره اجرا می‌شود،
+     * و هیچ‌کدام بررسی تکمیل قرارداد را با داده قدیمی انجام نمی‌دهند.
+     * @param id شناسه قرارداد.
+     * @return یک Optional شامل قرارداد.
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT c FROM Contract c WHERE c.id = :id")
+    Optional<Contract> findForPaymentById(@Param("id") Long id);
+
+    /**
+     * خواندن چند قرارداد برای ثبت پرداخت گروهی با افزایش اجباری نسخه (مانند {@link #findForPaymentById}).
+     * @param ids شناسه‌های قرارداد.
+     * @return قراردادها.
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT c FROM Contract c WHERE c.id IN :ids")
+    List<Contract> findAllForPaymentByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * بازیابی تمام قراردادهای مرتبط با یک مشتری.
      * @param customerId شناسه مشتری.
@@ -135,19 +171,194 @@ public interface ContractRepository extends JpaRepository<Contract, Long> {
             Pageable pageable);
 
     /**
-     * بازیابی آخرین شماره قرارداد ثبت شده.
-     * **نکته:** استفاده از متد نام‌گذاری شده Spring Data JPA برای دستیابی به عملکرد LIMIT 1/TOP 1.
-     * @return آخرین شماره قرارداد (در صورت وجود).
+     * بزرگ‌ترین شماره ترتیبی قراردادهای با پیشوند مشخص (مثلاً C1404).
+     * بخش عددی پس از پیشوند به صورت عددی مقایسه می‌شود تا C140410000 بزرگ‌تر از C14049999 باشد.
+     * تنها هنگام ایجاد شمارنده یک سال جدید استفاده می‌شود (نگاه کنید به {@code ContractNumberAllocator}).
+     * @param prefix پیشوند شماره قرارداد.
+     * @return بزرگ‌ترین شماره ترتیبی یا 0 اگر قراردادی با این پیشوند وجود نداشته باشد.
+     */
+    @Query("SELECT COALESCE(MAX(CAST(SUBSTRING(c.contractNumber, LENGTH(:prefix) + 1) AS Long)), 0) FROM Contract c " +
+            "WHERE c.contractNumber LIKE CONCAT(:prefix, '%')")
+    long findMaxSequenceByPrefix(@Param("prefix") String prefix);
+
+
+    // ==================== لیست قراردادها (مدل خواندنی) ====================
+
+    /**
+     * ستون‌های {@link ContractListRow}: فیلدهای قرارداد و مانده‌های ذخیره شده آن، و نام مشتری با زیرکوئری هم‌بسته.
+     * (نام مشتری عمداً با زیرکوئری و نه JOIN خوانده می‌شود تا پایگاه داده بتواند قراردادها را به ترتیب ایندکس
+     * {@code idx_contracts_keyset} پیمایش کرده و زیرکوئری را فقط برای ردیف‌های همان صفحه اجرا کند.)
+     * فیلتر وضعیت اختیاری است (NULL یعنی همه).
+     */
+    String LIST_ROW_SELECT = "SELECT new com.paymaster.backend.domain.valueobject.ContractListRow(" +
+            "c.id, c.contractNumber, c.customer.id, " +
+            "(SELECT cu.fullName FROM Customer cu WHERE cu.id = c.customer.id), " +
+            "c.principalAmount, c.totalAmount, c.installmentCount, c.startDate, c.status, c.createdAt, " +
+            "c.paidCount, c.paidTotal) " +
+            "FROM Contract c WHERE (:status IS NULL OR c.status = :status)";
+
+    /**
+     * اولین صفحه لیست قراردادها (جدیدترین‌ها) به ترتیب {@code (createdAt DESC, id DESC)}.
+     * @param status وضعیت قرارداد (NULL برای همه).
+     * @param limit تعداد ردیف‌ها (فقط اندازه صفحه استفاده می‌شود).
+     * @return ردیف‌های لیست.
+     */
+    @Query(LIST_ROW_SELECT + " ORDER BY c.createdAt DESC, c.id DESC")
+    List<ContractListRow> findListRowsFirst(@Param("status") ContractStatus status, Pageable limit);
+
+    /**
+     * ردیف‌های قدیمی‌تر از مکان‌نما (صفحه بعد) به ترتیب نزولی، بدون OFFSET.
+     * شرط اول ({@code createdAt <= :createdAt}) محدوده پیمایش ایندکس را مشخص می‌کند و شرط دوم ردیف‌های هم‌زمان را جدا می‌کند.
+     * @param status وضعیت قرارداد (NULL برای همه).
+     * @param createdAt زمان ایجاد آخرین ردیف صفحه فعلی.
+     * @param id شناسه آخرین ردیف صفحه فعلی.
+     * @param limit تعداد ردیف‌ها.
+     * @return ردیف‌های لیست.
      */
-    Optional<String> findFirstByOrderByContractNumberDesc();
+    @Query(LIST_ROW_SELECT + " AND c.createdAt <= :createdAt AND (c.createdAt < :createdAt OR c.id < :id)" +
+            " ORDER BY c.createdAt DESC, c.id DESC")
+    List<ContractListRow> findListRowsAfter(@Param("status") ContractStatus status,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            Pageable limit);
 
+    /**
+     * ردیف‌های جدیدتر از مکان‌نما (صفحه قبل) به ترتیب صعودی (نزدیک‌ترین ردیف اول)؛ فراخواننده ترتیب را برمی‌گرداند.
+     * @param status وضعیت قرارداد (NULL برای همه).
+     * @param createdAt زمان ایجاد اولین ردیف صفحه فعلی.
+     * @param id شناسه اولین ردیف صفحه فعلی.
+     * @param limit تعداد ردیف‌ها.
+     * @return ردیف‌های لیست.
+     */
+    @Query(LIST_ROW_SELECT + " AND c.createdAt >= :createdAt AND (c.createdAt > :createdAt OR c.id > :id)" +
+            " ORDER BY c.createdAt ASC, c.id ASC")
+    List<ContractListRow> findListRowsBefore(@Param("status") ContractStatus status,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id,
+                                             Pageable limit);
 
     /**
-     * بازیابی قراردادهای معوق (Overdue) - قراردادهایی که فعال هستند و حداقل یک قسط معوق (سررسید گذشته و در انتظار پرداخت) دارند.
+     * بازیابی قراردادهای معوق (Overdue) - قراردادهایی که فعال یا معوق هستند و حداقل یک قسط معوق (سررسید گذشته و پرداخت نشده) دارند.
      * @param today تاریخ امروز.
      * @return لیستی از قراردادهای معوق.
      */
     @Query("SELECT DISTINCT c FROM Contract c JOIN c.installments i " +
-            "WHERE c.status = 'ACTIVE' AND i.status = 'PENDING' AND i.dueDate < :today")
+            "WHERE c.status IN ('ACTIVE', 'OVERDUE') AND i.status IN ('PENDING', 'OVERDUE') AND i.dueDate < :today")
     List<Contract> findOverdueContracts(@Param("today") LocalDate today);
+
+    // ==================== تغییر وضعیت گروهی (کار شبانه) ====================
+
+    /**
+     * شرط قراردادهای قابل تسویه: حداقل یک قسط دارند و همه اقساط آن‌ها پرداخت شده است.
+     */
+    String COMPLETABLE = "c.id > :fromId AND c.id <= :toId " +
+            "AND EXISTS (SELECT 1 FROM Installment i WHERE i.contract.id = c.id) " +
+            "AND NOT EXISTS (SELECT 1 FROM Installment i WHERE i.contract.id = c.id AND i.status NOT IN ('PAID', 'COMPLETED'))";
+
+    /**
+     * شرط قراردادهای فعالی که حداقل یک قسط سررسید گذشته و پرداخت نشده دارند.
+     */
+    String BECOMING_OVERDUE = "c.id > :fromId AND c.id <= :toId AND c.status = 'ACTIVE' " +
+            "AND EXISTS (SELECT 1 FROM Installment i WHERE i.contract.id = c.id " +
+            "AND i.status NOT IN ('PAID', 'COMPLETED') AND i.dueDate < :today)";
+
+    /**
+     * بزرگترین شناسه قرارداد (برای تقسیم کارهای گروهی به بازه‌های شناسه).
+     * @return بزرگترین شناسه یا 0.
+     */
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM Contract c")
+    long findMaxId();
+
+    /**
+     * تعداد و مجموع مبلغ قراردادهای فعالی که در این بازه تسویه خواهند شد (برای به‌روزرسانی آمار پرتفوی).
+     * @return یک ردیف شامل تعداد و مجموع مبلغ کل.
+     */
+    @Query("SELECT COUNT(c), COALESCE(SUM(c.totalAmount), 0) FROM Contract c WHERE c.status = 'ACTIVE' AND " + COMPLETABLE)
+    List<Object[]> summarizeActiveCompletable(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * تغییر وضعیت قراردادهای فعال یا معوقی که همه اقساط آن‌ها پرداخت شده به COMPLETED.
+     * @return تعداد ردیف‌های به‌روزرسانی شده.
+     */
+    @Modifying
+    @Query("UPDATE Contract c SET c.status = 'COMPLETED', c.updatedAt = :now, c.version = c.version + 1 " +
+            "WHERE c.status IN ('ACTIVE', 'OVERDUE') AND " + COMPLETABLE)
+    int completeFullyPaid(@Param("fromId") long fromId, @Param("toId") long toId, @Param("now") LocalDateTime now);
+
+    /**
+     * تعداد و مجموع مبلغ قراردادهای فعالی که در این بازه معوق خواهند شد (برای به‌روزرسانی آمار پرتفوی).
+     * @return یک ردیف شامل تعداد و مجموع مبلغ کل.
+     */
+    @Query("SELECT COUNT(c), COALESCE(SUM(c.totalAmount), 0) FROM Contract c WHERE " + BECOMING_OVERDUE)
+    List<Object[]> summarizeBecomingOverdue(@Param("fromId") long fromId, @Param("toId") long toId, @Param("today") LocalDate today);
+
+    /**
+     * تغییر وضعیت قراردادهای فعال دارای قسط معوق به OVERDUE.
+     * @return تعداد ردیف‌های به‌روزرسانی شده.
+     */
+    @Modifying
+    @Query("UPDATE Contract c SET c.status = 'OVERDUE', c.updatedAt = :now, c.version = c.version + 1 WHERE " + BECOMING_OVERDUE)
+    int markOverdue(@Param("fromId") long fromId, @Param("toId") long toId,
+                    @Param("today") LocalDate today, @Param("now") LocalDateTime now);
+
+    /**
+     * ردیف‌های لیست قراردادها به ترتیب شناسه، به صورت جریانی برای خروجی CSV.
+     * جریان باید داخل تراکنش مصرف و سپس بسته شود.
+     * @param status وضعیت قرارداد (NULL برای همه).
+     * @return جریان ردیف‌های لیست.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = InstallmentRepository.EXPORT_FETCH_SIZE))
+    @Query(LIST_ROW_SELECT + " ORDER BY c.id")
+    Stream<ContractListRow> streamListRows(@Param("status") ContractStatus status);
+
+    // ==================== مانده‌های ذخیره شده ====================
+
+    /**
+     * افزودن اقساطی که کار شبانه در این بازه شناسه OVERDUE خواهد کرد به تعداد اقساط معوق قراردادهای آن‌ها
+     * (پیش از {@code InstallmentRepository.updateOverdueInstallments} و در همان تراکنش).
+     * @return تعداد قراردادهای به‌روزرسانی شده.
+     */
+    @Modifying
+    @Query("UPDATE Contract c SET c.overdueCount = c.overdueCount + " +
+            "(SELECT COUNT(i) FROM Installment i WHERE i.contract.id = c.id AND " + InstallmentRepository.BECOMING_OVERDUE + "), " +
+            "c.version = c.version + 1 " +
+            "WHERE c.id IN (SELECT i.contract.id FROM Installment i WHERE " + InstallmentRepository.BECOMING_OVERDUE + ")")
+    int addBecomingOverdueInstallments(@Param("fromId") long fromId, @Param("toId") long toId, @Param("today") LocalDate today);
+
+    /**
+     * مانده‌های محاسبه شده از اقساط: مجموع پرداخت‌ها، تعداد اقساط پرداخت شده و تعداد اقساط معوق.
+     */
+    String PAID_TOTAL_OF_INSTALLMENTS = "(SELECT COALESCE(SUM(i.paidAmount), 0) FROM Installment i WHERE i.contract.id = c.id)";
+    String PAID_COUNT_OF_INSTALLMENTS = "(SELECT COUNT(i) FROM Installment i WHERE i.contract.id = c.id AND i.status = 'PAID')";
+    String OVERDUE_COUNT_OF_INSTALLMENTS = "(SELECT COUNT(i) FROM Installment i WHERE i.contract.id = c.id AND i.status = 'OVERDUE')";
+
+    /**
+     * شرط قراردادهایی از یک بازه شناسه که مانده‌های ذخیره شده آن‌ها با اقساط مطابقت ندارد.
+     */
+    String BALANCE_DRIFT = "c.id > :fromId AND c.id <= :toId AND (" +
+            "c.paidTotal <> " + PAID_TOTAL_OF_INSTALLMENTS + " OR " +
+            "c.remainingTotal <> c.totalAmount - " + PAID_TOTAL_OF_INSTALLMENTS + " OR " +
+            "c.paidCount <> " + PAID_COUNT_OF_INSTALLMENTS + " OR " +
+            "c.overdueCount <> " + OVERDUE_COUNT_OF_INSTALLMENTS + ")";
+
+    /**
+     * شناسه قراردادهای دارای اختلاف مانده در یک بازه شناسه (برای گزارش).
+     * @return شناسه‌ها.
+     */
+    @Query("SELECT c.id FROM Contract c WHERE " + BALANCE_DRIFT + " ORDER BY c.id")
+    List<Long> findBalanceDrift(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * محاسبه دوباره مانده‌های قراردادهای دارای اختلاف در یک بازه شناسه از روی اقساط.
+     * نسخه افزایش می‌یابد تا پرداخت هم‌زمانی که مانده قدیمی را خوانده است دوباره اجرا شود.
+     * @return تعداد قراردادهای اصلاح شده.
+     */
+    @Modifying
+    @Query("UPDATE Contract c SET " +
+            "c.paidTotal = " + PAID_TOTAL_OF_INSTALLMENTS + ", " +
+            "c.remainingTotal = c.totalAmount - " + PAID_TOTAL_OF_INSTALLMENTS + ", " +
+            "c.paidCount = " + PAID_COUNT_OF_INSTALLMENTS + ", " +
+            "c.overdueCount = " + OVERDUE_COUNT_OF_INSTALLMENTS + ", " +
+            "c.version = c.version + 1 WHERE " + BALANCE_DRIFT)
+    int recomputeBalances(@Param("fromId") long fromId, @Param("toId") long toId);
 }
\ No newline at end of file
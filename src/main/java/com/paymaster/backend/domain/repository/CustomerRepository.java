@@ -1,16 +1,26 @@
 package com.paymaster.backend.domain.repository;
 
 import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.valueobject.CustomerExportRow;
+import com.paymaster.backend.domain.valueobject.CustomerSearchHit;
 import com.paymaster.backend.domain.valueobject.CustomerStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * **ریپازیتوری مشتریان** (Customer Repository).
@@ -26,6 +36,20 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
      */
     Optional<Customer> findByNationalCode(String nationalCode);
 
+    /**
+     * جستجوی دسته‌ای مشتریان بر اساس لیست کدهای ملی (برای ورود گروهی قراردادها).
+     * @param nationalCodes مجموعه کدهای ملی.
+     * @return لیستی از مشتریان پیدا شده.
+     */
+    List<Customer> findByNationalCodeIn(Collection<String> nationalCodes);
+
+    /**
+     * یافتن گروهی مشتریان بر اساس شماره موبایل.
+     * @param mobiles شماره‌های موبایل.
+     * @return مشتریان یافت شده.
+     */
+    List<Customer> findByMobileIn(Collection<String> mobiles);
+
     /**
      * جستجوی مشتری بر اساس شماره موبایل.
      * @param mobile شماره موبایل مشتری.
@@ -115,4 +139,151 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
             "c.nationalCode LIKE CONCAT('%', :keyword, '%') OR " +
             "c.mobile LIKE CONCAT('%', :keyword, '%')")
     Page<Customer> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
-}
\ No newline at end of file
+
+
+    // ==================== صفحه‌بندی Keyset ====================
+
+    /**
+     * شرط جستجوی اختیاری کلمه کلیدی (NULL یعنی همه مشتریان)؛ همانند {@link #searchByKeyword}.
+     */
+    String KEYWORD_FILTER = "(:keyword IS NULL OR " +
+            "LOWER(c.fullName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+            "c.nationalCode LIKE CONCAT('%', :keyword, '%') OR " +
+            "c.mobile LIKE CONCAT('%', :keyword, '%'))";
+
+    /**
+     * اولین صفحه مشتریان (جدیدترین‌ها) به ترتیب {@code (createdAt DESC, id DESC)} با ایندکس {@code idx_customers_keyset}.
+     * @param keyword کلمه کلیدی (NULL برای همه).
+     * @param limit تعداد ردیف‌ها (فقط اندازه صفحه استفاده می‌شود).
+     * @return لیست مشتریان.
+     */
+    @Query("SELECT c FROM Customer c WHERE " + KEYWORD_FILTER + " ORDER BY c.createdAt DESC, c.id DESC")
+    List<Customer> findPageFirst(@Param("keyword") String keyword, Pageable limit);
+
+    /**
+     * مشتریان قدیمی‌تر از مکان‌نما (صفحه بعد) به ترتیب نزولی، بدون OFFSET.
+     * @param keyword کلمه کلیدی (NULL برای همه).
+     * @param createdAt زمان ایجاد آخرین ردیف صفحه فعلی.
+     * @param id شناسه آخرین ردیف صفحه فعلی.
+     * @param limit تعداد ردیف‌ها.
+     * @return لیست مشتریان.
+     */
+    @Query("SELECT c FROM Customer c WHERE " + KEYWORD_FILTER +
+            " AND c.createdAt <= :createdAt AND (c.createdAt < :createdAt OR c.id < :id)" +
+            " ORDER BY c.createdAt DESC, c.id DESC")
+    List<Customer> findPageAfter(@Param("keyword") String keyword,
+                                 @Param("createdAt") LocalDateTime createdAt,
+                                 @Param("id") Long id,
+                                 Pageable limit);
+
+    /**
+     * مشتریان جدیدتر از مکان‌نما (صفحه قبل) به ترتیب صعودی؛ فراخواننده ترتیب را برمی‌گرداند.
+     * @param keyword کلمه کلیدی (NULL برای همه).
+     * @param createdAt زمان ایجاد اولین ردیف صفحه فعلی.
+     * @param id شناسه اولین ردیف صفحه فعلی.
+     * @param limit تعداد ردیف‌ها.
+     * @return لیست مشتریان.
+     */
+    @Query("SELECT c FROM Customer c WHERE " + KEYWORD_FILTER +
+            " AND c.createdAt >= :createdAt AND (c.createdAt > :createdAt OR c.id > :id)" +
+            " ORDER BY c.createdAt ASC, c.id ASC")
+    List<Customer> findPageBefore(@Param("keyword") String keyword,
+                                  @Param("createdAt") LocalDateTime createdAt,
+                                  @Param("id") Long id,
+                                  Pageable limit);
+
+    /**
+     * شمارش مشتریان منطبق با کلمه کلیدی (فقط در صورت درخواست صریح تعداد دقیق).
+     * @param keyword کلمه کلیدی.
+     * @return تعداد مشتریان.
+     */
+    @Query("SELECT COUNT(c) FROM Customer c WHERE " + KEYWORD_FILTER)
+    long countByKeyword(@Param("keyword") String keyword);
+
+    /**
+     * مشتریان به ترتیب شناسه، به صورت جریانی برای خروجی CSV.
+     * جریان باید داخل تراکنش مصرف و سپس بسته شود.
+     * @param status وضعیت مشتری (NULL برای همه).
+     * @return جریان ردیف‌های خروجی.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = InstallmentRepository.EXPORT_FETCH_SIZE))
+    @Query("SELECT new com.paymaster.backend.domain.valueobject.CustomerExportRow(" +
+            "c.id, c.fullName, c.nationalCode, c.mobile, c.phone, c.email, c.postalCode, c.status, c.createdAt) " +
+            "FROM Customer c WHERE (:status IS NULL OR c.status = :status) ORDER BY c.id")
+    Stream<CustomerExportRow> streamExportRows(@Param("status") CustomerStatus status);
+
+    /**
+     * تمام مشتریان به ترتیب ثبت، به صورت جریانی برای ساخت نمایه جستجوی مشتریان در حافظه.
+     * جریان باید داخل تراکنش مصرف و سپس بسته شود.
+     * @return جریان ردیف‌های جستجو.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = InstallmentRepository.EXPORT_FETCH_SIZE))
+    @Query("SELECT new com.paymaster.backend.domain.valueobject.CustomerSearchHit(" +
+            "c.id, c.fullName, c.nationalCode, c.mobile) FROM Customer c ORDER BY c.createdAt, c.id")
+    Stream<CustomerSearchHit> streamSearchHits();
+
+    // ==================== مانده‌های ذخیره شده ====================
+
+    /**
+     * کسر قراردادهای فعالی که کار شبانه در این بازه شناسه تسویه خواهد کرد از مانده مشتریان
+     * (پیش از {@code ContractRepository.completeFullyPaid} و در همان تراکنش).
+     * @return تعداد مشتریان به‌روزرسانی شده.
+     */
+    @Modifying
+    @Query("UPDATE Customer cu SET " +
+            "cu.activeContracts = cu.activeContracts - (SELECT COUNT(c) FROM Contract c WHERE c.customer.id = cu.id " +
+            "AND c.status = 'ACTIVE' AND " + ContractRepository.COMPLETABLE + "), " +
+            "cu.totalDebt = cu.totalDebt - (SELECT COALESCE(SUM(c.remainingTotal), 0) FROM Contract c WHERE c.customer.id = cu.id " +
+            "AND c.status = 'ACTIVE' AND " + ContractRepository.COMPLETABLE + ") " +
+            "WHERE cu.id IN (SELECT c.customer.id FROM Contract c WHERE c.status = 'ACTIVE' AND " + ContractRepository.COMPLETABLE + ")")
+    int releaseCompletableContracts(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * کسر قراردادهای فعالی که کار شبانه در این بازه شناسه معوق خواهد کرد از مانده مشتریان
+     * (پیش از {@code ContractRepository.markOverdue} و در همان تراکنش).
+     * @return تعداد مشتریان به‌روزرسانی شده.
+     */
+    @Modifying
+    @Query("UPDATE Customer cu SET " +
+            "cu.activeContracts = cu.activeContracts - (SELECT COUNT(c) FROM Contract c WHERE c.customer.id = cu.id " +
+            "AND " + ContractRepository.BECOMING_OVERDUE + "), " +
+            "cu.totalDebt = cu.totalDebt - (SELECT COALESCE(SUM(c.remainingTotal), 0) FROM Contract c WHERE c.customer.id = cu.id " +
+            "AND " + ContractRepository.BECOMING_OVERDUE + ") " +
+            "WHERE cu.id IN (SELECT c.customer.id FROM Contract c WHERE " + ContractRepository.BECOMING_OVERDUE + ")")
+    int releaseBecomingOverdueContracts(@Param("fromId") long fromId, @Param("toId") long toId, @Param("today") LocalDate today);
+
+    /**
+     * بزرگترین شناسه مشتری (برای تقسیم کارهای گروهی به بازه‌های شناسه).
+     * @return بزرگترین شناسه یا 0.
+     */
+    @Query("SELECT COALESCE(MAX(cu.id), 0) FROM Customer cu")
+    long findMaxId();
+
+    /**
+     * مانده‌های محاسبه شده از قراردادهای فعال مشتری.
+     */
+    String ACTIVE_CONTRACTS_OF_CUSTOMER = "(SELECT COUNT(c) FROM Contract c WHERE c.customer.id = cu.id AND c.status = 'ACTIVE')";
+    String DEBT_OF_CUSTOMER = "(SELECT COALESCE(SUM(c.remainingTotal), 0) FROM Contract c WHERE c.customer.id = cu.id AND c.status = 'ACTIVE')";
+
+    /**
+     * شرط مشتریانی از یک بازه شناسه که مانده‌های ذخیره شده آن‌ها با قراردادها مطابقت ندارد.
+     */
+    String BALANCE_DRIFT = "cu.id > :fromId AND cu.id <= :toId AND (" +
+            "cu.activeContracts <> " + ACTIVE_CONTRACTS_OF_CUSTOMER + " OR cu.totalDebt <> " + DEBT_OF_CUSTOMER + ")";
+
+    /**
+     * شناسه مشتریان دارای اختلاف مانده در یک بازه شناسه (برای گزارش).
+     * @return شناسه‌ها.
+     */
+    @Query("SELECT cu.id FROM Customer cu WHERE " + BALANCE_DRIFT + " ORDER BY cu.id")
+    List<Long> findBalanceDrift(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * محاسبه دوباره مانده‌های مشتریان دارای اختلاف در یک بازه شناسه از روی مانده‌های قراردادها.
+     * @return تعداد مشتریان اصلاح شده.
+     */
+    @Modifying
+    @Query("UPDATE Customer cu SET cu.activeContracts = " + ACTIVE_CONTRACTS_OF_CUSTOMER + ", " +
+            "cu.totalDebt = " + DEBT_OF_CUSTOMER + " WHERE " + BALANCE_DRIFT)
+    int recomputeBalances(@Param("fromId") long fromId, @Param("toId") long toId);
+}
@@ -0,0 +1,26 @@
+package com.paymaster.backend.domain.repository;
+
+import com.paymaster.backend.domain.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * **ریپازیتوری کلیدهای یکتایی درخواست** (Idempotency Record Repository).
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * حذف کلیدهای منقضی شده.
+     * @param now زمان جاری.
+     * @return تعداد ردیف‌های حذف شده.
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,19 +1,28 @@
 package com.paymaster.backend.domain.repository;
 
 import com.paymaster.backend.domain.entity.Installment;
+import com.paymaster.backend.domain.valueobject.InstallmentDueRow;
+import com.paymaster.backend.domain.valueobject.InstallmentExportRow;
 import com.paymaster.backend.domain.valueobject.InstallmentStatus;
+import com.paymaster.backend.domain.valueobject.OpenInstallmentRow;
 import com.paymaster.backend.domain.valueobject.PaymentMethod;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * **ریپازیتوری اقساط** (Installment Repository).
@@ -29,6 +38,47 @@ public interface InstallmentRepository extends JpaRepository<Installment, Long>
      */
     List<Installment> findByContractIdOrderByInstallmentNumberAsc(Long contractId);
 
+    /**
+     * بازیابی اقساط تسویه نشده یک قرارداد به ترتیب شماره قسط (برای تخصیص پرداخت یکجا).
+     * @param contractId شناسه قرارداد.
+     * @return اقساط با وضعیت غیر از PAID، قدیمی‌ترین اول.
+     */
+    @Query("SELECT i FROM Installment i WHERE i.contract.id = :contractId AND i.status <> 'PAID' " +
+            "ORDER BY i.installmentNumber ASC")
+    List<Installment> findOutstandingByContractId(@Param("contractId") Long contractId);
+
+    /**
+     * شناسه قراردادهایی (از بین قراردادهای داده شده) که هنوز قسط تسویه نشده دارند.
+     * @param contractIds شناسه‌های قرارداد.
+     * @return شناسه قراردادهای دارای قسط باز.
+     */
+    @Query("SELECT DISTINCT i.contract.id FROM Installment i WHERE i.contract.id IN :contractIds AND i.status <> 'PAID'")
+    List<Long> findContractIdsWithOutstanding(@Param("contractIds") Collection<Long> contractIds);
+
+    /**
+     * شماره رسیدهایی (از بین شماره‌های داده شده) که قبلاً روی قسطی ثبت شده‌اند.
+     * @param receiptNumbers شماره‌های رسید.
+     * @return شماره رسیدهای ثبت شده.
+     */
+    @Query("SELECT DISTINCT i.receiptNumber FROM Installment i WHERE i.receiptNumber IN :receiptNumbers")
+    List<String> findExistingReceiptNumbers(@Param("receiptNumbers") Collection<String> receiptNumbers);
+
+    /**
+     * قدیمی‌ترین قسط باز هر قرارداد مشتریان داده شده برای تطبیق صورتحساب بانک
+     * (فقط ستون‌های لازم، بدون بارگذاری موجودیت‌ها)، به ترتیب قرارداد.
+     * @param customerIds شناسه‌های مشتری.
+     * @return ردیف‌های قسط باز (حداکثر یکی برای هر قرارداد).
+     */
+    @Query("SELECT new com.paymaster.backend.domain.valueobject.OpenInstallmentRow(" +
+            "i.id, c.id, c.customer.id, i.installmentNumber, i.dueDate, i.amount - i.paidAmount, i.penaltyAmount, " +
+            "c.penaltyRate, i.penaltyAccruedThrough, i.paymentDate) " +
+            "FROM Installment i JOIN i.contract c " +
+            "WHERE c.customer.id IN :customerIds AND i.status <> 'PAID' " +
+            "AND i.installmentNumber = (SELECT MIN(o.installmentNumber) FROM Installment o " +
+            "WHERE o.contract = c AND o.status <> 'PAID') " +
+            "ORDER BY c.id")
+    List<OpenInstallmentRow> findOpenRowsByCustomerIds(@Param("customerIds") Collection<Long> customerIds);
+
     /**
      * بازیابی اقساط یک قرارداد مشخص با قابلیت صفحه‌بندی.
      * @param contractId شناسه قرارداد.
@@ -37,6 +87,14 @@ public interface InstallmentRepository extends JpaRepository<Installment, Long>
      */
     Page<Installment> findByContractId(Long contractId, Pageable pageable);
 
+    /**
+     * شناسه قرارداد یک قسط (بدون بارگذاری قسط).
+     * @param id شناسه قسط.
+     * @return یک Optional شامل شناسه قرارداد.
+     */
+    @Query("SELECT i.contract.id FROM Installment i WHERE i.id = :id")
+    Optional<Long> findContractIdById(@Param("id") Long id);
+
     /**
      * بازیابی اقساط بر اساس وضعیت مشخص.
      * @param status وضعیت قسط.
@@ -68,31 +126,14 @@ public interface InstallmentRepository extends JpaRepository<Installment, Long>
      */
     List<Installment> findByDueDateAndStatus(LocalDate dueDate, InstallmentStatus status);
 
-    /**
-     * بازیابی اقساط سررسید گذشته (معوق) که وضعیت آن‌ها "در انتظار پرداخت" است.
-     * @param today تاریخ امروز.
-     * @return لیستی از اقساط معوق.
-     */
-    @Query("SELECT i FROM Installment i WHERE i.dueDate < :today AND i.status = 'PENDING'")
-    List<Installment> findOverdueInstallments(@Param("today") LocalDate today);
-
     /**
      * شمارش تعداد اقساط معوق.
      * @param today تاریخ امروز.
      * @return تعداد اقساط معوق.
      */
-    @Query("SELECT COUNT(i) FROM Installment i WHERE i.dueDate < :today AND i.status = 'PENDING'")
+    @Query("SELECT COUNT(i) FROM Installment i WHERE i.dueDate < :today AND i.status IN ('PENDING', 'OVERDUE')")
     long countOverdueInstallments(@Param("today") LocalDate today);
 
-    /**
-     * بازیابی اقساطی که سررسید آن‌ها در هفته جاری است و در وضعیت "در انتظار پرداخت" قرار دارند.
-     * @param startOfWeek تاریخ شروع هفته.
-     * @param endOfWeek تاریخ پایان هفته.
-     * @return لیستی از اقساط.
-     */
-    @Query("SELECT i FROM Installment i WHERE i.dueDate BETWEEN :startOfWeek AND :endOfWeek AND i.status = 'PENDING'")
-    List<Installment> findInstallmentsDueThisWeek(@Param("startOfWeek") LocalDate startOfWeek, @Param("endOfWeek") LocalDate endOfWeek);
-
     /**
      * بازیابی اقساطی که سررسید آن‌ها در ماه جاری است و در وضعیت "در انتظار پرداخت" قرار دارند.
      * @param startOfMonth تاریخ شروع ماه.
@@ -116,7 +157,7 @@ public interface InstallmentRepository extends JpaRepository<Installment, Long>
      * @return مجموع مبلغ باقیمانده اقساط معوق.
      */
     @Query("SELECT COALESCE(SUM(i.amount - i.paidAmount), 0) FROM Installment i " +
-            "WHERE i.dueDate < :today AND i.status = 'PENDING'")
+            "WHERE i.dueDate < :today AND i.status IN ('PENDING', 'OVERDUE')")
     Long sumOverdueAmount(@Param("today") LocalDate today);
 
     /**
@@ -136,14 +177,51 @@ public interface InstallmentRepository extends JpaRepository<Installment, Long>
 
 
     /**
-     * به‌روزرسانی وضعیت اقساط معوق (به وضعیت OVERDUE).
+     * بزرگترین شناسه قسط (برای تقسیم کارهای گروهی به بازه‌های شناسه).
+     * @return بزرگترین شناسه یا 0.
+     */
+    @Query("SELECT COALESCE(MAX(i.id), 0) FROM Installment i")
+    long findMaxId();
+
+    /**
+     * شرط اقساطی که کار شبانه در یک بازه شناسه OVERDUE می‌کند
+     * (همچنین در {@code ContractRepository.addBecomingOverdueInstallments}).
+     */
+    String BECOMING_OVERDUE = "i.id > :fromId AND i.id <= :toId AND i.dueDate < :today AND i.status = 'PENDING'";
+
+    /**
+     * به‌روزرسانی وضعیت اقساط معوق (به وضعیت OVERDUE) در یک بازه شناسه.
      * **نکته:** نیاز به استفاده از {@code @Modifying} برای کوئری‌های تغییردهنده (Update/Delete).
+     * @param fromId ابتدای بازه شناسه (انحصاری).
+     * @param toId انتهای بازه شناسه (شامل).
      * @param today تاریخ امروز.
+     * @param now زمان جاری (برای updated_at، زیرا UPDATE گروهی از {@code @UpdateTimestamp} عبور می‌کند).
      * @return تعداد ردیف‌های به‌روزرسانی شده.
      */
     @Modifying
-    @Query("UPDATE Installment i SET i.status = 'OVERDUE' WHERE i.dueDate < :today AND i.status = 'PENDING'")
-    int updateOverdueInstallments(@Param("today") LocalDate today);
+    @Query("UPDATE Installment i SET i.status = 'OVERDUE', i.updatedAt = :now, i.version = i.version + 1 " +
+            "WHERE " + BECOMING_OVERDUE)
+    int updateOverdueInstallments(@Param("fromId") long fromId,
+                                  @Param("toId") long toId,
+                                  @Param("today") LocalDate today,
+                                  @Param("now") LocalDateTime now);
+
+    /**
+     * بازیابی صفحه بعدی اقساط معوقی که جریمه آن‌ها تا تاریخ مشخص محاسبه نشده است (صفحه‌بندی Keyset بر اساس شناسه).
+     * قرارداد هر قسط برای خواندن نرخ جریمه همراه آن بارگذاری می‌شود.
+     * @param afterId شناسه آخرین قسط صفحه قبلی (برای صفحه اول 0).
+     * @param asOf تاریخی که جریمه باید تا آن محاسبه شود.
+     * @param pageable اندازه صفحه (شماره صفحه همیشه 0 است).
+     * @return اقساط با شناسه بزرگتر از afterId، مرتب شده بر اساس شناسه.
+     */
+    @Query("SELECT i FROM Installment i JOIN FETCH i.contract " +
+            "WHERE i.id > :afterId AND i.dueDate < :asOf " +
+            "AND i.status IN ('PENDING', 'OVERDUE', 'PARTIALLY_PAID') " +
+            "AND (i.penaltyAccruedThrough IS NULL OR i.penaltyAccruedThrough < :asOf) " +
+            "ORDER BY i.id")
+    List<Installment> findPenaltyAccrualChunk(@Param("afterId") long afterId,
+                                              @Param("asOf") LocalDate asOf,
+                                              Pageable pageable);
 
     /**
      * خلاصه اقساط ماهانه (مبلغ کل) برای یک سال مشخص (برای نمودار).
@@ -164,4 +242,185 @@ public interface InstallmentRepository extends JpaRepository<Installment, Long>
             "FROM Installment i WHERE i.status = 'PAID' AND i.paymentMethod IS NOT NULL " +
             "GROUP BY i.paymentMethod")
     List<Object[]> getPaymentMethodStatistics();
-}
\ No newline at end of file
+
+
+    // ==================== اقساط معوق و سررسید نزدیک (مدل خواندنی، صفحه‌بندی بر اساس سررسید) ====================
+
+    /**
+     * ستون‌های {@link InstallmentDueRow}: فیلدهای قسط همراه با شماره قرارداد و نام مشتری با JOIN (بدون N+1).
+     */
+    String DUE_ROW_SELECT = "SELECT new com.paymaster.backend.domain.valueobject.InstallmentDueRow(" +
+            "i.id, c.id, c.contractNumber, c.installmentCount, cu.id, cu.fullName, " +
+            "i.installmentNumber, i.dueDate, i.amount, i.paidAmount, i.penaltyAmount, i.status) " +
+            "FROM Installment i JOIN i.contract c JOIN c.customer cu WHERE ";
+
+    /**
+     * شرط اقساط معوق: سررسید گذشته و وضعیت "در انتظار پرداخت" یا "سررسید گذشته"
+     * (وضعیت OVERDUE توسط کار شبانه تغییر وضعیت تنظیم می‌شود؛ تا پیش از اجرای آن، قسط معوق هنوز PENDING است).
+     * با ایندکس {@code idx_installments_status_due} خوانده می‌شود.
+     */
+    String OVERDUE_FILTER = "i.dueDate < :today AND i.status IN ('PENDING', 'OVERDUE')";
+
+    /**
+     * شرط اقساط سررسید نزدیک: وضعیت "در انتظار پرداخت" و سررسید در بازه داده شده
+     * (پیمایش مستقیم بازه ایندکس {@code idx_installments_status_due} به همان ترتیب نمایش).
+     */
+    String UPCOMING_FILTER = "i.status = 'PENDING' AND i.dueDate BETWEEN :from AND :to";
+
+    /**
+     * اولین صفحه اقساط معوق، بیشترین تأخیر اول (ترتیب {@code (dueDate ASC, id ASC)}).
+     * @param today تاریخ امروز.
+     * @param limit تعداد ردیف‌ها (فقط اندازه صفحه استفاده می‌شود).
+     * @return ردیف‌های لیست.
+     */
+    @Query(DUE_ROW_SELECT + OVERDUE_FILTER + " ORDER BY i.dueDate ASC, i.id ASC")
+    List<InstallmentDueRow> findOverdueRowsFirst(@Param("today") LocalDate today, Pageable limit);
+
+    /**
+     * اقساط معوق پس از مکان‌نما (تأخیر کمتر) به ترتیب صعودی سررسید، بدون OFFSET.
+     * @param today تاریخ امروز.
+     * @param dueDate سررسید آخرین ردیف صفحه فعلی.
+     * @param id شناسه آخرین ردیف صفحه فعلی.
+     * @param limit تعداد ردیف‌ها.
+     * @return ردیف‌های لیست.
+     */
+    @Query(DUE_ROW_SELECT + OVERDUE_FILTER + " AND i.dueDate >= :dueDate AND (i.dueDate > :dueDate OR i.id > :id)" +
+            " ORDER BY i.dueDate ASC, i.id ASC")
+    List<InstallmentDueRow> findOverdueRowsAfter(@Param("today") LocalDate today,
+                                                 @Param("dueDate") LocalDate dueDate,
+                                                 @Param("id") Long id,
+                                                 Pageable limit);
+
+    /**
+     * اقساط معوق پیش از مکان‌نما (تأخیر بیشتر) به ترتیب نزولی سررسید؛ فراخواننده ترتیب را برمی‌گرداند.
+     * @param today تاریخ امروز.
+     * @param dueDate سررسید اولین ردیف صفحه فعلی.
+     * @param id شناسه اولین ردیف صفحه فعلی.
+     * @param limit تعداد ردیف‌ها.
+     * @return ردیف‌های لیست.
+     */
+    @Query(DUE_ROW_SELECT + OVERDUE_FILTER + " AND i.dueDate <= :dueDate AND (i.dueDate < :dueDate OR i.id < :id)" +
+            " ORDER BY i.dueDate DESC, i.id DESC")
+    List<InstallmentDueRow> findOverdueRowsBefore(@Param("today") LocalDate today,
+                                                  @Param("dueDate") LocalDate dueDate,
+                                                  @Param("id") Long id,
+                                                  Pageable limit);
+
+    /**
+     * اولین صفحه اقساط سررسید نزدیک، نزدیک‌ترین سررسید اول (ترتیب {@code (dueDate ASC, id ASC)}).
+     * @param from ابتدای بازه سررسید.
+     * @param to انتهای بازه سررسید.
+     * @param limit تعداد ردیف‌ها (فقط اندازه صفحه استفاده می‌شود).
+     * @return ردیف‌های لیست.
+     */
+    @Query(DUE_ROW_SELECT + UPCOMING_FILTER + " ORDER BY i.dueDate ASC, i.id ASC")
+    List<InstallmentDueRow> findUpcomingRowsFirst(@Param("from") LocalDate from, @Param("to") LocalDate to, Pageable limit);
+
+    /**
+     * اقساط سررسید نزدیک پس از مکان‌نما به ترتیب صعودی سررسید، بدون OFFSET.
+     * @param from ابتدای بازه سررسید.
+     * @param to انتهای بازه سررسید.
+     * @param dueDate سررسید آخرین ردیف صفحه فعلی.
+     * @param id شناسه آخرین ردیف صفحه فعلی.
+     * @param limit تعداد ردیف‌ها.
+     * @return ردیف‌های لیست.
+     */
+    @Query(DUE_ROW_SELECT + UPCOMING_FILTER + " AND i.dueDate >= :dueDate AND (i.dueDate > :dueDate OR i.id > :id)" +
+            " ORDER BY i.dueDate ASC, i.id ASC")
+    List<InstallmentDueRow> findUpcomingRowsAfter(@Param("from") LocalDate from,
+                                                  @Param("to") LocalDate to,
+                                                  @Param("dueDate") LocalDate dueDate,
+                                                  @Param("id") Long id,
+                                                  Pageable limit);
+
+    /**
+     * اقساط سررسید نزدیک پیش از مکان‌نما به ترتیب نزولی سررسید؛ فراخواننده ترتیب را برمی‌گرداند.
+     * @param from ابتدای بازه سررسید.
+     * @param to انتهای بازه سررسید.
+     * @param dueDate سررسید اولین ردیف صفحه فعلی.
+     * @param id شناسه اولین ردیف صفحه فعلی.
+     * @param limit تعداد ردیف‌ها.
+     * @return ردیف‌های لیست.
+     */
+    @Query(DUE_ROW_SELECT + UPCOMING_FILTER + " AND i.dueDate <= :dueDate AND (i.dueDate < :dueDate OR i.id < :id)" +
+            " ORDER BY i.dueDate DESC, i.id DESC")
+    List<InstallmentDueRow> findUpcomingRowsBefore(@Param("from") LocalDate from,
+                                                   @Param("to") LocalDate to,
+                                                   @Param("dueDate") LocalDate dueDate,
+                                                   @Param("id") Long id,
+                                                   Pageable limit);
+
+    /**
+     * شمارش اقساط سررسید نزدیک (فقط در صورت درخواست صریح تعداد دقیق).
+     * @param from ابتدای بازه سررسید.
+     * @param to انتهای بازه سررسید.
+     * @return تعداد اقساط.
+     */
+    @Query("SELECT COUNT(i) FROM Installment i WHERE " + UPCOMING_FILTER)
+    long countUpcoming(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // ==================== صفحه‌بندی Keyset ====================
+
+    /**
+     * اولین صفحه اقساط (جدیدترین‌ها) به ترتیب {@code (createdAt DESC, id DESC)} با ایندکس {@code idx_installments_keyset}.
+     * @param status وضعیت قسط (NULL برای همه).
+     * @param limit تعداد ردیف‌ها (فقط اندازه صفحه استفاده می‌شود).
+     * @return لیست اقساط (قرارداد بارگذاری نمی‌شود).
+     */
+    @Query("SELECT i FROM Installment i WHERE (:status IS NULL OR i.status = :status) " +
+            "ORDER BY i.createdAt DESC, i.id DESC")
+    List<Installment> findPageFirst(@Param("status") InstallmentStatus status, Pageable limit);
+
+    /**
+     * اقساط قدیمی‌تر از مکان‌نما (صفحه بعد) به ترتیب نزولی، بدون OFFSET.
+     * @param status وضعیت قسط (NULL برای همه).
+     * @param createdAt زمان ایجاد آخرین ردیف صفحه فعلی.
+     * @param id شناسه آخرین ردیف صفحه فعلی.
+     * @param limit تعداد ردیف‌ها.
+     * @return لیست اقساط.
+     */
+    @Query("SELECT i FROM Installment i WHERE (:status IS NULL OR i.status = :status) " +
+            "AND i.createdAt <= :createdAt AND (i.createdAt < :createdAt OR i.id < :id) " +
+            "ORDER BY i.createdAt DESC, i.id DESC")
+    List<Installment> findPageAfter(@Param("status") InstallmentStatus status,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id,
+                                    Pageable limit);
+
+    /**
+     * اقساط جدیدتر از مکان‌نما (صفحه قبل) به ترتیب صعودی؛ فراخواننده ترتیب را برمی‌گرداند.
+     * @param status وضعیت قسط (NULL برای همه).
+     * @param createdAt زمان ایجاد اولین ردیف صفحه فعلی.
+     * @param id شناسه اولین ردیف صفحه فعلی.
+     * @param limit تعداد ردیف‌ها.
+     * @return لیست اقساط.
+     */
+    @Query("SELECT i FROM Installment i WHERE (:status IS NULL OR i.status = :status) " +
+            "AND i.createdAt >= :createdAt AND (i.createdAt > :createdAt OR i.id > :id) " +
+            "ORDER BY i.createdAt ASC, i.id ASC")
+    List<Installment> findPageBefore(@Param("status") InstallmentStatus status,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id,
+                                     Pageable limit);
+
+    // ==================== خروجی جریانی ====================
+
+    /**
+     * تعداد ردیف‌هایی که در هر رفت و برگشت از درایور JDBC خوانده می‌شوند (مشترک بین تمام کوئری‌های خروجی).
+     */
+    String EXPORT_FETCH_SIZE = "1000";
+
+    /**
+     * اقساط همراه با شماره قرارداد و مشخصات مشتری به ترتیب شناسه، به صورت جریانی برای خروجی CSV.
+     * جریان باید داخل تراکنش مصرف و سپس بسته شود.
+     * @param status وضعیت قسط (NULL برای همه).
+     * @return جریان ردیف‌های خروجی.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT new com.paymaster.backend.domain.valueobject.InstallmentExportRow(" +
+            "i.id, c.contractNumber, cu.fullName, cu.nationalCode, i.installmentNumber, i.dueDate, " +
+            "i.amount, i.paidAmount, i.penaltyAmount, i.status, i.paymentDate, i.paymentMethod, i.receiptNumber) " +
+            "FROM Installment i JOIN i.contract c JOIN c.customer cu " +
+            "WHERE (:status IS NULL OR i.status = :status) ORDER BY i.id")
+    Stream<InstallmentExportRow> streamExportRows(@Param("status") InstallmentStatus status);
+}
@@ -0,0 +1,45 @@
+package com.paymaster.backend.domain.repository;
+
+import com.paymaster.backend.domain.entity.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * **ریپازیتوری اجاره کارهای زمان‌بندی شده** (Job Lease Repository).
+ * تصاحب و آزادسازی اجاره با UPDATE شرطی انجام می‌شود تا از بین چند نمونه هم‌زمان تنها یکی موفق شود.
+ */
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    /**
+     * تصاحب اجاره در صورتی که منقضی شده باشد یا از قبل در اختیار همین نمونه باشد.
+     * @param jobName نام کار.
+     * @param owner شناسه نمونه برنامه.
+     * @param now زمان جاری.
+     * @param leasedUntil زمان انقضای اجاره جدید.
+     * @return 1 در صورت موفقیت، 0 اگر نمونه دیگری اجاره معتبر دارد.
+     */
+    @Modifying
+    @Query("UPDATE JobLease l SET l.owner = :owner, l.leasedUntil = :leasedUntil " +
+            "WHERE l.jobName = :jobName AND (l.leasedUntil < :now OR l.owner = :owner)")
+    int tryAcquire(@Param("jobName") String jobName,
+                   @Param("owner") String owner,
+                   @Param("now") LocalDateTime now,
+                   @Param("leasedUntil") LocalDateTime leasedUntil);
+
+    /**
+     * آزادسازی اجاره (فقط توسط نمونه‌ای که آن را در اختیار دارد).
+     * @param jobName نام کار.
+     * @param owner شناسه نمونه برنامه.
+     * @param now زمان جاری (به عنوان زمان انقضای جدید).
+     * @return تعداد ردیف‌های به‌روزرسانی شده.
+     */
+    @Modifying
+    @Query("UPDATE JobLease l SET l.leasedUntil = :now WHERE l.jobName = :jobName AND l.owner = :owner")
+    int release(@Param("jobName") String jobName, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
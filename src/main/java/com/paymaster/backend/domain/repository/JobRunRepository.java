@@ -0,0 +1,21 @@
+package com.paymaster.backend.domain.repository;
+
+import com.paymaster.backend.domain.entity.JobRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * **ریپازیتوری سابقه اجرای کارهای زمان‌بندی شده** (Job Run Repository).
+ */
+@Repository
+public interface JobRunRepository extends JpaRepository<JobRun, Long> {
+
+    /**
+     * بازیابی آخرین اجراهای یک کار.
+     * @param jobName نام کار.
+     * @return حداکثر 20 اجرای اخیر، جدیدترین در ابتدا.
+     */
+    List<JobRun> findTop20ByJobNameOrderByStartedAtDesc(String jobName);
+}
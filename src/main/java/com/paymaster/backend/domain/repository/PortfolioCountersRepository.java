@@ -0,0 +1,79 @@
+package com.paymaster.backend.domain.repository;
+
+import com.paymaster.backend.domain.entity.PortfolioCounters;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+/**
+ * **ریپازیتوری شمارنده‌های پرتفوی** (Portfolio Counters Repository).
+ * تمام تغییرات به صورت UPDATE اتمیک (افزایش/کاهش نسبی) انجام می‌شوند تا تراکنش‌های هم‌زمان
+ * مقادیر یکدیگر را بازنویسی نکنند.
+ */
+@Repository
+public interface PortfolioCountersRepository extends JpaRepository<PortfolioCounters, Long> {
+
+    /**
+     * اعمال تغییر نسبی در آمار مشتریان.
+     * @param totalDelta تغییر تعداد کل مشتریان.
+     * @param activeDelta تغییر تعداد مشتریان فعال.
+     * @return تعداد ردیف‌های به‌روزرسانی شده (0 اگر ردیف هنوز ایجاد نشده باشد).
+     */
+    @Modifying
+    @Query("UPDATE PortfolioCounters p SET " +
+            "p.totalCustomers = p.totalCustomers + :totalDelta, " +
+            "p.activeCustomers = p.activeCustomers + :activeDelta " +
+            "WHERE p.id = 1")
+    int adjustCustomers(@Param("totalDelta") long totalDelta, @Param("activeDelta") long activeDelta);
+
+    /**
+     * اعمال تغییر نسبی در آمار قراردادها.
+     * @param totalDelta تغییر تعداد کل قراردادها.
+     * @param activeDelta تغییر تعداد قراردادهای فعال.
+     * @param receivableDelta تغییر مجموع مبلغ قراردادهای فعال.
+     * @return تعداد ردیف‌های به‌روزرسانی شده.
+     */
+    @Modifying
+    @Query("UPDATE PortfolioCounters p SET " +
+            "p.totalContracts = p.totalContracts + :totalDelta, " +
+            "p.activeContracts = p.activeContracts + :activeDelta, " +
+            "p.totalReceivable = p.totalReceivable + :receivableDelta " +
+            "WHERE p.id = 1")
+    int adjustContracts(@Param("totalDelta") long totalDelta,
+                        @Param("activeDelta") long activeDelta,
+                        @Param("receivableDelta") long receivableDelta);
+
+    /**
+     * اعمال تغییر نسبی در مبالغ وصولی و جریمه‌ها.
+     * @param receivedDelta تغییر مجموع مبلغ وصول شده.
+     * @param penaltyDelta تغییر مجموع جریمه‌ها.
+     * @return تعداد ردیف‌های به‌روزرسانی شده.
+     */
+    @Modifying
+    @Query("UPDATE PortfolioCounters p SET " +
+            "p.totalReceived = p.totalReceived + :receivedDelta, " +
+            "p.totalPenalty = p.totalPenalty + :penaltyDelta " +
+            "WHERE p.id = 1")
+    int adjustPayments(@Param("receivedDelta") long receivedDelta, @Param("penaltyDelta") long penaltyDelta);
+
+    /**
+     * اعمال تغییر نسبی در آمار معوقات؛ تنها اگر آمار معوقات برای همان روز محاسبه شده باشد.
+     * (در غیر این صورت آمار در اولین خواندن روز جدید دوباره محاسبه می‌شود.)
+     * @param countDelta تغییر تعداد اقساط معوق.
+     * @param amountDelta تغییر مجموع مبلغ معوق.
+     * @param today تاریخ امروز.
+     * @return تعداد ردیف‌های به‌روزرسانی شده.
+     */
+    @Modifying
+    @Query("UPDATE PortfolioCounters p SET " +
+            "p.overdueInstallments = p.overdueInstallments + :countDelta, " +
+            "p.totalOverdue = p.totalOverdue + :amountDelta " +
+            "WHERE p.id = 1 AND p.overdueAsOf = :today")
+    int adjustOverdue(@Param("countDelta") long countDelta,
+                      @Param("amountDelta") long amountDelta,
+                      @Param("today") LocalDate today);
+}
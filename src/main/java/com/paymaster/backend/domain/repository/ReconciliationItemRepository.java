@@ -0,0 +1,43 @@
+package com.paymaster.backend.domain.repository;
+
+import com.paymaster.backend.domain.entity.ReconciliationItem;
+import com.paymaster.backend.domain.valueobject.ReconciliationItemStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * **ریپازیتوری صف بررسی تطبیق صورتحساب** (Reconciliation Item Repository).
+ */
+@Repository
+public interface ReconciliationItemRepository extends JpaRepository<ReconciliationItem, Long> {
+
+    /**
+     * شماره‌های مرجعی (از بین شماره‌های داده شده) که قبلاً در صف بررسی ثبت شده‌اند.
+     * @param references شماره‌های مرجع.
+     * @return شماره‌های مرجع موجود.
+     */
+    @Query("SELECT DISTINCT r.reference FROM ReconciliationItem r WHERE r.reference IN :references")
+    List<String> findExistingReferences(@Param("references") Collection<String> references);
+
+    /**
+     * صفحه بعدی ردیف‌های یک وضعیت به ترتیب شناسه (Keyset بر اساس شناسه).
+     * @param status وضعیت.
+     * @param afterId شناسه آخرین ردیف صفحه قبل (0 برای صفحه اول).
+     * @param pageable اندازه صفحه.
+     * @return ردیف‌ها.
+     */
+    List<ReconciliationItem> findByStatusAndIdGreaterThanOrderByIdAsc(ReconciliationItemStatus status, Long afterId, Pageable pageable);
+
+    /**
+     * شمارش ردیف‌های یک وضعیت.
+     * @param status وضعیت.
+     * @return تعداد.
+     */
+    long countByStatus(ReconciliationItemStatus status);
+}
@@ -0,0 +1,211 @@
+package com.paymaster.backend.domain.service;
+
+import com.paymaster.backend.domain.entity.Contract;
+import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.entity.Installment;
+import com.paymaster.backend.domain.repository.ContractRepository;
+import com.paymaster.backend.domain.repository.CustomerRepository;
+import com.paymaster.backend.domain.valueobject.ContractStatus;
+import com.paymaster.backend.domain.valueobject.InstallmentStatus;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * **سرویس مانده‌های ذخیره شده قرارداد و مشتری** (Account Balance Service).
+ * ستون‌های {@code paid_total}، {@code remaining_total}، {@code paid_count} و {@code overdue_count} قرارداد و
+ * {@code active_contracts} و {@code total_debt} مشتری را نگهداری می‌کند تا نمایش قرارداد و مشتری نیازی به بارگذاری
+ * اقساط و قراردادها نداشته باشد.
+ * <ul>
+ *   <li>مانده قرارداد روی موجودیت خوانده شده برای پرداخت (با افزایش اجباری نسخه) تغییر می‌کند.</li>
+ *   <li>مانده مشتری با UPDATE نسبی تغییر می‌کند تا پرداخت‌های هم‌زمان روی قراردادهای مختلف یک مشتری تداخل نداشته باشند.
+ *   این UPDATE مستقیماً با JDBC اجرا می‌شود و فقط ورودی کش سطح دوم همان مشتری (در تراکنش و دوباره پس از commit)
+ *   باطل می‌شود؛ UPDATE گروهی JPQL کل ناحیه کش مشتریان را در هر پرداخت خالی می‌کرد.</li>
+ * </ul>
+ * متدهای {@code on...} باید مانند {@link PortfolioCountersService} از داخل تراکنش سرویس‌های تغییردهنده فراخوانی شوند.
+ * کارهای شبانه تغییر وضعیت مانده‌ها را با UPDATE گروهی در همان تراکنش اصلاح می‌کنند و {@link #verify} اختلاف‌ها را گزارش و اصلاح می‌کند.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccountBalanceService {
+
+    /**
+     * بیشترین تعداد شناسه‌های دارای اختلاف که در گزارش هر بازه نوشته می‌شود.
+     */
+    private static final int MAX_REPORTED_IDS = 20;
+
+    private final ContractRepository contractRepository;
+    private final CustomerRepository customerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ScheduledJobRunner jobRunner;
+
+    @Value("${paymaster.status-sweep.chunk-size:10000}")
+    private int chunkSize;
+
+    // ==================== رویدادهای قرارداد ====================
+
+    /**
+     * ثبت ایجاد قرارداد جدید در مانده مشتری.
+     * @param contract قرارداد ایجاد شده.
+     */
+    public void onContractCreated(Contract contract) {
+        onContractsCreated(List.of(contract));
+    }
+
+    /**
+     * ثبت ایجاد گروهی قراردادها با یک به‌روزرسانی برای هر مشتری (برای ورود گروهی).
+     * @param contracts قراردادهای ایجاد شده.
+     */
+    public void onContractsCreated(List<Contract> contracts) {
+        Map<Long, long[]> deltas = new HashMap<>();
+        for (Contract contract : contracts) {
+            if (contract.getStatus() == ContractStatus.ACTIVE) {
+                long[] delta = deltas.computeIfAbsent(contract.getCustomer().getId(), id -> new long[2]);
+                delta[0]++;
+                delta[1] += contract.getRemainingTotal();
+            }
+        }
+        adjustCustomers(deltas);
+    }
+
+    /**
+     * ثبت تغییر وضعیت قرارداد (لغو، تسویه و ...) در مانده مشتری.
+     * @param contract قرارداد (با وضعیت جدید).
+     * @param oldStatus وضعیت قبلی قرارداد.
+     */
+    public void onContractStatusChanged(Contract contract, ContractStatus oldStatus) {
+        boolean wasActive = oldStatus == ContractStatus.ACTIVE;
+        boolean isActive = contract.getStatus() == ContractStatus.ACTIVE;
+        if (wasActive != isActive) {
+            long delta = isActive ? 1 : -1;
+            adjustCustomers(Map.of(contract.getCustomer().getId(), new long[]{delta, delta * contract.getRemainingTotal()}));
+        }
+    }
+
+    // ==================== رویدادهای قسط ====================
+
+    /**
+     * ثبت پرداخت اقساط در مانده قراردادها و مشتریان.
+     * باید پس از اعمال تغییرات روی اقساط و پیش از تغییر وضعیت قرارداد (تسویه) فراخوانی شود؛
+     * قرارداد هر قسط باید در همین تراکنش برای پرداخت خوانده شده باشد.
+     * @param payments اقساط به‌روزرسانی شده همراه با وضعیت و مبلغ پرداخت شده قبل از پرداخت.
+     */
+    public void onInstallmentsPaid(List<PortfolioCountersService.InstallmentPayment> payments) {
+        Map<Long, long[]> deltas = new HashMap<>();
+        for (PortfolioCountersService.InstallmentPayment payment : payments) {
+            Installment installment = payment.installment();
+            Contract contract = installment.getContract();
+            long amount = installment.getPaidAmount() - payment.paidBefore();
+
+            contract.setPaidTotal(contract.getPaidTotal() + amount);
+            contract.setRemainingTotal(contract.getRemainingTotal() - amount);
+            if (payment.statusBefore() != InstallmentStatus.PAID && installment.getStatus() == InstallmentStatus.PAID) {
+                contract.setPaidCount(contract.getPaidCount() + 1);
+            }
+            if (payment.statusBefore() == InstallmentStatus.OVERDUE && installment.getStatus() != InstallmentStatus.OVERDUE) {
+                contract.setOverdueCount(contract.getOverdueCount() - 1);
+            }
+            if (contract.getStatus() == ContractStatus.ACTIVE) {
+                deltas.computeIfAbsent(contract.getCustomer().getId(), id -> new long[2])[1] -= amount;
+            }
+        }
+        deltas.values().removeIf(delta -> delta[1] == 0);
+        adjustCustomers(deltas);
+    }
+
+    /**
+     * تغییر نسبی تعداد قراردادهای فعال و بدهی مشتریان (بدون بازنویسی تغییرات هم‌زمان دیگر) در یک JDBC Batch.
+     * ستون‌ها در موجودیت مشتری فقط خواندنی‌اند، پس flush موجودیت‌های این تراکنش آن‌ها را بازنویسی نمی‌کند.
+     * تغییرات در انتظار (مثلاً INSERT مشتری تازه در ورود گروهی) مانند UPDATE گروهی JPQL پیش از آن flush می‌شوند
+     * (از طریق ریپازیتوری، تا خطای تداخل نسخه به {@code ConcurrencyFailureException} و تلاش دوباره پرداخت تبدیل شود).
+     * @param deltas شناسه مشتری ← (تغییر تعداد قراردادهای فعال، تغییر بدهی).
+     */
+    private void adjustCustomers(Map<Long, long[]> deltas) {
+        if (deltas.isEmpty()) return;
+        customerRepository.flush();
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((customerId, delta) -> rows.add(new Object[]{delta[0], delta[1], customerId}));
+        jdbcTemplate.batchUpdate("UPDATE customers SET active_contracts = active_contracts + ?, " +
+                "total_debt = total_debt + ? WHERE id = ?", rows);
+
+        Set<Long> customerIds = Set.copyOf(deltas.keySet());
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        Runnable evict = () -> customerIds.forEach(id -> cache.evictEntityData(Customer.class, id));
+        evict.run();
+        // خواننده‌ای که پیش از commit ردیف قدیمی را دوباره در کش گذاشته باشد
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    // ==================== بررسی اختلاف ====================
+
+    /**
+     * **بررسی و اصلاح مانده‌ها** (Balance Verification).
+     * مانده قراردادها از روی اقساط و سپس مانده مشتریان از روی قراردادها دوباره محاسبه می‌شود؛ هر بازه شناسه
+     * در تراکنش مستقل بررسی و فقط ردیف‌های دارای اختلاف اصلاح و گزارش می‌شوند؛ اجاره کار پیش از هر بازه تمدید می‌شود.
+     * (پس از افزودن ستون‌ها به پایگاه داده موجود، اولین اجرا مقدار اولیه همه ردیف‌ها را محاسبه می‌کند.)
+     * @return تعداد قراردادها و مشتریان اصلاح شده.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long verify() {
+        long contracts = verifyRanges("contract", contractRepository.findMaxId(),
+                contractRepository::findBalanceDrift, contractRepository::recomputeBalances);
+        long customers = verifyRanges("customer", customerRepository.findMaxId(),
+                customerRepository::findBalanceDrift, customerRepository::recomputeBalances);
+        if (contracts + customers > 0) {
+            log.warn("Balance drift corrected: {} contract(s), {} customer(s)", contracts, customers);
+        }
+        return contracts + customers;
+    }
+
+    private long verifyRanges(String entity, long maxId, RangeQuery<List<Long>> findDrift, RangeQuery<Integer> recompute) {
+        long corrected = 0;
+        for (long fromId = 0; fromId < maxId; fromId += chunkSize) {
+            jobRunner.renewLease();
+            long toId = Math.min(fromId + chunkSize, maxId);
+            long rangeStart = fromId;
+            corrected += transactionTemplate.execute(status -> {
+                List<Long> drifted = findDrift.apply(rangeStart, toId);
+                if (drifted.isEmpty()) return 0;
+                log.warn("Stored {} balances drifted for ids {}{}", entity,
+                        drifted.subList(0, Math.min(MAX_REPORTED_IDS, drifted.size())),
+                        drifted.size() > MAX_REPORTED_IDS ? " and " + (drifted.size() - MAX_REPORTED_IDS) + " more" : "");
+                return recompute.apply(rangeStart, toId);
+            });
+        }
+        return corrected;
+    }
+
+    /**
+     * پرس‌وجوی یک بازه شناسه {@code (fromId, toId]}.
+     */
+    @FunctionalInterface
+    private interface RangeQuery<R> {
+        R apply(long fromId, long toId);
+    }
+}
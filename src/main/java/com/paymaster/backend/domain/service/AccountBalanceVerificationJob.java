@@ -0,0 +1,46 @@
+package com.paymaster.backend.domain.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * **کار زمان‌بندی شده بررسی مانده‌های ذخیره شده** (Balance Verification Job).
+ * در زمان راه‌اندازی و سپس به صورت دوره‌ای (پیش‌فرض: هر شب ساعت 02:45) مانده‌های ذخیره شده قراردادها و مشتریان را
+ * با اقساط مقایسه کرده و هرگونه اختلاف را گزارش و اصلاح می‌کند.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountBalanceVerificationJob {
+
+    static final String JOB_NAME = "balance-verification";
+
+    private final ScheduledJobRunner jobRunner;
+    private final AccountBalanceService balanceService;
+
+    /**
+     * بررسی مانده‌ها پس از راه‌اندازی برنامه (پس از کارهای تغییر وضعیت، جریمه و تطبیق شمارنده‌ها).
+     */
+    @Order(4)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        verify();
+    }
+
+    /**
+     * اجرای دوره‌ای بررسی بر اساس عبارت cron قابل تنظیم.
+     */
+    @Scheduled(cron = "${paymaster.balances.verify-cron:0 45 2 * * *}")
+    public void verify() {
+        jobRunner.run(JOB_NAME, () -> {
+            long corrected = balanceService.verify();
+            log.info("Stored balances verified ({} row(s) corrected)", corrected);
+            return corrected;
+        });
+    }
+}
@@ -2,14 +2,16 @@ package com.paymaster.backend.domain.service;
 
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 
 /**
  * **سرویس محاسبات مالی** (Calculation Service).
  * مسئولیت محاسبه سود، اقساط، جریمه‌ها و تبدیل واحد پول را بر عهده دارد.
+ * <p>
+ * محاسبات با اعداد صحیح long و ممیز ثابت (نرخ‌ها در مقیاس 10000) و گرد کردن دقیق HALF_UP انجام می‌شوند
+ * و نتایج آن‌ها دقیقاً برابر پیاده‌سازی مرجع BigDecimal ({@link ReferenceCalculations}) است؛
+ * در موارد نادر (سرریز یا نرخ با بیش از 6 رقم اعشار) از همان پیاده‌سازی مرجع استفاده می‌شود.
  */
 @Service
 public class CalculationService {
@@ -25,19 +27,29 @@ public class CalculationService {
     public long calculateSimpleInterest(long principal, double annualRate, int months) {
         if (principal <= 0 || annualRate <= 0 || months <= 0) return 0;
 
-        BigDecimal principalBD = BigDecimal.valueOf(principal);
-        // تبدیل نرخ درصد به ضریب (مثلاً 18 / 100)
-        BigDecimal rateBD = BigDecimal.valueOf(annualRate).divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP);
-        BigDecimal monthsBD = BigDecimal.valueOf(months);
-        BigDecimal twelve = BigDecimal.valueOf(12);
-
-        // Interest = Principal * (Rate / 100) * (Months / 12)
-        BigDecimal interest = principalBD
-                .multiply(rateBD)
-                .multiply(monthsBD)
-                .divide(twelve, 0, RoundingMode.HALF_UP); // گرد کردن به نزدیک‌ترین عدد صحیح ریال
+        long rateBp = toBasisPointsOrUnknown(annualRate);
+        if (rateBp == UNKNOWN) {
+            return ReferenceCalculations.calculateSimpleInterest(principal, annualRate, months);
+        }
+        return calculateSimpleInterestBp(principal, rateBp, months);
+    }
 
-        return interest.longValue();
+    /**
+     * محاسبه **سود ساده** با نرخ بر حسب واحد 0.0001 (مسیر ممیز ثابت بدون ایجاد شیء).
+     * سود = گرد(اصل × نرخ × ماه / 120000)
+     * @param principal مبلغ اصل وام.
+     * @param annualRateBp نرخ سود سالانه در مقیاس 10000 (مثال: 18 درصد = 1800)، خروجی {@link #toBasisPoints}.
+     * @param months مدت زمان قرارداد (به ماه).
+     * @return مبلغ سود محاسبه شده (به ریال).
+     */
+    public long calculateSimpleInterestBp(long principal, long annualRateBp, int months) {
+        if (principal <= 0 || annualRateBp <= 0 || months <= 0) return 0;
+        try {
+            // Interest = Principal * RateBp * Months / (10000 * 12)
+            return divideHalfUp(Math.multiplyExact(Math.multiplyExact(principal, annualRateBp), months), 120_000);
+        } catch (ArithmeticException overflow) {
+            return ReferenceCalculations.calculateSimpleInterest(principal, annualRateBp / 100.0, months);
+        }
     }
 
     /**
@@ -60,10 +72,7 @@ public class CalculationService {
      */
     public long calculateInstallmentAmount(long totalAmount, int installmentCount) {
         if (installmentCount <= 0) return totalAmount;
-        // از BigDecimal برای گرد کردن دقیق استفاده می‌کنیم
-        return BigDecimal.valueOf(totalAmount)
-                .divide(BigDecimal.valueOf(installmentCount), 0, RoundingMode.HALF_UP)
-                .longValue();
+        return divideHalfUp(totalAmount, installmentCount);
     }
 
     /**
@@ -74,9 +83,7 @@ public class CalculationService {
      */
     public long calculatePrincipalPortion(long principal, int installmentCount) {
         if (installmentCount <= 0) return principal;
-        return BigDecimal.valueOf(principal)
-                .divide(BigDecimal.valueOf(installmentCount), 0, RoundingMode.HALF_UP)
-                .longValue();
+        return divideHalfUp(principal, installmentCount);
     }
 
     /**
@@ -87,9 +94,7 @@ public class CalculationService {
      */
     public long calculateInterestPortion(long interest, int installmentCount) {
         if (installmentCount <= 0) return interest;
-        return BigDecimal.valueOf(interest)
-                .divide(BigDecimal.valueOf(installmentCount), 0, RoundingMode.HALF_UP)
-                .longValue();
+        return divideHalfUp(interest, installmentCount);
     }
 
     /**
@@ -103,15 +108,29 @@ public class CalculationService {
     public long calculatePenalty(long remainingAmount, double dailyPenaltyRate, long delayDays) {
         if (delayDays <= 0 || remainingAmount <= 0 || dailyPenaltyRate <= 0) return 0;
 
-        BigDecimal remaining = BigDecimal.valueOf(remainingAmount);
-        // تبدیل نرخ درصد به ضریب (مثلاً 0.5 / 100)
-        BigDecimal rate = BigDecimal.valueOf(dailyPenaltyRate).divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP);
-        BigDecimal days = BigDecimal.valueOf(delayDays);
-
-        // Penalty = Remaining Amount * (Daily Rate / 100) * Delay Days
-        BigDecimal penalty = remaining.multiply(rate).multiply(days);
+        long rateBp = toBasisPointsOrUnknown(dailyPenaltyRate);
+        if (rateBp == UNKNOWN) {
+            return ReferenceCalculations.calculatePenalty(remainingAmount, dailyPenaltyRate, delayDays);
+        }
+        return calculatePenaltyBp(remainingAmount, rateBp, delayDays);
+    }
 
-        return penalty.setScale(0, RoundingMode.HALF_UP).longValue();
+    /**
+     * محاسبه **جریمه تأخیر** با نرخ بر حسب واحد 0.0001 (مسیر ممیز ثابت بدون ایجاد شیء).
+     * جریمه = گرد(مبلغ باقیمانده × نرخ × روز / 10000)
+     * @param remainingAmount مبلغ باقیمانده قسط.
+     * @param dailyPenaltyRateBp نرخ جریمه روزانه در مقیاس 10000 (مثال: 0.5 درصد = 50)، خروجی {@link #toBasisPoints}.
+     * @param delayDays تعداد روزهای تأخیر.
+     * @return مبلغ جریمه محاسبه شده (به ریال).
+     */
+    public long calculatePenaltyBp(long remainingAmount, long dailyPenaltyRateBp, long delayDays) {
+        if (delayDays <= 0 || remainingAmount <= 0 || dailyPenaltyRateBp <= 0) return 0;
+        try {
+            // Penalty = Remaining Amount * RateBp * Delay Days / 10000
+            return divideHalfUp(Math.multiplyExact(Math.multiplyExact(remainingAmount, dailyPenaltyRateBp), delayDays), 10_000);
+        } catch (ArithmeticException overflow) {
+            return ReferenceCalculations.calculatePenalty(remainingAmount, dailyPenaltyRateBp / 100.0, delayDays);
+        }
     }
 
     /**
@@ -150,16 +169,19 @@ public class CalculationService {
         if (discountRate < 0) discountRate = 0;
         if (discountRate > 100) discountRate = 100;
 
-        BigDecimal principal = BigDecimal.valueOf(remainingPrincipal);
-        BigDecimal interest = BigDecimal.valueOf(remainingInterest);
-        // تبدیل نرخ تخفیف درصد به ضریب (مثلاً 10 / 100)
-        BigDecimal discountFactor = BigDecimal.valueOf(discountRate).divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP);
-
-        // Discounted Interest = remainingInterest * (1 - discountFactor)
-        BigDecimal discountedInterest = interest.multiply(BigDecimal.ONE.subtract(discountFactor));
-
-        // Total Settlement = Principal + Discounted Interest
-        return principal.add(discountedInterest).setScale(0, RoundingMode.HALF_UP).longValue();
+        long discountBp = toBasisPointsOrUnknown(discountRate);
+        if (discountBp == UNKNOWN) {
+            return ReferenceCalculations.calculateEarlySettlementAmount(remainingPrincipal, remainingInterest, discountRate);
+        }
+        try {
+            // Total Settlement = (Principal * 10000 + Interest * (10000 - DiscountBp)) / 10000
+            long scaled = Math.addExact(
+                    Math.multiplyExact(remainingPrincipal, BP_SCALE),
+                    Math.multiplyExact(remainingInterest, BP_SCALE - discountBp));
+            return divideHalfUp(scaled, BP_SCALE);
+        } catch (ArithmeticException overflow) {
+            return ReferenceCalculations.calculateEarlySettlementAmount(remainingPrincipal, remainingInterest, discountRate);
+        }
     }
 
     /**
@@ -209,4 +231,64 @@ public class CalculationService {
         // از Math.min استفاده می‌شود تا درصد از 100 تجاوز نکند
         return (int) Math.min(100, (paid * 100L) / total);
     }
-}
\ No newline at end of file
+
+    // ==================== محاسبات ممیز ثابت (Fixed-Point) ====================
+
+    /**
+     * مقیاس نرخ‌ها: نرخ درصدی پس از تقسیم بر 100 با 4 رقم اعشار نگهداری می‌شود (1 واحد = 0.0001).
+     */
+    private static final long BP_SCALE = 10_000;
+
+    /**
+     * بزرگ‌ترین نرخ ورودی که تبدیل سریع آن دقیق است (فاصله اعداد double در این محدوده بسیار کمتر از 0.000001 است).
+     */
+    private static final double FAST_RATE_LIMIT = 1_000_000;
+
+    private static final long UNKNOWN = Long.MIN_VALUE;
+
+    /**
+     * تبدیل نرخ درصدی به ضریب در مقیاس 10000 با گرد کردن HALF_UP
+     * (معادل {@code BigDecimal.valueOf(percent).divide(100, 4, HALF_UP)}؛ مثال: 18 → 1800، 0.5 → 50).
+     * @param percent نرخ به درصد.
+     * @return ضریب در مقیاس 10000.
+     * @throws ArithmeticException اگر نرخ خارج از محدوده long باشد.
+     */
+    public long toBasisPoints(double percent) {
+        long bp = toBasisPointsOrUnknown(percent);
+        return bp != UNKNOWN ? bp : ReferenceCalculations.toBasisPoints(percent);
+    }
+
+    /**
+     * مسیر سریع تبدیل نرخ: اگر نرخ حداکثر 6 رقم اعشار داشته باشد، نمایش دهدهی آن
+     * ({@link Double#toString}، که مبنای {@code BigDecimal.valueOf} است) دقیقاً micros / 1000000 است.
+     * @return ضریب در مقیاس 10000، یا {@link #UNKNOWN} اگر نیاز به مسیر BigDecimal باشد.
+     */
+    private static long toBasisPointsOrUnknown(double percent) {
+        if (!(Math.abs(percent) < FAST_RATE_LIMIT)) {
+            return UNKNOWN;
+        }
+        long micros = Math.round(percent * 1_000_000);
+        if (micros / 1_000_000.0 != percent) {
+            return UNKNOWN;
+        }
+        // percent / 100 با 4 رقم اعشار = micros / 10000 (گرد شده)
+        return divideHalfUp(micros, 10_000);
+    }
+
+    /**
+     * تقسیم صحیح با گرد کردن HALF_UP (نیمه‌ها به سمت دور از صفر)، معادل
+     * {@code BigDecimal.divide(divisor, 0, RoundingMode.HALF_UP)}.
+     * @param dividend مقسوم.
+     * @param divisor مقسوم‌علیه (مثبت).
+     * @return خارج قسمت گرد شده.
+     */
+    static long divideHalfUp(long dividend, long divisor) {
+        long quotient = Math.floorDiv(dividend, divisor);
+        long twiceRemainder = 2 * Math.floorMod(dividend, divisor);
+        // برای اعداد منفی کف (floor) به سمت دور از صفر است؛ نیمه دقیق همان کف باقی می‌ماند
+        if (dividend >= 0 ? twiceRemainder >= divisor : twiceRemainder > divisor) {
+            quotient++;
+        }
+        return quotient;
+    }
+}
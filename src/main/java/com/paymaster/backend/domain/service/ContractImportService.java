@@ -0,0 +1,315 @@
+package com.paymaster.backend.domain.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymaster.backend.domain.entity.Contract;
+import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.repository.CustomerRepository;
+import com.paymaster.backend.domain.valueobject.ImportFormat;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * **سرویس ورود گروهی قراردادها** (Bulk Contract Import Service).
+ * فایل CSV یا NDJSON با ستون‌های (کد ملی، مبلغ اصل، نرخ سود، تعداد اقساط، تاریخ شروع شمسی) را
+ * به صورت جریانی (خط به خط) می‌خواند و قراردادها را در دسته‌های با اندازه قابل تنظیم ذخیره می‌کند.
+ * <p>
+ * ستون‌های اختیاری: نرخ جریمه و توضیحات. در NDJSON نام فیلدها:
+ * {@code nationalCode, principal, rate, count, startDate, penaltyRate, description}.
+ * <p>
+ * مصرف حافظه مستقل از اندازه فایل است: در هر لحظه تنها یک دسته در حافظه نگهداری می‌شود،
+ * Persistence Context پس از هر دسته پاک می‌شود و تعداد خطاهای نگهداری شده در گزارش محدود است.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ContractImportService {
+
+    /**
+     * حداکثر تعداد خطاهای ردیفی که جزئیات آن‌ها در گزارش نگهداری می‌شود.
+     */
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ContractService contractService;
+    private final CustomerRepository customerRepository;
+    private final ContractNumberAllocator contractNumberAllocator;
+    private final DateUtils dateUtils;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${paymaster.import.chunk-size:500}")
+    private int defaultChunkSize;
+
+    /**
+     * **ورود گروهی قراردادها** از یک جریان ورودی.
+     * هر دسته در یک تراکنش مستقل ذخیره می‌شود؛ خطای یک ردیف تنها همان ردیف را رد می‌کند.
+     *
+     * @param input جریان فایل ورودی (UTF-8).
+     * @param format قالب فایل.
+     * @param chunkSize تعداد ردیف‌های هر دسته (اختیاری).
+     * @return گزارش ورود شامل تعداد موفق/ناموفق، خطاهای ردیفی و سرعت (قرارداد در ثانیه).
+     * @throws IOException در صورت خطای خواندن فایل.
+     */
+    public ImportReport importContracts(InputStream input, ImportFormat format, Integer chunkSize) throws IOException {
+        int size = chunkSize != null && chunkSize > 0 ? chunkSize : defaultChunkSize;
+        ImportReport report = new ImportReport(format, size);
+        long start = System.nanoTime();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<ImportRow> chunk = new ArrayList<>(size);
+            boolean firstRow = true;
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1); // BOM فایل‌های ذخیره شده با Excel
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (firstRow) {
+                    firstRow = false;
+                    if (format == ImportFormat.CSV && isCsvHeader(line)) {
+                        continue;
+                    }
+                }
+
+                report.totalRows++;
+                try {
+                    chunk.add(format == ImportFormat.CSV ? parseCsv(line, lineNumber) : parseJson(line, lineNumber));
+                } catch (IllegalArgumentException e) {
+                    report.addError(lineNumber, null, e.getMessage());
+                }
+
+                if (chunk.size() >= size) {
+                    processChunk(chunk, report);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processChunk(chunk, report);
+            }
+        }
+
+        report.finish(System.nanoTime() - start);
+        log.info("Contract import finished: {} rows, {} imported, {} failed in {} ms ({} contracts/s)",
+                report.totalRows, report.importedContracts, report.failedRows, report.elapsedMillis, report.contractsPerSecond);
+        return report;
+    }
+
+    /**
+     * پردازش یک دسته: یافتن مشتریان با یک پرس‌وجو، ساخت قراردادها و ذخیره در یک تراکنش.
+     */
+    private void processChunk(List<ImportRow> chunk, ImportReport report) {
+        Set<String> nationalCodes = new HashSet<>();
+        for (ImportRow row : chunk) {
+            nationalCodes.add(row.nationalCode);
+        }
+        Map<String, Customer> customers = new HashMap<>();
+        for (Customer customer : customerRepository.findByNationalCodeIn(nationalCodes)) {
+            customers.put(customer.getNationalCode(), customer);
+        }
+
+        List<Contract> contracts = new ArrayList<>(chunk.size());
+        List<ImportRow> accepted = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            Customer customer = customers.get(row.nationalCode);
+            if (customer == null) {
+                report.addError(row.lineNumber, row.nationalCode, "مشتری با کد ملی " + row.nationalCode + " یافت نشد");
+                continue;
+            }
+            // شماره قرارداد پیش از شروع تراکنش ذخیره تخصیص داده می‌شود (نگاه کنید به ContractService.createContract)
+            contracts.add(contractService.buildContract(contractNumberAllocator.nextContractNumber(), customer,
+                    row.principal, row.rate, row.count, row.startDate, row.penaltyRate, row.description));
+            accepted.add(row);
+        }
+
+        if (!contracts.isEmpty()) {
+            try {
+                contractService.saveContracts(contracts);
+                report.importedContracts += contracts.size();
+            } catch (RuntimeException e) {
+                log.warn("Contract import chunk starting at line {} failed", accepted.get(0).lineNumber, e);
+                for (ImportRow row : accepted) {
+                    report.addError(row.lineNumber, row.nationalCode, "خطا در ذخیره دسته: " + e.getMessage());
+                }
+            }
+        }
+
+        // جدا کردن موجودیت‌های ذخیره شده از Persistence Context (در حالت Open-In-View) برای ثابت ماندن حافظه
+        entityManager.clear();
+    }
+
+    // ==================== تجزیه ردیف‌ها ====================
+
+    private static boolean isCsvHeader(String line) {
+        String first = line.split(",", 2)[0].trim();
+        return first.isEmpty() || !Character.isDigit(first.charAt(0));
+    }
+
+    private ImportRow parseCsv(String line, int lineNumber) {
+        String[] fields = line.split(",", -1);
+        if (fields.length < 5) {
+            throw new IllegalArgumentException("تعداد ستون‌ها کمتر از 5 است");
+        }
+        return toRow(lineNumber,
+                fields[0].trim(),
+                fields[1].trim(),
+                fields[2].trim(),
+                fields[3].trim(),
+                fields[4].trim(),
+                fields.length > 5 ? fields[5].trim() : null,
+                fields.length > 6 && !fields[6].isBlank() ? fields[6].trim() : null);
+    }
+
+    private ImportRow parseJson(String line, int lineNumber) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("JSON نامعتبر است");
+        }
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("JSON نامعتبر است");
+        }
+        return toRow(lineNumber,
+                text(node, "nationalCode"),
+                text(node, "principal"),
+                text(node, "rate"),
+                text(node, "count"),
+                text(node, "startDate"),
+                text(node, "penaltyRate"),
+                text(node, "description"));
+    }
+
+    private ImportRow toRow(int lineNumber, String nationalCode, String principal, String rate, String count,
+                            String startDate, String penaltyRate, String description) {
+        if (nationalCode == null || nationalCode.isEmpty()) {
+            throw new IllegalArgumentException("کد ملی الزامی است");
+        }
+        long principalAmount = parseLong(principal, "مبلغ اصل");
+        if (principalAmount < 1_000_000) {
+            throw new IllegalArgumentException("حداقل مبلغ 1,000,000 ریال است");
+        }
+        double interestRate = parseDouble(rate, "نرخ سود");
+        if (interestRate < 0 || interestRate > 100) {
+            throw new IllegalArgumentException("نرخ سود باید بین 0 تا 100 باشد");
+        }
+        int installmentCount = (int) parseLong(count, "تعداد اقساط");
+        if (installmentCount < 1 || installmentCount > 60) {
+            throw new IllegalArgumentException("تعداد اقساط باید بین 1 تا 60 باشد");
+        }
+        LocalDate start = dateUtils.toGregorianDate(startDate);
+        if (start == null) {
+            throw new IllegalArgumentException("تاریخ شروع نامعتبر است: " + startDate);
+        }
+        Double penalty = penaltyRate == null || penaltyRate.isEmpty() ? null : parseDouble(penaltyRate, "نرخ جریمه");
+        if (penalty != null && penalty < 0) {
+            throw new IllegalArgumentException("نرخ جریمه نمی‌تواند منفی باشد");
+        }
+        if (description != null && description.length() > 500) {
+            throw new IllegalArgumentException("توضیحات نمی‌تواند بیشتر از 500 کاراکتر باشد");
+        }
+        return new ImportRow(lineNumber, nationalCode, principalAmount, interestRate, installmentCount, start, penalty, description);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText().trim();
+    }
+
+    private static long parseLong(String value, String fieldName) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new IllegalArgumentException(fieldName + " نامعتبر است: " + value);
+        }
+    }
+
+    private static double parseDouble(String value, String fieldName) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new IllegalArgumentException(fieldName + " نامعتبر است: " + value);
+        }
+    }
+
+    /**
+     * ردیف تجزیه و اعتبارسنجی شده فایل ورودی.
+     */
+    private record ImportRow(int lineNumber, String nationalCode, long principal, double rate, int count,
+                             LocalDate startDate, Double penaltyRate, String description) {
+    }
+
+    // ==================== گزارش ====================
+
+    /**
+     * **گزارش ورود گروهی** (Import Report).
+     */
+    @Getter
+    public static class ImportReport {
+        private final ImportFormat format;
+        private final int chunkSize;
+        private long totalRows;
+        private long importedContracts;
+        private long failedRows;
+        private final List<RowError> errors = new ArrayList<>();
+        private boolean errorsTruncated;
+        private long elapsedMillis;
+        private double contractsPerSecond;
+
+        ImportReport(ImportFormat format, int chunkSize) {
+            this.format = format;
+            this.chunkSize = chunkSize;
+        }
+
+        void addError(int lineNumber, String nationalCode, String message) {
+            failedRows++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(lineNumber, nationalCode, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        void finish(long elapsedNanos) {
+            errors.sort(Comparator.comparingInt(RowError::getLineNumber));
+            elapsedMillis = elapsedNanos / 1_000_000;
+            contractsPerSecond = elapsedNanos > 0 ? Math.round(importedContracts * 1e10 / elapsedNanos) / 10.0 : 0;
+        }
+    }
+
+    /**
+     * خطای یک ردیف فایل ورودی.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class RowError {
+        private final int lineNumber;
+        private final String nationalCode;
+        private final String message;
+    }
+}
@@ -0,0 +1,161 @@
+package com.paymaster.backend.domain.service;
+
+import com.paymaster.backend.domain.entity.ContractNumberSequence;
+import com.paymaster.backend.domain.repository.ContractNumberSequenceRepository;
+import com.paymaster.backend.domain.repository.ContractRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * **تخصیص‌دهنده شماره قرارداد** (Contract Number Allocator).
+ * شماره‌ها به فرمت C[سال شمسی][ترتیب چهار رقمی] (مثلاً C14040001) تولید می‌شوند.
+ * <p>
+ * برای هر سال شمسی یک ردیف در جدول {@code contract_number_sequences} وجود دارد. هر بار یک بلوک
+ * (پیش‌فرض 50 شماره) در یک تراکنش مستقل و کوتاه رزرو می‌شود و سپس شماره‌ها بدون قفل از یک {@link AtomicLong}
+ * در حافظه توزیع می‌شوند. با رسیدن نوروز، بلوک سال قبل کنار گذاشته شده و بلوک سال جدید رزرو می‌شود.
+ * <p>
+ * **نکته:** شماره‌های باقی‌مانده از یک بلوک (مثلاً پس از راه‌اندازی مجدد یا لغو تراکنش) دوباره استفاده نمی‌شوند؛
+ * بنابراین شماره‌ها یکتا و صعودی هستند اما ممکن است پیوسته نباشند.
+ */
+@Slf4j
+@Component
+public class ContractNumberAllocator {
+
+    private final ContractNumberSequenceRepository sequenceRepository;
+    private final ContractRepository contractRepository;
+    private final DateUtils dateUtils;
+    private final TransactionTemplate requiresNew;
+    private final int blockSize;
+
+    private final AtomicReference<Block> current = new AtomicReference<>();
+    private final ReentrantLock refillLock = new ReentrantLock();
+
+    public ContractNumberAllocator(ContractNumberSequenceRepository sequenceRepository,
+                                   ContractRepository contractRepository,
+                                   DateUtils dateUtils,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${paymaster.contract-number.block-size:50}") int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("خطا: اندازه بلوک شماره قرارداد باید حداقل 1 باشد");
+        }
+        this.sequenceRepository = sequenceRepository;
+        this.contractRepository = contractRepository;
+        this.dateUtils = dateUtils;
+        this.blockSize = blockSize;
+        this.requiresNew = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * **دریافت شماره قرارداد بعدی**.
+     * در حالت عادی تنها یک {@code getAndIncrement} روی بلوک جاری انجام می‌شود؛
+     * تنها هنگام اتمام بلوک یا تغییر سال، یک رزرو پایگاه داده انجام می‌شود.
+     * @return شماره قرارداد یکتا.
+     */
+    public String nextContractNumber() {
+        LocalDate today = LocalDate.now();
+        while (true) {
+            Block block = current.get();
+            if (block != null && block.covers(today)) {
+                long sequence = block.next.getAndIncrement();
+                if (sequence < block.end) {
+                    return format(block.persianYear, sequence);
+                }
+            }
+            refill(block, today);
+        }
+    }
+
+    /**
+     * جایگزینی بلوک تمام شده (یا مربوط به سال قبل) با یک بلوک جدید.
+     * تنها یک رشته رزرو را انجام می‌دهد؛ سایر رشته‌ها پس از آن از بلوک جدید استفاده می‌کنند.
+     * (قفل {@link ReentrantLock} است و نه {@code synchronized}، چون رزرو با پایگاه داده کار می‌کند و
+     * Virtual Thread منتظر I/O داخل بلوک synchronized رشته حامل را آزاد نمی‌کند.)
+     * @param stale بلوکی که فراخوانی‌کننده آن را تمام شده یافته است.
+     * @param today تاریخ امروز.
+     */
+    private void refill(Block stale, LocalDate today) {
+        refillLock.lock();
+        try {
+            if (current.get() != stale) {
+                return;
+            }
+            int persianYear = dateUtils.getPersianYear(today);
+            current.set(reserveBlock(persianYear));
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    /**
+     * رزرو یک بلوک از شمارنده سال در تراکنش مستقل (REQUIRES_NEW) با قفل ردیف.
+     * اگر ردیف سال وجود نداشته باشد، با ادامه بزرگ‌ترین شماره موجود همان سال ایجاد می‌شود.
+     */
+    private Block reserveBlock(int persianYear) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                long start = requiresNew.execute(status -> {
+                    ContractNumberSequence sequence = sequenceRepository.findForUpdate(persianYear)
+                            .orElseGet(() -> sequenceRepository.saveAndFlush(ContractNumberSequence.builder()
+                                    .persianYear(persianYear)
+                                    .nextValue(lastUsedSequence(persianYear) + 1)
+                                    .build()));
+                    long first = sequence.getNextValue();
+                    sequence.setNextValue(first + blockSize);
+                    return first;
+                });
+                log.debug("Reserved contract numbers {}..{} for year {}", start, start + blockSize - 1, persianYear);
+                return new Block(persianYear, dateUtils.getNowruz(persianYear), dateUtils.getNowruz(persianYear + 1),
+                        start, start + blockSize);
+            } catch (DataIntegrityViolationException e) {
+                // ردیف سال هم‌زمان توسط نمونه دیگری از برنامه ایجاد شده است؛ یک بار دیگر با قفل ردیف تلاش می‌کنیم
+                if (attempt >= 2) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * بزرگ‌ترین شماره ترتیبی استفاده شده در یک سال (برای پایگاه داده‌هایی که پیش از این شمارنده وجود داشته‌اند).
+     */
+    private long lastUsedSequence(int persianYear) {
+        return contractRepository.findMaxSequenceByPrefix("C" + persianYear);
+    }
+
+    private static String format(int persianYear, long sequence) {
+        return String.format("C%d%04d", persianYear, sequence);
+    }
+
+    /**
+     * بلوک رزرو شده: بازه [next, end) از شمارنده یک سال شمسی.
+     */
+    private static final class Block {
+        private final int persianYear;
+        private final LocalDate validFrom;
+        private final LocalDate validUntil;
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(int persianYear, LocalDate validFrom, LocalDate validUntil, long start, long end) {
+            this.persianYear = persianYear;
+            this.validFrom = validFrom;
+            this.validUntil = validUntil;
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+
+        private boolean covers(LocalDate date) {
+            return !date.isBefore(validFrom) && date.isBefore(validUntil);
+        }
+    }
+}
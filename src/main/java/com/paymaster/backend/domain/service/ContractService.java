@@ -5,17 +5,24 @@ import com.paymaster.backend.domain.entity.Customer;
 import com.paymaster.backend.domain.entity.Installment;
 import com.paymaster.backend.domain.repository.ContractRepository;
 import com.paymaster.backend.domain.repository.CustomerRepository;
+import com.paymaster.backend.domain.valueobject.ContractListRow;
 import com.paymaster.backend.domain.valueobject.ContractStatus;
 import com.paymaster.backend.domain.valueobject.InstallmentStatus;
+import com.paymaster.backend.domain.valueobject.KeysetCursor;
+import com.paymaster.backend.domain.valueobject.KeysetPage;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,9 +38,16 @@ public class ContractService {
     private final ContractRepository contractRepository;
     private final CustomerRepository customerRepository;
     private final CalculationService calculationService;
+    private final PortfolioCountersService countersService;
+    private final AccountBalanceService balanceService;
+    private final ContractNumberAllocator contractNumberAllocator;
+    private final TransactionTemplate transactionTemplate;
     // فرض می‌شود کلاس DateUtils یک کلاس کمکی برای کار با تاریخ‌های شمسی/میلادی است
     private final DateUtils dateUtils;
 
+    @Value("${paymaster.status-sweep.chunk-size:10000}")
+    private long statusSweepChunkSize;
+
     /**
      * دریافت تمام قراردادها با مرتب‌سازی بر اساس زمان ایجاد (نزولی).
      * @return لیستی از قراردادها.
@@ -43,14 +57,48 @@ public class ContractService {
     }
 
     /**
-     * دریافت قراردادها با قابلیت صفحه‌بندی.
-     * @param page شماره صفحه (از صفر).
+     * **صفحه‌ای از ردیف‌های لیست قراردادها** با صفحه‌بندی Keyset (مکان‌نما به جای شماره صفحه).
+     * هزینه هر صفحه مستقل از عمق آن است و نام مشتری و آمار پرداخت اقساط در همان کوئری محاسبه می‌شوند.
+     * تعداد کل فقط با {@code exactCount} شمرده می‌شود؛ در غیر این صورت برای همه قراردادها و قراردادهای فعال
+     * از شمارنده‌های پرتفوی خوانده می‌شود و برای سایر وضعیت‌ها خالی است.
+     * @param status وضعیت قرارداد (null برای همه).
+     * @param after مکان‌نمای صفحه بعد (قراردادهای قدیمی‌تر) یا null.
+     * @param before مکان‌نمای صفحه قبل (قراردادهای جدیدتر) یا null.
      * @param size تعداد آیتم‌ها در هر صفحه.
-     * @return صفحه‌ای از قراردادها.
+     * @param exactCount شمارش دقیق تعداد کل.
+     * @return صفحه‌ای از ردیف‌های قرارداد.
      */
-    public Page<Contract> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        return contractRepository.findAll(pageable);
+    public KeysetPage<ContractListRow> findListPage(ContractStatus status, String after, String before, int size, boolean exactCount) {
+        KeysetCursor afterCursor = KeysetCursor.decode(after);
+        KeysetCursor beforeCursor = KeysetCursor.decode(before);
+        size = KeysetPage.limitSize(size);
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<ContractListRow> rows;
+        if (beforeCursor != null) {
+            rows = contractRepository.findListRowsBefore(status, beforeCursor.getCreatedAt(), beforeCursor.getId(), limit);
+            if (rows.size() <= size) {
+                // به ابتدای لیست رسیده‌ایم: به جای صفحه ناقص، صفحه اول کامل نمایش داده می‌شود
+                beforeCursor = null;
+                afterCursor = null;
+                rows = contractRepository.findListRowsFirst(status, limit);
+            }
+        } else if (afterCursor != null) {
+            rows = contractRepository.findListRowsAfter(status, afterCursor.getCreatedAt(), afterCursor.getId(), limit);
+        } else {
+            rows = contractRepository.findListRowsFirst(status, limit);
+        }
+        KeysetPage<ContractListRow> page = KeysetPage.of(rows, size, beforeCursor != null,
+                afterCursor == null && beforeCursor == null, ContractListRow::getCreatedAt, ContractListRow::getId);
+
+        if (exactCount) {
+            return page.withTotal(status == null ? contractRepository.count() : contractRepository.countByStatus(status), false);
+        }
+        Long estimate = countersService.findStored()
+                .map(counters -> status == null ? Long.valueOf(counters.getTotalContracts())
+                        : status == ContractStatus.ACTIVE ? Long.valueOf(counters.getActiveContracts()) : null)
+                .orElse(null);
+        return page.withTotal(estimate, true);
     }
 
     /**
@@ -103,16 +151,64 @@ public class ContractService {
      * @return قرارداد ایجاد شده.
      * @throws IllegalArgumentException در صورت یافت نشدن مشتری.
      */
-    @Transactional
+    @Timed("paymaster.service")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Contract createContract(Long customerId, Long principalAmount, Double interestRate, Integer installmentCount, LocalDate startDate, Double penaltyRate, String description) {
+        // 1. تولید شماره قرارداد یکتا پیش از شروع تراکنش:
+        // رزرو بلوک جدید شماره‌ها در تراکنش مستقل انجام می‌شود و نباید هم‌زمان با اتصال تراکنش ایجاد قرارداد
+        // یک اتصال دوم از Pool بگیرد (در بار هم‌زمان بالا باعث اتمام اتصالات Pool می‌شود).
+        String contractNumber = contractNumberAllocator.nextContractNumber();
 
-        // 1. دریافت مشتری
+        return transactionTemplate.execute(status -> createContract(contractNumber, customerId, principalAmount,
+                interestRate, installmentCount, startDate, penaltyRate, description));
+    }
+
+    private Contract createContract(String contractNumber, Long customerId, Long principalAmount, Double interestRate, Integer installmentCount, LocalDate startDate, Double penaltyRate, String description) {
+
+        // 2. دریافت مشتری
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new IllegalArgumentException("خطا: مشتری با شناسه " + customerId + " یافت نشد"));
 
-        // 2. تولید شماره قرارداد یکتا
-        String contractNumber = generateContractNumber();
+        // 3 تا 6. محاسبات و ساخت قرارداد به همراه اقساط
+        Contract contract = buildContract(contractNumber, customer, principalAmount, interestRate, installmentCount, startDate, penaltyRate, description);
+
+        // ذخیره یک‌باره قرارداد به همراه اقساط (Cascade.ALL)
+        // شناسه‌ها از Sequence گرفته می‌شوند، بنابراین INSERT اقساط به صورت دسته‌ای ارسال می‌شود.
+        contract = contractRepository.save(contract);
+
+        // 7. به‌روزرسانی آمار پرتفوی و مانده مشتری در همین تراکنش
+        countersService.onContractCreated(contract);
+        balanceService.onContractCreated(contract);
 
+        return contract;
+    }
+
+    /**
+     * **ذخیره گروهی قراردادها** در یک تراکنش (برای ورود گروهی).
+     * قراردادها باید با {@link #buildContract} ساخته شده باشند؛ آمار پرتفوی با یک به‌روزرسانی اصلاح می‌شود.
+     * @param contracts قراردادهای ساخته شده (به همراه اقساط).
+     */
+    @Transactional
+    public void saveContracts(List<Contract> contracts) {
+        contractRepository.saveAll(contracts);
+        countersService.onContractsCreated(contracts);
+        balanceService.onContractsCreated(contracts);
+    }
+
+    /**
+     * **ساخت قرارداد و اقساط آن بدون ذخیره** (محاسبات مالی، تاریخ پایان و جدول اقساط).
+     * @param contractNumber شماره قرارداد تخصیص داده شده.
+     * @param customer مشتری قرارداد.
+     * @param principalAmount مبلغ اصل وام.
+     * @param interestRate نرخ سود سالانه (به درصد).
+     * @param installmentCount تعداد اقساط.
+     * @param startDate تاریخ شروع قرارداد.
+     * @param penaltyRate نرخ جریمه دیرکرد روزانه (اختیاری، پیش‌فرض 0.5).
+     * @param description توضیحات.
+     * @return قرارداد ساخته شده (ذخیره نشده).
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Contract buildContract(String contractNumber, Customer customer, Long principalAmount, Double interestRate, Integer installmentCount, LocalDate startDate, Double penaltyRate, String description) {
         // 3. محاسبات مالی
         long interestAmount = calculationService.calculateSimpleInterest(principalAmount, interestRate, installmentCount);
         long totalAmount = principalAmount + interestAmount;
@@ -122,7 +218,7 @@ public class ContractService {
         // فرض می‌کنیم dateUtils.addMonthsToPersianDate تاریخ را بر اساس شمسی/میلادی به درستی اضافه می‌کند.
         LocalDate endDate = dateUtils.addMonthsToPersianDate(startDate, installmentCount);
 
-        // 5. ایجاد و ذخیره قرارداد
+        // 5. ایجاد قرارداد
         Contract contract = Contract.builder()
                 .contractNumber(contractNumber)
                 .customer(customer)
@@ -130,6 +226,7 @@ public class ContractService {
                 .interestRate(interestRate)
                 .interestAmount(interestAmount)
                 .totalAmount(totalAmount)
+                .remainingTotal(totalAmount)
                 .installmentCount(installmentCount)
                 .installmentAmount(installmentAmount)
                 .startDate(startDate)
@@ -140,53 +237,15 @@ public class ContractService {
                 .description(description)
                 .build();
 
-        // ذخیره قرارداد برای ایجاد شناسه (ID)
-        contract = contractRepository.save(contract);
-
         // 6. ایجاد اقساط
         generateInstallments(contract);
 
         return contract;
     }
 
-    /**
-     * تولید شماره قرارداد یکتا (C[Year][Sequence]).
-     * @return شماره قرارداد جدید.
-     */
-    private String generateContractNumber() {
-        // فرض می‌کنیم dateUtils.getCurrentPersianYear سال شمسی جاری را برمی‌گرداند (مثلاً 1404).
-        String year = String.valueOf(dateUtils.getCurrentPersianYear());
-
-        // استفاده از روش findFirstByOrderByContractNumberDesc در Repository برای بازیابی آخرین شماره
-        Optional<String> lastNumberOptional = contractRepository.findFirstByOrderByContractNumberDesc();
-
-        int sequence = 1;
-        if (lastNumberOptional.isPresent()) {
-            String last = lastNumberOptional.get();
-
-            // بررسی کنید که آیا شماره قرارداد قبلی با سال جاری شروع شده است (مثلاً C1404)
-            if (last.startsWith("C" + year)) {
-                // فرض می‌کنیم شماره قراردادها به فرمت C[YY][NNNN] هستند
-                // اگر فرمت شما CYYYYNNNN باشد، این قسمت صحیح است:
-                try {
-                    String seqPart = last.substring(5); // مثلاً از C14040001، بخش 0001 را می‌گیرد
-                    sequence = Integer.parseInt(seqPart) + 1;
-                } catch (NumberFormatException e) {
-                    // در صورت خطای تبدیل، از 1 شروع می‌کنیم
-                    sequence = 1;
-                }
-            } else {
-                // اگر سال تغییر کرده باشد، از 1 شروع می‌کنیم
-                sequence = 1;
-            }
-        }
-
-        // فرمت شماره قرارداد به صورت C[سال][چهار رقم ترتیبی] (مثلاً C14040001)
-        return String.format("C%s%04d", year, sequence);
-    }
-
     /**
      * تولید اقساط برای قرارداد (با مدیریت خطای گرد کردن در قسط آخر).
+     * اقساط تنها به لیست قرارداد اضافه می‌شوند و همراه با ذخیره قرارداد (Cascade) ذخیره خواهند شد.
      * @param contract قرارداد والد.
      */
     private void generateInstallments(Contract contract) {
@@ -228,9 +287,6 @@ public class ContractService {
             // اضافه کردن به لیست اقساط قرارداد (مهم برای ذخیره توسط Cascade)
             contract.getInstallments().add(installment);
         }
-
-        // ذخیره مجدد قرارداد که منجر به ذخیره اقساط نیز می‌شود (به دلیل Cascade.ALL)
-        contractRepository.save(contract);
     }
 
     /**
@@ -250,7 +306,10 @@ public class ContractService {
             throw new IllegalArgumentException("قرارداد تسویه شده قابل لغو نیست.");
         }
 
+        ContractStatus oldStatus = contract.getStatus();
         contract.setStatus(ContractStatus.CANCELLED);
+        countersService.onContractStatusChanged(contract, oldStatus);
+        balanceService.onContractStatusChanged(contract, oldStatus);
         // اضافه کردن دلیل لغو به توضیحات
         String currentDescription = contract.getDescription() != null ? contract.getDescription() : "";
         contract.setDescription(currentDescription + "\n[لغو شده در " + LocalDate.now() + "]: " + reason);
@@ -260,32 +319,35 @@ public class ContractService {
 
     /**
      * **بررسی و به‌روزرسانی وضعیت قراردادها** (شامل تکمیل و معوق شدن).
+     * به جای بارگذاری قراردادها و اقساط، در هر بازه شناسه دو UPDATE گروهی با شرط EXISTS اجرا می‌شود
+     * (ابتدا تسویه قراردادهای پرداخت شده، سپس معوق کردن قراردادهای فعال دارای قسط معوق)؛
+     * هر بازه در تراکنش مستقل و همراه با به‌روزرسانی آمار پرتفوی و مانده مشتریان commit می‌شود
+     * (مانده مشتریان پیش از تغییر وضعیت و با همان شرط اصلاح می‌شود).
+     * @return تعداد قراردادهایی که وضعیت آن‌ها تغییر کرده است.
      */
-    @Transactional
-    public void updateContractStatuses() {
-        List<Contract> activeContracts = contractRepository.findByStatus(ContractStatus.ACTIVE);
-
-        for (Contract contract : activeContracts) {
-            // 1. بررسی تکمیل قرارداد (تمام اقساط پرداخت شده باشند)
-            boolean allPaid = contract.getInstallments().stream()
-                    .allMatch(i -> i.getStatus() == InstallmentStatus.PAID || i.getStatus() == InstallmentStatus.COMPLETED);
-
-            if (allPaid) {
-                contract.setStatus(ContractStatus.COMPLETED);
-                contractRepository.save(contract);
-                continue;
-            }
-
-            // 2. بررسی معوق بودن (وجود حداقل یک قسط سررسید گذشته و پرداخت نشده)
-            boolean hasOverdue = contract.getInstallments().stream().anyMatch(Installment::isOverdue);
-
-            // اگر قرارداد فعال است و دارای قسط معوق است، وضعیت به OVERDUE تغییر می‌کند.
-            // **نکته:** منطق شما صرفاً برای ACTIVE این کار را انجام می‌دهد. اگر وضعیت OVERDUE را جداگانه می‌خواهید، باید بررسی کنید:
-            if (hasOverdue && contract.getStatus() == ContractStatus.ACTIVE) {
-                contract.setStatus(ContractStatus.OVERDUE);
-                contractRepository.save(contract);
-            }
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int updateContractStatuses() {
+        LocalDate today = LocalDate.now();
+        long maxId = contractRepository.findMaxId();
+        int updated = 0;
+
+        for (long fromId = 0; fromId < maxId; fromId += statusSweepChunkSize) {
+            long toId = Math.min(fromId + statusSweepChunkSize, maxId);
+            long rangeStart = fromId;
+            updated += transactionTemplate.execute(status -> {
+                Object[] completed = contractRepository.summarizeActiveCompletable(rangeStart, toId).get(0);
+                customerRepository.releaseCompletableContracts(rangeStart, toId);
+                int rows = contractRepository.completeFullyPaid(rangeStart, toId, LocalDateTime.now());
+                countersService.onContractsDeactivated((Long) completed[0], (Long) completed[1]);
+
+                Object[] overdue = contractRepository.summarizeBecomingOverdue(rangeStart, toId, today).get(0);
+                customerRepository.releaseBecomingOverdueContracts(rangeStart, toId, today);
+                rows += contractRepository.markOverdue(rangeStart, toId, today, LocalDateTime.now());
+                countersService.onContractsDeactivated((Long) overdue[0], (Long) overdue[1]);
+                return rows;
+            });
         }
+        return updated;
     }
 
     /**
@@ -313,15 +375,6 @@ public class ContractService {
         return sum != null ? sum : 0;
     }
 
-    /**
-     * قراردادها بر اساس وضعیت با صفحه‌بندی
-     */
-    @Transactional(readOnly = true)
-    public Page<Contract> findByStatus(ContractStatus status, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        // فراخوانی متد تعریف شده در Repository
-        return contractRepository.findByStatus(status, pageable);
-    }
     /**
      * بازیابی قراردادهای معوق (دارای قسط سررسید گذشته).
      * @return لیستی از قراردادهای معوق.
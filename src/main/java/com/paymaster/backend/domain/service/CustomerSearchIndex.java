@@ -0,0 +1,350 @@
+package com.paymaster.backend.domain.service;
+
+import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.repository.CustomerRepository;
+import com.paymaster.backend.domain.valueobject.CustomerSearchHit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * **نمایه جستجوی مشتریان در حافظه** (Customer Search Index).
+ * نام، کد ملی و موبایل تمام مشتریان پس از یکسان‌سازی با {@link PersianTextNormalizer} (ی/ک عربی و فارسی، نیم‌فاصله،
+ * ارقام فارسی و عربی) در یک نمایه سه‌حرفی (Trigram) نگهداری می‌شوند. نام دارای نیم‌فاصله به هر دو شکل نمایه می‌شود:
+ * چسبیده («محمدرضا») و جدا («محمد رضا»)، تا هر دو شکل نوشتن و جستجوی بخش دوم نام («رضا») آن را پیدا کنند:
+ * <ul>
+ *   <li>عبارت سه نویسه یا بیشتر: جستجوی زیررشته؛ کوتاه‌ترین فهرست از میان سه‌حرفی‌های عبارت انتخاب و هر نامزد بررسی می‌شود.</li>
+ *   <li>عبارت یک یا دو نویسه‌ای: جستجوی ابتدای هر کلمه نام، کد ملی یا موبایل.</li>
+ * </ul>
+ * نتایج به ترتیب آخرین ثبت یا ویرایش (جدیدترین اول) برگردانده می‌شوند و هزینه هر جستجو به تعداد نامزدهای همان
+ * کوتاه‌ترین فهرست بستگی دارد، نه تعداد کل مشتریان.
+ * همچنین مالک هر کد ملی و موبایل (ارقام یکسان شده) برای بررسی تکراری نبودن بدون دسترسی به پایگاه داده نگهداری می‌شود.
+ * نمایه هنگام شروع برنامه از پایگاه داده ساخته می‌شود و تغییرات {@link CustomerService} پس از Commit تراکنش روی آن اعمال می‌شوند.
+ * با {@code paymaster.customer-search.index-enabled=false} نمایه ساخته نمی‌شود و جستجو از پایگاه داده انجام می‌شود.
+ */
+@Slf4j
+@Component
+public class CustomerSearchIndex implements SmartInitializingSingleton {
+
+    /**
+     * کمترین طول عبارت برای جستجوی زیررشته (طول سه‌حرفی‌های نمایه).
+     */
+    static final int GRAM_LENGTH = 3;
+
+    /**
+     * کمترین تعداد ردیف‌های حذف شده پیش از فشرده‌سازی نمایه.
+     */
+    private static final int COMPACT_MIN_DEAD = 1024;
+
+    private final CustomerRepository customerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final Map<String, Long> nationalCodes = new HashMap<>();
+    private final Map<String, Long> mobiles = new HashMap<>();
+    private Entry[] entries = new Entry[1024];
+    private int size;
+    private int dead;
+    private volatile boolean ready;
+
+    public CustomerSearchIndex(CustomerRepository customerRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${paymaster.customer-search.index-enabled:true}") boolean enabled) {
+        this.customerRepository = customerRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<CustomerSearchHit> hits = customerRepository.streamSearchHits()) {
+                lock.writeLock().lock();
+                try {
+                    hits.forEach(this::add);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        });
+        ready = true;
+        log.info("Customer search index built: {} customers, {} keys in {} ms",
+                size, postings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * آیا نمایه ساخته شده و قابل استفاده است.
+     * @return false اگر نمایه غیرفعال باشد یا هنوز ساخته نشده باشد.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * جستجوی مشتریان در نام، کد ملی یا موبایل.
+     * @param query عبارت جستجو (خالی برای جدیدترین مشتریان).
+     * @param limit بیشترین تعداد نتایج.
+     * @return مشتریان منطبق، جدیدترین اول.
+     */
+    public List<CustomerSearchHit> search(String query, int limit) {
+        String normalized = PersianTextNormalizer.normalize(query);
+        List<CustomerSearchHit> hits = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            if (normalized.isEmpty()) {
+                for (int slot = size - 1; slot >= 0 && hits.size() < limit; slot--) {
+                    if (entries[slot] != null) hits.add(entries[slot].hit);
+                }
+                return hits;
+            }
+            Postings candidates = candidates(normalized);
+            if (candidates == null) return hits;
+            for (int i = candidates.size - 1; i >= 0 && hits.size() < limit; i--) {
+                Entry entry = entries[candidates.slots[i]];
+                if (entry != null && entry.matches(normalized)) hits.add(entry.hit);
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * شناسه مشتری دارای کد ملی داده شده، بر اساس آخرین وضعیت Commit شده این نمونه برنامه.
+     * @param nationalCode کد ملی (ارقام فارسی و عربی پذیرفته می‌شوند).
+     * @return شناسه مالک، یا خالی اگر ثبت نشده باشد.
+     */
+    public Optional<Long> findIdByNationalCode(String nationalCode) {
+        return findOwner(nationalCodes, nationalCode);
+    }
+
+    /**
+     * شناسه مشتری دارای شماره موبایل داده شده، بر اساس آخرین وضعیت Commit شده این نمونه برنامه.
+     * @param mobile شماره موبایل (ارقام فارسی و عربی پذیرفته می‌شوند).
+     * @return شناسه مالک، یا خالی اگر ثبت نشده باشد.
+     */
+    public Optional<Long> findIdByMobile(String mobile) {
+        return findOwner(mobiles, mobile);
+    }
+
+    private Optional<Long> findOwner(Map<String, Long> owners, String value) {
+        String key = PersianTextNormalizer.digits(value);
+        if (key.isEmpty()) return Optional.empty();
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(owners.get(key));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * افزودن یا جایگزینی مشتری در نمایه، پس از Commit تراکنش جاری (یا بلافاصله، خارج از تراکنش).
+     * @param customer مشتری ذخیره شده (دارای شناسه).
+     */
+    public void put(Customer customer) {
+        CustomerSearchHit hit = new CustomerSearchHit(customer.getId(), customer.getFullName(),
+                customer.getNationalCode(), customer.getMobile());
+        afterCommit(() -> {
+            removeSlot(hit.getId());
+            add(hit);
+        });
+    }
+
+    /**
+     * حذف مشتری از نمایه، پس از Commit تراکنش جاری (یا بلافاصله، خارج از تراکنش).
+     * @param id شناسه مشتری.
+     */
+    public void remove(Long id) {
+        afterCommit(() -> removeSlot(id));
+    }
+
+    private void afterCommit(Runnable change) {
+        if (!enabled) return;
+        Runnable locked = () -> {
+            lock.writeLock().lock();
+            try {
+                change.run();
+                if (dead >= COMPACT_MIN_DEAD && dead > size / 2) compact();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    locked.run();
+                }
+            });
+        } else {
+            locked.run();
+        }
+    }
+
+    /**
+     * کوتاه‌ترین فهرست نامزدها برای عبارت یکسان شده، یا null اگر هیچ مشتری منطبق نباشد.
+     */
+    private Postings candidates(String query) {
+        if (query.length() < GRAM_LENGTH) {
+            return postings.get(prefixKey(query));
+        }
+        Postings smallest = null;
+        for (int i = 0; i + GRAM_LENGTH <= query.length(); i++) {
+            Postings list = postings.get(gramKey(query, i));
+            if (list == null) return null;
+            if (smallest == null || list.size < smallest.size) smallest = list;
+        }
+        return smallest;
+    }
+
+    private void add(CustomerSearchHit hit) {
+        if (size == entries.length) entries = Arrays.copyOf(entries, size * 2);
+        Entry entry = new Entry(hit);
+        int slot = size++;
+        entries[slot] = entry;
+        slots.put(hit.getId(), slot);
+        nationalCodes.put(PersianTextNormalizer.digits(hit.getNationalCode()), hit.getId());
+        mobiles.put(PersianTextNormalizer.digits(hit.getMobile()), hit.getId());
+        for (Long key : entry.keys()) {
+            postings.computeIfAbsent(key, k -> new Postings()).add(slot);
+        }
+    }
+
+    private void removeSlot(Long id) {
+        Integer slot = slots.remove(id);
+        if (slot != null) {
+            CustomerSearchHit hit = entries[slot].hit;
+            nationalCodes.remove(PersianTextNormalizer.digits(hit.getNationalCode()), id);
+            mobiles.remove(PersianTextNormalizer.digits(hit.getMobile()), id);
+            entries[slot] = null;
+            dead++;
+        }
+    }
+
+    /**
+     * ساخت دوباره نمایه از ردیف‌های زنده (حذف فضای ردیف‌های حذف یا ویرایش شده)، با حفظ ترتیب.
+     */
+    private void compact() {
+        Entry[] live = new Entry[Math.max(1024, size - dead)];
+        int count = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (entries[slot] != null) live[count++] = entries[slot];
+        }
+        entries = new Entry[live.length];
+        postings.clear();
+        slots.clear();
+        nationalCodes.clear();
+        mobiles.clear();
+        size = 0;
+        dead = 0;
+        for (int i = 0; i < count; i++) {
+            add(live[i].hit);
+        }
+    }
+
+    /**
+     * کلید نمایه یک سه‌حرفی (سه نویسه 16 بیتی و طول در بیت‌های بالا).
+     */
+    private static long gramKey(String text, int from) {
+        return 3L << 48 | (long) text.charAt(from) << 32 | (long) text.charAt(from + 1) << 16 | text.charAt(from + 2);
+    }
+
+    /**
+     * کلید نمایه ابتدای یک کلمه (یک یا دو نویسه).
+     */
+    private static long prefixKey(String prefix) {
+        return prefix.length() == 1
+                ? 1L << 48 | prefix.charAt(0)
+                : 2L << 48 | (long) prefix.charAt(0) << 16 | prefix.charAt(1);
+    }
+
+    /**
+     * یک مشتری در نمایه، همراه با مقادیر یکسان شده.
+     */
+    private static final class Entry {
+        final CustomerSearchHit hit;
+        final String name;
+        final String nameWords;
+        final String nationalCode;
+        final String mobile;
+
+        Entry(CustomerSearchHit hit) {
+            this.hit = hit;
+            this.name = normalized(hit.getFullName());
+            String words = PersianTextNormalizer.normalizeWordBreaks(hit.getFullName());
+            this.nameWords = words.equals(name) ? name : words;
+            this.nationalCode = normalized(hit.getNationalCode());
+            this.mobile = normalized(hit.getMobile());
+        }
+
+        boolean matches(String query) {
+            if (query.length() >= GRAM_LENGTH) {
+                return name.contains(query) || nameWords.contains(query)
+                        || nationalCode.contains(query) || mobile.contains(query);
+            }
+            return startsWord(name, query) || startsWord(nameWords, query)
+                    || nationalCode.startsWith(query) || mobile.startsWith(query);
+        }
+
+        private static boolean startsWord(String field, String prefix) {
+            return field.startsWith(prefix) || field.contains(" " + prefix);
+        }
+
+        Set<Long> keys() {
+            Set<Long> keys = new HashSet<>();
+            for (String field : new String[]{name, nameWords, nationalCode, mobile}) {
+                for (String word : field.split(" ")) {
+                    if (word.isEmpty()) continue;
+                    keys.add(prefixKey(word.substring(0, 1)));
+                    if (word.length() > 1) keys.add(prefixKey(word.substring(0, 2)));
+                }
+                for (int i = 0; i + GRAM_LENGTH <= field.length(); i++) {
+                    keys.add(gramKey(field, i));
+                }
+            }
+            return keys;
+        }
+
+        /**
+         * مقدار یکسان شده؛ اگر تغییری نکرده باشد همان رشته اصلی (برای صرفه‌جویی در حافظه).
+         */
+        private static String normalized(String value) {
+            String normalized = PersianTextNormalizer.normalize(value);
+            return normalized.equals(value) ? value : normalized;
+        }
+    }
+
+    /**
+     * فهرست صعودی شماره ردیف‌های دارای یک کلید.
+     */
+    private static final class Postings {
+        int[] slots = new int[4];
+        int size;
+
+        void add(int slot) {
+            if (size == slots.length) slots = Arrays.copyOf(slots, size * 2);
+            slots[size++] = slot;
+        }
+    }
+}
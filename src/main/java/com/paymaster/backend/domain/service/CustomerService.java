@@ -1,9 +1,15 @@
 package com.paymaster.backend.domain.service;
 
 import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.entity.PortfolioCounters;
 import com.paymaster.backend.domain.repository.CustomerRepository;
+import com.paymaster.backend.domain.valueobject.CustomerSearchHit;
 import com.paymaster.backend.domain.valueobject.CustomerStatus;
+import com.paymaster.backend.domain.valueobject.KeysetCursor;
+import com.paymaster.backend.domain.valueobject.KeysetPage;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -12,6 +18,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 /**
@@ -23,7 +30,15 @@ import java.util.Optional;
 @Transactional(readOnly = true)
 public class CustomerService {
 
+    /**
+     * نام محدودیت‌های یکتایی موبایل و کد ملی (تعریف شده روی {@link Customer}).
+     */
+    private static final String UNIQUE_MOBILE = "uk_customers_mobile";
+    private static final String UNIQUE_NATIONAL_CODE = "uk_customers_national_code";
+
     private final CustomerRepository customerRepository;
+    private final PortfolioCountersService countersService;
+    private final CustomerSearchIndex searchIndex;
 
     /**
      * دریافت تمام مشتریان با مرتب‌سازی بر اساس زمان ایجاد (نزولی).
@@ -33,17 +48,6 @@ public class CustomerService {
         return customerRepository.findAll(Sort.by(Sort.Direction.DESC, "createdAt"));
     }
 
-    /**
-     * دریافت مشتریان با قابلیت صفحه‌بندی.
-     * @param page شماره صفحه (از صفر).
-     * @param size تعداد آیتم‌ها در هر صفحه.
-     * @return صفحه‌ای از مشتریان.
-     */
-    public Page<Customer> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        return customerRepository.findAll(pageable);
-    }
-
     /**
      * جستجوی مشتری بر اساس شناسه (ID).
      * @param id شناسه مشتری.
@@ -72,19 +76,65 @@ public class CustomerService {
     }
 
     /**
-     * **جستجوی عمومی** مشتریان بر اساس کلمه کلیدی (در نام، کد ملی یا موبایل).
-     * اگر کلمه کلیدی خالی باشد، تمام مشتریان با صفحه‌بندی برگردانده می‌شوند.
+     * **جستجوی عمومی** مشتریان بر اساس کلمه کلیدی (در نام، کد ملی یا موبایل) با صفحه‌بندی Keyset.
+     * اگر کلمه کلیدی خالی باشد، تمام مشتریان برگردانده می‌شوند؛ هزینه هر صفحه مستقل از عمق آن است.
+     * تعداد کل فقط با {@code exactCount} شمرده می‌شود؛ در غیر این صورت بدون کلمه کلیدی از شمارنده‌های پرتفوی
+     * خوانده می‌شود و با کلمه کلیدی خالی است.
      * @param keyword کلمه کلیدی جستجو.
-     * @param page شماره صفحه.
+     * @param after مکان‌نمای صفحه بعد (مشتریان قدیمی‌تر) یا null.
+     * @param before مکان‌نمای صفحه قبل (مشتریان جدیدتر) یا null.
      * @param size تعداد در صفحه.
+     * @param exactCount شمارش دقیق تعداد کل.
      * @return صفحه‌ای از مشتریان منطبق.
      */
-    public Page<Customer> search(String keyword, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        if (keyword == null || keyword.trim().isEmpty()) {
-            return customerRepository.findAll(pageable);
+    public KeysetPage<Customer> search(String keyword, String after, String before, int size, boolean exactCount) {
+        String filter = keyword == null || keyword.trim().isEmpty() ? null : keyword.trim();
+        KeysetCursor afterCursor = KeysetCursor.decode(after);
+        KeysetCursor beforeCursor = KeysetCursor.decode(before);
+        size = KeysetPage.limitSize(size);
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<Customer> rows;
+        if (beforeCursor != null) {
+            rows = customerRepository.findPageBefore(filter, beforeCursor.getCreatedAt(), beforeCursor.getId(), limit);
+            if (rows.size() <= size) {
+                // به ابتدای لیست رسیده‌ایم: به جای صفحه ناقص، صفحه اول کامل نمایش داده می‌شود
+                beforeCursor = null;
+                afterCursor = null;
+                rows = customerRepository.findPageFirst(filter, limit);
+            }
+        } else if (afterCursor != null) {
+            rows = customerRepository.findPageAfter(filter, afterCursor.getCreatedAt(), afterCursor.getId(), limit);
+        } else {
+            rows = customerRepository.findPageFirst(filter, limit);
+        }
+        KeysetPage<Customer> page = KeysetPage.of(rows, size, beforeCursor != null,
+                afterCursor == null && beforeCursor == null, Customer::getCreatedAt, Customer::getId);
+
+        if (exactCount) {
+            return page.withTotal(filter == null ? customerRepository.count() : customerRepository.countByKeyword(filter), false);
         }
-        return customerRepository.searchByKeyword(keyword.trim(), pageable);
+        Long estimate = filter == null
+                ? countersService.findStored().map(PortfolioCounters::getTotalCustomers).orElse(null)
+                : null;
+        return page.withTotal(estimate, true);
+    }
+
+    /**
+     * **جستجوی تایپی** (Typeahead) مشتریان در نام، کد ملی یا موبایل.
+     * از {@link CustomerSearchIndex} و بدون دسترسی به پایگاه داده پاسخ داده می‌شود (ی/ک عربی و فارسی، نیم‌فاصله
+     * و ارقام فارسی یکسان در نظر گرفته می‌شوند)؛ اگر نمایه غیرفعال یا هنوز ساخته نشده باشد، از {@link #search} استفاده می‌شود.
+     * @param query عبارت جستجو.
+     * @param limit بیشترین تعداد نتایج.
+     * @return مشتریان منطبق، جدیدترین اول.
+     */
+    public List<CustomerSearchHit> typeahead(String query, int limit) {
+        if (searchIndex.isReady()) {
+            return searchIndex.search(query, limit);
+        }
+        return search(query, null, null, limit, false).getContent().stream()
+                .map(c -> new CustomerSearchHit(c.getId(), c.getFullName(), c.getNationalCode(), c.getMobile()))
+                .toList();
     }
 
     /**
@@ -121,21 +171,21 @@ public class CustomerService {
      */
     @Transactional
     public Customer save(Customer customer) {
-        // اعتبارسنجی کد ملی تکراری (فقط برای ایجاد یا زمانی که ID null است)
-        if (customer.getId() == null || customerRepository.findByNationalCode(customer.getNationalCode()).map(c -> !c.getId().equals(customer.getId())).orElse(false)) {
-            if (customerRepository.existsByNationalCode(customer.getNationalCode())) {
-                throw new IllegalArgumentException("خطا: کد ملی قبلاً ثبت شده است.");
-            }
+        // اعتبارسنجی کد ملی و موبایل تکراری (متعلق به مشتری دیگر)
+        if (isNationalCodeTaken(customer.getNationalCode(), customer.getId())) {
+            throw new IllegalArgumentException("خطا: کد ملی قبلاً ثبت شده است.");
         }
-
-        // اعتبارسنجی موبایل تکراری
-        if (customer.getId() == null || customerRepository.findByMobile(customer.getMobile()).map(c -> !c.getId().equals(customer.getId())).orElse(false)) {
-            if (customerRepository.existsByMobile(customer.getMobile())) {
-                throw new IllegalArgumentException("خطا: شماره موبایل قبلاً ثبت شده است.");
-            }
+        if (isMobileTaken(customer.getMobile(), customer.getId())) {
+            throw new IllegalArgumentException("خطا: شماره موبایل قبلاً ثبت شده است.");
         }
 
-        return customerRepository.save(customer);
+        boolean isNew = customer.getId() == null;
+        Customer saved = saveUnique(customer);
+        if (isNew) {
+            countersService.onCustomerCreated(saved.getStatus());
+        }
+        searchIndex.put(saved);
+        return saved;
     }
 
     /**
@@ -151,18 +201,12 @@ public class CustomerService {
         Customer existing = customerRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("خطا: مشتری با شناسه " + id + " یافت نشد."));
 
-        // بررسی کد ملی تکراری (اگر تغییر کرده باشد)
-        if (! existing.getNationalCode().equals(updatedCustomer.getNationalCode())) {
-            if (customerRepository.findByNationalCode(updatedCustomer.getNationalCode()).isPresent()) {
-                throw new IllegalArgumentException("خطا: کد ملی قبلاً برای مشتری دیگری ثبت شده است.");
-            }
+        // بررسی کد ملی و موبایل تکراری (متعلق به مشتری دیگر)
+        if (isNationalCodeTaken(updatedCustomer.getNationalCode(), id)) {
+            throw new IllegalArgumentException("خطا: کد ملی قبلاً برای مشتری دیگری ثبت شده است.");
         }
-
-        // بررسی موبایل تکراری (اگر تغییر کرده باشد)
-        if (!existing.getMobile().equals(updatedCustomer.getMobile())) {
-            if (customerRepository.findByMobile(updatedCustomer.getMobile()).isPresent()) {
-                throw new IllegalArgumentException("خطا: شماره موبایل قبلاً برای مشتری دیگری ثبت شده است.");
-            }
+        if (isMobileTaken(updatedCustomer.getMobile(), id)) {
+            throw new IllegalArgumentException("خطا: شماره موبایل قبلاً برای مشتری دیگری ثبت شده است.");
         }
 
         // اعمال تغییرات
@@ -173,10 +217,73 @@ public class CustomerService {
         existing.setEmail(updatedCustomer.getEmail());
         existing.setAddress(updatedCustomer.getAddress());
         existing.setPostalCode(updatedCustomer.getPostalCode());
+        countersService.onCustomerStatusChanged(existing.getStatus(), updatedCustomer.getStatus());
         existing.setStatus(updatedCustomer.getStatus());
         existing.setNotes(updatedCustomer.getNotes());
 
-        return customerRepository.save(existing);
+        Customer saved = saveUnique(existing);
+        searchIndex.put(saved);
+        return saved;
+    }
+
+    /**
+     * **بررسی تکراری بودن کد ملی**.
+     * پاسخ منفی از نمایه مشتریان در حافظه ({@link CustomerSearchIndex}) و بدون دسترسی به پایگاه داده داده می‌شود؛
+     * پاسخ مثبت نمایه (که ممکن است مربوط به حذفی تازه باشد) با پایگاه داده تأیید می‌شود. در صورت غیرفعال بودن نمایه
+     * فقط پایگاه داده بررسی می‌شود. محدودیت یکتایی ستون در پایگاه داده همچنان ضامن نهایی است.
+     * @param nationalCode کد ملی.
+     * @param excludeId شناسه مشتری در حال ویرایش (یا null).
+     * @return true اگر کد ملی متعلق به مشتری دیگری باشد.
+     */
+    public boolean isNationalCodeTaken(String nationalCode, Long excludeId) {
+        if (searchIndex.isReady() && !isOther(searchIndex.findIdByNationalCode(nationalCode), excludeId)) {
+            return false;
+        }
+        return isOther(customerRepository.findByNationalCode(nationalCode).map(Customer::getId), excludeId);
+    }
+
+    /**
+     * **بررسی تکراری بودن شماره موبایل**؛ همانند {@link #isNationalCodeTaken}.
+     * @param mobile شماره موبایل.
+     * @param excludeId شناسه مشتری در حال ویرایش (یا null).
+     * @return true اگر شماره موبایل متعلق به مشتری دیگری باشد.
+     */
+    public boolean isMobileTaken(String mobile, Long excludeId) {
+        if (searchIndex.isReady() && !isOther(searchIndex.findIdByMobile(mobile), excludeId)) {
+            return false;
+        }
+        return isOther(customerRepository.findByMobile(mobile).map(Customer::getId), excludeId);
+    }
+
+    private static boolean isOther(Optional<Long> ownerId, Long excludeId) {
+        return ownerId.isPresent() && !ownerId.get().equals(excludeId);
+    }
+
+    /**
+     * ذخیره و ارسال فوری به پایگاه داده تا نقض محدودیت یکتایی کد ملی یا موبایل (ثبت همزمان در درخواست
+     * یا نمونه دیگری از برنامه) به صورت خطای قابل نمایش گزارش شود. سایر خطاهای یکپارچگی داده بدون تغییر منتقل می‌شوند.
+     */
+    private Customer saveUnique(Customer customer) {
+        try {
+            return customerRepository.saveAndFlush(customer);
+        } catch (DataIntegrityViolationException e) {
+            if (!isDuplicateCodeViolation(e)) {
+                throw e;
+            }
+            throw new IllegalArgumentException("خطا: کد ملی یا شماره موبایل قبلاً برای مشتری دیگری ثبت شده است.");
+        }
+    }
+
+    /**
+     * آیا خطا نقض یکی از محدودیت‌های یکتایی کد ملی یا موبایل است (نام محدودیت گزارش شده توسط پایگاه داده
+     * ممکن است پیشوند Schema یا پسوند ایندکس داشته باشد).
+     */
+    private static boolean isDuplicateCodeViolation(DataIntegrityViolationException e) {
+        if (!(e.getCause() instanceof ConstraintViolationException violation) || violation.getConstraintName() == null) {
+            return false;
+        }
+        String constraint = violation.getConstraintName().toLowerCase(Locale.ROOT);
+        return constraint.contains(UNIQUE_MOBILE) || constraint.contains(UNIQUE_NATIONAL_CODE);
     }
 
     /**
@@ -196,6 +303,8 @@ public class CustomerService {
         }
 
         customerRepository.delete(customer);
+        countersService.onCustomerDeleted(customer.getStatus());
+        searchIndex.remove(id);
     }
 
     /**
@@ -209,6 +318,7 @@ public class CustomerService {
     public Customer changeStatus(Long id, CustomerStatus newStatus) {
         Customer customer = customerRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("خطا: مشتری با شناسه " + id + " یافت نشد."));
+        countersService.onCustomerStatusChanged(customer.getStatus(), newStatus);
         customer.setStatus(newStatus);
         return customerRepository.save(customer);
     }
@@ -1,11 +1,14 @@
 package com.paymaster.backend.domain.service;
 
 import com.paymaster.backend.domain.entity.Contract;
-import com.paymaster.backend.domain.entity.Installment;
+import com.paymaster.backend.domain.entity.PortfolioCounters;
 import com.paymaster.backend.domain.service.DateUtils;
+import com.paymaster.backend.domain.valueobject.InstallmentDueRow;
+import io.micrometer.core.annotation.Timed;
 import lombok.Builder;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -23,45 +26,60 @@ public class DashboardService {
     private final InstallmentService installmentService;
     private final CalculationService calculationService;
     private final DateUtils dateUtils;
+    private final PortfolioCountersService countersService;
+
+    @Value("${paymaster.dashboard.widget-size:10}")
+    private int widgetSize;
 
     /**
      * **دریافت آمار کلی داشبورد**.
-     * این متد داده‌های آماری را از سرویس‌های مختلف جمع‌آوری و در قالب {@code DashboardStats} ارائه می‌کند.
+     * آمار از ردیف تجمیعی {@code portfolio_counters} (یک خواندن بر اساس کلید اصلی) خوانده می‌شود
+     * و در قالب {@code DashboardStats} ارائه می‌شود.
      * @return شیء حاوی آمار کل سیستم.
      */
+    @Timed("paymaster.service")
     public DashboardStats getDashboardStats() {
+        PortfolioCounters counters = countersService.getCounters();
         return DashboardStats.builder()
                 // آمار مشتریان
-                .totalCustomers(customerService.count())
-                .activeCustomers(customerService.countActive())
+                .totalCustomers(counters.getTotalCustomers())
+                .activeCustomers(counters.getActiveCustomers())
                 // آمار قراردادها
-                .totalContracts(contractService.count())
-                .activeContracts(contractService.countActive())
+                .totalContracts(counters.getTotalContracts())
+                .activeContracts(counters.getActiveContracts())
                 // آمار اقساط و مبالغ
-                .overdueInstallments(installmentService.countOverdue())
-                .totalReceivable(contractService.sumActiveContractsAmount()) // کل مطالبات (مبلغ کل قراردادهای فعال)
-                .totalReceived(installmentService.sumPaidAmount())          // کل مبلغ وصول شده
-                .totalOverdue(installmentService.sumOverdueAmount())        // مجموع مبلغ باقیمانده اقساط معوق
-                .totalPenalty(installmentService.sumPenaltyAmount())        // مجموع جریمه‌های دریافتی
+                .overdueInstallments(counters.getOverdueInstallments())
+                .totalReceivable(counters.getTotalReceivable()) // کل مطالبات (مبلغ کل قراردادهای فعال)
+                .totalReceived(counters.getTotalReceived())     // کل مبلغ وصول شده
+                .totalOverdue(counters.getTotalOverdue())       // مجموع مبلغ باقیمانده اقساط معوق
+                .totalPenalty(counters.getTotalPenalty())       // مجموع جریمه‌های دریافتی
                 // تاریخ
                 .todayPersianDate(dateUtils.getTodayPersian())
                 .build();
     }
 
     /**
-     * دریافت لیستی از اقساطی که سررسید آن‌ها این هفته است.
-     * @return لیستی از اقساط.
+     * دریافت نزدیک‌ترین اقساط سررسید این هفته (حداکثر {@code paymaster.dashboard.widget-size} ردیف).
+     * @return لیستی از ردیف‌های قسط.
+     */
+    public List<InstallmentDueRow> getUpcomingInstallments() {
+        return installmentService.findTopUpcoming(widgetSize);
+    }
+
+    /**
+     * دریافت معوق‌ترین اقساط (حداکثر {@code paymaster.dashboard.widget-size} ردیف)؛ لیست کامل در صفحه اقساط معوق.
+     * @return لیستی از ردیف‌های قسط معوق.
      */
-    public List<Installment> getUpcomingInstallments() {
-        return installmentService.findInstallmentsDueThisWeek();
+    public List<InstallmentDueRow> getOverdueInstallments() {
+        return installmentService.findTopOverdue(widgetSize);
     }
 
     /**
-     * دریافت لیستی از اقساط سررسید گذشته (معوق).
-     * @return لیستی از اقساط معوق.
+     * تعداد ردیف‌های ویجت‌های اقساط داشبورد.
+     * @return حداکثر تعداد ردیف هر ویجت.
      */
-    public List<Installment> getOverdueInstallments() {
-        return installmentService.findOverdueInstallments();
+    public int getWidgetSize() {
+        return widgetSize;
     }
 
     /**
@@ -11,6 +11,7 @@ import java.time.format.DateTimeFormatter;
 /**
  * **ابزار تبدیل تاریخ شمسی و میلادی** (Date Utility).
  * این کلاس مسئولیت تبدیل تاریخ‌های میلادی به شمسی و انجام عملیات تاریخ‌محور را بر عهده دارد.
+ * تاریخ‌های سال‌های 1300 تا 1500 از {@link PersianCalendarTable} خوانده می‌شوند و کتابخانه PersianDate فقط برای بیرون از این بازه استفاده می‌شود.
  */
 @Component
 public class DateUtils {
@@ -25,6 +26,8 @@ public class DateUtils {
      */
     public String toPersianDate(LocalDate gregorianDate) {
         if (gregorianDate == null) return "";
+        int packed = PersianCalendarTable.fromGregorian(gregorianDate);
+        if (packed != PersianCalendarTable.OUT_OF_RANGE) return PersianCalendarTable.format(packed);
         PersianDate persianDate = PersianDate.fromGregorian(gregorianDate);
         return String.format("%04d/%02d/%02d", persianDate.getYear(), persianDate.getMonthValue(), persianDate.getDayOfMonth());
     }
@@ -36,6 +39,10 @@ public class DateUtils {
      */
     public String toPersianDateWithMonthName(LocalDate gregorianDate) {
         if (gregorianDate == null) return "";
+        int packed = PersianCalendarTable.fromGregorian(gregorianDate);
+        if (packed != PersianCalendarTable.OUT_OF_RANGE) {
+            return PersianCalendarTable.day(packed) + " " + PERSIAN_MONTHS[PersianCalendarTable.month(packed) - 1] + " " + PersianCalendarTable.year(packed);
+        }
         PersianDate persianDate = PersianDate.fromGregorian(gregorianDate);
         // از آرایه ماه‌ها استفاده می‌شود (این آرایه از اندیس 0 شروع می‌شود، در حالی که ماه از 1 است).
         return String.format("%d %s %d", persianDate.getDayOfMonth(), PERSIAN_MONTHS[persianDate.getMonthValue() - 1], persianDate.getYear());
@@ -88,6 +95,8 @@ public class DateUtils {
             int year = Integer.parseInt(parts[0]);
             int month = Integer.parseInt(parts[1]);
             int day = Integer.parseInt(parts[2]);
+            long epochDay = PersianCalendarTable.toEpochDay(year, month, day);
+            if (epochDay != PersianCalendarTable.OUT_OF_RANGE) return LocalDate.ofEpochDay(epochDay);
             PersianDate persianDate = PersianDate.of(year, month, day);
             return persianDate.toGregorian();
         } catch (Exception e) {
@@ -131,7 +140,29 @@ public class DateUtils {
      * @return سال شمسی (مثلاً 1404).
      */
     public int getCurrentPersianYear() {
-        return PersianDate.fromGregorian(LocalDate.now()).getYear();
+        return getPersianYear(LocalDate.now());
+    }
+
+    /**
+     * دریافت سال شمسی یک تاریخ میلادی.
+     * @param gregorianDate تاریخ میلادی.
+     * @return سال شمسی.
+     */
+    public int getPersianYear(LocalDate gregorianDate) {
+        int packed = PersianCalendarTable.fromGregorian(gregorianDate);
+        if (packed != PersianCalendarTable.OUT_OF_RANGE) return PersianCalendarTable.year(packed);
+        return PersianDate.fromGregorian(gregorianDate).getYear();
+    }
+
+    /**
+     * دریافت تاریخ میلادی نوروز (اول فروردین) یک سال شمسی.
+     * @param persianYear سال شمسی.
+     * @return تاریخ میلادی معادل 1 فروردین آن سال.
+     */
+    public LocalDate getNowruz(int persianYear) {
+        long epochDay = PersianCalendarTable.nowruzEpochDay(persianYear);
+        if (epochDay != PersianCalendarTable.OUT_OF_RANGE) return LocalDate.ofEpochDay(epochDay);
+        return PersianDate.of(persianYear, 1, 1).toGregorian();
     }
 
     /**
@@ -139,6 +170,8 @@ public class DateUtils {
      * @return شماره ماه شمسی جاری.
      */
     public int getCurrentPersianMonth() {
+        int packed = PersianCalendarTable.fromGregorian(LocalDate.now());
+        if (packed != PersianCalendarTable.OUT_OF_RANGE) return PersianCalendarTable.month(packed);
         return PersianDate.fromGregorian(LocalDate.now()).getMonthValue();
     }
 
@@ -151,6 +184,8 @@ public class DateUtils {
      */
     public LocalDate addMonthsToPersianDate(LocalDate gregorianDate, int months) {
         if (gregorianDate == null) return null;
+        long epochDay = PersianCalendarTable.plusMonths(gregorianDate, months);
+        if (epochDay != PersianCalendarTable.OUT_OF_RANGE) return LocalDate.ofEpochDay(epochDay);
         PersianDate persianDate = PersianDate.fromGregorian(gregorianDate);
         PersianDate newDate = persianDate.plusMonths(months);
         return newDate.toGregorian();
@@ -0,0 +1,108 @@
+package com.paymaster.backend.domain.service;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * **پیکربندی کش سطح دوم Hibernate** (Second-Level Cache Configurer).
+ * موجودیت‌های مشتری، قرارداد و قسط، مجموعه اقساط قرارداد و نتیجه جستجوی قرارداد با شماره در کش‌های محلی Caffeine
+ * (از طریق JCache) نگهداری می‌شوند تا نمایش و فرم‌ها و بازگشت پس از پرداخت برای هر بار خواندن به پایگاه داده مراجعه نکنند.
+ * <ul>
+ *   <li>هر ناحیه (Region) حداکثر تعداد ورودی و مدت اعتبار از زمان نوشتن دارد
+ *       ({@code paymaster.entity-cache.<region>.max-entries} و {@code time-to-live}، با پیش‌فرض‌های مشترک).</li>
+ *   <li>تغییر موجودیت‌ها در تراکنش (استراتژی READ_WRITE) ورودی کش را پس از commit به‌روز می‌کند و UPDATEهای گروهی JPQL
+ *       (کارهای شبانه) کل ناحیه جداول تغییر یافته را باطل می‌کنند؛ مانده مشتری در هر پرداخت با JDBC تغییر می‌کند و فقط
+ *       ورودی همان مشتری باطل می‌شود ({@link AccountBalanceService}). مدت اعتبار فقط تغییرات خارج از این نمونه برنامه را محدود می‌کند.</li>
+ *   <li>ناحیه‌ای که اینجا تعریف نشده باشد باعث خطای راه‌اندازی می‌شود ({@code missing_cache_strategy=fail}).</li>
+ * </ul>
+ * هر نمونه برنامه CacheManager مستقل خود را دارد (مثلاً دو Context در یک JVM کش مشترک ندارند).
+ */
+@Slf4j
+@Component
+public class EntityCacheConfigurer implements HibernatePropertiesCustomizer, DisposableBean {
+
+    static final String CUSTOMERS = "customers";
+    static final String CONTRACTS = "contracts";
+    static final String INSTALLMENTS = "installments";
+    static final String CONTRACT_INSTALLMENTS = "contract-installments";
+    static final String CONTRACTS_BY_NUMBER = "contracts-by-number";
+
+    /**
+     * نواحی داده و نتیجه کوئری که اندازه و مدت اعتبار دارند.
+     */
+    static final List<String> REGIONS = List.of(CUSTOMERS, CONTRACTS, INSTALLMENTS, CONTRACT_INSTALLMENTS,
+            CONTRACTS_BY_NUMBER, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME);
+
+    private static final String PROPERTY_PREFIX = "paymaster.entity-cache.";
+
+    private final Environment environment;
+    private final boolean enabled;
+    private final long defaultMaxEntries;
+    private final Duration defaultTimeToLive;
+
+    private CacheManager cacheManager;
+
+    public EntityCacheConfigurer(Environment environment,
+                                 @Value("${paymaster.entity-cache.enabled:true}") boolean enabled,
+                                 @Value("${paymaster.entity-cache.max-entries:10000}") long defaultMaxEntries,
+                                 @Value("${paymaster.entity-cache.time-to-live:PT10M}") Duration defaultTimeToLive) {
+        this.environment = environment;
+        this.enabled = enabled;
+        this.defaultMaxEntries = defaultMaxEntries;
+        this.defaultTimeToLive = defaultTimeToLive;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        if (!enabled) {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+            hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, false);
+            return;
+        }
+
+        cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager(
+                URI.create("paymaster:entity-cache:" + Integer.toHexString(System.identityHashCode(this))),
+                getClass().getClassLoader());
+        for (String region : REGIONS) {
+            long maxEntries = environment.getProperty(PROPERTY_PREFIX + region + ".max-entries", Long.class, defaultMaxEntries);
+            Duration timeToLive = environment.getProperty(PROPERTY_PREFIX + region + ".time-to-live", Duration.class, defaultTimeToLive);
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maxEntries));
+            configuration.setExpireAfterWrite(OptionalLong.of(timeToLive.toNanos()));
+            cacheManager.createCache(region, configuration);
+            log.debug("Entity cache region {}: {} entries, TTL {}", region, maxEntries, timeToLive);
+        }
+        // زمان آخرین تغییر هر جدول (برای اعتبار نتایج کوئری) نباید حذف شود؛ تعداد ورودی‌ها برابر تعداد جداول است
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>());
+
+        hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+        hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, true);
+        hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+        hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+        hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+    }
+
+    @Override
+    public void destroy() {
+        if (cacheManager != null) {
+            cacheManager.close();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.paymaster.backend.domain.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * **آمار کش سطح دوم** (Entity Cache Statistics).
+ * تعداد Hit، Miss و Put هر ناحیه کش از آمار Hibernate خوانده می‌شود
+ * (نیازمند {@code hibernate.generate_statistics=true}؛ در غیر این صورت همه مقادیر صفر هستند).
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityCacheStatistics {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * آمار تجمعی نواحی کش از زمان راه‌اندازی.
+     * @return آمار هر ناحیه (خالی اگر کش غیرفعال باشد).
+     */
+    public List<RegionStatistics> snapshot() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<RegionStatistics> regions = new ArrayList<>(EntityCacheConfigurer.REGIONS.size());
+        for (String region : EntityCacheConfigurer.REGIONS) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics != null) {
+                regions.add(RegionStatistics.of(region, regionStatistics));
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * آمار یک ناحیه کش.
+     * @param hitRatio نسبت Hit به کل خواندن‌ها (بین 0 و 1؛ بدون خواندن 0).
+     */
+    public record RegionStatistics(String region, long hits, long misses, long puts, double hitRatio) {
+
+        static RegionStatistics of(String region, CacheRegionStatistics statistics) {
+            long hits = statistics.getHitCount();
+            long misses = statistics.getMissCount();
+            return new RegionStatistics(region, hits, misses, statistics.getPutCount(),
+                    hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.paymaster.backend.domain.service;
+
+import com.paymaster.backend.domain.repository.ContractRepository;
+import com.paymaster.backend.domain.repository.CustomerRepository;
+import com.paymaster.backend.domain.repository.InstallmentRepository;
+import com.paymaster.backend.domain.valueobject.ContractListRow;
+import com.paymaster.backend.domain.valueobject.ContractStatus;
+import com.paymaster.backend.domain.valueobject.CustomerExportRow;
+import com.paymaster.backend.domain.valueobject.CustomerStatus;
+import com.paymaster.backend.domain.valueobject.InstallmentExportRow;
+import com.paymaster.backend.domain.valueobject.InstallmentStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * **سرویس خروجی جریانی** (Streaming Export Service).
+ * اقساط، قراردادها و مشتریان را به صورت CSV (UTF-8 با BOM تا Excel متن فارسی را درست نمایش دهد) مستقیماً
+ * در جریان خروجی می‌نویسد. ردیف‌ها با {@link Stream} ریپازیتوری (ScrollableResults هایبرنیت با Fetch Size ثابت)
+ * و به صورت مدل فقط خواندنی خوانده می‌شوند، پس هیچ موجودیتی در Persistence Context انباشته نمی‌شود و مصرف حافظه
+ * مستقل از تعداد ردیف‌هاست. سطر عنوان پیش از اجرای کوئری ارسال می‌شود تا اولین بایت بلافاصله به کاربر برسد.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ExportService {
+
+    /**
+     * حداکثر تعداد تاریخ‌های متمایز نگهداری شده در حافظه نهان تاریخ شمسی هر خروجی.
+     */
+    static final int DATE_CACHE_SIZE = 4096;
+
+    private static final String[] INSTALLMENT_HEADER = {"شناسه", "شماره قرارداد", "نام مشتری", "کد ملی", "شماره قسط",
+            "تاریخ سررسید", "مبلغ قسط", "پرداخت شده", "جریمه", "باقیمانده", "وضعیت", "تاریخ پرداخت", "روش پرداخت", "شماره رسید"};
+    private static final String[] CONTRACT_HEADER = {"شناسه", "شماره قرارداد", "نام مشتری", "مبلغ اصلی", "مبلغ کل",
+            "تعداد اقساط", "اقساط پرداخت شده", "پرداخت شده", "باقیمانده", "درصد پیشرفت", "تاریخ شروع", "وضعیت"};
+    private static final String[] CUSTOMER_HEADER = {"شناسه", "نام کامل", "کد ملی", "موبایل", "تلفن", "ایمیل",
+            "کد پستی", "وضعیت", "تاریخ ثبت"};
+
+    private final InstallmentRepository installmentRepository;
+    private final ContractRepository contractRepository;
+    private final CustomerRepository customerRepository;
+    private final DateUtils dateUtils;
+
+    /**
+     * **خروجی اقساط** به ترتیب شناسه.
+     * @param status وضعیت قسط (null برای همه).
+     * @param output جریان خروجی (بسته نمی‌شود).
+     * @return تعداد ردیف‌های نوشته شده.
+     * @throws IOException در صورت خطای نوشتن (مثلاً قطع اتصال کاربر).
+     */
+    public long exportInstallments(InstallmentStatus status, OutputStream output) throws IOException {
+        CsvWriter csv = new CsvWriter(output);
+        csv.header(INSTALLMENT_HEADER);
+        try (Stream<InstallmentExportRow> rows = installmentRepository.streamExportRows(status)) {
+            Iterator<InstallmentExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                InstallmentExportRow row = iterator.next();
+                csv.number(row.getId());
+                csv.text(row.getContractNumber());
+                csv.text(row.getCustomerFullName());
+                csv.text(row.getCustomerNationalCode());
+                csv.number(row.getInstallmentNumber());
+                csv.date(row.getDueDate());
+                csv.number(row.getAmount());
+                csv.number(row.getPaidAmount());
+                csv.number(row.getPenaltyAmount());
+                csv.number(row.getRemainingAmount());
+                csv.text(row.getStatus().getPersianName());
+                csv.dateTime(row.getPaymentDate());
+                csv.text(row.getPaymentMethod() != null ? row.getPaymentMethod().getPersianName() : null);
+                csv.text(row.getReceiptNumber());
+                csv.endRow();
+            }
+        }
+        return csv.finish("installments");
+    }
+
+    /**
+     * **خروجی قراردادها** (همراه با نام مشتری و آمار پرداخت) به ترتیب شناسه.
+     * @param status وضعیت قرارداد (null برای همه).
+     * @param output جریان خروجی (بسته نمی‌شود).
+     * @return تعداد ردیف‌های نوشته شده.
+     * @throws IOException در صورت خطای نوشتن.
+     */
+    public long exportContracts(ContractStatus status, OutputStream output) throws IOException {
+        CsvWriter csv = new CsvWriter(output);
+        csv.header(CONTRACT_HEADER);
+        try (Stream<ContractListRow> rows = contractRepository.streamListRows(status)) {
+            Iterator<ContractListRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                ContractListRow row = iterator.next();
+                csv.number(row.getId());
+                csv.text(row.getContractNumber());
+                csv.text(row.getCustomerFullName());
+                csv.number(row.getPrincipalAmount());
+                csv.number(row.getTotalAmount());
+                csv.number(row.getInstallmentCount());
+                csv.number(row.getPaidInstallmentsCount());
+                csv.number(row.getPaidAmount());
+                csv.number(row.getRemainingAmount());
+                csv.number(row.getProgressPercentage());
+                csv.date(row.getStartDate());
+                csv.text(row.getStatus().getPersianName());
+                csv.endRow();
+            }
+        }
+        return csv.finish("contracts");
+    }
+
+    /**
+     * **خروجی مشتریان** به ترتیب شناسه.
+     * @param status وضعیت مشتری (null برای همه).
+     * @param output جریان خروجی (بسته نمی‌شود).
+     * @return تعداد ردیف‌های نوشته شده.
+     * @throws IOException در صورت خطای نوشتن.
+     */
+    public long exportCustomers(CustomerStatus status, OutputStream output) throws IOException {
+        CsvWriter csv = new CsvWriter(output);
+        csv.header(CUSTOMER_HEADER);
+        try (Stream<CustomerExportRow> rows = customerRepository.streamExportRows(status)) {
+            Iterator<CustomerExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                CustomerExportRow row = iterator.next();
+                csv.number(row.getId());
+                csv.text(row.getFullName());
+                csv.text(row.getNationalCode());
+                csv.text(row.getMobile());
+                csv.text(row.getPhone());
+                csv.text(row.getEmail());
+                csv.text(row.getPostalCode());
+                csv.text(row.getStatus().getPersianName());
+                csv.dateTime(row.getCreatedAt());
+                csv.endRow();
+            }
+        }
+        return csv.finish("customers");
+    }
+
+    /**
+     * نویسنده CSV یک خروجی: بافر ثابت روی جریان خروجی و حافظه نهان محدود تاریخ‌های شمسی
+     * (تاریخ‌های سررسید و پرداخت در هر خروجی بسیار تکراری هستند).
+     */
+    private final class CsvWriter {
+        private final Writer writer;
+        private final Map<LocalDate, String> persianDates = new HashMap<>();
+        private final long start = System.nanoTime();
+        private boolean firstField = true;
+        private long rows;
+
+        CsvWriter(OutputStream output) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        void header(String[] columns) throws IOException {
+            writer.write('\uFEFF'); // BOM برای تشخیص UTF-8 در Excel
+            for (String column : columns) {
+                text(column);
+            }
+            writer.write("\r\n");
+            firstField = true;
+            // ارسال فوری سطر عنوان، پیش از آن‌که پایگاه داده اولین ردیف را برگرداند
+            writer.flush();
+        }
+
+        void text(String value) throws IOException {
+            separator();
+            if (value == null || value.isEmpty()) return;
+            // جلوگیری از تفسیر مقدار به عنوان فرمول در Excel
+            char first = value.charAt(0);
+            boolean formula = first == '=' || first == '+' || first == '-' || first == '@';
+            boolean quote = formula || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            if (formula) writer.write('\'');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        void number(Number value) throws IOException {
+            separator();
+            if (value != null) writer.write(value.toString());
+        }
+
+        void number(long value) throws IOException {
+            separator();
+            writer.write(Long.toString(value));
+        }
+
+        void date(LocalDate value) throws IOException {
+            separator();
+            if (value != null) writer.write(persianDate(value));
+        }
+
+        void dateTime(LocalDateTime value) throws IOException {
+            separator();
+            if (value == null) return;
+            writer.write(persianDate(value.toLocalDate()));
+            writer.write(" - ");
+            writer.write((char) ('0' + value.getHour() / 10));
+            writer.write((char) ('0' + value.getHour() % 10));
+            writer.write(':');
+            writer.write((char) ('0' + value.getMinute() / 10));
+            writer.write((char) ('0' + value.getMinute() % 10));
+        }
+
+        void endRow() throws IOException {
+            writer.write("\r\n");
+            firstField = true;
+            rows++;
+        }
+
+        long finish(String entity) throws IOException {
+            writer.flush();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            log.info("Exported {} {} rows in {} ms", rows, entity, elapsedMillis);
+            return rows;
+        }
+
+        private void separator() throws IOException {
+            if (firstField) {
+                firstField = false;
+            } else {
+                writer.write(',');
+            }
+        }
+
+        private String persianDate(LocalDate date) {
+            String persian = persianDates.get(date);
+            if (persian == null) {
+                if (persianDates.size() >= DATE_CACHE_SIZE) persianDates.clear();
+                persian = dateUtils.toPersianDate(date);
+                persianDates.put(date, persian);
+            }
+            return persian;
+        }
+    }
+}
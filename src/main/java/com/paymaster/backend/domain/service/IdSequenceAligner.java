@@ -0,0 +1,66 @@
+package com.paymaster.backend.domain.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * **هم‌ترازی Sequenceهای شناسه** (ID Sequence Aligner).
+ * شناسه موجودیت‌ها پیش‌تر با IDENTITY تولید می‌شد؛ در پایگاه داده‌های موجود، Sequenceهایی که Hibernate
+ * برای استراتژی SEQUENCE ایجاد می‌کند از 1 شروع می‌شوند و با شناسه‌های موجود تداخل دارند.
+ * این کلاس پیش از شروع پذیرش درخواست‌ها، هر Sequence را به بعد از بزرگ‌ترین شناسه جدول مربوطه منتقل می‌کند.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdSequenceAligner implements SmartInitializingSingleton {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(descriptor -> {
+            if (descriptor.getGenerator() instanceof SequenceStyleGenerator generator
+                    && descriptor instanceof AbstractEntityPersister persister) {
+                DatabaseStructure structure = generator.getDatabaseStructure();
+                String sequenceName = sessionFactory.getSqlStringGenerationContext().format(structure.getPhysicalName());
+                transactionTemplate.executeWithoutResult(status ->
+                        align(sessionFactory, persister.getTableName(), sequenceName, structure.getIncrementSize()));
+            }
+        });
+    }
+
+    /**
+     * انتقال Sequence به بعد از بزرگ‌ترین شناسه جدول (در صورت نیاز).
+     * با بهینه‌ساز pooled، مقدار Sequence حد بالای بلوک است؛ بنابراین Sequence باید حداقل
+     * به اندازه یک بلوک از بزرگ‌ترین شناسه جلوتر باشد.
+     */
+    private void align(SessionFactoryImplementor sessionFactory, String tableName, String sequenceName, int incrementSize) {
+        long maxId = ((Number) entityManager.createNativeQuery("SELECT COALESCE(MAX(id), 0) FROM " + tableName)
+                .getSingleResult()).longValue();
+        String nextValueSql = sessionFactory.getJdbcServices().getDialect().getSequenceSupport()
+                .getSequenceNextValString(sequenceName);
+        long nextValue = ((Number) entityManager.createNativeQuery(nextValueSql).getSingleResult()).longValue();
+
+        if (nextValue <= maxId + incrementSize) {
+            long restartWith = maxId + incrementSize + 1;
+            entityManager.createNativeQuery("ALTER SEQUENCE " + sequenceName + " RESTART WITH " + restartWith)
+                    .executeUpdate();
+            log.info("Sequence {} restarted at {} (max id in {} is {})", sequenceName, restartWith, tableName, maxId);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.paymaster.backend.domain.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * **کار زمان‌بندی شده حذف کلیدهای یکتایی منقضی** (Idempotency Purge Job).
+ * نمایه حافظه روی هر نمونه برنامه پاک می‌شود؛ حذف از جدول فقط روی نمونه‌ای که اجاره کار را دارد انجام می‌شود.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyPurgeJob {
+
+    static final String JOB_NAME = "idempotency-purge";
+
+    private final ScheduledJobRunner jobRunner;
+    private final IdempotencyService idempotencyService;
+
+    /**
+     * اجرای دوره‌ای بر اساس عبارت cron قابل تنظیم.
+     */
+    @Scheduled(cron = "${paymaster.idempotency.purge-cron:0 */10 * * * *}")
+    public void purge() {
+        idempotencyService.evictExpired();
+        jobRunner.run(JOB_NAME, idempotencyService::purgeExpired);
+    }
+}
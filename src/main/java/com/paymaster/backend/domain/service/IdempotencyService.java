@@ -0,0 +1,170 @@
+package com.paymaster.backend.domain.service;
+
+import com.paymaster.backend.domain.entity.IdempotencyRecord;
+import com.paymaster.backend.domain.repository.IdempotencyRecordRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * **سرویس کلیدهای یکتایی درخواست پرداخت** (Idempotency Service).
+ * نتیجه هر پرداخت دارای کلید در جدول {@code idempotency_records} (در همان تراکنش پرداخت) و در یک نمایه در حافظه ذخیره می‌شود.
+ * تکرار درخواست معمولاً از نمایه حافظه (بدون دسترسی به پایگاه داده) پاسخ داده می‌شود؛ پس از راه‌اندازی دوباره
+ * یا روی نمونه دیگر برنامه، جستجو بر اساس کلید اصلی جدول انجام می‌شود.
+ * کلیدها پس از {@code paymaster.idempotency.ttl} منقضی می‌شوند.
+ */
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    /** بیشترین طول مجاز کلید (برابر طول ستون). */
+    static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository repository;
+    private final EntityManager entityManager;
+
+    private final ConcurrentHashMap<String, CachedResult> index = new ConcurrentHashMap<>();
+
+    @Value("${paymaster.idempotency.ttl:PT24H}")
+    private Duration ttl;
+
+    /**
+     * اعتبارسنجی و یکسان‌سازی کلید دریافتی از کلاینت.
+     * @param key کلید (می‌تواند خالی باشد).
+     * @return کلید بدون فاصله‌های اضافه، یا null اگر کلیدی ارسال نشده باشد.
+     * @throws IllegalArgumentException اگر کلید بیش از حد طولانی باشد.
+     */
+    public static String normalizeKey(String key) {
+        if (key == null || key.isBlank()) return null;
+        String trimmed = key.trim();
+        if (trimmed.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("خطا: کلید یکتایی درخواست نمی‌تواند بیشتر از " + MAX_KEY_LENGTH + " کاراکتر باشد.");
+        }
+        return trimmed;
+    }
+
+    /**
+     * جستجوی نتیجه قبلی در نمایه حافظه (بدون دسترسی به پایگاه داده).
+     * @param key کلید یکتایی.
+     * @param fingerprint اثر انگشت درخواست جاری.
+     * @return شناسه قسط نتیجه قبلی، یا خالی.
+     * @throws IllegalArgumentException اگر کلید قبلاً برای درخواست دیگری استفاده شده باشد.
+     */
+    public Optional<Long> findCached(String key, String fingerprint) {
+        CachedResult cached = index.get(key);
+        if (cached == null) return Optional.empty();
+        if (cached.expiresAtMillis() < System.currentTimeMillis()) {
+            index.remove(key, cached);
+            return Optional.empty();
+        }
+        checkFingerprint(cached.fingerprint(), fingerprint);
+        return Optional.of(cached.installmentId());
+    }
+
+    /**
+     * جستجوی نتیجه قبلی در جدول (بر اساس کلید اصلی)؛ باید داخل تراکنش پرداخت فراخوانی شود.
+     * ردیف منقضی شده‌ای که هنوز حذف نشده پاک می‌شود تا کلید دوباره قابل استفاده باشد.
+     * @param key کلید یکتایی.
+     * @param fingerprint اثر انگشت درخواست جاری.
+     * @return ردیف نتیجه قبلی (شناسه قسط و زمان انقضا)، یا خالی.
+     * @throws IllegalArgumentException اگر کلید قبلاً برای درخواست دیگری استفاده شده باشد.
+     */
+    public Optional<IdempotencyRecord> findStored(String key, String fingerprint) {
+        Optional<IdempotencyRecord> stored = repository.findById(key);
+        if (stored.isEmpty()) return Optional.empty();
+
+        IdempotencyRecord record = stored.get();
+        if (record.getExpiresAt().isBefore(LocalDateTime.now())) {
+            repository.delete(record);
+            entityManager.flush();
+            return Optional.empty();
+        }
+        checkFingerprint(record.getRequestFingerprint(), fingerprint);
+        return Optional.of(record);
+    }
+
+    /**
+     * ثبت نتیجه پرداخت در جدول؛ باید داخل تراکنش پرداخت فراخوانی شود تا با خود پرداخت commit یا rollback شود.
+     * (ثبت هم‌زمان یک کلید در دو نمونه برنامه با خطای کلید تکراری در commit یکی از آن‌ها رد می‌شود.)
+     * @param key کلید یکتایی.
+     * @param fingerprint اثر انگشت درخواست.
+     * @param installmentId شناسه قسط نتیجه.
+     * @return زمان انقضای کلید.
+     */
+    public LocalDateTime record(String key, String fingerprint, Long installmentId) {
+        return record(key, fingerprint, installmentId, null);
+    }
+
+    /**
+     * ثبت نتیجه پرداخت همراه با پاسخ آن (مثلاً تخصیص پرداخت یکجای قرارداد)؛ باید داخل تراکنش پرداخت فراخوانی شود.
+     * این نتایج فقط در جدول نگهداری می‌شوند و تکرار درخواست از ردیف جدول پاسخ داده می‌شود.
+     * @param key کلید یکتایی.
+     * @param fingerprint اثر انگشت درخواست.
+     * @param installmentId شناسه قسط نتیجه.
+     * @param response پاسخ درخواست (JSON).
+     * @return زمان انقضای کلید.
+     */
+    public LocalDateTime record(String key, String fingerprint, Long installmentId, String response) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(ttl);
+        entityManager.persist(IdempotencyRecord.builder()
+                .idempotencyKey(key)
+                .requestFingerprint(fingerprint)
+                .installmentId(installmentId)
+                .response(response)
+                .createdAt(now)
+                .expiresAt(expiresAt)
+                .build());
+        return expiresAt;
+    }
+
+    /**
+     * افزودن نتیجه به نمایه حافظه (پس از commit پرداخت).
+     * زمان انقضا همان زمان ثبت شده در جدول است، تا تکرار درخواست مهلت کلید را تمدید نکند.
+     * @param key کلید یکتایی.
+     * @param fingerprint اثر انگشت درخواست.
+     * @param installmentId شناسه قسط نتیجه.
+     * @param expiresAt زمان انقضای ثبت شده برای کلید.
+     */
+    public void remember(String key, String fingerprint, Long installmentId, LocalDateTime expiresAt) {
+        long expiresAtMillis = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        index.put(key, new CachedResult(fingerprint, installmentId, expiresAtMillis));
+    }
+
+    /**
+     * حذف کلیدهای منقضی شده از نمایه حافظه این نمونه برنامه.
+     * @return تعداد کلیدهای حذف شده.
+     */
+    public int evictExpired() {
+        long now = System.currentTimeMillis();
+        int before = index.size();
+        index.values().removeIf(cached -> cached.expiresAtMillis() < now);
+        return before - index.size();
+    }
+
+    /**
+     * حذف کلیدهای منقضی شده از جدول.
+     * @return تعداد ردیف‌های حذف شده.
+     */
+    @Transactional
+    public int purgeExpired() {
+        return repository.deleteExpired(LocalDateTime.now());
+    }
+
+    private static void checkFingerprint(String stored, String requested) {
+        if (!stored.equals(requested)) {
+            throw new IllegalArgumentException("خطا: این کلید یکتایی قبلاً برای درخواست پرداخت دیگری استفاده شده است.");
+        }
+    }
+
+    private record CachedResult(String fingerprint, Long installmentId, long expiresAtMillis) {
+    }
+}
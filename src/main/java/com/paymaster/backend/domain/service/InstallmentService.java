@@ -5,17 +5,36 @@ import com.paymaster.backend.domain.entity.Installment;
 import com.paymaster.backend.domain.repository.ContractRepository;
 import com.paymaster.backend.domain.repository.InstallmentRepository;
 import com.paymaster.backend.domain.valueobject.ContractStatus;
+import com.paymaster.backend.domain.valueobject.DueDateCursor;
+import com.paymaster.backend.domain.valueobject.InstallmentDueRow;
 import com.paymaster.backend.domain.valueobject.InstallmentStatus;
+import com.paymaster.backend.domain.valueobject.KeysetCursor;
+import com.paymaster.backend.domain.valueobject.KeysetPage;
+import com.paymaster.backend.domain.valueobject.PaymentAllocation;
 import com.paymaster.backend.domain.valueobject.PaymentMethod;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * **سرویس مدیریت اقساط** (Installment Service).
@@ -26,9 +45,22 @@ import java.util.Optional;
 @Transactional(readOnly = true)
 public class InstallmentService {
 
+    /**
+     * طول بازه اقساط سررسید نزدیک (روز از امروز).
+     */
+    public static final int UPCOMING_DAYS = 7;
+
     private final InstallmentRepository installmentRepository;
     private final ContractRepository contractRepository;
     private final CalculationService calculationService;
+    private final PortfolioCountersService countersService;
+    private final AccountBalanceService balanceService;
+    private final PenaltyAccrualService penaltyAccrualService;
+    private final PaymentPostingService paymentPostingService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${paymaster.status-sweep.chunk-size:10000}")
+    private long statusSweepChunkSize;
 
     /**
      * دریافت تمام اقساط، مرتب شده بر اساس تاریخ سررسید (صعودی).
@@ -49,67 +81,221 @@ public class InstallmentService {
 
     /**
      * بازیابی اقساط یک قرارداد مشخص، مرتب شده بر اساس شماره قسط.
+     * اقساط از مجموعه اقساط قرارداد خوانده می‌شوند تا قرارداد، فهرست اقساط و خود اقساط از کش سطح دوم بیایند
+     * (پرداخت‌ها اقساط کش شده را به‌روز می‌کنند و فهرست اقساط قرارداد را تغییر نمی‌دهند).
      * @param contractId شناسه قرارداد.
-     * @return لیستی از اقساط قرارداد.
+     * @return لیستی از اقساط قرارداد (برای قرارداد ناموجود، لیست خالی).
      */
     public List<Installment> findByContractId(Long contractId) {
-        return installmentRepository.findByContractIdOrderByInstallmentNumberAsc(contractId);
+        return contractRepository.findById(contractId)
+                .map(contract -> contract.getInstallments().stream()
+                        .sorted(Comparator.comparing(Installment::getInstallmentNumber))
+                        .toList())
+                .orElse(List.of());
+    }
+
+    /**
+     * **صفحه‌ای از اقساط** با صفحه‌بندی Keyset به ترتیب زمان ایجاد (جدیدترین اول)؛ هزینه هر صفحه مستقل از عمق آن است.
+     * تعداد کل فقط با {@code exactCount} شمرده می‌شود (جدول اقساط بزرگترین جدول است و شمارنده تقریبی ندارد).
+     * @param status وضعیت قسط (null برای همه).
+     * @param after مکان‌نمای صفحه بعد (اقساط قدیمی‌تر) یا null.
+     * @param before مکان‌نمای صفحه قبل (اقساط جدیدتر) یا null.
+     * @param size تعداد در صفحه.
+     * @param exactCount شمارش دقیق تعداد کل.
+     * @return صفحه‌ای از اقساط (قرارداد بارگذاری نمی‌شود).
+     */
+    public KeysetPage<Installment> findPage(InstallmentStatus status, String after, String before, int size, boolean exactCount) {
+        KeysetCursor afterCursor = KeysetCursor.decode(after);
+        KeysetCursor beforeCursor = KeysetCursor.decode(before);
+        size = KeysetPage.limitSize(size);
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<Installment> rows;
+        if (beforeCursor != null) {
+            rows = installmentRepository.findPageBefore(status, beforeCursor.getCreatedAt(), beforeCursor.getId(), limit);
+            if (rows.size() <= size) {
+                // به ابتدای لیست رسیده‌ایم: به جای صفحه ناقص، صفحه اول کامل نمایش داده می‌شود
+                beforeCursor = null;
+                afterCursor = null;
+                rows = installmentRepository.findPageFirst(status, limit);
+            }
+        } else if (afterCursor != null) {
+            rows = installmentRepository.findPageAfter(status, afterCursor.getCreatedAt(), afterCursor.getId(), limit);
+        } else {
+            rows = installmentRepository.findPageFirst(status, limit);
+        }
+        KeysetPage<Installment> page = KeysetPage.of(rows, size, beforeCursor != null,
+                afterCursor == null && beforeCursor == null, Installment::getCreatedAt, Installment::getId);
+
+        if (!exactCount) return page;
+        return page.withTotal(status == null ? installmentRepository.count() : installmentRepository.countByStatus(status), false);
+    }
+
+    /**
+     * **صفحه‌ای از اقساط معوق** (سررسید گذشته و پرداخت نشده)، بیشترین تأخیر اول، با صفحه‌بندی بر اساس سررسید.
+     * ردیف‌ها همراه با شماره قرارداد و نام مشتری در یک کوئری خوانده می‌شوند.
+     * تعداد کل در صورت عدم درخواست شمارش دقیق از شمارنده پرتفوی خوانده می‌شود.
+     * @param after مکان‌نمای صفحه بعد (تأخیر کمتر) یا null.
+     * @param before مکان‌نمای صفحه قبل (تأخیر بیشتر) یا null.
+     * @param size تعداد در صفحه.
+     * @param exactCount شمارش دقیق تعداد کل.
+     * @return صفحه‌ای از ردیف‌های قسط.
+     */
+    public KeysetPage<InstallmentDueRow> findOverduePage(String after, String before, int size, boolean exactCount) {
+        LocalDate today = LocalDate.now();
+        KeysetPage<InstallmentDueRow> page = findDuePage(after, before, size,
+                limit -> installmentRepository.findOverdueRowsFirst(today, limit),
+                (cursor, limit) -> installmentRepository.findOverdueRowsAfter(today, cursor.getDueDate(), cursor.getId(), limit),
+                (cursor, limit) -> installmentRepository.findOverdueRowsBefore(today, cursor.getDueDate(), cursor.getId(), limit));
+
+        if (exactCount) {
+            return page.withTotal(installmentRepository.countOverdueInstallments(today), false);
+        }
+        return page.withTotal(countersService.findStored().map(counters -> counters.getOverdueInstallments()).orElse(null), true);
     }
 
     /**
-     * بازیابی اقساط سررسید گذشته (معوق) که وضعیت آن‌ها "در انتظار پرداخت" است.
-     * @return لیستی از اقساط معوق.
+     * **صفحه‌ای از اقساط سررسید نزدیک** (از امروز تا {@value #UPCOMING_DAYS} روز آینده)، نزدیک‌ترین سررسید اول.
+     * @param after مکان‌نمای صفحه بعد یا null.
+     * @param before مکان‌نمای صفحه قبل یا null.
+     * @param size تعداد در صفحه.
+     * @param exactCount شمارش دقیق تعداد کل.
+     * @return صفحه‌ای از ردیف‌های قسط.
      */
-    public List<Installment> findOverdueInstallments() {
-        return installmentRepository.findOverdueInstallments(LocalDate.now());
+    public KeysetPage<InstallmentDueRow> findUpcomingPage(String after, String before, int size, boolean exactCount) {
+        LocalDate today = LocalDate.now();
+        LocalDate to = today.plusDays(UPCOMING_DAYS);
+        KeysetPage<InstallmentDueRow> page = findDuePage(after, before, size,
+                limit -> installmentRepository.findUpcomingRowsFirst(today, to, limit),
+                (cursor, limit) -> installmentRepository.findUpcomingRowsAfter(today, to, cursor.getDueDate(), cursor.getId(), limit),
+                (cursor, limit) -> installmentRepository.findUpcomingRowsBefore(today, to, cursor.getDueDate(), cursor.getId(), limit));
+
+        if (!exactCount) return page;
+        return page.withTotal(installmentRepository.countUpcoming(today, to), false);
     }
 
     /**
-     * بازیابی اقساطی که سررسید آن‌ها در هفته جاری است (از امروز تا ۷ روز آینده).
-     * @return لیستی از اقساط سررسید این هفته.
+     * معوق‌ترین اقساط (برای ویجت داشبورد؛ یک کوئری با LIMIT).
+     * @param limit حداکثر تعداد.
+     * @return ردیف‌های قسط، بیشترین تأخیر اول.
      */
-    public List<Installment> findInstallmentsDueThisWeek() {
+    public List<InstallmentDueRow> findTopOverdue(int limit) {
+        return installmentRepository.findOverdueRowsFirst(LocalDate.now(), PageRequest.of(0, limit));
+    }
+
+    /**
+     * نزدیک‌ترین اقساط سررسید این هفته (برای ویجت داشبورد؛ یک کوئری با LIMIT).
+     * @param limit حداکثر تعداد.
+     * @return ردیف‌های قسط، نزدیک‌ترین سررسید اول.
+     */
+    public List<InstallmentDueRow> findTopUpcoming(int limit) {
         LocalDate today = LocalDate.now();
-        // تاریخ پایان هفته (امروز + ۶ روز یا ۷ روز آینده، بسته به منطق)
-        // برای پیدا کردن اقساط 'این هفته' بهتر است از تاریخ شروع و پایان هفته شمسی استفاده شود.
-        // با فرض اینکه منطق تاریخ در DateUtils پیاده شده است، اینجا صرفاً یک بازه 7 روزه را در نظر می‌گیریم.
-        LocalDate endOfWeek = today.plusDays(7);
-        return installmentRepository.findInstallmentsDueThisWeek(today, endOfWeek);
+        return installmentRepository.findUpcomingRowsFirst(today, today.plusDays(UPCOMING_DAYS), PageRequest.of(0, limit));
+    }
+
+    /**
+     * اجرای کوئری مناسب صفحه‌بندی بر اساس سررسید (مانند {@link #findPage}) و ساخت صفحه.
+     */
+    private KeysetPage<InstallmentDueRow> findDuePage(String after, String before, int size,
+                                                      Function<Pageable, List<InstallmentDueRow>> first,
+                                                      BiFunction<DueDateCursor, Pageable, List<InstallmentDueRow>> afterQuery,
+                                                      BiFunction<DueDateCursor, Pageable, List<InstallmentDueRow>> beforeQuery) {
+        DueDateCursor afterCursor = DueDateCursor.decode(after);
+        DueDateCursor beforeCursor = DueDateCursor.decode(before);
+        size = KeysetPage.limitSize(size);
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<InstallmentDueRow> rows;
+        if (beforeCursor != null) {
+            rows = beforeQuery.apply(beforeCursor, limit);
+            if (rows.size() <= size) {
+                // به ابتدای لیست رسیده‌ایم: به جای صفحه ناقص، صفحه اول کامل نمایش داده می‌شود
+                beforeCursor = null;
+                afterCursor = null;
+                rows = first.apply(limit);
+            }
+        } else if (afterCursor != null) {
+            rows = afterQuery.apply(afterCursor, limit);
+        } else {
+            rows = first.apply(limit);
+        }
+        return KeysetPage.of(rows, size, beforeCursor != null, afterCursor == null && beforeCursor == null,
+                row -> new DueDateCursor(row.getDueDate(), row.getId()).encode());
     }
 
     /**
      * **ثبت پرداخت قسط**.
-     * این عملیات شامل محاسبه جریمه، به‌روزرسانی مبلغ پرداخت شده و تعیین وضعیت جدید قسط است.
+     * این عملیات شامل تکمیل جریمه انباشته تا امروز، به‌روزرسانی مبلغ پرداخت شده و تعیین وضعیت جدید قسط است.
+     * پرداخت از طریق {@link PaymentPostingService} و در تراکنش مستقل اجرا می‌شود؛ اگر هم‌زمان پرداخت دیگری
+     * همان قسط یا قرارداد را تغییر داده باشد، پرداخت با داده تازه دوباره اجرا می‌شود (هیچ پرداختی از دست نمی‌رود).
+     * ارسال دوباره درخواستی با همان کلید یکتایی پرداخت را تکرار نمی‌کند و فقط قسط را برمی‌گرداند.
      *
      * @param installmentId شناسه قسط.
      * @param paidAmount مبلغی که مشتری پرداخت کرده است.
      * @param paymentMethod روش پرداخت.
      * @param receiptNumber شماره رسید/پیگیری.
      * @param notes توضیحات.
+     * @param idempotencyKey کلید یکتایی درخواست (اختیاری).
      * @return قسط به‌روزرسانی شده.
-     * @throws IllegalArgumentException در صورت یافت نشدن قسط یا پرداخت قبلی.
+     * @throws IllegalArgumentException در صورت یافت نشدن قسط، پرداخت قبلی یا استفاده از کلید برای پرداخت دیگر.
      */
-    @Transactional
-    public Installment payInstallment(Long installmentId, Long paidAmount, PaymentMethod paymentMethod, String receiptNumber, String notes) {
+    @Timed("paymaster.service")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Installment payInstallment(Long installmentId, Long paidAmount, PaymentMethod paymentMethod, String receiptNumber,
+                                      String notes, String idempotencyKey) {
+        String fingerprint = "PAY:" + installmentId + ":" + paidAmount + ":" + paymentMethod;
+        return paymentPostingService.post(installmentId, idempotencyKey, fingerprint,
+                () -> applyPayment(loadInstallment(installmentId), paidAmount, paymentMethod, receiptNumber, notes));
+    }
 
-        Installment installment = installmentRepository.findById(installmentId)
+    /**
+     * **پرداخت سریع** (Quick Pay).
+     * پرداخت مبلغ باقیمانده قسط (اصل + جریمه‌های انباشته) به صورت نقدی و بدون جزئیات.
+     * مبلغ در همان تراکنش پرداخت محاسبه می‌شود، پس کلیک دوباره پس از تسویه با خطای "قبلاً پرداخت شده" رد می‌شود؛
+     * ارسال دوباره همان فرم (همان کلید یکتایی) بدون خطا همان نتیجه را برمی‌گرداند.
+     * @param installmentId شناسه قسط.
+     * @param idempotencyKey کلید یکتایی درخواست (اختیاری).
+     * @return قسط به‌روزرسانی شده.
+     */
+    @Timed("paymaster.service")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Installment quickPay(Long installmentId, String idempotencyKey) {
+        return paymentPostingService.post(installmentId, idempotencyKey, "QUICK_PAY:" + installmentId, () -> {
+            Installment installment = loadInstallment(installmentId);
+
+            // محاسبه مبلغ باقیمانده کل (شامل جریمه‌های انباشته شده و جریمه روزهایی که هنوز ذخیره نشده‌اند)
+            long totalRemainingDue = installment.getRemainingAmount() + penaltyAccrualService.pendingPenalty(installment, LocalDate.now());
+
+            // اگر قبلاً پرداخت کامل شده باشد
+            if (totalRemainingDue <= 0 && installment.getStatus() == InstallmentStatus.PAID) {
+                throw new IllegalArgumentException("خطا: این قسط قبلاً به طور کامل پرداخت شده است.");
+            }
+
+            // پرداخت اصلی برای تسویه کامل؛ شماره رسید از شناسه و نسخه قسط ساخته می‌شود تا بین پرداخت‌های هم‌زمان یکتا باشد
+            String receiptNumber = "QUICKPAY-" + installment.getId() + "-" + (installment.getVersion() + 1);
+            return applyPayment(installment, totalRemainingDue, PaymentMethod.CASH, receiptNumber, "تسویه سریع قسط");
+        });
+    }
+
+    private Installment loadInstallment(Long installmentId) {
+        return installmentRepository.findById(installmentId)
                 .orElseThrow(() -> new IllegalArgumentException("خطا: قسط یافت نشد"));
+    }
 
+    /**
+     * اعمال پرداخت روی قسط (داخل تراکنشی که {@link PaymentPostingService} باز کرده است).
+     * قرارداد با افزایش اجباری نسخه خوانده می‌شود تا پرداخت‌های هم‌زمان روی اقساط دیگر همان قرارداد تشخیص داده شوند.
+     */
+    private Installment applyPayment(Installment installment, Long paidAmount, PaymentMethod paymentMethod, String receiptNumber, String notes) {
         if (installment.getStatus() == InstallmentStatus.PAID) {
             throw new IllegalArgumentException("خطا: این قسط قبلاً به طور کامل پرداخت شده است.");
         }
 
-        // 1. محاسبه جریمه تاخیر
-        long penalty = 0;
-        if (installment.isOverdue()) {
-            // از متد داخلی قسط برای محاسبه جریمه بر اساس نرخ قرارداد استفاده می‌شود
-            penalty = installment.calculatePenalty();
-        }
+        Contract contract = contractRepository.findForPaymentById(installment.getContract().getId())
+                .orElseThrow(() -> new IllegalArgumentException("خطا: قرارداد یافت نشد"));
 
-        // 2. محاسبه مبلغ کل بدهی (باقیمانده قسط + جریمه)
-        // مبلغ اصلی قسط باقی‌مانده: amount - paidAmount
-        // مبلغ کل بدهی: (amount - paidAmount) + penalty
-        long totalDue = (installment.getAmount() - installment.getPaidAmount()) + penalty;
+        // 1. محاسبه جریمه تاخیر روزهایی که هنوز توسط کار شبانه ذخیره نشده‌اند (معمولاً صفر)
+        long penalty = penaltyAccrualService.accrue(installment, LocalDate.now());
 
         if (paidAmount < 0) {
             throw new IllegalArgumentException("خطا: مبلغ پرداخت شده نمی‌تواند منفی باشد.");
@@ -118,68 +304,221 @@ public class InstallmentService {
             throw new IllegalArgumentException("خطا: مبلغ پرداخت شده صفر است. اگر پرداخت کامل است، از QuickPay استفاده کنید.");
         }
 
-        // 3. به‌روزرسانی فیلدهای قسط
+        // 2. به‌روزرسانی فیلدهای قسط
+        InstallmentStatus statusBefore = installment.getStatus();
+        long paidBefore = installment.getPaidAmount();
         installment.setPaidAmount(installment.getPaidAmount() + paidAmount);
 
-        // جریمه محاسبه شده را در فیلد مربوطه ذخیره می‌کنیم
-        installment.setPenaltyAmount(installment.getPenaltyAmount() + penalty);
-
         installment.setPaymentDate(LocalDateTime.now());
         installment.setPaymentMethod(paymentMethod);
         installment.setReceiptNumber(receiptNumber);
         installment.setNotes(notes);
 
-        // 4. تعیین وضعیت جدید
-        // اگر کل مبلغ بدهی (اصلی + جریمه) پرداخت شده باشد.
-        if (installment.getPaidAmount() >= installment.getAmount() + installment.getPenaltyAmount()) {
-            installment.setStatus(InstallmentStatus.PAID);
-        } else if (installment.getPaidAmount() > 0) {
-            installment.setStatus(InstallmentStatus.PARTIALLY_PAID);
-        } else {
-            // در غیر این صورت، وضعیت PENDING/OVERDUE (که در background job به‌روزرسانی می‌شود) حفظ می‌شود.
-        }
+        // 3. تعیین وضعیت جدید
+        updateStatusAfterPayment(installment);
 
         installment = installmentRepository.save(installment);
+        countersService.onInstallmentPaid(installment, statusBefore, paidBefore, penalty);
+        balanceService.onInstallmentsPaid(List.of(
+                new PortfolioCountersService.InstallmentPayment(installment, statusBefore, paidBefore)));
 
-        // 5. بررسی تکمیل قرارداد (در صورت لزوم)
-        checkContractCompletion(installment.getContract().getId());
+        // 4. بررسی تکمیل قرارداد (در صورت لزوم)
+        checkContractCompletion(contract);
 
         return installment;
     }
 
     /**
-     * **پرداخت سریع** (Quick Pay).
-     * پرداخت مبلغ باقیمانده قسط (اصل + جریمه‌های انباشته) به صورت نقدی و بدون جزئیات.
-     * @param installmentId شناسه قسط.
-     * @return قسط به‌روزرسانی شده.
+     * **پرداخت یکجای قرارداد** (Payment Waterfall).
+     * مبلغ دریافتی بین اقساط تسویه نشده قرارداد به ترتیب شماره قسط (قدیمی‌ترین اول) تقسیم می‌شود؛
+     * در هر قسط ابتدا جریمه و سپس اصل قسط تسویه می‌شود و مانده به قسط بعدی می‌رسد.
+     * تمام اقساط در یک تراکنش و با UPDATE گروهی (JDBC Batch) ذخیره می‌شوند و آمار پرتفوی و وضعیت قرارداد
+     * یک بار به‌روزرسانی می‌شوند. در صورت تداخل با پرداخت هم‌زمان، کل تخصیص با داده تازه دوباره اجرا می‌شود.
+     *
+     * @param contractId شناسه قرارداد.
+     * @param amount مبلغ دریافتی.
+     * @param paymentMethod روش پرداخت.
+     * @param receiptNumber شماره رسید/پیگیری (برای تمام اقساط تخصیص یافته).
+     * @param notes توضیحات.
+     * @param idempotencyKey کلید یکتایی درخواست (اختیاری)؛ ارسال دوباره همان فرم همان تخصیص را برمی‌گرداند.
+     * @return جزئیات تخصیص مبلغ به اقساط.
+     * @throws IllegalArgumentException اگر قرارداد یافت نشود، قسط بازی نداشته باشد یا مبلغ نامعتبر یا بیشتر از کل بدهی باشد.
      */
-    @Transactional
-    public Installment quickPay(Long installmentId) {
-        Installment installment = installmentRepository.findById(installmentId)
-                .orElseThrow(() -> new IllegalArgumentException("خطا: قسط یافت نشد"));
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PaymentAllocation payContract(Long contractId, Long amount, PaymentMethod paymentMethod, String receiptNumber,
+                                         String notes, String idempotencyKey) {
+        if (amount == null || amount <= 0) {
+            throw new IllegalArgumentException("خطا: مبلغ پرداخت باید بزرگتر از صفر باشد.");
+        }
+        String fingerprint = "CONTRACT_PAY:" + contractId + ":" + amount + ":" + paymentMethod;
+        return paymentPostingService.postToContract(contractId, idempotencyKey, fingerprint,
+                () -> allocatePayment(contractId, amount, paymentMethod, receiptNumber, notes));
+    }
 
-        // محاسبه مبلغ باقیمانده کل (شامل جریمه‌های انباشته شده)
-        long totalRemainingDue = installment.getRemainingAmount();
+    private PaymentAllocation allocatePayment(Long contractId, long amount, PaymentMethod paymentMethod, String receiptNumber, String notes) {
+        Contract contract = contractRepository.findForPaymentById(contractId)
+                .orElseThrow(() -> new IllegalArgumentException("خطا: قرارداد یافت نشد"));
+        List<Installment> outstanding = installmentRepository.findOutstandingByContractId(contractId);
+        if (outstanding.isEmpty()) {
+            throw new IllegalArgumentException("خطا: این قرارداد قسط پرداخت نشده‌ای ندارد.");
+        }
 
-        // اگر قبلاً پرداخت کامل شده باشد
-        if (totalRemainingDue <= 0 && installment.getStatus() == InstallmentStatus.PAID) {
-            throw new IllegalArgumentException("خطا: این قسط قبلاً به طور کامل پرداخت شده است.");
+        // جریمه روزهایی که هنوز توسط کار شبانه ذخیره نشده‌اند، پیش از محاسبه بدهی
+        LocalDate today = LocalDate.now();
+        long penaltyDelta = 0;
+        long totalDue = 0;
+        for (Installment installment : outstanding) {
+            penaltyDelta += penaltyAccrualService.accrue(installment, today);
+            totalDue += installment.getRemainingAmount();
+        }
+        if (amount > totalDue) {
+            throw new IllegalArgumentException("خطا: مبلغ پرداخت (" + String.format("%,d", amount)
+                    + " ریال) بیشتر از کل بدهی قرارداد (" + String.format("%,d", totalDue) + " ریال) است.");
         }
 
-        // فراخوانی متد اصلی پرداخت برای تسویه کامل
-        return payInstallment(installmentId, totalRemainingDue, PaymentMethod.CASH, "QUICKPAY-" + System.currentTimeMillis(), "تسویه سریع قسط");
+        LocalDateTime paymentDate = LocalDateTime.now();
+        List<PaymentAllocation.Line> lines = new ArrayList<>();
+        List<PortfolioCountersService.InstallmentPayment> payments = new ArrayList<>();
+        long left = amount;
+        long penaltyAllocated = 0;
+        for (Installment installment : outstanding) {
+            if (left == 0) break;
+
+            // مبلغ پرداخت شده قبلی ابتدا جریمه را پوشش داده است
+            long penaltyDue = Math.max(0, installment.getPenaltyAmount() - installment.getPaidAmount());
+            long principalDue = installment.getRemainingAmount() - penaltyDue;
+            long penaltyPaid = Math.min(left, penaltyDue);
+            long principalPaid = Math.min(left - penaltyPaid, principalDue);
+            if (penaltyPaid + principalPaid == 0) continue;
+            left -= penaltyPaid + principalPaid;
+            penaltyAllocated += penaltyPaid;
+
+            payments.add(recordPayment(installment, penaltyPaid + principalPaid, paymentMethod, receiptNumber, notes, paymentDate));
+            lines.add(new PaymentAllocation.Line(installment.getId(), installment.getInstallmentNumber(),
+                    penaltyPaid, principalPaid, installment.getRemainingAmount(), installment.getStatus()));
+        }
+        // اقساط تغییر یافته هنگام commit با dirty checking در یک JDBC Batch به‌روزرسانی می‌شوند
+        countersService.onInstallmentsPaid(payments, penaltyDelta);
+        balanceService.onInstallmentsPaid(payments);
+
+        boolean completed = outstanding.stream().allMatch(i -> i.getStatus() == InstallmentStatus.PAID);
+        if (completed && contract.getStatus() != ContractStatus.COMPLETED) {
+            ContractStatus oldStatus = contract.getStatus();
+            contract.setStatus(ContractStatus.COMPLETED);
+            countersService.onContractStatusChanged(contract, oldStatus);
+            balanceService.onContractStatusChanged(contract, oldStatus);
+        }
+
+        return new PaymentAllocation(contractId, amount, penaltyAllocated, amount - penaltyAllocated, completed, lines);
+    }
+
+    /**
+     * **ثبت گروهی پرداخت‌ها** روی اقساط مشخص (مثلاً پرداخت‌های تطبیق داده شده صورتحساب بانک).
+     * باید داخل تراکنش فراخوانی کننده اجرا شود (نگاه کنید به {@link PaymentPostingService#postBatch}).
+     * اقساط و قراردادهای آن‌ها هر کدام با یک کوئری خوانده می‌شوند (قراردادها با افزایش اجباری نسخه، مانند پرداخت تکی)،
+     * تغییرات هنگام commit در JDBC Batch ذخیره می‌شوند و آمار پرتفوی و تکمیل قراردادها یک بار برای کل دسته بررسی می‌شوند.
+     * جریمه هر قسط تا تاریخ پرداخت (نه امروز) محاسبه می‌شود، همان بدهی که تطبیق صورتحساب با آن مقایسه کرده است.
+     * @param payments پرداخت‌ها (هر قسط حداکثر یک بار).
+     * @throws IllegalArgumentException اگر قسطی یافت نشود یا قبلاً پرداخت شده باشد.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void postPayments(List<BatchPayment> payments) {
+        if (payments.isEmpty()) return;
+
+        Map<Long, Installment> installments = new HashMap<>();
+        for (Installment installment : InClauseSlices.query(payments.stream().map(BatchPayment::installmentId).toList(),
+                installmentRepository::findAllById)) {
+            installments.put(installment.getId(), installment);
+        }
+        Set<Long> contractIds = new HashSet<>();
+        for (Installment installment : installments.values()) {
+            contractIds.add(installment.getContract().getId());
+        }
+        List<Contract> contracts = InClauseSlices.query(contractIds, contractRepository::findAllForPaymentByIdIn);
+
+        long penaltyDelta = 0;
+        List<PortfolioCountersService.InstallmentPayment> posted = new ArrayList<>(payments.size());
+        for (BatchPayment payment : payments) {
+            Installment installment = installments.get(payment.installmentId());
+            if (installment == null) {
+                throw new IllegalArgumentException("خطا: قسط " + payment.installmentId() + " یافت نشد");
+            }
+            if (installment.getStatus() == InstallmentStatus.PAID) {
+                throw new IllegalArgumentException("خطا: قسط " + payment.installmentId() + " قبلاً به طور کامل پرداخت شده است.");
+            }
+            penaltyDelta += penaltyAccrualService.accrue(installment, payment.paymentDate().toLocalDate());
+            posted.add(recordPayment(installment, payment.amount(), payment.paymentMethod(), payment.receiptNumber(),
+                    payment.notes(), payment.paymentDate()));
+        }
+        countersService.onInstallmentsPaid(posted, penaltyDelta);
+        balanceService.onInstallmentsPaid(posted);
+
+        // فقط قراردادهایی که قسطی از آن‌ها در این دسته تسویه شد ممکن است تکمیل شده باشند
+        Set<Long> settled = new HashSet<>();
+        for (PortfolioCountersService.InstallmentPayment payment : posted) {
+            if (payment.installment().getStatus() == InstallmentStatus.PAID) {
+                settled.add(payment.installment().getContract().getId());
+            }
+        }
+        // کوئری پیش از اجرا تغییرات اقساط را flush می‌کند
+        Set<Long> withOutstanding = new HashSet<>(
+                InClauseSlices.query(settled, installmentRepository::findContractIdsWithOutstanding));
+        for (Contract contract : contracts) {
+            if (settled.contains(contract.getId()) && !withOutstanding.contains(contract.getId())
+                    && contract.getStatus() != ContractStatus.COMPLETED) {
+                ContractStatus oldStatus = contract.getStatus();
+                contract.setStatus(ContractStatus.COMPLETED);
+                countersService.onContractStatusChanged(contract, oldStatus);
+                balanceService.onContractStatusChanged(contract, oldStatus);
+            }
+        }
+    }
+
+    /**
+     * یک پرداخت از دسته پرداخت‌های {@link #postPayments}.
+     */
+    public record BatchPayment(Long installmentId, long amount, PaymentMethod paymentMethod, String receiptNumber,
+                               String notes, LocalDateTime paymentDate) {
+    }
+
+    /**
+     * افزودن مبلغ به پرداخت شده قسط و ثبت جزئیات پرداخت و وضعیت جدید.
+     * @return تغییر قسط برای به‌روزرسانی آمار پرتفوی.
+     */
+    private static PortfolioCountersService.InstallmentPayment recordPayment(Installment installment, long amount,
+            PaymentMethod paymentMethod, String receiptNumber, String notes, LocalDateTime paymentDate) {
+        InstallmentStatus statusBefore = installment.getStatus();
+        long paidBefore = installment.getPaidAmount();
+        installment.setPaidAmount(paidBefore + amount);
+        installment.setPaymentDate(paymentDate);
+        installment.setPaymentMethod(paymentMethod);
+        installment.setReceiptNumber(receiptNumber);
+        installment.setNotes(notes);
+        updateStatusAfterPayment(installment);
+        return new PortfolioCountersService.InstallmentPayment(installment, statusBefore, paidBefore);
+    }
+
+    /**
+     * تعیین وضعیت قسط پس از پرداخت.
+     * اگر کل مبلغ بدهی (اصلی + جریمه) پرداخت شده باشد PAID، و در غیر این صورت PARTIALLY_PAID؛
+     * بدون پرداخت، وضعیت PENDING/OVERDUE (که در background job به‌روزرسانی می‌شود) حفظ می‌شود.
+     */
+    private static void updateStatusAfterPayment(Installment installment) {
+        if (installment.getPaidAmount() >= installment.getAmount() + installment.getPenaltyAmount()) {
+            installment.setStatus(InstallmentStatus.PAID);
+        } else if (installment.getPaidAmount() > 0) {
+            installment.setStatus(InstallmentStatus.PARTIALLY_PAID);
+        }
     }
 
     /**
      * **بررسی تکمیل قرارداد**.
      * در صورتی که تمام اقساط یک قرارداد پرداخت شده باشند، وضعیت قرارداد را به COMPLETED تغییر می‌دهد.
-     * @param contractId شناسه قرارداد.
+     * @param contract قرارداد.
      */
-    private void checkContractCompletion(Long contractId) {
-        Contract contract = contractRepository.findById(contractId).orElse(null);
-
-        // اگر قرارداد یافت نشد یا قبلاً COMPLETED شده است، برگرد
-        if (contract == null || contract.getStatus() == ContractStatus.COMPLETED) return;
+    private void checkContractCompletion(Contract contract) {
+        // اگر قرارداد قبلاً COMPLETED شده است، برگرد
+        if (contract.getStatus() == ContractStatus.COMPLETED) return;
 
         // بررسی اینکه آیا تمام اقساط وضعیت PAID دارند
         // تنها InstallmentStatus.PAID باید چک شود زیرا COMPLETED در این Enum تعریف نشده است.
@@ -188,18 +527,36 @@ public class InstallmentService {
 
         if (allPaid) {
             // اگر تمام اقساط پرداخت شده‌اند، وضعیت قرارداد را به COMPLETED تغییر بده
+            ContractStatus oldStatus = contract.getStatus();
             contract.setStatus(ContractStatus.COMPLETED);
+            countersService.onContractStatusChanged(contract, oldStatus);
+            balanceService.onContractStatusChanged(contract, oldStatus);
             contractRepository.save(contract);
         }
     }
 
     /**
      * **به‌روزرسانی وضعیت اقساط معوق** (تغییر وضعیت از PENDING به OVERDUE).
+     * UPDATE گروهی در بازه‌های شناسه و هر بازه در تراکنش مستقل اجرا می‌شود تا قفل‌ها و لاگ تراکنش محدود بمانند.
+     * (آمار معوقات پرتفوی هر دو وضعیت PENDING و OVERDUE را می‌شمارد، پس این تغییر اثری بر آن ندارد؛
+     * تعداد اقساط معوق ذخیره شده روی قراردادها پیش از UPDATE و در همان تراکنش افزایش می‌یابد.)
      * @return تعداد اقساطی که وضعیت آن‌ها به‌روزرسانی شده است.
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public int updateOverdueInstallments() {
-        return installmentRepository.updateOverdueInstallments(LocalDate.now());
+        LocalDate today = LocalDate.now();
+        long maxId = installmentRepository.findMaxId();
+        int updated = 0;
+
+        for (long fromId = 0; fromId < maxId; fromId += statusSweepChunkSize) {
+            long toId = Math.min(fromId + statusSweepChunkSize, maxId);
+            long rangeStart = fromId;
+            updated += transactionTemplate.execute(status -> {
+                contractRepository.addBecomingOverdueInstallments(rangeStart, toId, today);
+                return installmentRepository.updateOverdueInstallments(rangeStart, toId, today, LocalDateTime.now());
+            });
+        }
+        return updated;
     }
 
     /**
@@ -0,0 +1,169 @@
+package com.paymaster.backend.domain.service;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * **اجرای هم‌زمان کوئری‌های مستقل یک درخواست** (Parallel Queries).
+ * کوئری‌هایی که به هم وابسته نیستند (مثلاً آمار و ویجت‌های داشبورد) هر کدام روی یک Virtual Thread و با تراکنش و
+ * اتصال خود اجرا می‌شوند، پس زمان پاسخ برابر کندترین کوئری است و نه مجموع آن‌ها:
+ * <pre>{@code
+ * try (ParallelQueries.Batch batch = parallelQueries.batch()) {
+ *     Supplier<Stats> stats = batch.fork(service::getStats);
+ *     Supplier<List<Row>> rows = batch.fork(service::getRows);
+ *     batch.join();
+ *     ...
+ * }
+ * }</pre>
+ * مشابه {@code StructuredTaskScope.ShutdownOnFailure} (که در Java 21 هنوز Preview است):
+ * {@link Batch#join} تا پایان همه کارها یا اولین خطا و حداکثر تا {@code paymaster.parallel-queries.timeout} صبر می‌کند
+ * و در صورت خطا یا اتمام مهلت، کارهای شروع نشده لغو می‌شوند. کارهای در حال اجرا Interrupt نمی‌شوند
+ * (Interrupt رشته‌ای که در حال خواندن فایل H2 است کانال فایل پایگاه داده را می‌بندد) و در پس‌زمینه تمام می‌شوند.
+ * شمارش {@link QueryCounter} درخواست به کارها منتقل می‌شود.
+ * <p>
+ * حداکثر {@code paymaster.parallel-queries.max-concurrency} کار (از همه درخواست‌ها) هم‌زمان روی Virtual Threadها
+ * اجرا می‌شوند؛ وقتی این سقف پر باشد (برنامه زیر بار است)، کار مانند {@code CallerRunsPolicy} روی رشته خود درخواست
+ * اجرا می‌شود. در غیر این صورت هر درخواست زیر بار چند اتصال هم‌زمان از Pool می‌خواهد و کارهای همه درخواست‌ها
+ * در صف اتصال در هم می‌روند، تا جایی که هیچ درخواستی پیش از پایان مهلت تمام نمی‌شود.
+ * با {@code paymaster.parallel-queries.enabled=false} کارها به ترتیب روی رشته درخواست اجرا می‌شوند.
+ */
+@Component
+public class ParallelQueries implements DisposableBean {
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("parallel-query-", 0).factory());
+    private final boolean enabled;
+    private final Duration timeout;
+    private final Semaphore permits;
+
+    public ParallelQueries(@Value("${paymaster.parallel-queries.enabled:true}") boolean enabled,
+                           @Value("${paymaster.parallel-queries.timeout:PT30S}") Duration timeout,
+                           @Value("${paymaster.parallel-queries.max-concurrency:10}") int maxConcurrency) {
+        this.enabled = enabled;
+        this.timeout = timeout;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * شروع یک دسته کار هم‌زمان.
+     * @return دسته (باید با try-with-resources بسته شود).
+     */
+    public Batch batch() {
+        return new Batch();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * دسته کارهای هم‌زمان یک درخواست.
+     */
+    public final class Batch implements AutoCloseable {
+
+        private final CompletionService<Object> completion = new ExecutorCompletionService<>(executor);
+        private final List<Future<?>> futures = new ArrayList<>();
+        private final List<AtomicBoolean> claims = new ArrayList<>();
+        private int submitted;
+
+        private Batch() {
+        }
+
+        /**
+         * شروع یک کار (یا اجرای فوری آن روی رشته جاری، اگر اجرای هم‌زمان غیرفعال یا سقف کارهای هم‌زمان پر باشد).
+         * @param task کار (مثلاً فراخوانی متد یک سرویس).
+         * @return نتیجه کار؛ فقط پس از {@link #join} موفق قابل خواندن است.
+         */
+        public <T> Supplier<T> fork(Callable<T> task) {
+            Future<T> future;
+            if (enabled && permits.tryAcquire()) {
+                // مجوز را یا خود کار (پس از اجرا) آزاد می‌کند یا close (اگر کار پیش از شروع لغو شود)
+                AtomicBoolean claim = new AtomicBoolean();
+                Callable<T> propagated = QueryCounter.propagate(task);
+                Callable<Object> guarded = () -> {
+                    if (!claim.compareAndSet(false, true)) throw new CancellationException();
+                    try {
+                        return propagated.call();
+                    } finally {
+                        permits.release();
+                    }
+                };
+                @SuppressWarnings("unchecked")
+                Future<T> forked = (Future<T>) completion.submit(guarded);
+                future = forked;
+                claims.add(claim);
+                submitted++;
+            } else {
+                FutureTask<T> inline = new FutureTask<>(task);
+                inline.run();
+                future = inline;
+            }
+            futures.add(future);
+            return future::resultNow;
+        }
+
+        /**
+         * صبر تا پایان همه کارها.
+         * @throws RuntimeException خطای اولین کار ناموفق (بقیه کارها لغو می‌شوند).
+         * @throws IllegalStateException اگر کارها در مهلت تعیین شده تمام نشوند.
+         */
+        public void join() {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            try {
+                for (int i = 0; i < submitted; i++) {
+                    Future<Object> done = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (done == null) {
+                        throw new IllegalStateException("Parallel queries did not finish within " + timeout);
+                    }
+                    done.get();
+                }
+                // کارهایی که روی رشته جاری اجرا شده‌اند
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                close();
+                throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IllegalStateException("Interrupted while waiting for parallel queries", e);
+            } catch (IllegalStateException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * لغو کارهایی که هنوز شروع نشده‌اند (بدون Interrupt کارهای در حال اجرا) و آزاد کردن مجوز آن‌ها.
+         */
+        @Override
+        public void close() {
+            for (Future<?> future : futures) {
+                future.cancel(false);
+            }
+            for (AtomicBoolean claim : claims) {
+                if (claim.compareAndSet(false, true)) permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.paymaster.backend.domain.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymaster.backend.domain.entity.IdempotencyRecord;
+import com.paymaster.backend.domain.entity.Installment;
+import com.paymaster.backend.domain.repository.InstallmentRepository;
+import com.paymaster.backend.domain.valueobject.PaymentAllocation;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * **سرویس ثبت هم‌زمان پرداخت‌ها** (Payment Posting Service).
+ * هر پرداخت در دو لایه از پرداخت‌های هم‌زمان دیگر محافظت می‌شود:
+ * <ul>
+ *     <li>در همین برنامه، پرداخت‌های یک قرارداد با یک قفل از مجموعه ثابت {@value #LOCK_STRIPES} قفل (Striped Lock)
+ *     پشت سر هم اجرا می‌شوند، پس در حالت عادی هیچ تداخلی رخ نمی‌دهد و تلاش دوباره لازم نیست؛</li>
+ *     <li>بین چند نمونه برنامه (یا با کارهای زمان‌بندی شده)، ستون {@code version} قسط و قرارداد تداخل را تشخیص می‌دهد
+ *     و کل پرداخت حداکثر {@code paymaster.payments.max-attempts} بار در تراکنش جدید و با داده تازه دوباره اجرا می‌شود.</li>
+ * </ul>
+ * درخواست‌های دارای کلید یکتایی (Idempotency Key) با {@link IdempotencyService} فقط یک بار اجرا می‌شوند.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PaymentPostingService {
+
+    /** تعداد قفل‌ها؛ قراردادهایی که به یک قفل نگاشت می‌شوند (به ندرت) پشت سر هم پرداخت می‌شوند. */
+    static final int LOCK_STRIPES = 256;
+
+    private final InstallmentRepository installmentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+
+    private final ReentrantLock[] stripes = createStripes();
+
+    @Value("${paymaster.payments.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${paymaster.payments.retry-backoff-ms:5}")
+    private long retryBackoffMs;
+
+    /**
+     * **اجرای یک پرداخت** روی قسط مشخص: گرفتن قفل قرارداد و اجرای عملیات در تراکنش مستقل، با تلاش دوباره در صورت تداخل.
+     * عملیات باید تمام داده‌های لازم (از جمله مبلغ قابل پرداخت) را خودش در همان تراکنش بخواند،
+     * چون در تلاش دوباره با داده‌های تازه اجرا می‌شود. نباید داخل تراکنش دیگری فراخوانی شود.
+     * <p>
+     * اگر کلید یکتایی داده شود و درخواستی با همان کلید قبلاً ثبت شده باشد، عملیات اجرا نمی‌شود
+     * و همان قسط (بدون تغییر) برگردانده می‌شود؛ در غیر این صورت کلید در همان تراکنش پرداخت ثبت می‌شود.
+     * @param installmentId شناسه قسط.
+     * @param idempotencyKey کلید یکتایی درخواست (null برای درخواست بدون کلید).
+     * @param fingerprint اثر انگشت درخواست (برای تشخیص استفاده دوباره از کلید برای درخواست دیگر).
+     * @param posting عملیات پرداخت.
+     * @return قسط نتیجه پرداخت.
+     * @throws IllegalArgumentException اگر قسط یافت نشود، عملیات خطای تجاری بدهد، کلید برای درخواست دیگری
+     * استفاده شده باشد یا تداخل پس از تمام تلاش‌ها ادامه یابد.
+     */
+    @Timed("paymaster.service")
+    public Installment post(Long installmentId, String idempotencyKey, String fingerprint, Supplier<Installment> posting) {
+        String key = IdempotencyService.normalizeKey(idempotencyKey);
+        if (key != null) {
+            Optional<Long> replayed = idempotencyService.findCached(key, fingerprint);
+            if (replayed.isPresent()) return loadResult(replayed.get());
+        }
+
+        // در تراکنش کوتاه جداگانه، تا اتصال پایگاه داده پیش از انتظار برای قفل آزاد شود
+        // (در غیر این صورت رشته‌های منتظر همه اتصال‌ها را نگه می‌دارند و صاحب قفل اتصالی برای پرداخت نمی‌یابد)
+        Long contractId = transactionTemplate.execute(status -> installmentRepository.findContractIdById(installmentId))
+                .orElseThrow(() -> new IllegalArgumentException("خطا: قسط یافت نشد"));
+
+        ReentrantLock lock = lockFor(contractId);
+        lock.lock();
+        try {
+            if (key == null) {
+                return executeWithRetry("contract " + contractId, posting);
+            }
+            Posted result = executeWithRetry("contract " + contractId, () -> {
+                Optional<IdempotencyRecord> replayed = idempotencyService.findStored(key, fingerprint);
+                if (replayed.isPresent()) return replay(replayed.get());
+                Installment paid = posting.get();
+                return new Posted(paid, idempotencyService.record(key, fingerprint, paid.getId()));
+            });
+            idempotencyService.remember(key, fingerprint, result.installment().getId(), result.expiresAt());
+            return result.installment();
+        } catch (DataIntegrityViolationException e) {
+            // همان کلید هم‌زمان در نمونه دیگری از برنامه ثبت شد: پرداخت این درخواست rollback شده و نتیجه آن برگردانده می‌شود
+            if (key == null) throw e;
+            Posted result = transactionTemplate.execute(status -> idempotencyService.findStored(key, fingerprint).map(this::replay))
+                    .orElseThrow(() -> e);
+            idempotencyService.remember(key, fingerprint, result.installment().getId(), result.expiresAt());
+            return result.installment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * **اجرای یک پرداخت در سطح قرارداد** (پرداخت یکجای چند قسط) با همان قفل و سیاست تلاش دوباره {@link #post}.
+     * اگر کلید یکتایی داده شود و درخواستی با همان کلید قبلاً ثبت شده باشد، عملیات اجرا نمی‌شود و همان تخصیص قبلی
+     * (ذخیره شده به صورت JSON در ردیف کلید) برگردانده می‌شود. نباید داخل تراکنش دیگری فراخوانی شود.
+     * @param contractId شناسه قرارداد.
+     * @param idempotencyKey کلید یکتایی درخواست (null برای درخواست بدون کلید).
+     * @param fingerprint اثر انگشت درخواست.
+     * @param posting عملیات پرداخت (در تراکنش مستقل و در صورت تداخل دوباره اجرا می‌شود).
+     * @return تخصیص پرداخت.
+     * @throws IllegalArgumentException اگر عملیات خطای تجاری بدهد، کلید برای درخواست دیگری استفاده شده باشد
+     * یا تداخل پس از تمام تلاش‌ها ادامه یابد.
+     */
+    @Timed("paymaster.service")
+    public PaymentAllocation postToContract(Long contractId, String idempotencyKey, String fingerprint,
+                                            Supplier<PaymentAllocation> posting) {
+        String key = IdempotencyService.normalizeKey(idempotencyKey);
+        ReentrantLock lock = lockFor(contractId);
+        lock.lock();
+        try {
+            if (key == null) {
+                return executeWithRetry("contract " + contractId, posting);
+            }
+            return executeWithRetry("contract " + contractId, () -> {
+                Optional<IdempotencyRecord> replayed = idempotencyService.findStored(key, fingerprint);
+                if (replayed.isPresent()) return readAllocation(replayed.get());
+                PaymentAllocation allocation = posting.get();
+                idempotencyService.record(key, fingerprint, allocation.getLines().get(0).getInstallmentId(),
+                        writeAllocation(allocation));
+                return allocation;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // همان کلید هم‌زمان در نمونه دیگری از برنامه ثبت شد: پرداخت این درخواست rollback شده و نتیجه آن برگردانده می‌شود
+            if (key == null) throw e;
+            return transactionTemplate.execute(status -> idempotencyService.findStored(key, fingerprint).map(this::readAllocation))
+                    .orElseThrow(() -> e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * **اجرای پرداخت گروهی چند قرارداد** (مثلاً تطبیق صورتحساب بانک) در تراکنش مستقل با تلاش دوباره در صورت تداخل.
+     * قفل داخلی قراردادها گرفته نمی‌شود؛ تداخل با پرداخت‌های هم‌زمان فقط با ستون {@code version} تشخیص داده می‌شود
+     * و کل دسته با داده تازه دوباره اجرا می‌شود. نباید داخل تراکنش دیگری فراخوانی شود.
+     * @param posting عملیات دسته (تمام خواندن‌ها باید داخل آن انجام شود).
+     * @return نتیجه عملیات.
+     */
+    @Timed("paymaster.service")
+    public <T> T postBatch(Supplier<T> posting) {
+        return executeWithRetry("batch", posting);
+    }
+
+    private ReentrantLock lockFor(Long contractId) {
+        return stripes[Math.floorMod(Long.hashCode(contractId), LOCK_STRIPES)];
+    }
+
+    private Installment loadResult(Long installmentId) {
+        return installmentRepository.findById(installmentId)
+                .orElseThrow(() -> new IllegalArgumentException("خطا: قسط یافت نشد"));
+    }
+
+    private String writeAllocation(PaymentAllocation allocation) {
+        try {
+            return objectMapper.writeValueAsString(allocation);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize payment allocation", e);
+        }
+    }
+
+    private PaymentAllocation readAllocation(IdempotencyRecord stored) {
+        if (stored.getResponse() == null) {
+            throw new IllegalArgumentException("خطا: این کلید یکتایی قبلاً برای درخواست پرداخت دیگری استفاده شده است.");
+        }
+        try {
+            return objectMapper.readValue(stored.getResponse(), PaymentAllocation.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read stored payment allocation", e);
+        }
+    }
+
+    private Posted replay(IdempotencyRecord stored) {
+        return new Posted(loadResult(stored.getInstallmentId()), stored.getExpiresAt());
+    }
+
+    /**
+     * نتیجه پرداخت دارای کلید یکتایی و زمان انقضای کلید (ثبت شده در همین پرداخت یا در پرداخت قبلی).
+     */
+    private record Posted(Installment installment, LocalDateTime expiresAt) {
+    }
+
+    private <T> T executeWithRetry(String target, Supplier<T> posting) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> posting.get());
+            } catch (ConcurrencyFailureException e) {
+                // نسخه‌های قدیمی در Persistence Context (مثلاً Open Session in View) نباید در تلاش بعدی استفاده شوند
+                entityManager.clear();
+                if (attempt >= maxAttempts) {
+                    log.warn("Payment on {} abandoned after {} conflicting attempts", target, attempt);
+                    throw new IllegalArgumentException("خطا: قسط هم‌زمان توسط عملیات دیگری در حال به‌روزرسانی است؛ لطفاً دوباره تلاش کنید.");
+                }
+                log.debug("Concurrent update of {}, retrying payment (attempt {})", target, attempt + 1);
+                backOff(attempt);
+            }
+        }
+    }
+
+    /**
+     * انتظار کوتاه تصادفی (افزایشی با شماره تلاش) تا تلاش‌های دوباره نمونه‌های مختلف هم‌زمان نشوند.
+     */
+    private void backOff(int attempt) {
+        long bound = retryBackoffMs * attempt;
+        if (bound <= 0) return;
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying payment", e);
+        }
+    }
+
+    private static ReentrantLock[] createStripes() {
+        ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+}
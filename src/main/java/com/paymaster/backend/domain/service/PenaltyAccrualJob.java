@@ -0,0 +1,42 @@
+package com.paymaster.backend.domain.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * **کار زمان‌بندی شده محاسبه جریمه دیرکرد** (Penalty Accrual Job).
+ * هر شب (پیش‌فرض: ساعت 00:15) جریمه اقساط معوق را تا امروز محاسبه و ذخیره می‌کند؛
+ * در زمان راه‌اندازی نیز اجرا می‌شود تا روزهایی که برنامه خاموش بوده جبران شوند.
+ */
+@Component
+@RequiredArgsConstructor
+public class PenaltyAccrualJob {
+
+    static final String JOB_NAME = "penalty-accrual";
+
+    private final ScheduledJobRunner jobRunner;
+    private final PenaltyAccrualService penaltyAccrualService;
+
+    /**
+     * جبران جریمه‌های محاسبه نشده پس از راه‌اندازی برنامه.
+     */
+    @Order(2)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        accrue();
+    }
+
+    /**
+     * اجرای شبانه بر اساس عبارت cron قابل تنظیم.
+     */
+    @Scheduled(cron = "${paymaster.penalty.accrual-cron:0 15 0 * * *}")
+    public void accrue() {
+        jobRunner.run(JOB_NAME, () -> penaltyAccrualService.accrueAll(LocalDate.now()));
+    }
+}
@@ -0,0 +1,153 @@
+package com.paymaster.backend.domain.service;
+
+import com.paymaster.backend.domain.entity.Installment;
+import com.paymaster.backend.domain.repository.InstallmentRepository;
+import com.paymaster.backend.domain.repository.PortfolioCountersRepository;
+import com.paymaster.backend.domain.valueobject.InstallmentStatus;
+import com.paymaster.backend.domain.valueobject.OpenInstallmentRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * **سرویس محاسبه انباشتی جریمه دیرکرد** (Penalty Accrual Service).
+ * جریمه هر قسط معوق به صورت افزایشی در {@code penaltyAmount} ذخیره می‌شود و {@code penaltyAccruedThrough}
+ * نشان می‌دهد جریمه تا چه روزی محاسبه شده است؛ هر اجرا فقط جریمه روزهای پس از آن تاریخ را اضافه می‌کند.
+ * بنابراین اجرای دوباره در همان روز اثری ندارد و پس از توقف برنامه، روزهای عقب افتاده در اولین اجرا جبران می‌شوند.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class PenaltyAccrualService {
+
+    private final InstallmentRepository installmentRepository;
+    private final PortfolioCountersRepository countersRepository;
+    private final CalculationService calculationService;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledJobRunner jobRunner;
+
+    @Value("${paymaster.penalty.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * **محاسبه جریمه تمام اقساط معوق** تا تاریخ مشخص.
+     * اقساط به صورت Keyset (بر اساس شناسه) و در بخش‌های جداگانه خوانده می‌شوند و هر بخش در تراکنش مستقل
+     * (همراه با به‌روزرسانی آمار پرتفوی) ذخیره می‌شود تا حافظه و زمان قفل‌ها محدود بماند؛ اجاره کار پیش از هر بخش تمدید می‌شود.
+     * @param asOf تاریخی که جریمه باید تا آن محاسبه شود (معمولاً امروز).
+     * @return تعداد اقساط به‌روزرسانی شده.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long accrueAll(LocalDate asOf) {
+        long afterId = 0;
+        long totalDelta = 0;
+        int processed = 0;
+
+        while (true) {
+            jobRunner.renewLease();
+            long cursor = afterId;
+            ChunkResult chunk = transactionTemplate.execute(status -> accrueChunk(cursor, asOf));
+            processed += chunk.size();
+            totalDelta += chunk.penaltyDelta();
+            if (chunk.size() < chunkSize) break;
+            afterId = chunk.lastId();
+        }
+
+        log.info("Penalty accrued through {} for {} installment(s), total {} rial", asOf, processed, totalDelta);
+        return processed;
+    }
+
+    private ChunkResult accrueChunk(long afterId, LocalDate asOf) {
+        List<Installment> installments = installmentRepository.findPenaltyAccrualChunk(afterId, asOf, PageRequest.of(0, chunkSize));
+        long penaltyDelta = 0;
+        for (Installment installment : installments) {
+            penaltyDelta += accrue(installment, asOf);
+        }
+        if (penaltyDelta != 0) {
+            countersRepository.adjustPayments(0, penaltyDelta);
+        }
+        long lastId = installments.isEmpty() ? afterId : installments.get(installments.size() - 1).getId();
+        return new ChunkResult(installments.size(), lastId, penaltyDelta);
+    }
+
+    /**
+     * **افزودن جریمه روزهای محاسبه نشده** به یک قسط (تا تاریخ asOf).
+     * باید داخل تراکنش فراخوانی شود؛ آمار پرتفوی توسط فراخواننده با مقدار بازگشتی به‌روزرسانی می‌شود.
+     * @param installment قسط (با قرارداد).
+     * @param asOf تاریخی که جریمه باید تا آن محاسبه شود.
+     * @return جریمه اضافه شده.
+     */
+    public long accrue(Installment installment, LocalDate asOf) {
+        long penalty = pendingPenalty(installment, asOf);
+        if (penalty != 0) {
+            installment.setPenaltyAmount(installment.getPenaltyAmount() + penalty);
+        }
+        // پرداخت با تاریخ گذشته (مثلاً از صورتحساب بانک) تاریخ محاسبه جریمه را به عقب برنمی‌گرداند
+        LocalDate accruedThrough = installment.getPenaltyAccruedThrough();
+        if (installment.getDueDate().isBefore(asOf) && (accruedThrough == null || accruedThrough.isBefore(asOf))) {
+            installment.setPenaltyAccruedThrough(asOf);
+        }
+        return penalty;
+    }
+
+    /**
+     * جریمه روزهای محاسبه نشده یک قسط تا تاریخ asOf، بدون تغییر قسط.
+     * جریمه روی مبلغ باقیمانده قسط (مبلغ قسط منهای پرداخت شده) و با نرخ روزانه قرارداد محاسبه می‌شود.
+     * @param installment قسط (با قرارداد).
+     * @param asOf تاریخی که جریمه باید تا آن محاسبه شود.
+     * @return مبلغ جریمه.
+     */
+    public long pendingPenalty(Installment installment, LocalDate asOf) {
+        if (installment.getStatus() == InstallmentStatus.PAID || installment.getStatus() == InstallmentStatus.COMPLETED) {
+            return 0;
+        }
+        LocalDate start = accrualStart(installment.getDueDate(), installment.getPenaltyAccruedThrough(),
+                installment.getPenaltyAmount(), installment.getPaymentDate());
+        return penalty(installment.getAmount() - installment.getPaidAmount(), installment.getContract().getPenaltyRate(),
+                start, asOf);
+    }
+
+    /**
+     * جریمه روزهای محاسبه نشده یک ردیف قسط باز (تطبیق صورتحساب بانک) تا تاریخ asOf؛
+     * همان محاسبه {@link #pendingPenalty(Installment, LocalDate)} بدون بارگذاری قسط.
+     * @param row ردیف قسط باز.
+     * @param asOf تاریخی که جریمه باید تا آن محاسبه شود.
+     * @return مبلغ جریمه.
+     */
+    public long pendingPenalty(OpenInstallmentRow row, LocalDate asOf) {
+        LocalDate start = accrualStart(row.getDueDate(), row.getPenaltyAccruedThrough(), row.getPenaltyAmount(),
+                row.getPaymentDate());
+        return penalty(row.getRemainingAmount(), row.getPenaltyRate(), start, asOf);
+    }
+
+    private long penalty(long remaining, Double penaltyRate, LocalDate accrualStart, LocalDate asOf) {
+        if (penaltyRate == null) return 0;
+        long delayDays = ChronoUnit.DAYS.between(accrualStart, asOf);
+        return calculationService.calculatePenalty(remaining, penaltyRate, delayDays);
+    }
+
+    /**
+     * روزی که محاسبه جریمه باید از فردای آن ادامه یابد.
+     * برای اقساطی که پیش از این سرویس در زمان پرداخت جریمه گرفته‌اند (penaltyAccruedThrough خالی)، تاریخ آخرین پرداخت است.
+     */
+    private static LocalDate accrualStart(LocalDate dueDate, LocalDate accruedThrough, long penaltyAmount,
+                                          LocalDateTime paymentDate) {
+        if (accruedThrough == null && penaltyAmount > 0 && paymentDate != null) {
+            accruedThrough = paymentDate.toLocalDate();
+        }
+        return accruedThrough != null && accruedThrough.isAfter(dueDate) ? accruedThrough : dueDate;
+    }
+
+    private record ChunkResult(int size, long lastId, long penaltyDelta) {
+    }
+}
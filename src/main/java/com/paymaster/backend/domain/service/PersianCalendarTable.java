@@ -0,0 +1,150 @@
+package com.paymaster.backend.domain.service;
+
+import com.github.mfathi91.time.PersianDate;
+
+import java.time.LocalDate;
+
+/**
+ * **جدول از پیش محاسبه شده تقویم شمسی** (Persian Calendar Table).
+ * برای سال‌های {@value #MIN_YEAR} تا {@value #MAX_YEAR} هر روز با اندیس epoch day در یک {@code int[]} فشرده نگهداری می‌شود
+ * (سال، ماه و روز در یک عدد)، تا تبدیل میلادی به شمسی و برعکس و جمع ماه بدون ساخت {@link PersianDate} و در O(1) انجام شود.
+ * بیرون از این بازه متدها {@link #OUT_OF_RANGE} برمی‌گردانند و {@link DateUtils} از کتابخانه استفاده می‌کند.
+ * جدول فقط یک بار و با 202 فراخوانی کتابخانه (تاریخ نوروز هر سال) ساخته می‌شود.
+ */
+final class PersianCalendarTable {
+
+    static final int MIN_YEAR = 1300;
+    static final int MAX_YEAR = 1500;
+
+    /** مقدار بازگشتی برای تاریخ‌های بیرون از بازه جدول. */
+    static final int OUT_OF_RANGE = -1;
+
+    private static final int YEAR_SHIFT = 9;
+    private static final int MONTH_SHIFT = 5;
+    private static final int MONTH_MASK = 0xF;
+    private static final int DAY_MASK = 0x1F;
+
+    /** epoch day نوروز هر سال؛ آخرین عنصر نوروز سال بعد از MAX_YEAR است (برای طول سال آخر). */
+    private static final long[] NOWRUZ_EPOCH_DAY = new long[MAX_YEAR - MIN_YEAR + 2];
+
+    /** تاریخ شمسی فشرده هر روز: (سال << 9) | (ماه << 5) | روز. */
+    private static final int[] PACKED_DATES;
+
+    private static final long FIRST_EPOCH_DAY;
+
+    static {
+        for (int year = MIN_YEAR; year <= MAX_YEAR + 1; year++) {
+            NOWRUZ_EPOCH_DAY[year - MIN_YEAR] = PersianDate.of(year, 1, 1).toGregorian().toEpochDay();
+        }
+        FIRST_EPOCH_DAY = NOWRUZ_EPOCH_DAY[0];
+        PACKED_DATES = new int[(int) (NOWRUZ_EPOCH_DAY[NOWRUZ_EPOCH_DAY.length - 1] - FIRST_EPOCH_DAY)];
+
+        int index = 0;
+        for (int year = MIN_YEAR; year <= MAX_YEAR; year++) {
+            for (int month = 1; month <= 12; month++) {
+                int length = lengthOfMonth(year, month);
+                for (int day = 1; day <= length; day++) {
+                    PACKED_DATES[index++] = pack(year, month, day);
+                }
+            }
+        }
+    }
+
+    private PersianCalendarTable() {
+    }
+
+    /**
+     * تبدیل تاریخ میلادی به تاریخ شمسی فشرده.
+     * @param gregorianDate تاریخ میلادی.
+     * @return تاریخ فشرده یا {@link #OUT_OF_RANGE}.
+     */
+    static int fromGregorian(LocalDate gregorianDate) {
+        long offset = gregorianDate.toEpochDay() - FIRST_EPOCH_DAY;
+        if (offset < 0 || offset >= PACKED_DATES.length) return OUT_OF_RANGE;
+        return PACKED_DATES[(int) offset];
+    }
+
+    /**
+     * تبدیل تاریخ شمسی به epoch day میلادی.
+     * @return epoch day یا {@link #OUT_OF_RANGE} برای تاریخ نامعتبر یا بیرون از بازه.
+     */
+    static long toEpochDay(int year, int month, int day) {
+        if (year < MIN_YEAR || year > MAX_YEAR || month < 1 || month > 12
+                || day < 1 || day > lengthOfMonth(year, month)) {
+            return OUT_OF_RANGE;
+        }
+        return NOWRUZ_EPOCH_DAY[year - MIN_YEAR] + dayOfYearOffset(month) + day - 1;
+    }
+
+    /**
+     * اضافه کردن ماه شمسی؛ اگر روز در ماه مقصد وجود نداشته باشد به آخرین روز آن ماه محدود می‌شود (همانند {@code PersianDate.plusMonths}).
+     * @return epoch day میلادی نتیجه یا {@link #OUT_OF_RANGE}.
+     */
+    static long plusMonths(LocalDate gregorianDate, long months) {
+        int packed = fromGregorian(gregorianDate);
+        if (packed == OUT_OF_RANGE) return OUT_OF_RANGE;
+
+        long monthIndex = year(packed) * 12L + (month(packed) - 1) + months;
+        long targetYear = Math.floorDiv(monthIndex, 12);
+        if (targetYear < MIN_YEAR || targetYear > MAX_YEAR) return OUT_OF_RANGE;
+        int year = (int) targetYear;
+        int month = Math.floorMod(monthIndex, 12) + 1;
+        int day = Math.min(day(packed), lengthOfMonth(year, month));
+        return NOWRUZ_EPOCH_DAY[year - MIN_YEAR] + dayOfYearOffset(month) + day - 1;
+    }
+
+    /**
+     * epoch day میلادی نوروز یک سال شمسی یا {@link #OUT_OF_RANGE}.
+     */
+    static long nowruzEpochDay(int year) {
+        if (year < MIN_YEAR || year > MAX_YEAR) return OUT_OF_RANGE;
+        return NOWRUZ_EPOCH_DAY[year - MIN_YEAR];
+    }
+
+    static int year(int packed) {
+        return packed >>> YEAR_SHIFT;
+    }
+
+    static int month(int packed) {
+        return (packed >>> MONTH_SHIFT) & MONTH_MASK;
+    }
+
+    static int day(int packed) {
+        return packed & DAY_MASK;
+    }
+
+    /**
+     * قالب‌بندی تاریخ فشرده به صورت 1403/09/20 (معادل {@code "%04d/%02d/%02d"} برای سال‌های چهار رقمی).
+     */
+    static String format(int packed) {
+        int year = year(packed);
+        int month = month(packed);
+        int day = day(packed);
+        char[] chars = {
+                digit(year / 1000), digit(year / 100 % 10), digit(year / 10 % 10), digit(year % 10), '/',
+                digit(month / 10), digit(month % 10), '/',
+                digit(day / 10), digit(day % 10)
+        };
+        return new String(chars);
+    }
+
+    private static char digit(int value) {
+        return (char) ('0' + value);
+    }
+
+    private static int pack(int year, int month, int day) {
+        return (year << YEAR_SHIFT) | (month << MONTH_SHIFT) | day;
+    }
+
+    /** تعداد روزهای سال پیش از اول ماه (شش ماه اول 31 روزه و پنج ماه بعد 30 روزه). */
+    private static int dayOfYearOffset(int month) {
+        return month <= 7 ? (month - 1) * 31 : 186 + (month - 7) * 30;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if (month <= 6) return 31;
+        if (month <= 11) return 30;
+        int index = year - MIN_YEAR;
+        return (int) (NOWRUZ_EPOCH_DAY[index + 1] - NOWRUZ_EPOCH_DAY[index]) - 336;
+    }
+}
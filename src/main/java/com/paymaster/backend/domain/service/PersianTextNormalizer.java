@@ -0,0 +1,86 @@
+package com.paymaster.backend.domain.service;
+
+/**
+ * **یکسان‌سازی متن فارسی** (Persian Text Normalizer).
+ * متن ورودی کاربر و مقادیر ذخیره شده را به یک شکل واحد برای مقایسه تبدیل می‌کند:
+ * حروف عربی (ي، ى، ك، ة، أ، إ، ٱ، ؤ، ۀ) به معادل فارسی، ارقام فارسی و عربی به ارقام لاتین،
+ * فاصله‌ها به یک فاصله، حذف کشیده، اعراب و نویسه‌های جهت، و حروف لاتین به حروف کوچک.
+ * نیم‌فاصله (ZWNJ) در {@link #normalize(String)} حذف می‌شود تا «محمدرضا» و «محمد‌رضا» یکی باشند؛
+ * {@link #normalizeWordBreaks(String)} آن را فاصله می‌گیرد تا بخش‌های یک نام مرکب جداگانه هم قابل جستجو باشند.
+ */
+final class PersianTextNormalizer {
+
+    private PersianTextNormalizer() {
+    }
+
+    /**
+     * شکل یکسان شده متن برای جستجو و مقایسه.
+     * @param text متن (می‌تواند null باشد).
+     * @return متن یکسان شده بدون فاصله ابتدا و انتها؛ برای null رشته خالی.
+     */
+    static String normalize(String text) {
+        return normalize(text, (char) 0);
+    }
+
+    /**
+     * شکل یکسان شده متن که در آن نیم‌فاصله مانند فاصله مرز کلمه است («محمد‌رضا» به «محمد رضا»).
+     * @param text متن (می‌تواند null باشد).
+     * @return متن یکسان شده بدون فاصله ابتدا و انتها؛ برای null رشته خالی.
+     */
+    static String normalizeWordBreaks(String text) {
+        return normalize(text, ' ');
+    }
+
+    private static String normalize(String text, char zwnj) {
+        if (text == null || text.isEmpty()) return "";
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i) == '\u200C' ? zwnj : normalize(text.charAt(i));
+            if (c == 0) continue;
+            if (c == ' ') {
+                pendingSpace = normalized.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            normalized.append(c);
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * شکل یکسان شده فقط ارقام (کد ملی، موبایل): ارقام فارسی و عربی به لاتین و حذف سایر نویسه‌ها.
+     * @param text متن (می‌تواند null باشد).
+     * @return ارقام لاتین؛ برای null رشته خالی.
+     */
+    static String digits(String text) {
+        if (text == null || text.isEmpty()) return "";
+        StringBuilder digits = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = normalize(text.charAt(i));
+            if (c >= '0' && c <= '9') digits.append(c);
+        }
+        return digits.toString();
+    }
+
+    /**
+     * یکسان‌سازی یک نویسه؛ مقدار 0 یعنی نویسه حذف شود.
+     */
+    private static char normalize(char c) {
+        if (c >= '\u06F0' && c <= '\u06F9') return (char) ('0' + (c - '\u06F0')); // ارقام فارسی
+        if (c >= '\u0660' && c <= '\u0669') return (char) ('0' + (c - '\u0660')); // ارقام عربی
+        if (c >= '\u064B' && c <= '\u065F' || c == '\u0670' || c == '\u0640') return 0; // اعراب و کشیده
+        return switch (c) {
+            case '\u064A', '\u0649' -> '\u06CC';           // ي ى -> ی
+            case '\u0643' -> '\u06A9';                     // ك -> ک
+            case '\u0629', '\u06C0' -> '\u0647';           // ة ۀ -> ه
+            case '\u0623', '\u0625', '\u0671' -> '\u0627'; // أ إ ٱ -> ا
+            case '\u0624' -> '\u0648';                     // ؤ -> و
+            case '\u200C', '\u200D', '\u200E', '\u200F' -> 0;   // نیم‌فاصله، اتصال و نویسه‌های جهت
+            default -> Character.isWhitespace(c) || Character.isSpaceChar(c) ? ' ' : Character.toLowerCase(c);
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.paymaster.backend.domain.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * **کار زمان‌بندی شده تطبیق شمارنده‌های پرتفوی** (Reconciliation Job).
+ * در زمان راه‌اندازی و سپس به صورت دوره‌ای (پیش‌فرض: هر شب ساعت 02:30) آمار را به صورت کامل محاسبه کرده
+ * و هرگونه اختلاف (Drift) بین شمارنده‌های افزایشی و داده واقعی را گزارش و اصلاح می‌کند.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PortfolioCountersReconciliationJob {
+
+    static final String JOB_NAME = "counters-reconciliation";
+
+    private final ScheduledJobRunner jobRunner;
+    private final PortfolioCountersService countersService;
+
+    /**
+     * محاسبه اولیه شمارنده‌ها پس از راه‌اندازی برنامه (پس از کارهای تغییر وضعیت و جریمه).
+     */
+    @Order(3)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        reconcile();
+    }
+
+    /**
+     * اجرای دوره‌ای تطبیق بر اساس عبارت cron قابل تنظیم.
+     */
+    @Scheduled(cron = "${paymaster.counters.reconcile-cron:0 30 2 * * *}")
+    public void reconcile() {
+        jobRunner.run(JOB_NAME, () -> {
+            Map<String, Long> drift = countersService.reconcile();
+            log.info("Portfolio counters reconciled ({} drifted field(s))", drift.size());
+            return drift.size();
+        });
+    }
+}
@@ -0,0 +1,347 @@
+package com.paymaster.backend.domain.service;
+
+import com.paymaster.backend.domain.entity.Contract;
+import com.paymaster.backend.domain.entity.Installment;
+import com.paymaster.backend.domain.entity.PortfolioCounters;
+import com.paymaster.backend.domain.repository.ContractRepository;
+import com.paymaster.backend.domain.repository.CustomerRepository;
+import com.paymaster.backend.domain.repository.InstallmentRepository;
+import com.paymaster.backend.domain.repository.PortfolioCountersRepository;
+import com.paymaster.backend.domain.valueobject.ContractStatus;
+import com.paymaster.backend.domain.valueobject.CustomerStatus;
+import com.paymaster.backend.domain.valueobject.InstallmentStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * **سرویس شمارنده‌های پرتفوی** (Portfolio Counters Service).
+ * نگهداری افزایشی آمار داشبورد در جدول {@code portfolio_counters}.
+ * متدهای {@code on...} باید از داخل تراکنش سرویس‌های تغییردهنده فراخوانی شوند تا آمار همراه با داده اصلی commit شود.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PortfolioCountersService {
+
+    private final PortfolioCountersRepository countersRepository;
+    private final CustomerRepository customerRepository;
+    private final ContractRepository contractRepository;
+    private final InstallmentRepository installmentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+
+    /**
+     * **خواندن آمار جاری** با یک خواندن بر اساس کلید اصلی (بدون تراکنش نوشتن).
+     * اگر ردیف هنوز وجود نداشته باشد یک بار به صورت کامل محاسبه می‌شود؛
+     * اگر آمار معوقات مربوط به روز قبل باشد، تنها همان بخش دوباره محاسبه می‌شود.
+     * محاسبه دوباره در تراکنش جداگانه و پس از قفل ردیف انجام می‌شود تا UPDATEهای نسبی هم‌زمان بازنویسی نشوند.
+     * @return شمارنده‌های پرتفوی.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PortfolioCounters getCounters() {
+        LocalDate today = LocalDate.now();
+        PortfolioCounters stored = findStored().orElse(null);
+        if (stored != null && stored.getReconciledAt() != null && today.equals(stored.getOverdueAsOf())) {
+            return stored;
+        }
+
+        return transactionTemplate.execute(status -> {
+            // پس از گرفتن قفل دوباره بررسی می‌شود؛ ممکن است درخواست هم‌زمان دیگری محاسبه را انجام داده باشد
+            PortfolioCounters counters = lockOrCreate();
+            if (counters.getReconciledAt() == null) {
+                copySnapshot(computeSnapshot(today), counters);
+            } else if (!today.equals(counters.getOverdueAsOf())) {
+                counters.setOverdueInstallments(installmentRepository.countOverdueInstallments(today));
+                counters.setTotalOverdue(nullToZero(installmentRepository.sumOverdueAmount(today)));
+                counters.setOverdueAsOf(today);
+            }
+            return counters;
+        });
+    }
+
+    /**
+     * آخرین مقادیر ذخیره شده شمارنده‌ها، بدون محاسبه یا به‌روزرسانی (مثلاً برای تعداد تقریبی ردیف‌ها در صفحه‌بندی).
+     * @return شمارنده‌ها یا خالی اگر هنوز ایجاد نشده باشند.
+     */
+    public Optional<PortfolioCounters> findStored() {
+        return countersRepository.findById(PortfolioCounters.SINGLETON_ID);
+    }
+
+    /**
+     * **محاسبه کامل و تطبیق** (Reconciliation).
+     * تمام آمار را از جداول اصلی دوباره محاسبه کرده، اختلاف با مقادیر ذخیره شده را گزارش و مقادیر را اصلاح می‌کند.
+     * ردیف شمارنده‌ها پیش از محاسبه قفل می‌شود.
+     * @return نقشه فیلدهای دارای اختلاف به مقدار اختلاف (محاسبه شده منهای ذخیره شده).
+     */
+    @Transactional
+    public Map<String, Long> reconcile() {
+        LocalDate today = LocalDate.now();
+        PortfolioCounters stored = lockOrCreate();
+        PortfolioCounters expected = computeSnapshot(today);
+
+        Map<String, Long> drift = new LinkedHashMap<>();
+        if (stored.getReconciledAt() != null) {
+            putDrift(drift, "totalCustomers", expected.getTotalCustomers(), stored.getTotalCustomers());
+            putDrift(drift, "activeCustomers", expected.getActiveCustomers(), stored.getActiveCustomers());
+            putDrift(drift, "totalContracts", expected.getTotalContracts(), stored.getTotalContracts());
+            putDrift(drift, "activeContracts", expected.getActiveContracts(), stored.getActiveContracts());
+            putDrift(drift, "totalReceivable", expected.getTotalReceivable(), stored.getTotalReceivable());
+            putDrift(drift, "totalReceived", expected.getTotalReceived(), stored.getTotalReceived());
+            putDrift(drift, "totalPenalty", expected.getTotalPenalty(), stored.getTotalPenalty());
+            if (today.equals(stored.getOverdueAsOf())) {
+                putDrift(drift, "overdueInstallments", expected.getOverdueInstallments(), stored.getOverdueInstallments());
+                putDrift(drift, "totalOverdue", expected.getTotalOverdue(), stored.getTotalOverdue());
+            }
+        }
+
+        if (!drift.isEmpty()) {
+            log.warn("Portfolio counters drift detected and corrected: {}", drift);
+        }
+        copySnapshot(expected, stored);
+        return drift;
+    }
+
+    // ==================== رویدادهای مشتری ====================
+
+    /**
+     * ثبت ایجاد مشتری جدید.
+     * @param status وضعیت مشتری ایجاد شده.
+     */
+    public void onCustomerCreated(CustomerStatus status) {
+        countersRepository.adjustCustomers(1, status == CustomerStatus.ACTIVE ? 1 : 0);
+    }
+
+    /**
+     * ثبت تغییر وضعیت مشتری.
+     * @param oldStatus وضعیت قبلی.
+     * @param newStatus وضعیت جدید.
+     */
+    public void onCustomerStatusChanged(CustomerStatus oldStatus, CustomerStatus newStatus) {
+        long activeDelta = activeDelta(oldStatus == CustomerStatus.ACTIVE, newStatus == CustomerStatus.ACTIVE);
+        if (activeDelta != 0) {
+            countersRepository.adjustCustomers(0, activeDelta);
+        }
+    }
+
+    /**
+     * ثبت حذف مشتری.
+     * @param status وضعیت مشتری حذف شده.
+     */
+    public void onCustomerDeleted(CustomerStatus status) {
+        countersRepository.adjustCustomers(-1, status == CustomerStatus.ACTIVE ? -1 : 0);
+    }
+
+    // ==================== رویدادهای قرارداد ====================
+
+    /**
+     * ثبت ایجاد قرارداد جدید.
+     * اقساط قرارداد باید روی موجودیت بارگذاری شده باشند (قراردادهای ساخته شده با {@code buildContract}).
+     * @param contract قرارداد ایجاد شده.
+     */
+    public void onContractCreated(Contract contract) {
+        onContractsCreated(List.of(contract));
+    }
+
+    /**
+     * ثبت ایجاد گروهی قراردادها با یک به‌روزرسانی (برای ورود گروهی).
+     * اقساط سررسید گذشته قراردادهای با تاریخ شروع گذشته (مثلاً قراردادهای وارد شده) به آمار معوقات اضافه می‌شوند.
+     * @param contracts قراردادهای ایجاد شده (به همراه اقساط).
+     */
+    public void onContractsCreated(List<Contract> contracts) {
+        LocalDate today = LocalDate.now();
+        long active = 0;
+        long receivable = 0;
+        long overdueCount = 0;
+        long overdueAmount = 0;
+        for (Contract contract : contracts) {
+            if (contract.getStatus() == ContractStatus.ACTIVE) {
+                active++;
+                receivable += contract.getTotalAmount();
+            }
+            for (Installment installment : contract.getInstallments()) {
+                if (isUnpaidDue(installment.getStatus()) && installment.getDueDate().isBefore(today)) {
+                    overdueCount++;
+                    overdueAmount += installment.getAmount() - installment.getPaidAmount();
+                }
+            }
+        }
+        if (!contracts.isEmpty()) {
+            countersRepository.adjustContracts(contracts.size(), active, receivable);
+        }
+        if (overdueCount != 0) {
+            countersRepository.adjustOverdue(overdueCount, overdueAmount, today);
+        }
+    }
+
+    /**
+     * ثبت تغییر وضعیت قرارداد (لغو، تسویه، معوق شدن و ...).
+     * @param contract قرارداد (با وضعیت جدید).
+     * @param oldStatus وضعیت قبلی قرارداد.
+     */
+    public void onContractStatusChanged(Contract contract, ContractStatus oldStatus) {
+        long activeDelta = activeDelta(oldStatus == ContractStatus.ACTIVE, contract.getStatus() == ContractStatus.ACTIVE);
+        if (activeDelta != 0) {
+            countersRepository.adjustContracts(0, activeDelta, activeDelta * contract.getTotalAmount());
+        }
+    }
+
+    /**
+     * ثبت خروج گروهی قراردادهای فعال از وضعیت ACTIVE (تسویه یا معوق شدن در کار شبانه تغییر وضعیت).
+     * @param count تعداد قراردادهای فعالی که وضعیت آن‌ها تغییر کرده است.
+     * @param totalAmount مجموع مبلغ کل این قراردادها.
+     */
+    public void onContractsDeactivated(long count, long totalAmount) {
+        if (count != 0) {
+            countersRepository.adjustContracts(0, -count, -totalAmount);
+        }
+    }
+
+    // ==================== رویدادهای قسط ====================
+
+    /**
+     * ثبت پرداخت قسط.
+     * باید پس از اعمال تغییرات روی قسط فراخوانی شود.
+     * @param installment قسط به‌روزرسانی شده.
+     * @param statusBefore وضعیت قسط قبل از پرداخت.
+     * @param paidBefore مبلغ پرداخت شده قبل از پرداخت.
+     * @param penaltyDelta جریمه اضافه شده در این پرداخت.
+     */
+    public void onInstallmentPaid(Installment installment, InstallmentStatus statusBefore, long paidBefore, long penaltyDelta) {
+        onInstallmentsPaid(List.of(new InstallmentPayment(installment, statusBefore, paidBefore)), penaltyDelta);
+    }
+
+    /**
+     * ثبت پرداخت چند قسط در یک تراکنش (پرداخت یکجای قرارداد)؛ تغییرات با حداکثر دو UPDATE روی ردیف شمارنده‌ها اعمال می‌شوند.
+     * باید پس از اعمال تغییرات روی اقساط فراخوانی شود.
+     * @param payments اقساط به‌روزرسانی شده همراه با وضعیت و مبلغ پرداخت شده قبل از پرداخت.
+     * @param penaltyDelta مجموع جریمه اضافه شده در این پرداخت.
+     */
+    public void onInstallmentsPaid(List<InstallmentPayment> payments, long penaltyDelta) {
+        LocalDate today = LocalDate.now();
+        long receivedDelta = 0;
+        long overdueCountDelta = 0;
+        long overdueAmountDelta = 0;
+        for (InstallmentPayment payment : payments) {
+            Installment installment = payment.installment();
+            if (payment.statusBefore() != InstallmentStatus.PAID && installment.getStatus() == InstallmentStatus.PAID) {
+                receivedDelta += installment.getPaidAmount();
+            }
+            boolean wasOverdue = isUnpaidDue(payment.statusBefore()) && installment.getDueDate().isBefore(today);
+            if (wasOverdue && !isUnpaidDue(installment.getStatus())) {
+                overdueCountDelta--;
+                overdueAmountDelta -= installment.getAmount() - payment.paidBefore();
+            }
+        }
+
+        if (receivedDelta != 0 || penaltyDelta != 0) {
+            countersRepository.adjustPayments(receivedDelta, penaltyDelta);
+        }
+        if (overdueCountDelta != 0) {
+            countersRepository.adjustOverdue(overdueCountDelta, overdueAmountDelta, today);
+        }
+    }
+
+    /**
+     * پرداخت یک قسط: قسط پس از پرداخت، وضعیت و مبلغ پرداخت شده قبل از آن.
+     */
+    public record InstallmentPayment(Installment installment, InstallmentStatus statusBefore, long paidBefore) {
+    }
+
+    // ==================== متدهای کمکی ====================
+
+    /**
+     * بارگذاری ردیف شمارنده‌ها با قفل نوشتن؛ در صورت نبود، ردیف خالی در یک تراکنش مستقل ایجاد می‌شود
+     * تا درخواست‌های هم‌زمان (مثلاً داشبورد و کار تطبیق هنگام راه‌اندازی) با خطای کلید تکراری مواجه نشوند.
+     * ردیف تازه‌ساز با {@code reconciledAt = null} مشخص می‌شود و باید به صورت کامل محاسبه شود.
+     * <p>
+     * ردیف با {@code refresh} و قفل PESSIMISTIC_WRITE (SELECT ... FOR UPDATE) دوباره خوانده می‌شود، حتی اگر پیش‌تر در همین
+     * Persistence Context (مثلاً Open Session In View) بارگذاری شده باشد؛ تا پایان تراکنش جاری UPDATEهای نسبی تراکنش‌های
+     * دیگر منتظر می‌مانند، بنابراین نوشتن مقادیر محاسبه شده تغییری را از بین نمی‌برد.
+     */
+    private PortfolioCounters lockOrCreate() {
+        PortfolioCounters counters = countersRepository.findById(PortfolioCounters.SINGLETON_ID).orElseGet(() -> {
+            TransactionTemplate requiresNew = new TransactionTemplate(transactionTemplate.getTransactionManager());
+            requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            try {
+                requiresNew.executeWithoutResult(status -> {
+                    if (!countersRepository.existsById(PortfolioCounters.SINGLETON_ID)) {
+                        countersRepository.saveAndFlush(PortfolioCounters.builder().id(PortfolioCounters.SINGLETON_ID).build());
+                    }
+                });
+            } catch (DataIntegrityViolationException e) {
+                // ردیف هم‌زمان توسط تراکنش دیگری ایجاد شده است
+            }
+            return countersRepository.findById(PortfolioCounters.SINGLETON_ID).orElseThrow();
+        });
+        entityManager.refresh(counters, LockModeType.PESSIMISTIC_WRITE);
+        return counters;
+    }
+
+    private static void copySnapshot(PortfolioCounters source, PortfolioCounters target) {
+        target.setTotalCustomers(source.getTotalCustomers());
+        target.setActiveCustomers(source.getActiveCustomers());
+        target.setTotalContracts(source.getTotalContracts());
+        target.setActiveContracts(source.getActiveContracts());
+        target.setTotalReceivable(source.getTotalReceivable());
+        target.setTotalReceived(source.getTotalReceived());
+        target.setTotalPenalty(source.getTotalPenalty());
+        target.setOverdueInstallments(source.getOverdueInstallments());
+        target.setTotalOverdue(source.getTotalOverdue());
+        target.setOverdueAsOf(source.getOverdueAsOf());
+        target.setReconciledAt(source.getReconciledAt());
+    }
+
+    private PortfolioCounters computeSnapshot(LocalDate today) {
+        return PortfolioCounters.builder()
+                .id(PortfolioCounters.SINGLETON_ID)
+                .totalCustomers(customerRepository.count())
+                .activeCustomers(customerRepository.countByStatus(CustomerStatus.ACTIVE))
+                .totalContracts(contractRepository.count())
+                .activeContracts(contractRepository.countByStatus(ContractStatus.ACTIVE))
+                .totalReceivable(nullToZero(contractRepository.sumTotalAmountOfActiveContracts()))
+                .totalReceived(nullToZero(installmentRepository.sumPaidAmount()))
+                .totalPenalty(nullToZero(installmentRepository.sumPenaltyAmount()))
+                .overdueInstallments(installmentRepository.countOverdueInstallments(today))
+                .totalOverdue(nullToZero(installmentRepository.sumOverdueAmount(today)))
+                .overdueAsOf(today)
+                .reconciledAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * وضعیت‌هایی که قسط سررسید گذشته در آن‌ها در آمار معوقات شمرده می‌شود.
+     */
+    private static boolean isUnpaidDue(InstallmentStatus status) {
+        return status == InstallmentStatus.PENDING || status == InstallmentStatus.OVERDUE;
+    }
+
+    private static long activeDelta(boolean wasActive, boolean isActive) {
+        if (wasActive == isActive) return 0;
+        return isActive ? 1 : -1;
+    }
+
+    private static void putDrift(Map<String, Long> drift, String field, long expected, long stored) {
+        if (expected != stored) {
+            drift.put(field, expected - stored);
+        }
+    }
+
+    private static long nullToZero(Long value) {
+        return value != null ? value : 0;
+    }
+}
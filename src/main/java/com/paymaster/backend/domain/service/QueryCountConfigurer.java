@@ -0,0 +1,56 @@
+package com.paymaster.backend.domain.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * **اتصال {@link QueryCounter} به Hibernate** (Query Count Configurer).
+ * هر دستور SQL با یک {@link StatementInspector} و هر بارگذاری موجودیت و مقداردهی مجموعه Lazy با شنونده‌های
+ * رویداد POST_LOAD و INIT_COLLECTION در محدوده باز رشته جاری شمرده می‌شود؛ بیرون از محدوده هزینه‌ای جز خواندن یک ThreadLocal ندارد.
+ * با {@code paymaster.query-count.enabled=false} هیچ کدام ثبت نمی‌شوند.
+ */
+@Component
+public class QueryCountConfigurer implements HibernatePropertiesCustomizer, SmartInitializingSingleton {
+
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+    private final boolean enabled;
+
+    public QueryCountConfigurer(ObjectProvider<EntityManagerFactory> entityManagerFactory,
+                                @Value("${paymaster.query-count.enabled:true}") boolean enabled) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        if (enabled) {
+            hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                QueryCounter.statementPrepared(sql);
+                return sql;
+            });
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) return;
+        EventListenerRegistry registry = entityManagerFactory.getObject().unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> QueryCounter.entityLoaded());
+        registry.appendListeners(EventType.INIT_COLLECTION,
+                (InitializeCollectionEventListener) event -> QueryCounter.collectionFetched());
+    }
+}
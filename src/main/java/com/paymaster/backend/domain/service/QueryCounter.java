@@ -0,0 +1,191 @@
+package com.paymaster.backend.domain.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * **شمارنده کوئری‌های یک واحد کار** (Query Counter).
+ * تعداد دستورات SQL، موجودیت‌های بارگذاری شده و مجموعه‌های Lazy مقداردهی شده در محدوده باز روی رشته جاری شمرده می‌شود
+ * (نگاه کنید به {@link QueryCountConfigurer})؛ فیلتر درخواست‌ها برای هر درخواست HTTP یک محدوده باز می‌کند.
+ * <p>
+ * در آزمون‌ها می‌توان بودجه کوئری یک درخواست یا عملیات را ثابت کرد:
+ * <pre>{@code
+ * try (QueryCounter.Scope scope = QueryCounter.open()) {
+ *     mockMvc.perform(get("/contracts/view/1"));
+ *     scope.assertStatementsAtMost(4);
+ *     scope.assertNoRepeatedStatements(1);
+ * }
+ * }</pre>
+ * محدوده‌ها تو در تو هستند: با بسته شدن یک محدوده، شمارش آن به محدوده بیرونی اضافه می‌شود.
+ * کارهایی که برای همان واحد کار روی رشته‌های دیگر اجرا می‌شوند باید با {@link #propagate} به محدوده جاری متصل شوند.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    /**
+     * باز کردن محدوده شمارش جدید روی رشته جاری.
+     * @return محدوده (باید با try-with-resources بسته شود).
+     */
+    public static Scope open() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * محدوده باز روی رشته جاری.
+     * @return محدوده یا null اگر شمارش فعال نباشد (مثلاً در کارهای زمان‌بندی شده).
+     */
+    public static Scope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * اتصال یک کار به محدوده رشته جاری تا دستورات آن روی رشته دیگر هم در همین محدوده شمرده شوند.
+     * @param task کاری که روی رشته دیگر اجرا می‌شود.
+     * @return کار متصل به محدوده جاری (اگر محدوده‌ای باز نباشد، خود کار).
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Scope scope = CURRENT.get();
+        if (scope == null) return task;
+        return () -> {
+            Scope previous = CURRENT.get();
+            CURRENT.set(scope);
+            try {
+                return task.call();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+
+    static void statementPrepared(String sql) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.statements.incrementAndGet();
+            scope.statementsBySql.computeIfAbsent(sql, key -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    static void entityLoaded() {
+        Scope scope = CURRENT.get();
+        if (scope != null) scope.entityLoads.incrementAndGet();
+    }
+
+    static void collectionFetched() {
+        Scope scope = CURRENT.get();
+        if (scope != null) scope.collectionFetches.incrementAndGet();
+    }
+
+    /**
+     * محدوده شمارش.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final AtomicInteger statements = new AtomicInteger();
+        private final AtomicInteger entityLoads = new AtomicInteger();
+        private final AtomicInteger collectionFetches = new AtomicInteger();
+        private final Map<String, AtomicInteger> statementsBySql = new ConcurrentHashMap<>();
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        /**
+         * تعداد دستورات SQL ارسال شده (هر JDBC Batch یک دستور).
+         */
+        public int statements() {
+            return statements.get();
+        }
+
+        /**
+         * تعداد موجودیت‌های ساخته شده از نتیجه کوئری یا کش سطح دوم.
+         */
+        public int entityLoads() {
+            return entityLoads.get();
+        }
+
+        /**
+         * تعداد مجموعه‌های Lazy مقداردهی شده.
+         */
+        public int collectionFetches() {
+            return collectionFetches.get();
+        }
+
+        /**
+         * دستوراتی که بیش از {@code maxRepeats} بار با متن یکسان اجرا شده‌اند (نشانه الگوی N+1).
+         * @param maxRepeats بیشترین تکرار مجاز هر دستور.
+         * @return متن دستور و تعداد اجرا، به ترتیب بیشترین تکرار.
+         */
+        public Map<String, Integer> repeatedStatements(int maxRepeats) {
+            Map<String, Integer> repeated = new LinkedHashMap<>();
+            statementsBySql.entrySet().stream()
+                    .filter(entry -> entry.getValue().get() > maxRepeats)
+                    .sorted((a, b) -> Integer.compare(b.getValue().get(), a.getValue().get()))
+                    .forEach(entry -> repeated.put(entry.getKey(), entry.getValue().get()));
+            return repeated;
+        }
+
+        /**
+         * بودجه دستورات SQL محدوده.
+         * @throws AssertionError اگر بیش از {@code max} دستور SQL اجرا شده باشد.
+         */
+        public void assertStatementsAtMost(int max) {
+            if (statements() > max) {
+                throw new AssertionError("Expected at most " + max + " SQL statements but " + statements()
+                        + " were executed: " + repeatedStatements(0));
+            }
+        }
+
+        /**
+         * بودجه موجودیت‌های بارگذاری شده محدوده.
+         * @throws AssertionError اگر بیش از {@code max} موجودیت بارگذاری شده باشد.
+         */
+        public void assertEntityLoadsAtMost(int max) {
+            if (entityLoads() > max) {
+                throw new AssertionError("Expected at most " + max + " entity loads but " + entityLoads() + " occurred");
+            }
+        }
+
+        /**
+         * نبود الگوی N+1 در محدوده.
+         * @throws AssertionError اگر دستوری بیش از {@code maxRepeats} بار تکرار شده باشد.
+         */
+        public void assertNoRepeatedStatements(int maxRepeats) {
+            Map<String, Integer> repeated = repeatedStatements(maxRepeats);
+            if (!repeated.isEmpty()) {
+                throw new AssertionError("Statements repeated more than " + maxRepeats + " time(s): " + repeated);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (CURRENT.get() == this) {
+                if (parent != null) {
+                    CURRENT.set(parent);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+            if (parent != null) {
+                parent.statements.addAndGet(statements());
+                parent.entityLoads.addAndGet(entityLoads());
+                parent.collectionFetches.addAndGet(collectionFetches());
+                statementsBySql.forEach((sql, count) -> parent.statementsBySql
+                        .computeIfAbsent(sql, key -> new AtomicInteger()).addAndGet(count.get()));
+            }
+        }
+    }
+}
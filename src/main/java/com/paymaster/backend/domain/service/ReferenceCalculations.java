@@ -0,0 +1,102 @@
+package com.paymaster.backend.domain.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * **پیاده‌سازی مرجع محاسبات مالی با BigDecimal** (Reference Calculations).
+ * نسخه اولیه محاسبات {@link CalculationService} که به عنوان مرجع (Oracle) نگهداری می‌شود:
+ * <ul>
+ *     <li>مسیر جایگزین در ورودی‌هایی که مسیر ممیز ثابت (long) قادر به محاسبه دقیق آن‌ها نیست (سرریز، نرخ‌های با ارقام اعشار زیاد).</li>
+ *     <li>مقایسه نتایج مسیر ممیز ثابت با این نسخه در بررسی‌های هم‌ارزی و بنچمارک‌ها.</li>
+ * </ul>
+ * **نکته:** منطق این کلاس نباید تغییر کند؛ هر تغییر در قواعد محاسبه باید در هر دو پیاده‌سازی اعمال شود.
+ */
+final class ReferenceCalculations {
+
+    private ReferenceCalculations() {
+    }
+
+    static long calculateSimpleInterest(long principal, double annualRate, int months) {
+        if (principal <= 0 || annualRate <= 0 || months <= 0) return 0;
+
+        BigDecimal principalBD = BigDecimal.valueOf(principal);
+        // تبدیل نرخ درصد به ضریب (مثلاً 18 / 100)
+        BigDecimal rateBD = BigDecimal.valueOf(annualRate).divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP);
+        BigDecimal monthsBD = BigDecimal.valueOf(months);
+        BigDecimal twelve = BigDecimal.valueOf(12);
+
+        // Interest = Principal * (Rate / 100) * (Months / 12)
+        BigDecimal interest = principalBD
+                .multiply(rateBD)
+                .multiply(monthsBD)
+                .divide(twelve, 0, RoundingMode.HALF_UP); // گرد کردن به نزدیک‌ترین عدد صحیح ریال
+
+        return interest.longValue();
+    }
+
+    static long calculateInstallmentAmount(long totalAmount, int installmentCount) {
+        if (installmentCount <= 0) return totalAmount;
+        // از BigDecimal برای گرد کردن دقیق استفاده می‌کنیم
+        return BigDecimal.valueOf(totalAmount)
+                .divide(BigDecimal.valueOf(installmentCount), 0, RoundingMode.HALF_UP)
+                .longValue();
+    }
+
+    static long calculatePrincipalPortion(long principal, int installmentCount) {
+        if (installmentCount <= 0) return principal;
+        return BigDecimal.valueOf(principal)
+                .divide(BigDecimal.valueOf(installmentCount), 0, RoundingMode.HALF_UP)
+                .longValue();
+    }
+
+    static long calculateInterestPortion(long interest, int installmentCount) {
+        if (installmentCount <= 0) return interest;
+        return BigDecimal.valueOf(interest)
+                .divide(BigDecimal.valueOf(installmentCount), 0, RoundingMode.HALF_UP)
+                .longValue();
+    }
+
+    static long calculatePenalty(long remainingAmount, double dailyPenaltyRate, long delayDays) {
+        if (delayDays <= 0 || remainingAmount <= 0 || dailyPenaltyRate <= 0) return 0;
+
+        BigDecimal remaining = BigDecimal.valueOf(remainingAmount);
+        // تبدیل نرخ درصد به ضریب (مثلاً 0.5 / 100)
+        BigDecimal rate = BigDecimal.valueOf(dailyPenaltyRate).divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP);
+        BigDecimal days = BigDecimal.valueOf(delayDays);
+
+        // Penalty = Remaining Amount * (Daily Rate / 100) * Delay Days
+        BigDecimal penalty = remaining.multiply(rate).multiply(days);
+
+        return penalty.setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    static long calculateEarlySettlementAmount(long remainingPrincipal, long remainingInterest, double discountRate) {
+        if (remainingPrincipal < 0 || remainingInterest < 0) return 0;
+        if (discountRate < 0) discountRate = 0;
+        if (discountRate > 100) discountRate = 100;
+
+        BigDecimal principal = BigDecimal.valueOf(remainingPrincipal);
+        BigDecimal interest = BigDecimal.valueOf(remainingInterest);
+        // تبدیل نرخ تخفیف درصد به ضریب (مثلاً 10 / 100)
+        BigDecimal discountFactor = BigDecimal.valueOf(discountRate).divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP);
+
+        // Discounted Interest = remainingInterest * (1 - discountFactor)
+        BigDecimal discountedInterest = interest.multiply(BigDecimal.ONE.subtract(discountFactor));
+
+        // Total Settlement = Principal + Discounted Interest
+        return principal.add(discountedInterest).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    /**
+     * تبدیل نرخ درصد به ضریب با 4 رقم اعشار (همان گرد کردن مورد استفاده در محاسبات بالا)، بر حسب واحد 0.0001.
+     * @param percent نرخ به درصد.
+     * @return ضریب در مقیاس 10000 (مثلاً 18 درصد: 1800).
+     */
+    static long toBasisPoints(double percent) {
+        return BigDecimal.valueOf(percent)
+                .divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP)
+                .unscaledValue()
+                .longValueExact();
+    }
+}
@@ -0,0 +1,101 @@
+package com.paymaster.backend.domain.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * **آمار کوئری درخواست‌ها به تفکیک مسیر** (Request Query Statistics).
+ * شمارش {@link QueryCounter} هر درخواست HTTP به الگوی مسیر آن (مثلاً {@code /contracts/view/{id}}) اضافه می‌شود
+ * تا مسیرهایی که بیشترین دستور SQL را اجرا می‌کنند قابل شناسایی باشند.
+ * همین مقادیر با برچسب‌های {@code method} و {@code uri} (مانند {@code http.server.requests}) در Micrometer هم ثبت می‌شوند:
+ * {@code paymaster.request.sql.statements}، {@code paymaster.request.entity.loads}،
+ * {@code paymaster.request.collection.fetches} و شمارنده {@code paymaster.request.sql.over.budget}.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestQueryStatistics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+
+    /**
+     * ثبت شمارش یک درخواست.
+     * @param method متد HTTP.
+     * @param uri الگوی مسیر درخواست.
+     * @param scope محدوده شمارش درخواست.
+     * @param overBudget آیا تعداد دستورات از آستانه هشدار بیشتر بوده است.
+     */
+    public void record(String method, String uri, QueryCounter.Scope scope, boolean overBudget) {
+        Route stats = routes.computeIfAbsent(method + " " + uri, key -> new Route(meterRegistry, method, uri));
+        stats.requests.increment();
+        stats.statements.add(scope.statements());
+        stats.maxStatements.accumulate(scope.statements());
+        stats.entityLoads.add(scope.entityLoads());
+        stats.collectionFetches.add(scope.collectionFetches());
+        stats.statementsSummary.record(scope.statements());
+        stats.entityLoadsSummary.record(scope.entityLoads());
+        stats.collectionFetchesSummary.record(scope.collectionFetches());
+        if (overBudget) {
+            stats.overBudget.increment();
+            stats.overBudgetCounter.increment();
+        }
+    }
+
+    /**
+     * آمار تجمعی مسیرها از زمان راه‌اندازی، به ترتیب بیشترین میانگین دستور SQL.
+     * @return آمار هر مسیر.
+     */
+    public List<RouteStatistics> snapshot() {
+        return routes.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .sorted(Comparator.comparingDouble(RouteStatistics::averageStatements).reversed())
+                .toList();
+    }
+
+    /**
+     * آمار یک مسیر.
+     */
+    public record RouteStatistics(String route, long requests, double averageStatements, long maxStatements,
+                                  long entityLoads, long collectionFetches, long overBudget) {
+    }
+
+    private static final class Route {
+        final LongAdder requests = new LongAdder();
+        final LongAdder statements = new LongAdder();
+        final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+        final LongAdder entityLoads = new LongAdder();
+        final LongAdder collectionFetches = new LongAdder();
+        final LongAdder overBudget = new LongAdder();
+        final DistributionSummary statementsSummary;
+        final DistributionSummary entityLoadsSummary;
+        final DistributionSummary collectionFetchesSummary;
+        final Counter overBudgetCounter;
+
+        Route(MeterRegistry registry, String method, String uri) {
+            statementsSummary = DistributionSummary.builder("paymaster.request.sql.statements")
+                    .tags("method", method, "uri", uri).register(registry);
+            entityLoadsSummary = DistributionSummary.builder("paymaster.request.entity.loads")
+                    .tags("method", method, "uri", uri).register(registry);
+            collectionFetchesSummary = DistributionSummary.builder("paymaster.request.collection.fetches")
+                    .tags("method", method, "uri", uri).register(registry);
+            overBudgetCounter = Counter.builder("paymaster.request.sql.over.budget")
+                    .tags("method", method, "uri", uri).register(registry);
+        }
+
+        RouteStatistics snapshot(String route) {
+            long count = requests.sum();
+            return new RouteStatistics(route, count, count == 0 ? 0 : (double) statements.sum() / count,
+                    maxStatements.get(), entityLoads.sum(), collectionFetches.sum(), overBudget.sum());
+        }
+    }
+}
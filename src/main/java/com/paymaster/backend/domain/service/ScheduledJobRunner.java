@@ -0,0 +1,174 @@
+package com.paymaster.backend.domain.service;
+
+import com.paymaster.backend.domain.entity.JobLease;
+import com.paymaster.backend.domain.entity.JobRun;
+import com.paymaster.backend.domain.repository.JobLeaseRepository;
+import com.paymaster.backend.domain.repository.JobRunRepository;
+import com.paymaster.backend.domain.valueobject.JobRunStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * **اجرا کننده کارهای زمان‌بندی شده** (Scheduled Job Runner).
+ * پیش از اجرای هر کار، اجاره آن در جدول {@code job_leases} تصاحب می‌شود تا در صورت اجرای چند نمونه از برنامه
+ * تنها یکی کار را اجرا کند؛ مدت زمان، تعداد ردیف‌های تغییر یافته و نتیجه هر اجرا در {@code job_runs} ثبت می‌شود.
+ * کار باید تراکنش‌های خود را مدیریت کند (اجرا کننده تراکنشی باز نمی‌کند). کارهای چند بخشی پیش از هر بخش
+ * {@link #renewLease()} را فراخوانی می‌کنند تا اجاره کارهای طولانی‌تر از {@code paymaster.jobs.lease-duration}
+ * منقضی و هم‌زمان توسط نمونه دیگری تصاحب نشود.
+ */
+@Slf4j
+@Component
+public class ScheduledJobRunner {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JobLeaseRepository leaseRepository;
+    private final JobRunRepository runRepository;
+    private final TransactionTemplate requiresNew;
+    private final Duration leaseDuration;
+
+    /**
+     * شناسه این نمونه از برنامه (pid@host).
+     */
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName();
+
+    /**
+     * کارهای در حال اجرا در همین نمونه (اجاره برای مالک خود دوباره قابل تصاحب است).
+     */
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * اجاره کاری که روی رشته جاری اجرا می‌شود (کار روی رشته فراخوان {@link #run} اجرا می‌شود).
+     */
+    private final ThreadLocal<ActiveLease> activeLease = new ThreadLocal<>();
+
+    public ScheduledJobRunner(JobLeaseRepository leaseRepository,
+                              JobRunRepository runRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${paymaster.jobs.lease-duration:PT30M}") Duration leaseDuration) {
+        this.leaseRepository = leaseRepository;
+        this.runRepository = runRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.leaseDuration = leaseDuration;
+    }
+
+    /**
+     * اجرای یک کار در صورت تصاحب اجاره آن.
+     * @param jobName نام کار.
+     * @param job بدنه کار؛ تعداد ردیف‌های تغییر یافته را برمی‌گرداند.
+     * @return true اگر کار در این نمونه اجرا شد، false اگر نمونه دیگری اجاره را در اختیار دارد.
+     */
+    public boolean run(String jobName, LongSupplier job) {
+        if (!running.add(jobName)) {
+            log.debug("Job {} is already running in this instance; skipped", jobName);
+            return false;
+        }
+        try {
+            LocalDateTime leasedUntil = acquire(jobName);
+            if (leasedUntil == null) {
+                log.debug("Job {} is leased by another instance; skipped", jobName);
+                return false;
+            }
+            activeLease.set(new ActiveLease(jobName, leasedUntil));
+            try {
+                execute(jobName, job);
+            } finally {
+                activeLease.remove();
+                requiresNew.executeWithoutResult(status -> leaseRepository.release(jobName, owner, LocalDateTime.now()));
+            }
+            return true;
+        } finally {
+            running.remove(jobName);
+        }
+    }
+
+    /**
+     * تمدید اجاره کار در حال اجرای رشته جاری؛ کارهای چند بخشی پیش از هر بخش آن را فراخوانی می‌کنند.
+     * تا وقتی بیش از نیمی از مدت اجاره باقی مانده باشد به پایگاه داده دسترسی ندارد. خارج از {@link #run} اثری ندارد.
+     * @throws IllegalStateException اگر اجاره منقضی شده و نمونه دیگری آن را تصاحب کرده باشد (کار باید متوقف شود).
+     */
+    public void renewLease() {
+        ActiveLease lease = activeLease.get();
+        if (lease == null) return;
+        LocalDateTime now = LocalDateTime.now();
+        if (now.isBefore(lease.leasedUntil.minus(leaseDuration.dividedBy(2)))) return;
+        LocalDateTime leasedUntil = now.plus(leaseDuration);
+        Integer renewed = requiresNew.execute(status ->
+                leaseRepository.tryAcquire(lease.jobName, owner, now, leasedUntil));
+        if (renewed == null || renewed != 1) {
+            throw new IllegalStateException("Lease of job " + lease.jobName + " was taken over by another instance");
+        }
+        lease.leasedUntil = leasedUntil;
+        log.debug("Lease of job {} renewed until {}", lease.jobName, leasedUntil);
+    }
+
+    private void execute(String jobName, LongSupplier job) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        JobRun.JobRunBuilder run = JobRun.builder().jobName(jobName).owner(owner).startedAt(startedAt);
+        try {
+            long rows = job.getAsLong();
+            run.status(JobRunStatus.SUCCEEDED).rowsAffected(rows);
+            log.info("Job {} finished in {} ms ({} row(s) affected)", jobName, elapsedMillis(start), rows);
+        } catch (RuntimeException e) {
+            run.status(JobRunStatus.FAILED).errorMessage(truncate(String.valueOf(e.getMessage())));
+            log.error("Job {} failed after {} ms", jobName, elapsedMillis(start), e);
+        }
+        JobRun finished = run.durationMs(elapsedMillis(start)).build();
+        requiresNew.executeWithoutResult(status -> runRepository.save(finished));
+    }
+
+    /**
+     * تصاحب اجاره؛ ردیف اجاره در اولین اجرای کار (با زمان انقضای گذشته) ایجاد می‌شود.
+     * @return زمان انقضای اجاره تصاحب شده، یا null اگر نمونه دیگری اجاره معتبر دارد.
+     */
+    private LocalDateTime acquire(String jobName) {
+        if (!leaseRepository.existsById(jobName)) {
+            try {
+                requiresNew.executeWithoutResult(status -> leaseRepository.saveAndFlush(
+                        JobLease.builder().jobName(jobName).leasedUntil(LocalDateTime.now().minusSeconds(1)).build()));
+            } catch (DataIntegrityViolationException e) {
+                // ردیف هم‌زمان توسط نمونه دیگری ایجاد شده است
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leasedUntil = now.plus(leaseDuration);
+        Integer acquired = requiresNew.execute(status ->
+                leaseRepository.tryAcquire(jobName, owner, now, leasedUntil));
+        return acquired != null && acquired == 1 ? leasedUntil : null;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private static String truncate(String message) {
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    /**
+     * اجاره در اختیار رشته جاری و زمان انقضای آن.
+     */
+    private static final class ActiveLease {
+        final String jobName;
+        LocalDateTime leasedUntil;
+
+        ActiveLease(String jobName, LocalDateTime leasedUntil) {
+            this.jobName = jobName;
+            this.leasedUntil = leasedUntil;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.paymaster.backend.domain.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * **کار زمان‌بندی شده تغییر وضعیت اقساط و قراردادها** (Status Maintenance Job).
+ * هر شب (پیش‌فرض: ساعت 00:05) اقساط سررسید گذشته را OVERDUE، قراردادهای پرداخت شده را COMPLETED
+ * و قراردادهای فعال دارای قسط معوق را OVERDUE می‌کند؛ در زمان راه‌اندازی نیز اجرا می‌شود.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatusMaintenanceJob {
+
+    static final String JOB_NAME = "status-sweep";
+
+    private final ScheduledJobRunner jobRunner;
+    private final InstallmentService installmentService;
+    private final ContractService contractService;
+
+    /**
+     * جبران تغییر وضعیت‌های انجام نشده پس از راه‌اندازی برنامه.
+     */
+    @Order(1)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        sweep();
+    }
+
+    /**
+     * اجرای شبانه بر اساس عبارت cron قابل تنظیم.
+     */
+    @Scheduled(cron = "${paymaster.status-sweep.cron:0 5 0 * * *}")
+    public void sweep() {
+        jobRunner.run(JOB_NAME, () ->
+                (long) installmentService.updateOverdueInstallments() + contractService.updateContractStatuses());
+    }
+}
@@ -0,0 +1,59 @@
+package com.paymaster.backend.domain.valueobject;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * **ردیف لیست قراردادها** (Contract List Row).
+ * مدل فقط خواندنی صفحه لیست قراردادها که همراه با نام مشتری و آمار پرداخت اقساط در یک کوئری خوانده می‌شود
+ * (نگاه کنید به {@code ContractRepository.LIST_ROW_SELECT})، تا برای هر ردیف مجموعه اقساط و مشتری جداگانه بارگذاری نشوند.
+ */
+@Getter
+@AllArgsConstructor
+public class ContractListRow {
+
+    private final Long id;
+    private final String contractNumber;
+    private final Long customerId;
+    private final String customerFullName;
+    private final Long principalAmount;
+    private final Long totalAmount;
+    private final Integer installmentCount;
+    private final LocalDate startDate;
+    private final ContractStatus status;
+
+    /**
+     * زمان ایجاد قرارداد (کلید صفحه‌بندی Keyset همراه با شناسه).
+     */
+    private final LocalDateTime createdAt;
+
+    /**
+     * تعداد اقساط با وضعیت "پرداخت شده".
+     */
+    private final long paidInstallmentsCount;
+
+    /**
+     * مجموع مبالغ پرداخت شده تمام اقساط.
+     */
+    private final long paidAmount;
+
+    /**
+     * مبلغ باقیمانده قرارداد (مبلغ کل منهای مجموع پرداخت‌ها)؛ معادل {@code Contract.getRemainingAmount}.
+     * @return مبلغ باقیمانده.
+     */
+    public long getRemainingAmount() {
+        return totalAmount == null ? 0 : totalAmount - paidAmount;
+    }
+
+    /**
+     * درصد پیشرفت پرداخت کل مبلغ قرارداد؛ معادل {@code Contract.getProgressPercentage}.
+     * @return درصد (بین 0 تا 100).
+     */
+    public int getProgressPercentage() {
+        if (totalAmount == null || totalAmount == 0) return 0;
+        return (int) Math.min(100, (paidAmount * 100L) / totalAmount);
+    }
+}
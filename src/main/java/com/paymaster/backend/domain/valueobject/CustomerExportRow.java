@@ -0,0 +1,26 @@
+package com.paymaster.backend.domain.valueobject;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * **ردیف خروجی مشتریان** (Customer Export Row).
+ * مدل فقط خواندنی مشتری برای خروجی جریانی (نگاه کنید به {@code CustomerRepository.streamExportRows})،
+ * بدون بارگذاری موجودیت و مجموعه قراردادهای آن.
+ */
+@Getter
+@AllArgsConstructor
+public class CustomerExportRow {
+
+    private final Long id;
+    private final String fullName;
+    private final String nationalCode;
+    private final String mobile;
+    private final String phone;
+    private final String email;
+    private final String postalCode;
+    private final CustomerStatus status;
+    private final LocalDateTime createdAt;
+}
@@ -0,0 +1,19 @@
+package com.paymaster.backend.domain.valueobject;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * **نتیجه جستجوی سریع مشتری** (Customer Search Hit).
+ * مدل فقط خواندنی پیشنهادهای جستجوی تایپی (Typeahead) که از نمایه جستجوی مشتریان در حافظه
+ * (یا در صورت غیرفعال بودن نمایه، از پایگاه داده) خوانده می‌شود.
+ */
+@Getter
+@AllArgsConstructor
+public class CustomerSearchHit {
+
+    private final Long id;
+    private final String fullName;
+    private final String nationalCode;
+    private final String mobile;
+}
@@ -0,0 +1,46 @@
+package com.paymaster.backend.domain.valueobject;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * **مکان‌نمای صفحه‌بندی بر اساس سررسید** (Due Date Cursor).
+ * کلید آخرین (یا اولین) ردیف یک صفحه در ترتیب {@code (dueDate ASC, id ASC)} لیست‌های اقساط معوق و سررسید نزدیک؛
+ * همانند {@link KeysetCursor}، صفحه بعد با شرط "بزرگتر از این کلید" و بدون OFFSET خوانده می‌شود.
+ * در URL به صورت رشته فشرده (روز از مبدأ و شناسه در مبنای 36) منتقل می‌شود.
+ */
+@Getter
+@AllArgsConstructor
+public class DueDateCursor {
+
+    private final LocalDate dueDate;
+    private final Long id;
+
+    /**
+     * تبدیل مکان‌نما به رشته قابل استفاده در URL.
+     * @return رشته مکان‌نما.
+     */
+    public String encode() {
+        return Long.toString(dueDate.toEpochDay(), 36) + "." + Long.toString(id, 36);
+    }
+
+    /**
+     * خواندن مکان‌نما از رشته.
+     * @param value رشته مکان‌نما (می‌تواند خالی باشد).
+     * @return مکان‌نما یا null اگر رشته خالی باشد.
+     * @throws IllegalArgumentException اگر رشته معتبر نباشد.
+     */
+    public static DueDateCursor decode(String value) {
+        if (value == null || value.isBlank()) return null;
+        int dot = value.indexOf('.');
+        try {
+            long epochDay = Long.parseLong(value.substring(0, dot), 36);
+            long id = Long.parseLong(value.substring(dot + 1), 36);
+            return new DueDateCursor(LocalDate.ofEpochDay(epochDay), id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("خطا: مکان‌نمای صفحه‌بندی نامعتبر است.");
+        }
+    }
+}
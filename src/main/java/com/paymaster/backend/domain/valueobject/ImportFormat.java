@@ -0,0 +1,32 @@
+package com.paymaster.backend.domain.valueobject;
+
+/**
+ * **قالب فایل ورودی** (Import Format).
+ * قالب‌های پشتیبانی شده برای ورود گروهی داده.
+ */
+public enum ImportFormat {
+    /**
+     * فایل متنی با مقادیر جدا شده با کاما (هر خط یک ردیف، سطر عنوان اختیاری).
+     */
+    CSV,
+
+    /**
+     * هر خط یک شیء JSON مستقل (Newline-Delimited JSON).
+     */
+    NDJSON;
+
+    /**
+     * تشخیص قالب از روی پسوند نام فایل؛ در صورت نامشخص بودن، CSV در نظر گرفته می‌شود.
+     * @param fileName نام فایل (می‌تواند null باشد).
+     * @return قالب فایل.
+     */
+    public static ImportFormat fromFileName(String fileName) {
+        if (fileName != null) {
+            String lower = fileName.toLowerCase();
+            if (lower.endsWith(".ndjson") || lower.endsWith(".jsonl") || lower.endsWith(".json")) {
+                return NDJSON;
+            }
+        }
+        return CSV;
+    }
+}
@@ -0,0 +1,48 @@
+package com.paymaster.backend.domain.valueobject;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * **ردیف لیست اقساط سررسید** (Installment Due Row).
+ * مدل فقط خواندنی صفحات اقساط معوق و سررسید نزدیک و ویجت‌های داشبورد که همراه با شماره قرارداد و نام مشتری
+ * در یک کوئری خوانده می‌شود (نگاه کنید به {@code InstallmentRepository.DUE_ROW_SELECT})، تا برای هر ردیف
+ * قرارداد و مشتری جداگانه بارگذاری نشوند. جریمه همان مقدار انباشته ذخیره شده است و برای هر ردیف محاسبه نمی‌شود.
+ */
+@Getter
+@AllArgsConstructor
+public class InstallmentDueRow {
+
+    private final Long id;
+    private final Long contractId;
+    private final String contractNumber;
+    private final Integer installmentCount;
+    private final Long customerId;
+    private final String customerFullName;
+    private final Integer installmentNumber;
+    private final LocalDate dueDate;
+    private final Long amount;
+    private final Long paidAmount;
+    private final Long penaltyAmount;
+    private final InstallmentStatus status;
+
+    /**
+     * بدهی باقیمانده قسط؛ معادل {@code Installment.getRemainingAmount}.
+     * @return مبلغ باقیمانده.
+     */
+    public long getRemainingAmount() {
+        return amount - paidAmount + penaltyAmount;
+    }
+
+    /**
+     * تعداد روزهای گذشته از سررسید تا امروز (0 اگر سررسید نگذشته باشد)؛ معادل {@code Installment.getDelayDays}.
+     * @return روزهای تأخیر.
+     */
+    public long getDelayDays() {
+        LocalDate today = LocalDate.now();
+        return today.isAfter(dueDate) ? ChronoUnit.DAYS.between(dueDate, today) : 0;
+    }
+}
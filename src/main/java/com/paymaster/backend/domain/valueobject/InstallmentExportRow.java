@@ -0,0 +1,39 @@
+package com.paymaster.backend.domain.valueobject;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * **ردیف خروجی اقساط** (Installment Export Row).
+ * مدل فقط خواندنی قسط همراه با شماره قرارداد و مشخصات مشتری برای خروجی جریانی
+ * (نگاه کنید به {@code InstallmentRepository.streamExportRows})؛ ردیف‌ها وارد Persistence Context نمی‌شوند.
+ */
+@Getter
+@AllArgsConstructor
+public class InstallmentExportRow {
+
+    private final Long id;
+    private final String contractNumber;
+    private final String customerFullName;
+    private final String customerNationalCode;
+    private final Integer installmentNumber;
+    private final LocalDate dueDate;
+    private final Long amount;
+    private final Long paidAmount;
+    private final Long penaltyAmount;
+    private final InstallmentStatus status;
+    private final LocalDateTime paymentDate;
+    private final PaymentMethod paymentMethod;
+    private final String receiptNumber;
+
+    /**
+     * بدهی باقیمانده قسط؛ معادل {@code Installment.getRemainingAmount}.
+     * @return مبلغ باقیمانده.
+     */
+    public long getRemainingAmount() {
+        return amount - paidAmount + penaltyAmount;
+    }
+}
@@ -0,0 +1,32 @@
+package com.paymaster.backend.domain.valueobject;
+
+/**
+ * **وضعیت اجرای کار زمان‌بندی شده** (Job Run Status).
+ */
+public enum JobRunStatus {
+    /**
+     * اجرا با موفقیت به پایان رسید.
+     */
+    SUCCEEDED("موفق", "success"),
+
+    /**
+     * اجرا با خطا متوقف شد.
+     */
+    FAILED("ناموفق", "danger");
+
+    private final String persianName;
+    private final String badgeClass;
+
+    JobRunStatus(String persianName, String badgeClass) {
+        this.persianName = persianName;
+        this.badgeClass = badgeClass;
+    }
+
+    public String getPersianName() {
+        return persianName;
+    }
+
+    public String getBadgeClass() {
+        return badgeClass;
+    }
+}
@@ -0,0 +1,50 @@
+package com.paymaster.backend.domain.valueobject;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * **مکان‌نمای صفحه‌بندی Keyset** (Keyset Cursor).
+ * کلید آخرین (یا اولین) ردیف یک صفحه در ترتیب {@code (createdAt DESC, id DESC)}؛
+ * صفحه بعد با شرط "کوچکتر از این کلید" و بدون OFFSET خوانده می‌شود، پس هزینه هر صفحه مستقل از عمق آن است.
+ * در URL به صورت رشته فشرده (میکروثانیه و شناسه در مبنای 36) منتقل می‌شود.
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetCursor {
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    /**
+     * تبدیل مکان‌نما به رشته قابل استفاده در URL.
+     * @return رشته مکان‌نما.
+     */
+    public String encode() {
+        long micros = createdAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + createdAt.getNano() / 1_000;
+        return Long.toString(micros, 36) + "." + Long.toString(id, 36);
+    }
+
+    /**
+     * خواندن مکان‌نما از رشته.
+     * @param value رشته مکان‌نما (می‌تواند خالی باشد).
+     * @return مکان‌نما یا null اگر رشته خالی باشد.
+     * @throws IllegalArgumentException اگر رشته معتبر نباشد.
+     */
+    public static KeysetCursor decode(String value) {
+        if (value == null || value.isBlank()) return null;
+        int dot = value.indexOf('.');
+        try {
+            long micros = Long.parseLong(value.substring(0, dot), 36);
+            long id = Long.parseLong(value.substring(dot + 1), 36);
+            LocalDateTime createdAt = LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                    (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+            return new KeysetCursor(createdAt, id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("خطا: مکان‌نمای صفحه‌بندی نامعتبر است.");
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.paymaster.backend.domain.valueobject;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * **صفحه نتایج با صفحه‌بندی Keyset** (Keyset Page).
+ * به جای شماره صفحه، مکان‌نمای صفحه قبلی (ردیف‌های جدیدتر) و بعدی (ردیف‌های قدیمی‌تر) را برمی‌گرداند.
+ * تعداد کل اختیاری است: یا از شمارنده‌های پرتفوی خوانده می‌شود ({@code totalEstimated = true})،
+ * یا در صورت درخواست صریح با COUNT محاسبه می‌شود، یا محاسبه نمی‌شود (null).
+ * @param <T> نوع ردیف‌ها.
+ */
+@Getter
+public class KeysetPage<T> {
+
+    /** بیشترین اندازه مجاز صفحه. */
+    public static final int MAX_SIZE = 100;
+
+    private final List<T> content;
+    private final String previousCursor;
+    private final String nextCursor;
+    private final int size;
+    private final Long total;
+    private final boolean totalEstimated;
+
+    private KeysetPage(List<T> content, String previousCursor, String nextCursor, int size, Long total, boolean totalEstimated) {
+        this.content = content;
+        this.previousCursor = previousCursor;
+        this.nextCursor = nextCursor;
+        this.size = size;
+        this.total = total;
+        this.totalEstimated = totalEstimated;
+    }
+
+    /**
+     * محدود کردن اندازه درخواستی صفحه به بازه 1 تا {@link #MAX_SIZE}.
+     * @param size اندازه درخواستی.
+     * @return اندازه مجاز.
+     */
+    public static int limitSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    /**
+     * ساخت صفحه از نتیجه کوئری Keyset.
+     * کوئری باید حداکثر size + 1 ردیف برگرداند (ردیف اضافه فقط وجود صفحه بعد را نشان می‌دهد):
+     * برای حرکت رو به جلو (یا صفحه اول) به ترتیب نزولی، و برای حرکت رو به عقب ({@code backward}) به ترتیب صعودی.
+     * @param rows ردیف‌های خوانده شده.
+     * @param size اندازه صفحه.
+     * @param backward true اگر صفحه با مکان‌نمای "قبلی" خوانده شده باشد.
+     * @param firstPage true اگر هیچ مکان‌نمایی داده نشده باشد.
+     * @param createdAt استخراج زمان ایجاد ردیف.
+     * @param id استخراج شناسه ردیف.
+     * @return صفحه نتایج (بدون تعداد کل).
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int size, boolean backward, boolean firstPage,
+                                       Function<T, LocalDateTime> createdAt, Function<T, Long> id) {
+        return of(rows, size, backward, firstPage, row -> new KeysetCursor(createdAt.apply(row), id.apply(row)).encode());
+    }
+
+    /**
+     * ساخت صفحه از نتیجه کوئری Keyset با کلید دلخواه (مثلاً {@link DueDateCursor} برای لیست‌های مرتب بر اساس سررسید).
+     * ترتیب ردیف‌ها همانند {@link #of(List, int, boolean, boolean, Function, Function)} است: "قبلی" به سمت ابتدای ترتیب
+     * نمایش و "بعدی" به سمت انتهای آن.
+     * @param rows ردیف‌های خوانده شده.
+     * @param size اندازه صفحه.
+     * @param backward true اگر صفحه با مکان‌نمای "قبلی" خوانده شده باشد.
+     * @param firstPage true اگر هیچ مکان‌نمایی داده نشده باشد.
+     * @param cursor ساخت رشته مکان‌نمای یک ردیف.
+     * @return صفحه نتایج (بدون تعداد کل).
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int size, boolean backward, boolean firstPage,
+                                       Function<T, String> cursor) {
+        boolean hasMore = rows.size() > size;
+        List<T> content = new ArrayList<>(hasMore ? rows.subList(0, size) : rows);
+        if (backward) {
+            Collections.reverse(content);
+        }
+        if (content.isEmpty()) {
+            return new KeysetPage<>(content, null, null, size, null, false);
+        }
+
+        boolean hasNewer = backward ? hasMore : !firstPage;
+        boolean hasOlder = backward || hasMore;
+        return new KeysetPage<>(content,
+                hasNewer ? cursor.apply(content.get(0)) : null,
+                hasOlder ? cursor.apply(content.get(content.size() - 1)) : null,
+                size, null, false);
+    }
+
+    /**
+     * همین صفحه با تعداد کل.
+     * @param total تعداد کل (می‌تواند null باشد).
+     * @param estimated true اگر تعداد از شمارنده‌ها خوانده شده و نه با COUNT.
+     * @return صفحه جدید.
+     */
+    public KeysetPage<T> withTotal(Long total, boolean estimated) {
+        return new KeysetPage<>(content, previousCursor, nextCursor, size, total, total != null && estimated);
+    }
+
+    /**
+     * تبدیل ردیف‌ها با حفظ مکان‌نماها (مثلاً برای خروجی JSON).
+     * @param mapper تابع تبدیل.
+     * @return صفحه جدید.
+     */
+    public <R> KeysetPage<R> map(Function<T, R> mapper) {
+        return new KeysetPage<>(content.stream().map(mapper).toList(), previousCursor, nextCursor, size, total, totalEstimated);
+    }
+
+    /**
+     * آیا صفحه‌ای با ردیف‌های جدیدتر وجود دارد؟
+     */
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+
+    /**
+     * آیا صفحه‌ای با ردیف‌های قدیمی‌تر وجود دارد؟
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,42 @@
+package com.paymaster.backend.domain.valueobject;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * **ردیف قسط باز** (Open Installment Row).
+ * مدل فقط خواندنی قدیمی‌ترین قسط تسویه نشده یک قرارداد برای ساخت نمایه‌های تطبیق صورتحساب بانک
+ * (نگاه کنید به {@code InstallmentRepository.findOpenRowsByCustomerIds})، بدون بارگذاری موجودیت قسط و قرارداد.
+ * ستون‌های محاسبه جریمه همراه ردیف خوانده می‌شوند تا بدهی قسط در تاریخ تراکنش محاسبه شود.
+ */
+@Getter
+@AllArgsConstructor
+public class OpenInstallmentRow {
+
+    private final Long id;
+    private final Long contractId;
+    private final Long customerId;
+    private final Integer installmentNumber;
+    private final LocalDate dueDate;
+
+    /**
+     * اصل پرداخت نشده قسط (مبلغ قسط منهای پرداخت شده).
+     */
+    private final long remainingAmount;
+
+    /**
+     * جریمه انباشته ذخیره شده روی قسط.
+     */
+    private final long penaltyAmount;
+
+    /**
+     * نرخ جریمه روزانه قرارداد.
+     */
+    private final Double penaltyRate;
+
+    private final LocalDate penaltyAccruedThrough;
+    private final LocalDateTime paymentDate;
+}
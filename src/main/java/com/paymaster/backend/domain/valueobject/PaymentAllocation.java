@@ -0,0 +1,62 @@
+package com.paymaster.backend.domain.valueobject;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * **تخصیص پرداخت یکجای قرارداد** (Payment Allocation).
+ * نتیجه تقسیم یک مبلغ بین اقساط باز یک قرارداد به ترتیب شماره قسط (قدیمی‌ترین اول)؛
+ * در هر قسط ابتدا جریمه و سپس اصل قسط تسویه می‌شود.
+ */
+@Getter
+@AllArgsConstructor
+public class PaymentAllocation {
+
+    private final Long contractId;
+
+    /**
+     * کل مبلغ دریافتی.
+     */
+    private final long amount;
+
+    /**
+     * سهم جریمه از مبلغ دریافتی.
+     */
+    private final long penaltyAllocated;
+
+    /**
+     * سهم اصل اقساط از مبلغ دریافتی.
+     */
+    private final long principalAllocated;
+
+    /**
+     * آیا با این پرداخت تمام اقساط تسویه و قرارداد تکمیل شد.
+     */
+    private final boolean contractCompleted;
+
+    /**
+     * سهم هر قسط (فقط اقساطی که مبلغی به آن‌ها تخصیص یافته است).
+     */
+    private final List<Line> lines;
+
+    /**
+     * **سهم یک قسط** از پرداخت یکجا.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Line {
+        private final Long installmentId;
+        private final Integer installmentNumber;
+        private final long penaltyPaid;
+        private final long principalPaid;
+
+        /**
+         * بدهی باقیمانده قسط پس از این پرداخت (اصل + جریمه).
+         */
+        private final long remainingAfter;
+
+        private final InstallmentStatus status;
+    }
+}
@@ -0,0 +1,37 @@
+package com.paymaster.backend.domain.valueobject;
+
+/**
+ * **وضعیت ردیف صف بررسی تطبیق** (Reconciliation Item Status).
+ */
+public enum ReconciliationItemStatus {
+    /**
+     * در انتظار بررسی کاربر.
+     */
+    PENDING("در انتظار بررسی", "warning"),
+
+    /**
+     * پس از بررسی روی قسط ثبت شد.
+     */
+    POSTED("ثبت شده", "success"),
+
+    /**
+     * پس از بررسی کنار گذاشته شد (مثلاً پرداخت غیر مرتبط).
+     */
+    DISMISSED("رد شده", "secondary");
+
+    private final String persianName;
+    private final String badgeClass;
+
+    ReconciliationItemStatus(String persianName, String badgeClass) {
+        this.persianName = persianName;
+        this.badgeClass = badgeClass;
+    }
+
+    public String getPersianName() {
+        return persianName;
+    }
+
+    public String getBadgeClass() {
+        return badgeClass;
+    }
+}
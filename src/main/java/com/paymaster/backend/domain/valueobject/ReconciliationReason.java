@@ -0,0 +1,42 @@
+package com.paymaster.backend.domain.valueobject;
+
+/**
+ * **دلیل ارجاع ردیف صورتحساب به بررسی دستی** (Reconciliation Reason).
+ */
+public enum ReconciliationReason {
+    /**
+     * پرداخت کننده شناخته شد ولی مبلغ با بدهی هیچ قسط بازی برابر نیست.
+     */
+    AMOUNT_MISMATCH("مغایرت مبلغ", "warning"),
+
+    /**
+     * مبلغ با قسط باز بیش از یک قرارداد پرداخت کننده برابر است.
+     */
+    AMBIGUOUS("چند قرارداد منطبق", "info"),
+
+    /**
+     * پرداخت کننده شناخته شد ولی قسط بازی ندارد.
+     */
+    NO_OPEN_INSTALLMENT("بدون قسط باز", "secondary"),
+
+    /**
+     * مشتری با کد ملی یا موبایل ردیف یافت نشد.
+     */
+    UNKNOWN_PAYER("پرداخت کننده نامشخص", "danger");
+
+    private final String persianName;
+    private final String badgeClass;
+
+    ReconciliationReason(String persianName, String badgeClass) {
+        this.persianName = persianName;
+        this.badgeClass = badgeClass;
+    }
+
+    public String getPersianName() {
+        return persianName;
+    }
+
+    public String getBadgeClass() {
+        return badgeClass;
+    }
+}
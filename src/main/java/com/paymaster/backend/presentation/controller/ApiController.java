@@ -1,13 +1,36 @@
 package com.paymaster.backend.presentation.controller;
 
+import com.paymaster.backend.domain.entity.ReconciliationItem;
 import com.paymaster.backend.domain.service.CalculationService;
+import com.paymaster.backend.domain.service.ContractImportService;
+import com.paymaster.backend.domain.service.ContractService;
 import com.paymaster.backend.domain.service.CustomerService;
 import com.paymaster.backend.domain.service.DateUtils;
+import com.paymaster.backend.domain.service.EntityCacheStatistics;
+import com.paymaster.backend.domain.service.ExportService;
+import com.paymaster.backend.domain.service.InstallmentService;
+import com.paymaster.backend.domain.service.RequestQueryStatistics;
+import com.paymaster.backend.domain.service.StatementReconciliationService;
+import com.paymaster.backend.domain.valueobject.ContractListRow;
+import com.paymaster.backend.domain.valueobject.ContractStatus;
+import com.paymaster.backend.domain.valueobject.CustomerStatus;
+import com.paymaster.backend.domain.valueobject.ImportFormat;
+import com.paymaster.backend.domain.valueobject.InstallmentStatus;
+import com.paymaster.backend.domain.valueobject.KeysetPage;
+import com.paymaster.backend.domain.valueobject.PaymentMethod;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -19,8 +42,15 @@ import java.util.Map;
 public class ApiController {
 
     private final CustomerService customerService;
+    private final ContractService contractService;
+    private final InstallmentService installmentService;
     private final CalculationService calculationService;
     private final DateUtils dateUtils;
+    private final ContractImportService contractImportService;
+    private final StatementReconciliationService reconciliationService;
+    private final ExportService exportService;
+    private final EntityCacheStatistics entityCacheStatistics;
+    private final RequestQueryStatistics requestQueryStatistics;
 
     /**
      * بررسی تکراری نبودن کد ملی
@@ -40,8 +70,7 @@ public class ApiController {
         }
 
         // بررسی تکراری نبودن
-        var existing = customerService.findByNationalCode(nationalCode);
-        if (existing.isPresent() && !existing.get().getId().equals(excludeId)) {
+        if (customerService.isNationalCodeTaken(nationalCode, excludeId)) {
             result.put("valid", false);
             result.put("message", "کد ملی قبلاً ثبت شده است");
             return ResponseEntity.ok(result);
@@ -70,8 +99,7 @@ public class ApiController {
         }
 
         // بررسی تکراری نبودن
-        var existing = customerService.findByMobile(mobile);
-        if (existing.isPresent() && !existing.get().getId().equals(excludeId)) {
+        if (customerService.isMobileTaken(mobile, excludeId)) {
             result.put("valid", false);
             result.put("message", "شماره موبایل قبلاً ثبت شده است");
             return ResponseEntity.ok(result);
@@ -135,7 +163,7 @@ public class ApiController {
      */
     @GetMapping("/search-customers")
     public ResponseEntity<?> searchCustomers(@RequestParam String q) {
-        var customers = customerService.search(q, 0, 10).getContent();
+        var customers = customerService.typeahead(q, 10);
         return ResponseEntity.ok(customers.stream().map(c -> Map.of(
                 "id", c.getId(),
                 "fullName", c.getFullName(),
@@ -143,4 +171,208 @@ public class ApiController {
                 "mobile", c.getMobile()
         )).toList());
     }
-}
\ No newline at end of file
+
+    /**
+     * لیست مشتریان با صفحه‌بندی Keyset (پارامترهای after/before مکان‌نمای برگشتی صفحه قبلی هستند؛ count=true برای تعداد دقیق)
+     */
+    @GetMapping("/customers")
+    public ResponseEntity<KeysetPage<Map<String, Object>>> listCustomers(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean count) {
+
+        return ResponseEntity.ok(customerService.search(keyword, after, before, size, count).map(c -> Map.<String, Object>of(
+                "id", c.getId(),
+                "fullName", c.getFullName(),
+                "nationalCode", c.getNationalCode(),
+                "mobile", c.getMobile(),
+                "status", c.getStatus(),
+                "createdAt", c.getCreatedAt()
+        )));
+    }
+
+    /**
+     * لیست قراردادها با صفحه‌بندی Keyset
+     */
+    @GetMapping("/contracts")
+    public ResponseEntity<KeysetPage<ContractListRow>> listContracts(
+            @RequestParam(required = false) ContractStatus status,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean count) {
+
+        return ResponseEntity.ok(contractService.findListPage(status, after, before, size, count));
+    }
+
+    /**
+     * لیست اقساط با صفحه‌بندی Keyset
+     */
+    @GetMapping("/installments")
+    public ResponseEntity<KeysetPage<Map<String, Object>>> listInstallments(
+            @RequestParam(required = false) InstallmentStatus status,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean count) {
+
+        return ResponseEntity.ok(installmentService.findPage(status, after, before, size, count).map(i -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", i.getId());
+            row.put("contractId", i.getContract().getId());
+            row.put("installmentNumber", i.getInstallmentNumber());
+            row.put("dueDate", i.getDueDate());
+            row.put("amount", i.getAmount());
+            row.put("paidAmount", i.getPaidAmount());
+            row.put("penaltyAmount", i.getPenaltyAmount());
+            row.put("status", i.getStatus());
+            row.put("createdAt", i.getCreatedAt());
+            return row;
+        }));
+    }
+
+    /**
+     * پرداخت یکجای قرارداد: تقسیم مبلغ بین اقساط باز (قدیمی‌ترین اول، جریمه پیش از اصل) و بازگرداندن جزئیات تخصیص؛
+     * تکرار درخواست با همان هدر {@code Idempotency-Key} همان تخصیص را بدون پرداخت دوباره برمی‌گرداند
+     */
+    @PostMapping("/contracts/{id}/payments")
+    public ResponseEntity<?> payContract(
+            @PathVariable Long id,
+            @RequestParam Long amount,
+            @RequestParam(defaultValue = "CASH") PaymentMethod paymentMethod,
+            @RequestParam(required = false) String receiptNumber,
+            @RequestParam(required = false) String notes,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        try {
+            return ResponseEntity.ok(installmentService.payContract(id, amount, paymentMethod, receiptNumber, notes,
+                    idempotencyKey));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * ورود گروهی قراردادها از فایل CSV یا NDJSON (قالب در صورت عدم تعیین، از پسوند فایل تشخیص داده می‌شود)
+     */
+    @PostMapping(value = "/contracts/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ContractImportService.ImportReport> importContracts(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) ImportFormat format,
+            @RequestParam(required = false) Integer chunkSize) throws IOException {
+
+        ImportFormat effectiveFormat = format != null ? format : ImportFormat.fromFileName(file.getOriginalFilename());
+        try (InputStream input = file.getInputStream()) {
+            return ResponseEntity.ok(contractImportService.importContracts(input, effectiveFormat, chunkSize));
+        }
+    }
+
+    /**
+     * تطبیق فایل تسویه بانک/POS (CSV یا NDJSON) با اقساط باز، ثبت خودکار پرداخت‌های منطبق و ارجاع بقیه به صف بررسی
+     */
+    @PostMapping(value = "/reconciliation/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StatementReconciliationService.ReconciliationReport> reconcileStatement(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) ImportFormat format,
+            @RequestParam(required = false) Integer chunkSize,
+            @RequestParam(defaultValue = "TRANSFER") PaymentMethod paymentMethod) throws IOException {
+
+        ImportFormat effectiveFormat = format != null ? format : ImportFormat.fromFileName(file.getOriginalFilename());
+        try (InputStream input = file.getInputStream()) {
+            return ResponseEntity.ok(reconciliationService.reconcile(input, effectiveFormat, chunkSize, paymentMethod));
+        }
+    }
+
+    /**
+     * ردیف‌های در انتظار بررسی صف تطبیق (صفحه‌بندی بر اساس شناسه)
+     */
+    @GetMapping("/reconciliation/items")
+    public ResponseEntity<List<ReconciliationItem>> listReconciliationItems(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(reconciliationService.findPendingItems(afterId, size));
+    }
+
+    /**
+     * ثبت ردیف صف تطبیق روی قسط انتخاب شده (یا قسط پیشنهادی)
+     */
+    @PostMapping("/reconciliation/items/{id}/post")
+    public ResponseEntity<?> postReconciliationItem(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long installmentId,
+            @RequestParam(defaultValue = "TRANSFER") PaymentMethod paymentMethod) {
+        try {
+            return ResponseEntity.ok(reconciliationService.postItem(id, installmentId, paymentMethod));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * کنار گذاشتن ردیف صف تطبیق بدون ثبت پرداخت
+     */
+    @PostMapping("/reconciliation/items/{id}/dismiss")
+    public ResponseEntity<?> dismissReconciliationItem(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(reconciliationService.dismissItem(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * آمار Hit/Miss نواحی کش سطح دوم (مشتری، قرارداد، قسط و کوئری‌ها) از زمان راه‌اندازی
+     */
+    @GetMapping("/cache-stats")
+    public ResponseEntity<List<EntityCacheStatistics.RegionStatistics>> cacheStats() {
+        return ResponseEntity.ok(entityCacheStatistics.snapshot());
+    }
+
+    /**
+     * تعداد دستورات SQL، موجودیت‌ها و مجموعه‌های بارگذاری شده به تفکیک مسیر درخواست از زمان راه‌اندازی
+     */
+    @GetMapping("/query-stats")
+    public ResponseEntity<List<RequestQueryStatistics.RouteStatistics>> queryStats() {
+        return ResponseEntity.ok(requestQueryStatistics.snapshot());
+    }
+
+    /**
+     * خروجی CSV اقساط (قابل باز کردن در Excel)؛ ردیف‌ها به صورت جریانی و بدون بارگذاری کامل در حافظه نوشته می‌شوند
+     */
+    @GetMapping("/export/installments")
+    public void exportInstallments(
+            @RequestParam(required = false) InstallmentStatus status,
+            HttpServletResponse response) throws IOException {
+        prepareCsvResponse(response, "installments");
+        exportService.exportInstallments(status, response.getOutputStream());
+    }
+
+    /**
+     * خروجی CSV قراردادها همراه با نام مشتری و آمار پرداخت
+     */
+    @GetMapping("/export/contracts")
+    public void exportContracts(
+            @RequestParam(required = false) ContractStatus status,
+            HttpServletResponse response) throws IOException {
+        prepareCsvResponse(response, "contracts");
+        exportService.exportContracts(status, response.getOutputStream());
+    }
+
+    /**
+     * خروجی CSV مشتریان
+     */
+    @GetMapping("/export/customers")
+    public void exportCustomers(
+            @RequestParam(required = false) CustomerStatus status,
+            HttpServletResponse response) throws IOException {
+        prepareCsvResponse(response, "customers");
+        exportService.exportCustomers(status, response.getOutputStream());
+    }
+
+    private static void prepareCsvResponse(HttpServletResponse response, String name) {
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + name + "-" + LocalDate.now() + ".csv\"");
+    }
+}
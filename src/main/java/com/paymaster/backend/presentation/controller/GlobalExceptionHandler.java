@@ -1,5 +1,8 @@
 package com.paymaster.backend.presentation.controller;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -10,10 +13,15 @@ import jakarta.servlet.http.HttpServletRequest; // اگر از Jakarta EE است
 /**
  * **مدیریت سراسری خطاها** (Global Exception Handler).
  * این کلاس برای مدیریت استثناهای (Exception) پرتاب شده توسط تمام کنترلرهای برنامه استفاده می‌شود.
+ * هر خطا ثبت (Log) و در شمارنده {@code paymaster.errors} با برچسب نوع استثنا شمرده می‌شود.
  */
+@Slf4j
 @ControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
     /**
      * **مدیریت خطاهای عمومی** (General Exception Handler).
      * استثناهای پیش‌بینی نشده (مانند خطاهای سیستمی یا Runtime) را مدیریت کرده و به صفحه خطای عمومی هدایت می‌کند.
@@ -24,8 +32,9 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(Exception.class)
     public String handleException(Exception e, Model model) {
-        // ثبت خطا در لاگ (باید از یک Logger استفاده شود، اما در اینجا فقط پیام اضافه می‌شود)
-        System.err.println("Unexpected error: " + e.getMessage());
+        // ثبت خطا در لاگ همراه با Stack Trace
+        log.error("Unexpected error", e);
+        countError(e);
 
         model.addAttribute("errorMessage", "خطای غیرمنتظره‌ای رخ داد: " + e.getMessage());
         // فرض می‌شود یک ویو به نام "error.html" وجود دارد.
@@ -42,7 +51,8 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(IllegalArgumentException.class)
     public String handleIllegalArgument(IllegalArgumentException e, RedirectAttributes redirectAttributes) {
-        System.err.println("IllegalArgumentException: " + e.getMessage());
+        log.warn("IllegalArgumentException: {}", e.getMessage());
+        countError(e);
 
         // اضافه کردن پیام خطا به عنوان Flash Attribute تا پس از Redirect قابل دسترسی باشد.
         redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
@@ -51,6 +61,10 @@ public class GlobalExceptionHandler {
         return "redirect:/dashboard";
     }
 
+    private void countError(Exception e) {
+        meterRegistry.counter("paymaster.errors", "exception", e.getClass().getSimpleName()).increment();
+    }
+
     /**
      * **مدیریت خطاهای 404 (صفحه یافت نشد)**
      * (اختیاری: برای Spring MVC، این مورد معمولاً توسط متد یا کانفیگ پیش‌فرض مدیریت می‌شود، اما برای کنترل بیشتر می‌توان آن را اضافه کرد)
@@ -4,12 +4,15 @@ import com.paymaster.backend.domain.entity.Contract;
 import com.paymaster.backend.domain.entity.Customer;
 import com.paymaster.backend.domain.entity.Installment;
 import com.paymaster.backend.domain.service.*;
+import com.paymaster.backend.domain.valueobject.ContractListRow;
 import com.paymaster.backend.domain.valueobject.ContractStatus;
 import com.paymaster.backend.domain.valueobject.CustomerStatus;
+import com.paymaster.backend.domain.valueobject.InstallmentDueRow;
+import com.paymaster.backend.domain.valueobject.KeysetPage;
+import com.paymaster.backend.domain.valueobject.PaymentAllocation;
 import com.paymaster.backend.domain.valueobject.PaymentMethod;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -21,6 +24,7 @@ import org.springframework.data.domain.Sort;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * **کنترلر اصلی برنامه** (Home Controller).
@@ -30,30 +34,37 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class HomeController {
 
+    /** هدر کلید یکتایی درخواست‌های پرداخت (برای کلاینت‌هایی که فرم را ارسال نمی‌کنند). */
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final CustomerService customerService;
     private final ContractService contractService;
     private final InstallmentService installmentService;
     private final DashboardService dashboardService;
     private final DateUtils dateUtils;
     private final CalculationService calculationService;
+    private final ParallelQueries parallelQueries;
 
     // ==================== داشبورد (Dashboard) ====================
 
     /**
      * **صفحه اصلی - داشبورد**.
      * نمایش آمار کلی، اقساط معوق و اقساط سررسید نزدیک.
+     * سه کوئری مستقل داشبورد هم‌زمان اجرا می‌شوند (نگاه کنید به {@link ParallelQueries}).
      */
     @GetMapping({"/", "/dashboard"})
     public String dashboard(Model model) {
-        DashboardService.DashboardStats stats = dashboardService.getDashboardStats();
-        List<Installment> upcomingInstallments = dashboardService.getUpcomingInstallments();
-        List<Installment> overdueInstallments = dashboardService.getOverdueInstallments();
-        List<Contract> overdueContracts = dashboardService.getOverdueContracts();
-
-        model.addAttribute("stats", stats);
-        model.addAttribute("upcomingInstallments", upcomingInstallments);
-        model.addAttribute("overdueInstallments", overdueInstallments);
-        model.addAttribute("overdueContracts", overdueContracts);
+        try (ParallelQueries.Batch batch = parallelQueries.batch()) {
+            Supplier<DashboardService.DashboardStats> stats = batch.fork(dashboardService::getDashboardStats);
+            Supplier<List<InstallmentDueRow>> upcomingInstallments = batch.fork(dashboardService::getUpcomingInstallments);
+            Supplier<List<InstallmentDueRow>> overdueInstallments = batch.fork(dashboardService::getOverdueInstallments);
+            batch.join();
+
+            model.addAttribute("stats", stats.get());
+            model.addAttribute("upcomingInstallments", upcomingInstallments.get());
+            model.addAttribute("overdueInstallments", overdueInstallments.get());
+        }
+        model.addAttribute("widgetSize", dashboardService.getWidgetSize());
         model.addAttribute("dateUtils", dateUtils);
 
         return "dashboard";
@@ -63,21 +74,21 @@ public class HomeController {
 
     /**
      * **لیست مشتریان**.
-     * جستجوی عمومی و نمایش با صفحه‌بندی.
+     * جستجوی عمومی و نمایش با صفحه‌بندی Keyset (after/before)؛ تعداد دقیق فقط با count=true شمرده می‌شود.
      */
     @GetMapping("/customers")
     public String listCustomers(
             @RequestParam(defaultValue = "") String keyword,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
             @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean count,
             Model model) {
 
-        Page<Customer> customersPage = customerService.search(keyword, page, size);
+        KeysetPage<Customer> customersPage = customerService.search(keyword, after, before, size, count);
 
         model.addAttribute("customers", customersPage.getContent());
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", customersPage.getTotalPages());
-        model.addAttribute("totalItems", customersPage.getTotalElements());
+        model.addAttribute("page", customersPage);
         model.addAttribute("keyword", keyword);
         model.addAttribute("dateUtils", dateUtils);
 
@@ -187,28 +198,21 @@ public class HomeController {
 
     /**
      * **لیست قراردادها**.
-     * فیلتر بر اساس وضعیت و صفحه‌بندی.
+     * فیلتر بر اساس وضعیت و صفحه‌بندی Keyset (after/before)؛ تعداد دقیق فقط با count=true شمرده می‌شود.
      */
     @GetMapping("/contracts")
     public String listContracts(
             @RequestParam(required = false) ContractStatus status,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
             @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean count,
             Model model) {
 
-        Page<Contract> contractsPage;
-        if (status != null) {
-            // فیلتر بر اساس وضعیت
-            contractsPage = contractService.findByStatus(status, page, size);
-        } else {
-            // نمایش همه
-            contractsPage = contractService.findAll(page, size);
-        }
+        KeysetPage<ContractListRow> contractsPage = contractService.findListPage(status, after, before, size, count);
 
         model.addAttribute("contracts", contractsPage.getContent());
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", contractsPage.getTotalPages());
-        model.addAttribute("totalItems", contractsPage.getTotalElements());
+        model.addAttribute("page", contractsPage);
         model.addAttribute("statuses", ContractStatus.values());
         model.addAttribute("selectedStatus", status);
         model.addAttribute("dateUtils", dateUtils);
@@ -317,30 +321,47 @@ public class HomeController {
     // ==================== مدیریت اقساط (Installments) ====================
 
     /**
-     * **لیست اقساط معوق** (سررسید گذشته).
+     * **لیست اقساط معوق** (سررسید گذشته)، بیشترین تأخیر اول.
+     * صفحه‌بندی بر اساس سررسید (after/before)؛ تعداد تقریبی از شمارنده پرتفوی و تعداد دقیق فقط با count=true.
      */
     @GetMapping("/installments/overdue")
-    public String overdueInstallments(Model model) {
-        List<Installment> overdueList = installmentService.findOverdueInstallments();
+    public String overdueInstallments(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean count,
+            Model model) {
+
+        KeysetPage<InstallmentDueRow> page = installmentService.findOverduePage(after, before, size, count);
 
-        model.addAttribute("installments", overdueList);
+        model.addAttribute("installments", page.getContent());
+        model.addAttribute("page", page);
+        model.addAttribute("listPath", "/installments/overdue");
+        model.addAttribute("overdue", true);
         model.addAttribute("dateUtils", dateUtils);
-        model.addAttribute("calculationService", calculationService);
         model.addAttribute("title", "اقساط معوق");
 
         return "installments/list";
     }
 
     /**
-     * **لیست اقساط سررسید این هفته**.
+     * **لیست اقساط سررسید این هفته**، نزدیک‌ترین سررسید اول.
      */
     @GetMapping("/installments/upcoming")
-    public String upcomingInstallments(Model model) {
-        List<Installment> upcomingList = installmentService.findInstallmentsDueThisWeek();
+    public String upcomingInstallments(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean count,
+            Model model) {
 
-        model.addAttribute("installments", upcomingList);
+        KeysetPage<InstallmentDueRow> page = installmentService.findUpcomingPage(after, before, size, count);
+
+        model.addAttribute("installments", page.getContent());
+        model.addAttribute("page", page);
+        model.addAttribute("listPath", "/installments/upcoming");
+        model.addAttribute("overdue", false);
         model.addAttribute("dateUtils", dateUtils);
-        model.addAttribute("calculationService", calculationService);
         model.addAttribute("title", "اقساط سررسید این هفته");
 
         return "installments/list";
@@ -348,6 +369,7 @@ public class HomeController {
 
     /**
      * **ثبت پرداخت قسط**.
+     * کلید یکتایی از فیلد مخفی فرم یا هدر {@code Idempotency-Key} خوانده می‌شود تا ارسال دوباره فرم پرداخت را تکرار نکند.
      */
     @PostMapping("/installments/pay/{id}")
     public String payInstallment(
@@ -356,12 +378,14 @@ public class HomeController {
             @RequestParam PaymentMethod paymentMethod,
             @RequestParam(required = false) String receiptNumber,
             @RequestParam(required = false) String notes,
+            @RequestParam(required = false) String idempotencyKey,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKeyHeader,
             RedirectAttributes redirectAttributes) {
 
         Long contractId = null;
         try {
             Installment installment = installmentService.payInstallment(
-                    id, paidAmount, paymentMethod, receiptNumber, notes);
+                    id, paidAmount, paymentMethod, receiptNumber, notes, firstNonBlank(idempotencyKeyHeader, idempotencyKey));
             contractId = installment.getContract().getId();
 
             redirectAttributes.addFlashAttribute("successMessage",
@@ -379,10 +403,14 @@ public class HomeController {
      * **پرداخت سریع قسط** (تسویه کامل با مبلغ باقیمانده).
      */
     @PostMapping("/installments/quick-pay/{id}")
-    public String quickPayInstallment(@PathVariable Long id, RedirectAttributes redirectAttributes) {
+    public String quickPayInstallment(
+            @PathVariable Long id,
+            @RequestParam(required = false) String idempotencyKey,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKeyHeader,
+            RedirectAttributes redirectAttributes) {
         Long contractId = null;
         try {
-            Installment installment = installmentService.quickPay(id);
+            Installment installment = installmentService.quickPay(id, firstNonBlank(idempotencyKeyHeader, idempotencyKey));
             contractId = installment.getContract().getId();
             redirectAttributes.addFlashAttribute("successMessage",
                     "قسط شماره " + installment.getInstallmentNumber() + " با موفقیت تسویه شد.");
@@ -393,6 +421,38 @@ public class HomeController {
         return (contractId != null) ? "redirect:/contracts/view/" + contractId : "redirect:/dashboard";
     }
 
+    /**
+     * **پرداخت یکجای قرارداد** (تقسیم مبلغ بین اقساط باز، قدیمی‌ترین اول).
+     * کلید یکتایی مانند ثبت پرداخت قسط از فیلد مخفی فرم یا هدر {@code Idempotency-Key} خوانده می‌شود.
+     */
+    @PostMapping("/contracts/pay/{id}")
+    public String payContract(
+            @PathVariable Long id,
+            @RequestParam Long amount,
+            @RequestParam PaymentMethod paymentMethod,
+            @RequestParam(required = false) String receiptNumber,
+            @RequestParam(required = false) String notes,
+            @RequestParam(required = false) String idempotencyKey,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKeyHeader,
+            RedirectAttributes redirectAttributes) {
+        try {
+            PaymentAllocation allocation = installmentService.payContract(id, amount, paymentMethod, receiptNumber, notes,
+                    firstNonBlank(idempotencyKeyHeader, idempotencyKey));
+            redirectAttributes.addFlashAttribute("successMessage",
+                    String.format("مبلغ %,d ریال بین %d قسط تقسیم شد (جریمه: %,d ریال، اصل: %,d ریال).",
+                            allocation.getAmount(), allocation.getLines().size(),
+                            allocation.getPenaltyAllocated(), allocation.getPrincipalAllocated())
+                            + (allocation.isContractCompleted() ? " قرارداد تسویه شد." : ""));
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+        }
+        return "redirect:/contracts/view/" + id;
+    }
+
+    private static String firstNonBlank(String first, String second) {
+        return (first != null && !first.isBlank()) ? first : second;
+    }
+
     // ==================== گزارش‌ها (Reports) ====================
 
     /**
@@ -0,0 +1,22 @@
+package com.paymaster.backend.presentation.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ModelAttribute;
+
+/**
+ * **داده‌های مشترک قالب صفحات** (Layout Model).
+ * Thymeleaf 3.1 دسترسی قالب‌ها به {@code #httpServletRequest} را حذف کرده است؛ مسیر درخواست جاری برای
+ * مشخص کردن گزینه فعال منوی {@code fragments/layout} از طریق مدل در اختیار قالب قرار می‌گیرد.
+ */
+@ControllerAdvice
+public class LayoutModelAdvice {
+
+    /**
+     * مسیر درخواست جاری (بدون Context Path)، مثلاً {@code /contracts}.
+     */
+    @ModelAttribute("currentPath")
+    public String currentPath(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
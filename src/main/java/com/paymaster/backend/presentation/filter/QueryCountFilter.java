@@ -0,0 +1,152 @@
+package com.paymaster.backend.presentation.filter;
+
+import com.paymaster.backend.domain.service.QueryCounter;
+import com.paymaster.backend.domain.service.RequestQueryStatistics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+
+/**
+ * **شمارش کوئری‌های هر درخواست** (Query Count Filter).
+ * برای هر درخواست یک محدوده {@link QueryCounter} باز می‌کند و پس از آن:
+ * <ul>
+ *   <li>تعداد دستورات SQL، موجودیت‌های بارگذاری شده و مجموعه‌های Lazy مقداردهی شده را در هدرهای
+ *       {@code X-Query-Count}، {@code X-Entity-Load-Count} و {@code X-Collection-Fetch-Count} پاسخ قرار می‌دهد؛</li>
+ *   <li>شمارش را در {@link RequestQueryStatistics} به الگوی مسیر اضافه می‌کند؛</li>
+ *   <li>اگر تعداد دستورات از {@code paymaster.query-count.warn-threshold} بیشتر باشد یا دستوری بیش از
+ *       {@code paymaster.query-count.repeat-threshold} بار تکرار شود (الگوی N+1)، هشدار ثبت می‌کند.</li>
+ * </ul>
+ * هدرها باید پیش از ارسال بدنه پاسخ نوشته شوند؛ بنابراین مقدار آن‌ها شمارش تا شروع نوشتن بدنه است
+ * (قالب‌های Thymeleaf کامل در حافظه ساخته و سپس نوشته می‌شوند، پس Lazy Loadهای قالب هم شمرده می‌شوند).
+ * هشدار و آمار همیشه شمارش کامل درخواست را دارند.
+ */
+@Slf4j
+@Component
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    static final String STATEMENTS_HEADER = "X-Query-Count";
+    static final String ENTITY_LOADS_HEADER = "X-Entity-Load-Count";
+    static final String COLLECTION_FETCHES_HEADER = "X-Collection-Fetch-Count";
+
+    private final RequestQueryStatistics statistics;
+    private final boolean enabled;
+    private final int warnThreshold;
+    private final int repeatThreshold;
+
+    public QueryCountFilter(RequestQueryStatistics statistics,
+                            @Value("${paymaster.query-count.enabled:true}") boolean enabled,
+                            @Value("${paymaster.query-count.warn-threshold:25}") int warnThreshold,
+                            @Value("${paymaster.query-count.repeat-threshold:5}") int repeatThreshold) {
+        this.statistics = statistics;
+        this.enabled = enabled;
+        this.warnThreshold = warnThreshold;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            CountHeaderResponse countingResponse = new CountHeaderResponse(response, scope);
+            try {
+                filterChain.doFilter(request, countingResponse);
+            } finally {
+                countingResponse.writeCountHeaders();
+                report(request, scope);
+            }
+        }
+    }
+
+    private void report(HttpServletRequest request, QueryCounter.Scope scope) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+        boolean overBudget = scope.statements() > warnThreshold;
+        if (pattern != null) {
+            statistics.record(request.getMethod(), pattern.toString(), scope, overBudget);
+        }
+
+        if (overBudget) {
+            log.warn("{} issued {} SQL statements ({} entity loads, {} collection fetches), threshold {}",
+                    route, scope.statements(), scope.entityLoads(), scope.collectionFetches(), warnThreshold);
+        }
+        Map<String, Integer> repeated = scope.repeatedStatements(repeatThreshold);
+        repeated.forEach((sql, count) -> log.warn("Possible N+1 in {}: statement executed {} times: {}", route, count, sql));
+    }
+
+    /**
+     * پاسخی که هدرهای شمارش را درست پیش از شروع نوشتن بدنه (یا Redirect و خطا) اضافه می‌کند.
+     */
+    private static final class CountHeaderResponse extends HttpServletResponseWrapper {
+
+        private final QueryCounter.Scope scope;
+        private boolean headersWritten;
+
+        CountHeaderResponse(HttpServletResponse response, QueryCounter.Scope scope) {
+            super(response);
+            this.scope = scope;
+        }
+
+        void writeCountHeaders() {
+            if (headersWritten) return;
+            headersWritten = true;
+            if (!isCommitted()) {
+                setHeader(STATEMENTS_HEADER, String.valueOf(scope.statements()));
+                setHeader(ENTITY_LOADS_HEADER, String.valueOf(scope.entityLoads()));
+                setHeader(COLLECTION_FETCHES_HEADER, String.valueOf(scope.collectionFetches()));
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeCountHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeCountHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeCountHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeCountHeaders();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeCountHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeCountHeaders();
+            super.sendError(sc, msg);
+        }
+    }
+}
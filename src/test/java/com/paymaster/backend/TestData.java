@@ -0,0 +1,52 @@
+package com.paymaster.backend;
+
+import com.paymaster.backend.domain.entity.Contract;
+import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.service.ContractService;
+import com.paymaster.backend.domain.service.CustomerService;
+import com.paymaster.backend.domain.valueobject.CustomerStatus;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * **داده‌های آزمایشی** (Test Data).
+ * ایجاد مشتری و قرارداد با کد ملی و موبایل یکتا، تا آزمون‌هایی که Context (و پایگاه داده) مشترک دارند با هم تداخل نکنند.
+ */
+public final class TestData {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private TestData() {
+    }
+
+    /**
+     * ایجاد یک مشتری فعال آزمایشی.
+     * @param customerService سرویس مشتری.
+     * @return مشتری ذخیره شده.
+     */
+    public static Customer createCustomer(CustomerService customerService) {
+        int n = SEQUENCE.incrementAndGet();
+        Customer customer = Customer.builder()
+                .fullName("مشتری آزمایشی " + n)
+                .nationalCode(String.format("%010d", n))
+                .mobile(String.format("09%09d", n))
+                .status(CustomerStatus.ACTIVE)
+                .build();
+        return customerService.save(customer);
+    }
+
+    /**
+     * ایجاد قرارداد فعال برای یک مشتری.
+     * @param contractService سرویس قرارداد.
+     * @param customer مشتری.
+     * @param installmentCount تعداد اقساط.
+     * @param startDate تاریخ شروع (تاریخ گذشته برای قراردادی با اقساط سررسید گذشته).
+     * @return قرارداد ایجاد شده.
+     */
+    public static Contract createContract(ContractService contractService, Customer customer,
+                                          int installmentCount, LocalDate startDate) {
+        return contractService.createContract(customer.getId(), 120_000_000L, 18.0, installmentCount,
+                startDate, 0.5, "test");
+    }
+}
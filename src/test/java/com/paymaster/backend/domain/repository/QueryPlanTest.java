@@ -0,0 +1,173 @@
+package com.paymaster.backend.domain.repository;
+
+import com.paymaster.backend.domain.service.QueryCounter;
+import com.paymaster.backend.domain.valueobject.ContractStatus;
+import com.paymaster.backend.domain.valueobject.CustomerStatus;
+import com.paymaster.backend.domain.valueobject.InstallmentStatus;
+import com.paymaster.backend.domain.valueobject.ReconciliationItemStatus;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * آزمون **طرح اجرای کوئری‌های پرتکرار ریپازیتوری‌ها** (Query Plans).
+ * هر متد ریپازیتوری واقعاً فراخوانی می‌شود، SQL ساخته شده توسط Hibernate از {@link QueryCounter} (همان StatementInspector
+ * شمارش کوئری‌ها) برداشته می‌شود و با {@code EXPLAIN} پایگاه داده H2 روی Schema ساخته شده از موجودیت‌ها بررسی می‌شود:
+ * طرح اجرا نباید پیمایش کامل جدول ({@code tableScan}) داشته باشد. به این ترتیب تغییر کوئری‌ها یا حذف و تغییر نام
+ * ایندکس‌های تعریف شده روی موجودیت‌ها بی‌صدا باقی نمی‌ماند. پارامترهای طرح اجرا در H2 بی‌اثرند و NULL مقداردهی می‌شوند.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+    /** نشانه پیمایش کامل جدول در خروجی EXPLAIN پایگاه داده H2. */
+    private static final String TABLE_SCAN = "tableScan";
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final LocalDateTime NOW = LocalDateTime.now();
+    private static final Pageable PAGE = PageRequest.of(0, 20);
+
+    @Autowired
+    private InstallmentRepository installments;
+    @Autowired
+    private ContractRepository contracts;
+    @Autowired
+    private CustomerRepository customers;
+    @Autowired
+    private ReconciliationItemRepository reconciliationItems;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private DataSource dataSource;
+
+    Stream<Arguments> hotQueries() {
+        return Stream.of(
+                query("InstallmentRepository.findOverdueRowsFirst", () -> installments.findOverdueRowsFirst(TODAY, PAGE)),
+                query("InstallmentRepository.findOverdueRowsAfter", () -> installments.findOverdueRowsAfter(TODAY, TODAY, 1L, PAGE)),
+                query("InstallmentRepository.findOverdueRowsBefore", () -> installments.findOverdueRowsBefore(TODAY, TODAY, 1L, PAGE)),
+                query("InstallmentRepository.countOverdueInstallments", () -> installments.countOverdueInstallments(TODAY)),
+                query("InstallmentRepository.sumOverdueAmount", () -> installments.sumOverdueAmount(TODAY)),
+                query("InstallmentRepository.findUpcomingRowsFirst", () -> installments.findUpcomingRowsFirst(TODAY, TODAY, PAGE)),
+                query("InstallmentRepository.findUpcomingRowsAfter",
+                        () -> installments.findUpcomingRowsAfter(TODAY, TODAY, TODAY, 1L, PAGE)),
+                query("InstallmentRepository.findUpcomingRowsBefore",
+                        () -> installments.findUpcomingRowsBefore(TODAY, TODAY, TODAY, 1L, PAGE)),
+                query("InstallmentRepository.countUpcoming", () -> installments.countUpcoming(TODAY, TODAY)),
+                query("InstallmentRepository.findPageFirst", () -> installments.findPageFirst(InstallmentStatus.PENDING, PAGE)),
+                query("InstallmentRepository.findPageAfter",
+                        () -> installments.findPageAfter(InstallmentStatus.PENDING, NOW, 1L, PAGE)),
+                query("InstallmentRepository.findPageBefore",
+                        () -> installments.findPageBefore(InstallmentStatus.PENDING, NOW, 1L, PAGE)),
+                query("InstallmentRepository.findByContractIdOrderByInstallmentNumberAsc",
+                        () -> installments.findByContractIdOrderByInstallmentNumberAsc(1L)),
+                query("InstallmentRepository.findOutstandingByContractId", () -> installments.findOutstandingByContractId(1L)),
+                query("InstallmentRepository.findExistingReceiptNumbers",
+                        () -> installments.findExistingReceiptNumbers(Set.of("R1", "R2"))),
+                query("InstallmentRepository.findOpenRowsByCustomerIds",
+                        () -> installments.findOpenRowsByCustomerIds(Set.of(1L, 2L))),
+                query("InstallmentRepository.findPenaltyAccrualChunk",
+                        () -> installments.findPenaltyAccrualChunk(0L, TODAY, PageRequest.of(0, 500))),
+                query("InstallmentRepository.streamExportRows", () -> {
+                    try (Stream<?> rows = installments.streamExportRows(null)) {
+                        return rows.count();
+                    }
+                }),
+                query("ContractRepository.findListRowsFirst", () -> contracts.findListRowsFirst(ContractStatus.ACTIVE, PAGE)),
+                query("ContractRepository.findListRowsAfter",
+                        () -> contracts.findListRowsAfter(ContractStatus.ACTIVE, NOW, 1L, PAGE)),
+                query("ContractRepository.findListRowsBefore",
+                        () -> contracts.findListRowsBefore(ContractStatus.ACTIVE, NOW, 1L, PAGE)),
+                query("ContractRepository.countByStatus", () -> contracts.countByStatus(ContractStatus.ACTIVE)),
+                query("ContractRepository.findByCustomerId", () -> contracts.findByCustomerId(1L)),
+                query("ContractRepository.streamListRows", () -> {
+                    try (Stream<?> rows = contracts.streamListRows(null)) {
+                        return rows.count();
+                    }
+                }),
+                query("CustomerRepository.findPageFirst", () -> customers.findPageFirst(null, PAGE)),
+                query("CustomerRepository.findPageAfter", () -> customers.findPageAfter(null, NOW, 1L, PAGE)),
+                query("CustomerRepository.findPageBefore", () -> customers.findPageBefore(null, NOW, 1L, PAGE)),
+                query("CustomerRepository.findByMobileIn", () -> customers.findByMobileIn(Set.of("09120000000"))),
+                query("CustomerRepository.streamExportRows", () -> {
+                    try (Stream<?> rows = customers.streamExportRows(CustomerStatus.ACTIVE)) {
+                        return rows.count();
+                    }
+                }),
+                query("ReconciliationItemRepository.findByStatusAndIdGreaterThanOrderByIdAsc",
+                        () -> reconciliationItems.findByStatusAndIdGreaterThanOrderByIdAsc(ReconciliationItemStatus.PENDING, 0L,
+                                PageRequest.of(0, 100))),
+                query("ReconciliationItemRepository.findExistingReferences",
+                        () -> reconciliationItems.findExistingReferences(Set.of("R1", "R2"))));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void hotQueryUsesAnIndex(String query, RepositoryCall call) throws SQLException {
+        List<String> statements = new ArrayList<>();
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            transactionTemplate.execute(status -> call.run());
+            statements.addAll(scope.repeatedStatements(0).keySet());
+        }
+        assertThat(statements).as("SQL of %s", query).isNotEmpty();
+
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertThat(plan).as("plan of %s", query).doesNotContain(TABLE_SCAN);
+        }
+    }
+
+    /**
+     * طرح اجرای یک دستور SQL با پارامترهای NULL.
+     */
+    private String explain(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setNull(i, Types.NULL);
+            }
+            try (ResultSet result = statement.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (result.next()) {
+                    plan.append(result.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        }
+    }
+
+    private static Arguments query(String name, RepositoryCall call) {
+        return Arguments.of(name, call);
+    }
+
+    /**
+     * فراخوانی یک متد ریپازیتوری (داخل تراکنش).
+     */
+    @FunctionalInterface
+    interface RepositoryCall {
+        Object run();
+    }
+}
@@ -0,0 +1,81 @@
+package com.paymaster.backend.domain.service;
+
+import com.paymaster.backend.TestData;
+import com.paymaster.backend.domain.entity.Contract;
+import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.entity.Installment;
+import com.paymaster.backend.domain.valueobject.PaymentMethod;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * آزمون **مانده‌های ذخیره شده مشتری** ({@link AccountBalanceService}): پرداخت فقط ورودی کش سطح دوم همان مشتری را
+ * باطل می‌کند و مانده خوانده شده پس از پرداخت به‌روز است؛ {@link AccountBalanceService#verify} مانده‌های خراب شده
+ * قرارداد و مشتری را گزارش و از روی اقساط دوباره محاسبه می‌کند.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AccountBalanceServiceTest {
+
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private ContractService contractService;
+    @Autowired
+    private InstallmentService installmentService;
+    @Autowired
+    private AccountBalanceService accountBalanceService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void paymentEvictsOnlyThePayingCustomerFromTheCache() {
+        Customer bystander = TestData.createCustomer(customerService);
+        Customer payer = TestData.createCustomer(customerService);
+        Contract contract = TestData.createContract(contractService, payer, 12, LocalDate.now());
+        customerService.findById(bystander.getId()).orElseThrow();
+        long debtBefore = customerService.findById(payer.getId()).orElseThrow().getTotalDebt();
+        assertThat(entityManagerFactory.getCache().contains(Customer.class, bystander.getId())).isTrue();
+        assertThat(entityManagerFactory.getCache().contains(Customer.class, payer.getId())).isTrue();
+
+        Installment installment = installmentService.findByContractId(contract.getId()).get(0);
+        installmentService.payInstallment(installment.getId(), 1_000_000L, PaymentMethod.CASH, null, "test", null);
+
+        assertThat(entityManagerFactory.getCache().contains(Customer.class, bystander.getId())).isTrue();
+        assertThat(entityManagerFactory.getCache().contains(Customer.class, payer.getId())).isFalse();
+        assertThat(customerService.findById(payer.getId()).orElseThrow().getTotalDebt()).isEqualTo(debtBefore - 1_000_000L);
+    }
+
+    @Test
+    void verifyReportsAndRecomputesCorruptedBalances() {
+        Customer customer = TestData.createCustomer(customerService);
+        Contract contract = TestData.createContract(contractService, customer, 12, LocalDate.now());
+        Installment installment = installmentService.findByContractId(contract.getId()).get(0);
+        installmentService.payInstallment(installment.getId(), 1_000_000L, PaymentMethod.CASH, null, "test", null);
+        long paidTotal = contractService.findById(contract.getId()).orElseThrow().getPaidTotal();
+        long totalDebt = customerService.findById(customer.getId()).orElseThrow().getTotalDebt();
+        assertThat(accountBalanceService.verify()).isZero();
+
+        jdbcTemplate.update("UPDATE contracts SET paid_total = paid_total + 777 WHERE id = ?", contract.getId());
+        jdbcTemplate.update("UPDATE customers SET total_debt = total_debt - 999 WHERE id = ?", customer.getId());
+
+        assertThat(accountBalanceService.verify()).isGreaterThanOrEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT paid_total FROM contracts WHERE id = ?", Long.class, contract.getId()))
+                .isEqualTo(paidTotal);
+        assertThat(jdbcTemplate.queryForObject("SELECT total_debt FROM customers WHERE id = ?", Long.class, customer.getId()))
+                .isEqualTo(totalDebt);
+        assertThat(contractService.findById(contract.getId()).orElseThrow().getPaidTotal()).isEqualTo(paidTotal);
+        assertThat(customerService.findById(customer.getId()).orElseThrow().getTotalDebt()).isEqualTo(totalDebt);
+        assertThat(accountBalanceService.verify()).isZero();
+    }
+}
@@ -0,0 +1,110 @@
+package com.paymaster.backend.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * آزمون **هم‌ارزی محاسبات ممیز ثابت** {@link CalculationService} با پیاده‌سازی مرجع BigDecimal ({@link ReferenceCalculations}).
+ * ورودی‌ها با بذر ثابت تصادفی تولید می‌شوند (قابل تکرار): مبالغ منفی و مرزی، تعداد اقساط صفر و منفی،
+ * نرخ‌های با 0 تا 8 رقم اعشار (بیش از 6 رقم از مسیر مرجع محاسبه می‌شود) و مقادیر نزدیک سرریز long.
+ */
+class CalculationServiceTest {
+
+    private static final int SAMPLES = 200_000;
+
+    private final CalculationService calculationService = new CalculationService();
+
+    @Test
+    void simpleInterestMatchesReference() {
+        SplittableRandom random = new SplittableRandom(1404);
+        for (int i = 0; i < SAMPLES; i++) {
+            long principal = amount(random);
+            double rate = rate(random);
+            int months = random.nextInt(-1, 121);
+            assertEquals(ReferenceCalculations.calculateSimpleInterest(principal, rate, months),
+                    calculationService.calculateSimpleInterest(principal, rate, months),
+                    () -> "interest(" + principal + ", " + rate + ", " + months + ")");
+            assertEquals(ReferenceCalculations.calculateSimpleInterest(principal, rate, months),
+                    calculationService.calculateSimpleInterestBp(principal, calculationService.toBasisPoints(rate), months),
+                    () -> "interestBp(" + principal + ", " + rate + ", " + months + ")");
+        }
+    }
+
+    @Test
+    void installmentSplitsMatchReference() {
+        SplittableRandom random = new SplittableRandom(1405);
+        for (int i = 0; i < SAMPLES; i++) {
+            long total = amount(random);
+            int count = random.nextInt(-1, 121);
+            assertEquals(ReferenceCalculations.calculateInstallmentAmount(total, count),
+                    calculationService.calculateInstallmentAmount(total, count), () -> "installment(" + total + ", " + count + ")");
+            assertEquals(ReferenceCalculations.calculatePrincipalPortion(total, count),
+                    calculationService.calculatePrincipalPortion(total, count), () -> "principal(" + total + ", " + count + ")");
+            assertEquals(ReferenceCalculations.calculateInterestPortion(total, count),
+                    calculationService.calculateInterestPortion(total, count), () -> "interest(" + total + ", " + count + ")");
+        }
+    }
+
+    @Test
+    void penaltyMatchesReference() {
+        SplittableRandom random = new SplittableRandom(1406);
+        for (int i = 0; i < SAMPLES; i++) {
+            long remaining = amount(random);
+            double rate = rate(random);
+            long days = random.nextLong(-1, 3650);
+            assertEquals(ReferenceCalculations.calculatePenalty(remaining, rate, days),
+                    calculationService.calculatePenalty(remaining, rate, days),
+                    () -> "penalty(" + remaining + ", " + rate + ", " + days + ")");
+        }
+    }
+
+    @Test
+    void earlySettlementMatchesReference() {
+        SplittableRandom random = new SplittableRandom(1407);
+        for (int i = 0; i < SAMPLES; i++) {
+            long principal = amount(random);
+            long interest = amount(random);
+            double discount = random.nextBoolean() ? rate(random) : -rate(random);
+            assertEquals(ReferenceCalculations.calculateEarlySettlementAmount(principal, interest, discount),
+                    calculationService.calculateEarlySettlementAmount(principal, interest, discount),
+                    () -> "earlySettlement(" + principal + ", " + interest + ", " + discount + ")");
+        }
+    }
+
+    @Test
+    void divideHalfUpMatchesBigDecimalIncludingNegativeHalves() {
+        SplittableRandom random = new SplittableRandom(1408);
+        for (int i = 0; i < SAMPLES; i++) {
+            long divisor = random.nextLong(1, 200_000);
+            // نیمه‌های دقیق (x.5) و مقادیر منفی، که قاعده HALF_UP در آن‌ها با گرد کردن به سمت بالا متفاوت است
+            long dividend = random.nextBoolean()
+                    ? random.nextLong(-1_000_000_000_000L, 1_000_000_000_000L)
+                    : (2 * random.nextLong(-1_000_000, 1_000_000) + 1) * (divisor % 2 == 0 ? divisor / 2 : divisor);
+            long expected = BigDecimal.valueOf(dividend).divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP).longValue();
+            assertEquals(expected, CalculationService.divideHalfUp(dividend, divisor), () -> dividend + " / " + divisor);
+        }
+    }
+
+    /**
+     * مبلغ تصادفی: بیشتر نمونه‌ها در بازه معمول، بخشی منفی یا صفر و بخشی نزدیک سرریز long.
+     */
+    private static long amount(SplittableRandom random) {
+        return switch (random.nextInt(10)) {
+            case 0 -> random.nextLong(-1_000_000_000L, 1);
+            case 1 -> random.nextLong(Long.MAX_VALUE / 1_000_000, Long.MAX_VALUE / 10_000);
+            default -> random.nextLong(1, 50_000_000_000L);
+        };
+    }
+
+    /**
+     * نرخ درصدی تصادفی با 0 تا 8 رقم اعشار.
+     */
+    private static double rate(SplittableRandom random) {
+        return random.nextLong(0, 100_000_000L) / Math.pow(10, random.nextInt(0, 9));
+    }
+}
@@ -0,0 +1,107 @@
+package com.paymaster.backend.domain.service;
+
+import com.paymaster.backend.TestData;
+import com.paymaster.backend.domain.entity.Contract;
+import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.repository.ContractRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * آزمون **تخصیص‌دهنده شماره قرارداد**: یکتایی شماره‌ها زیر بار هم‌زمان و ادامه شمارنده پس از شماره 9999 سال.
+ * اندازه بلوک کوچک است تا رزرو بلوک جدید بارها و هم‌زمان رخ دهد.
+ */
+@SpringBootTest(properties = "paymaster.contract-number.block-size=7")
+@ActiveProfiles("test")
+class ContractNumberAllocatorTest {
+
+    private static final int THREADS = 32;
+    private static final int CONTRACTS = 2_000;
+
+    @Autowired
+    private ContractNumberAllocator allocator;
+    @Autowired
+    private ContractService contractService;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private ContractRepository contractRepository;
+    @Autowired
+    private DateUtils dateUtils;
+
+    @Test
+    void concurrentContractCreationNeverReusesANumber() throws Exception {
+        Customer customer = TestData.createCustomer(customerService);
+        long contractsBefore = contractRepository.count();
+
+        List<Future<String>> results = new ArrayList<>(CONTRACTS);
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < CONTRACTS; i++) {
+                results.add(executor.submit(() ->
+                        TestData.createContract(contractService, customer, 1, LocalDate.now()).getContractNumber()));
+            }
+        }
+
+        Set<String> numbers = new HashSet<>();
+        for (Future<String> result : results) {
+            numbers.add(result.get());
+        }
+        assertThat(numbers).hasSize(CONTRACTS);
+        assertThat(contractRepository.count()).isEqualTo(contractsBefore + CONTRACTS);
+
+        String prefix = "C" + dateUtils.getPersianYear(LocalDate.now());
+        assertThat(numbers).allMatch(number -> number.startsWith(prefix));
+    }
+
+    @Test
+    void concurrentAllocationHandsOutDistinctNumbers() throws Exception {
+        List<Future<List<String>>> results = new ArrayList<>(THREADS);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    List<String> numbers = new ArrayList<>(500);
+                    for (int i = 0; i < 500; i++) {
+                        numbers.add(allocator.nextContractNumber());
+                    }
+                    return numbers;
+                }));
+            }
+        }
+
+        Set<String> numbers = new HashSet<>();
+        for (Future<List<String>> result : results) {
+            numbers.addAll(result.get());
+        }
+        assertThat(numbers).hasSize(THREADS * 500);
+    }
+
+    @Test
+    void yearSequenceContinuesNumericallyPastFourDigits() {
+        Customer customer = TestData.createCustomer(customerService);
+        // سالی که هنوز شمارنده‌ای برای آن ساخته نشده است
+        int persianYear = dateUtils.getPersianYear(LocalDate.now()) + 50;
+        String prefix = "C" + persianYear;
+        List<Contract> contracts = new ArrayList<>();
+        for (String suffix : List.of("9998", "9999", "10000")) {
+            contracts.add(contractService.buildContract(prefix + suffix, customer, 10_000_000L, 18.0, 1,
+                    LocalDate.now(), 0.5, "test"));
+        }
+        contractService.saveContracts(contracts);
+
+        assertThat(contractRepository.findMaxSequenceByPrefix(prefix)).isEqualTo(10_000L);
+        assertThat(contractRepository.findMaxSequenceByPrefix("C" + (persianYear + 1))).isZero();
+    }
+}
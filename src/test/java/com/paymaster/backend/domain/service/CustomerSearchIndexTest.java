@@ -0,0 +1,121 @@
+package com.paymaster.backend.domain.service;
+
+import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.valueobject.CustomerSearchHit;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * آزمون **نمایه جستجوی مشتریان** ({@link CustomerSearchIndex}): یکسان‌سازی ی/ک و ارقام، نام‌های دارای نیم‌فاصله،
+ * جستجوی ابتدای کلمه با یک و دو نویسه، و به‌روز ماندن نمایه و مالک کد ملی و موبایل پس از ویرایش، حذف و فشرده‌سازی.
+ * تغییرات خارج از تراکنش بلافاصله روی نمایه اعمال می‌شوند.
+ */
+class CustomerSearchIndexTest {
+
+    private final CustomerSearchIndex index = new CustomerSearchIndex(null, null, true);
+
+    @Test
+    void arabicYehAndKafMatchTheirPersianForms() {
+        index.put(customer(1L, "علی کریمی", "0012345678", "09121111111"));
+
+        assertThat(ids("علي كريمي")).containsExactly(1L);
+        assertThat(ids("كري")).containsExactly(1L);
+    }
+
+    @Test
+    void persianAndArabicIndicDigitsMatchNationalCodeAndMobile() {
+        index.put(customer(1L, "سارا احمدی", "0012345678", "09121111111"));
+
+        assertThat(ids("۰۰۱۲۳")).containsExactly(1L);
+        assertThat(ids("٠٩١٢١")).containsExactly(1L);
+        assertThat(index.findIdByNationalCode("۰۰۱۲۳۴۵۶۷۸")).contains(1L);
+        assertThat(index.findIdByMobile("٠٩١٢١١١١١١١")).contains(1L);
+    }
+
+    @Test
+    void nameWithZeroWidthNonJoinerIsFoundJoinedSpacedAndByItsSecondPart() {
+        index.put(customer(1L, "محمد\u200Cرضا نوری", "0012345678", "09121111111"));
+        index.put(customer(2L, "محمدرضا صالحی", "0012345679", "09121111112"));
+
+        assertThat(ids("محمدرضا")).containsExactly(2L, 1L);
+        assertThat(ids("محمد\u200Cرضا")).containsExactly(2L, 1L);
+        assertThat(ids("محمد رضا")).containsExactly(1L);
+        assertThat(ids("رضا")).containsExactly(2L, 1L);
+        assertThat(ids("رض")).containsExactly(1L);
+    }
+
+    @Test
+    void oneAndTwoLetterQueriesMatchTheStartOfAWord() {
+        index.put(customer(1L, "زهرا موسوی", "0012345678", "09121111111"));
+        index.put(customer(2L, "مریم زارعی", "0012345679", "09121111112"));
+
+        assertThat(ids("ز")).containsExactly(2L, 1L);
+        assertThat(ids("زا")).containsExactly(2L);
+        assertThat(ids("مو")).containsExactly(1L);
+        assertThat(ids("وس")).isEmpty();
+        assertThat(ids("09")).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void updateReplacesTheOldValuesAndMovesTheCustomerFirst() {
+        index.put(customer(1L, "رضا کاظمی", "0012345678", "09121111111"));
+        index.put(customer(2L, "حسین رستمی", "0012345679", "09121111112"));
+
+        index.put(customer(1L, "رضا قاسمی", "0012345670", "09121111110"));
+
+        assertThat(ids("کاظمی")).isEmpty();
+        assertThat(ids("قاسمی")).containsExactly(1L);
+        assertThat(ids("")).containsExactly(1L, 2L);
+        assertThat(index.findIdByNationalCode("0012345678")).isEmpty();
+        assertThat(index.findIdByNationalCode("0012345670")).contains(1L);
+        assertThat(index.findIdByMobile("09121111111")).isEmpty();
+    }
+
+    @Test
+    void deleteRemovesTheCustomerAndReleasesItsCodes() {
+        index.put(customer(1L, "نرگس حیدری", "0012345678", "09121111111"));
+
+        index.remove(1L);
+
+        assertThat(ids("نرگس")).isEmpty();
+        assertThat(ids("ن")).isEmpty();
+        assertThat(index.findIdByNationalCode("0012345678")).isEmpty();
+        assertThat(index.findIdByMobile("09121111111")).isEmpty();
+    }
+
+    @Test
+    void compactionKeepsLiveCustomersSearchableInOrder() {
+        index.put(customer(1L, "امیر جعفری", "0012345678", "09121111111"));
+        index.put(customer(2L, "بهاره جعفری", "0012345679", "09121111112"));
+        // هر ویرایش یک ردیف مرده می‌گذارد؛ پس از 1024 ردیف مرده نمایه فشرده می‌شود
+        for (int i = 0; i < 1100; i++) {
+            index.put(customer(3L, "مشتری موقت " + i, "0012345670", "09121111110"));
+        }
+        index.remove(3L);
+
+        assertThat(ids("جعفری")).containsExactly(2L, 1L);
+        assertThat(ids("موقت")).isEmpty();
+        assertThat(ids("")).containsExactly(2L, 1L);
+        assertThat(index.findIdByNationalCode("0012345679")).contains(2L);
+        assertThat(index.findIdByMobile("09121111110")).isEmpty();
+
+        index.put(customer(1L, "امیر جعفری", "0012345678", "09121111111"));
+        assertThat(ids("جعفری")).containsExactly(1L, 2L);
+    }
+
+    private List<Long> ids(String query) {
+        return index.search(query, 10).stream().map(CustomerSearchHit::getId).toList();
+    }
+
+    private static Customer customer(Long id, String fullName, String nationalCode, String mobile) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setFullName(fullName);
+        customer.setNationalCode(nationalCode);
+        customer.setMobile(mobile);
+        return customer;
+    }
+}
@@ -0,0 +1,89 @@
+package com.paymaster.backend.domain.service;
+
+import com.paymaster.backend.TestData;
+import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.valueobject.CustomerStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * آزمون **بررسی تکراری نبودن کد ملی و موبایل** ({@link CustomerService}): پاسخ منفی نمایه بدون دسترسی به پایگاه داده،
+ * تأیید پاسخ مثبت با پایگاه داده، گزارش ثبت هم‌زمان همان کد ملی یا موبایل (از نمونه دیگری از برنامه) با پیام قابل نمایش،
+ * و منتقل شدن سایر خطاهای یکپارچگی داده بدون تغییر.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CustomerServiceTest {
+
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void indexMissIsAnsweredWithoutTheDatabase() {
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            assertThat(customerService.isNationalCodeTaken("9900000001", null)).isFalse();
+            assertThat(customerService.isMobileTaken("09900000001", null)).isFalse();
+            assertThat(scope.statements()).isZero();
+        }
+    }
+
+    @Test
+    void indexHitIsConfirmedAgainstTheDatabase() {
+        Customer customer = TestData.createCustomer(customerService);
+
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            assertThat(customerService.isNationalCodeTaken(customer.getNationalCode(), null)).isTrue();
+            assertThat(customerService.isMobileTaken(customer.getMobile(), null)).isTrue();
+            assertThat(scope.statements()).isPositive();
+        }
+        assertThat(customerService.isNationalCodeTaken(customer.getNationalCode(), customer.getId())).isFalse();
+        assertThat(customerService.isMobileTaken(customer.getMobile(), customer.getId())).isFalse();
+    }
+
+    @Test
+    void concurrentDuplicateSaveIsRejectedWithTheDuplicateMessage() {
+        // ردیف‌هایی که نمونه دیگری از برنامه ثبت کرده و نمایه این نمونه از آن‌ها خبر ندارد
+        insertFromAnotherInstance(-1L, "9900000002", "09900000002");
+        insertFromAnotherInstance(-2L, "9900000003", "09900000003");
+        assertThat(customerService.isNationalCodeTaken("9900000002", null)).isFalse();
+
+        assertThatThrownBy(() -> customerService.save(customer("9900000002", "09900000004")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("قبلاً برای مشتری دیگری ثبت شده است");
+        assertThatThrownBy(() -> customerService.save(customer("9900000005", "09900000003")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("قبلاً برای مشتری دیگری ثبت شده است");
+    }
+
+    @Test
+    void otherIntegrityViolationsAreNotReportedAsDuplicates() {
+        Customer customer = customer("9900000006", "09900000006");
+        customer.setPhone("0".repeat(12));
+
+        assertThatThrownBy(() -> customerService.save(customer))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private void insertFromAnotherInstance(Long id, String nationalCode, String mobile) {
+        jdbcTemplate.update("INSERT INTO customers (id, full_name, national_code, mobile, status, created_at) "
+                + "VALUES (?, ?, ?, ?, 'ACTIVE', CURRENT_TIMESTAMP)", id, "مشتری نمونه دیگر", nationalCode, mobile);
+    }
+
+    private static Customer customer(String nationalCode, String mobile) {
+        return Customer.builder()
+                .fullName("مشتری هم‌زمان")
+                .nationalCode(nationalCode)
+                .mobile(mobile)
+                .status(CustomerStatus.ACTIVE)
+                .build();
+    }
+}
@@ -0,0 +1,151 @@
+package com.paymaster.backend.domain.service;
+
+import com.paymaster.backend.TestData;
+import com.paymaster.backend.domain.entity.Contract;
+import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.entity.Installment;
+import com.paymaster.backend.domain.repository.InstallmentRepository;
+import com.paymaster.backend.domain.valueobject.ContractStatus;
+import com.paymaster.backend.domain.valueobject.InstallmentStatus;
+import com.paymaster.backend.domain.valueobject.PaymentAllocation;
+import com.paymaster.backend.domain.valueobject.PaymentMethod;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * آزمون **پرداخت یکجای قرارداد** ({@link InstallmentService#payContract}): تسویه جریمه پیش از اصل، رسیدن مانده به
+ * قسط بعدی، رد مبلغ بیشتر از کل بدهی، تکمیل قرارداد و تکرار درخواست با همان کلید یکتایی.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class InstallmentServiceTest {
+
+    @Autowired
+    private InstallmentService installmentService;
+    @Autowired
+    private ContractService contractService;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private InstallmentRepository installmentRepository;
+    @Autowired
+    private PenaltyAccrualService penaltyAccrualService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void penaltyIsSettledBeforePrincipal() {
+        Contract contract = overdueContract();
+        long penalty = pendingPenalty(installments(contract).get(0).getId());
+        assertThat(penalty).isPositive();
+
+        PaymentAllocation allocation = pay(contract, penalty + 1_000, null);
+
+        assertThat(allocation.getPenaltyAllocated()).isEqualTo(penalty);
+        assertThat(allocation.getPrincipalAllocated()).isEqualTo(1_000);
+        assertThat(allocation.getLines()).hasSize(1);
+        assertThat(allocation.getLines().get(0).getPenaltyPaid()).isEqualTo(penalty);
+        assertThat(allocation.getLines().get(0).getPrincipalPaid()).isEqualTo(1_000);
+        assertThat(allocation.getLines().get(0).getStatus()).isEqualTo(InstallmentStatus.PARTIALLY_PAID);
+    }
+
+    @Test
+    void remainderSpillsOverIntoTheNextInstallment() {
+        Contract contract = overdueContract();
+        List<Installment> installments = installments(contract);
+        long firstDue = installments.get(0).getRemainingAmount() + pendingPenalty(installments.get(0).getId());
+
+        PaymentAllocation allocation = pay(contract, firstDue + 5_000, null);
+
+        assertThat(allocation.getLines()).hasSize(2);
+        PaymentAllocation.Line first = allocation.getLines().get(0);
+        PaymentAllocation.Line second = allocation.getLines().get(1);
+        assertThat(first.getInstallmentId()).isEqualTo(installments.get(0).getId());
+        assertThat(first.getStatus()).isEqualTo(InstallmentStatus.PAID);
+        assertThat(first.getRemainingAfter()).isZero();
+        assertThat(second.getInstallmentId()).isEqualTo(installments.get(1).getId());
+        assertThat(second.getPenaltyPaid() + second.getPrincipalPaid()).isEqualTo(5_000);
+        assertThat(installmentRepository.findById(installments.get(2).getId()).orElseThrow().getPaidAmount()).isZero();
+    }
+
+    @Test
+    void amountAboveTheTotalDueIsRejected() {
+        Contract contract = overdueContract();
+        long totalDue = totalDue(contract);
+
+        assertThatThrownBy(() -> pay(contract, totalDue + 1, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("بیشتر از کل بدهی قرارداد");
+        assertThat(installments(contract)).allMatch(installment -> installment.getPaidAmount() == 0);
+    }
+
+    @Test
+    void payingTheTotalDueCompletesTheContract() {
+        Contract contract = overdueContract();
+        long totalDue = totalDue(contract);
+
+        PaymentAllocation allocation = pay(contract, totalDue, null);
+
+        assertThat(allocation.isContractCompleted()).isTrue();
+        assertThat(allocation.getLines()).hasSize(installments(contract).size());
+        assertThat(installments(contract)).allMatch(installment -> installment.getStatus() == InstallmentStatus.PAID);
+        assertThat(contractService.findById(contract.getId()).orElseThrow().getStatus()).isEqualTo(ContractStatus.COMPLETED);
+    }
+
+    @Test
+    void repeatedRequestWithTheSameKeyIsPostedOnce() {
+        Contract contract = overdueContract();
+        String key = "contract-pay-" + contract.getId();
+
+        PaymentAllocation first = pay(contract, 2_000_000, key);
+        PaymentAllocation again = pay(contract, 2_000_000, key);
+
+        assertThat(again.getAmount()).isEqualTo(first.getAmount());
+        assertThat(again.getPenaltyAllocated()).isEqualTo(first.getPenaltyAllocated());
+        assertThat(again.getLines()).extracting(PaymentAllocation.Line::getInstallmentId)
+                .containsExactlyElementsOf(first.getLines().stream().map(PaymentAllocation.Line::getInstallmentId).toList());
+        assertThat(contractService.findById(contract.getId()).orElseThrow().getPaidTotal()).isEqualTo(2_000_000);
+        assertThatThrownBy(() -> pay(contract, 3_000_000, key))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("درخواست پرداخت دیگری");
+    }
+
+    /**
+     * قراردادی با سه قسط که قسط اول آن دو ماه از سررسیدش گذشته است.
+     */
+    private Contract overdueContract() {
+        Customer customer = TestData.createCustomer(customerService);
+        return TestData.createContract(contractService, customer, 3, LocalDate.now().minusMonths(3));
+    }
+
+    private PaymentAllocation pay(Contract contract, long amount, String idempotencyKey) {
+        return installmentService.payContract(contract.getId(), amount, PaymentMethod.CASH, "CP-" + contract.getId(),
+                "test", idempotencyKey);
+    }
+
+    private List<Installment> installments(Contract contract) {
+        return installmentRepository.findByContractIdOrderByInstallmentNumberAsc(contract.getId());
+    }
+
+    private long pendingPenalty(Long installmentId) {
+        return transactionTemplate.execute(status -> penaltyAccrualService.pendingPenalty(
+                installmentRepository.findById(installmentId).orElseThrow(), LocalDate.now()));
+    }
+
+    private long totalDue(Contract contract) {
+        long total = 0;
+        for (Installment installment : installments(contract)) {
+            total += installment.getRemainingAmount() + pendingPenalty(installment.getId());
+        }
+        return total;
+    }
+}
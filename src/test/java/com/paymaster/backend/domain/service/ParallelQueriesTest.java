@@ -0,0 +1,93 @@
+package com.paymaster.backend.domain.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * آزمون **سقف کارهای هم‌زمان** {@link ParallelQueries}: پس از پر شدن سقف، کار روی رشته درخواست اجرا می‌شود
+ * و مجوز کارهای تمام شده، ناموفق یا منقضی شده دوباره قابل استفاده است.
+ */
+class ParallelQueriesTest {
+
+    private final ParallelQueries parallelQueries = new ParallelQueries(true, Duration.ofMillis(500), 2);
+
+    @AfterEach
+    void shutDown() {
+        parallelQueries.destroy();
+    }
+
+    @Test
+    void tasksBeyondTheLimitRunOnTheCallingThread() {
+        CountDownLatch release = new CountDownLatch(1);
+        try (ParallelQueries.Batch batch = parallelQueries.batch()) {
+            Supplier<String> first = batch.fork(() -> awaitAndName(release));
+            Supplier<String> second = batch.fork(() -> awaitAndName(release));
+            Supplier<String> third = batch.fork(() -> Thread.currentThread().getName());
+            release.countDown();
+            batch.join();
+
+            assertThat(first.get()).startsWith("parallel-query-");
+            assertThat(second.get()).startsWith("parallel-query-");
+            assertThat(third.get()).isEqualTo(Thread.currentThread().getName());
+        }
+    }
+
+    @Test
+    void permitsAreReturnedAfterFailuresAndTimeouts() throws InterruptedException {
+        try (ParallelQueries.Batch batch = parallelQueries.batch()) {
+            batch.fork(() -> {
+                throw new IllegalArgumentException("failed");
+            });
+            batch.fork(() -> "ok");
+            assertThatThrownBy(batch::join).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(permitsRecovered()).isTrue();
+
+        // کار منقضی شده در پس‌زمینه تمام می‌شود و مجوزش را پس از پایان آزاد می‌کند
+        CountDownLatch slow = new CountDownLatch(1);
+        try (ParallelQueries.Batch batch = parallelQueries.batch()) {
+            batch.fork(() -> awaitAndName(slow));
+            assertThatThrownBy(batch::join).isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(bothTasksForked()).isFalse();
+        slow.countDown();
+        assertThat(permitsRecovered()).isTrue();
+    }
+
+    /**
+     * صبر (حداکثر یک ثانیه) تا کارهای پس‌زمینه تمام شوند و هر دو مجوز آزاد شود.
+     */
+    private boolean permitsRecovered() throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            if (bothTasksForked()) return true;
+            Thread.sleep(10);
+        }
+        return false;
+    }
+
+    /**
+     * آیا دو کار هم‌زمان هر دو روی Virtual Thread اجرا می‌شوند (هر دو مجوز آزاد است)؟
+     */
+    private boolean bothTasksForked() {
+        CountDownLatch release = new CountDownLatch(1);
+        try (ParallelQueries.Batch batch = parallelQueries.batch()) {
+            Supplier<String> first = batch.fork(() -> awaitAndName(release));
+            Supplier<String> second = batch.fork(() -> Thread.currentThread().getName());
+            release.countDown();
+            batch.join();
+            return first.get().startsWith("parallel-query-") && second.get().startsWith("parallel-query-");
+        }
+    }
+
+    private static String awaitAndName(CountDownLatch latch) throws InterruptedException {
+        latch.await();
+        return Thread.currentThread().getName();
+    }
+}
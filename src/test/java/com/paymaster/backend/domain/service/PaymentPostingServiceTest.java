@@ -0,0 +1,103 @@
+package com.paymaster.backend.domain.service;
+
+import com.paymaster.backend.TestData;
+import com.paymaster.backend.domain.entity.Contract;
+import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.entity.Installment;
+import com.paymaster.backend.domain.valueobject.InstallmentStatus;
+import com.paymaster.backend.domain.valueobject.PaymentMethod;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * آزمون **ثبت هم‌زمان پرداخت‌ها** ({@link PaymentPostingService#post}): پرداخت کامل، جزئی، تکراری و با کلید یکتایی
+ * اقساط چند قرارداد به صورت هم‌زمان؛ پس از آن مجموع مبلغ پرداخت شده اقساط، {@code paidTotal} قراردادها و تغییر
+ * {@code totalReceived} شمارنده‌های پرتفوی باید با هم برابر باشند و هیچ قسطی بیش از مبلغش پرداخت نشده باشد.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PaymentPostingServiceTest {
+
+    private static final int CONTRACTS = 4;
+    private static final int INSTALLMENTS = 12;
+
+    @Autowired
+    private InstallmentService installmentService;
+    @Autowired
+    private ContractService contractService;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private PortfolioCountersService countersService;
+
+    @Test
+    void concurrentPaymentsKeepInstallmentsContractsAndCountersInAgreement() throws Exception {
+        Customer customer = TestData.createCustomer(customerService);
+        List<Contract> contracts = new ArrayList<>();
+        for (int i = 0; i < CONTRACTS; i++) {
+            contracts.add(TestData.createContract(contractService, customer, INSTALLMENTS, LocalDate.now()));
+        }
+        countersService.reconcile();
+        long receivedBefore = countersService.getCounters().getTotalReceived();
+
+        // هر قسط با چند درخواست هم‌زمان پرداخت می‌شود: نیمی از مبلغ، دو پرداخت سریع بدون کلید و دو پرداخت سریع با یک کلید
+        List<Callable<Installment>> payments = new ArrayList<>();
+        for (Contract contract : contracts) {
+            for (Installment installment : installmentService.findByContractId(contract.getId())) {
+                Long id = installment.getId();
+                long half = installment.getAmount() / 2;
+                String key = "test-" + id;
+                payments.add(() -> installmentService.payInstallment(id, half, PaymentMethod.CASH, "HALF-" + id, "test", null));
+                payments.add(() -> installmentService.quickPay(id, null));
+                payments.add(() -> installmentService.quickPay(id, null));
+                payments.add(() -> installmentService.quickPay(id, key));
+                payments.add(() -> installmentService.quickPay(id, key));
+            }
+        }
+
+        List<Future<Installment>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (Callable<Installment> payment : payments) {
+                results.add(executor.submit(payment));
+            }
+        }
+        for (Future<Installment> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                // پرداخت قسطی که پرداخت هم‌زمان دیگری آن را تسویه کرده است
+                assertThat(e.getCause()).isInstanceOf(IllegalArgumentException.class)
+                        .hasMessageContaining("قبلاً به طور کامل پرداخت شده");
+            }
+        }
+
+        long installmentsPaid = 0;
+        long contractsPaid = 0;
+        for (Contract contract : contracts) {
+            for (Installment installment : installmentService.findByContractId(contract.getId())) {
+                assertThat(installment.getStatus()).isEqualTo(InstallmentStatus.PAID);
+                assertThat(installment.getPaidAmount()).isEqualTo(installment.getAmount());
+                installmentsPaid += installment.getPaidAmount();
+            }
+            contractsPaid += contractService.findById(contract.getId()).orElseThrow().getPaidTotal();
+        }
+        long receivedAfter = countersService.getCounters().getTotalReceived();
+
+        assertThat(contractsPaid).isEqualTo(installmentsPaid);
+        assertThat(receivedAfter - receivedBefore).isEqualTo(installmentsPaid);
+        assertThat(countersService.reconcile()).doesNotContainKeys("totalReceived", "totalReceivable", "activeContracts");
+    }
+}
@@ -0,0 +1,92 @@
+package com.paymaster.backend.domain.service;
+
+import com.github.mfathi91.time.PersianDate;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * آزمون **هم‌ارزی کامل جدول تقویم شمسی** با کتابخانه persian-date-time:
+ * هر روز از 1 فروردین {@value PersianCalendarTable#MIN_YEAR} تا آخرین روز سال {@value PersianCalendarTable#MAX_YEAR}
+ * (و 400 روز پیش و پس از جدول برای مسیر جایگزین {@link DateUtils}).
+ */
+class PersianCalendarTableTest {
+
+    private static final int[] MONTH_OFFSETS = {-25, -12, -1, 1, 5, 6, 11, 12, 13, 60};
+
+    private static final LocalDate FIRST_DAY = PersianDate.of(PersianCalendarTable.MIN_YEAR, 1, 1).toGregorian();
+    private static final LocalDate LAST_DAY = PersianDate.of(PersianCalendarTable.MAX_YEAR + 1, 1, 1).toGregorian().minusDays(1);
+
+    private final DateUtils dateUtils = new DateUtils();
+
+    @Test
+    void everyDayConvertsLikeTheLibrary() {
+        for (LocalDate date = FIRST_DAY; !date.isAfter(LAST_DAY); date = date.plusDays(1)) {
+            PersianDate expected = PersianDate.fromGregorian(date);
+            int packed = PersianCalendarTable.fromGregorian(date);
+            LocalDate day = date;
+            assertEquals(expected.getYear(), PersianCalendarTable.year(packed), () -> "year of " + day);
+            assertEquals(expected.getMonthValue(), PersianCalendarTable.month(packed), () -> "month of " + day);
+            assertEquals(expected.getDayOfMonth(), PersianCalendarTable.day(packed), () -> "day of " + day);
+            assertEquals(date.toEpochDay(), PersianCalendarTable.toEpochDay(
+                    expected.getYear(), expected.getMonthValue(), expected.getDayOfMonth()), () -> "toEpochDay of " + day);
+        }
+        assertEquals(PersianCalendarTable.OUT_OF_RANGE, PersianCalendarTable.fromGregorian(FIRST_DAY.minusDays(1)));
+        assertEquals(PersianCalendarTable.OUT_OF_RANGE, PersianCalendarTable.fromGregorian(LAST_DAY.plusDays(1)));
+    }
+
+    @Test
+    void everyDayAddsMonthsLikeTheLibrary() {
+        for (LocalDate date = FIRST_DAY; !date.isAfter(LAST_DAY); date = date.plusDays(1)) {
+            PersianDate persianDate = PersianDate.fromGregorian(date);
+            for (int offset : MONTH_OFFSETS) {
+                PersianDate expected = persianDate.plusMonths(offset);
+                if (expected.getYear() < PersianCalendarTable.MIN_YEAR || expected.getYear() > PersianCalendarTable.MAX_YEAR) {
+                    continue;
+                }
+                LocalDate day = date;
+                assertEquals(expected.toGregorian().toEpochDay(), PersianCalendarTable.plusMonths(date, offset),
+                        () -> "plusMonths(" + day + ", " + offset + ")");
+            }
+        }
+    }
+
+    @Test
+    void invalidDatesAndLeapDaysMatchTheLibrary() {
+        for (int year = PersianCalendarTable.MIN_YEAR; year <= PersianCalendarTable.MAX_YEAR; year++) {
+            boolean leap = PersianDate.isLeapYear(year);
+            assertEquals(leap ? PersianDate.of(year, 12, 30).toGregorian().toEpochDay() : PersianCalendarTable.OUT_OF_RANGE,
+                    PersianCalendarTable.toEpochDay(year, 12, 30), "12/30 of " + year);
+            assertEquals(PersianDate.of(year, 1, 1).toGregorian().toEpochDay(), PersianCalendarTable.nowruzEpochDay(year),
+                    "nowruz of " + year);
+            assertEquals(PersianCalendarTable.OUT_OF_RANGE, PersianCalendarTable.toEpochDay(year, 7, 31), "7/31 of " + year);
+            assertEquals(PersianCalendarTable.OUT_OF_RANGE, PersianCalendarTable.toEpochDay(year, 13, 1), "13/1 of " + year);
+        }
+    }
+
+    @Test
+    void dateUtilsMatchesTheLibraryInsideAndAroundTheTable() {
+        for (LocalDate date = FIRST_DAY.minusDays(400); !date.isAfter(LAST_DAY.plusDays(400)); date = date.plusDays(1)) {
+            PersianDate expected = PersianDate.fromGregorian(date);
+            String formatted = String.format("%04d/%02d/%02d", expected.getYear(), expected.getMonthValue(), expected.getDayOfMonth());
+            LocalDate day = date;
+            assertEquals(formatted, dateUtils.toPersianDate(date), () -> "toPersianDate " + day);
+            assertEquals(expected.getDayOfMonth() + " " + dateUtils.getPersianMonthName(expected.getMonthValue()) + " " + expected.getYear(),
+                    dateUtils.toPersianDateWithMonthName(date), () -> "toPersianDateWithMonthName " + day);
+            assertEquals(date, dateUtils.toGregorianDate(formatted), () -> "toGregorianDate " + formatted);
+            assertEquals(expected.getYear(), dateUtils.getPersianYear(date), () -> "getPersianYear " + day);
+            for (int offset : MONTH_OFFSETS) {
+                assertEquals(expected.plusMonths(offset).toGregorian(), dateUtils.addMonthsToPersianDate(date, offset),
+                        () -> "addMonthsToPersianDate(" + day + ", " + offset + ")");
+            }
+        }
+        for (int year = PersianCalendarTable.MIN_YEAR - 10; year <= PersianCalendarTable.MAX_YEAR + 10; year++) {
+            assertEquals(PersianDate.of(year, 1, 1).toGregorian(), dateUtils.getNowruz(year), "getNowruz " + year);
+            // 30 اسفند فقط در سال کبیسه وجود دارد؛ در غیر این صورت null
+            LocalDate leapDay = PersianDate.isLeapYear(year) ? PersianDate.of(year, 12, 30).toGregorian() : null;
+            assertEquals(leapDay, dateUtils.toGregorianDate(year + "/12/30"), "toGregorianDate " + year + "/12/30");
+        }
+    }
+}
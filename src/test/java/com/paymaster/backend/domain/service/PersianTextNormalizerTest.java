@@ -0,0 +1,40 @@
+package com.paymaster.backend.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * آزمون **یکسان‌سازی متن فارسی** ({@link PersianTextNormalizer}): حروف عربی، ارقام فارسی و عربی، نیم‌فاصله،
+ * اعراب و کشیده، و فاصله‌های تکراری.
+ */
+class PersianTextNormalizerTest {
+
+    @Test
+    void arabicLettersBecomePersian() {
+        assertThat(PersianTextNormalizer.normalize("علي كريمي")).isEqualTo("علی کریمی");
+        assertThat(PersianTextNormalizer.normalize("موسى فاطمة أحمد إسلام")).isEqualTo("موسی فاطمه احمد اسلام");
+    }
+
+    @Test
+    void persianAndArabicIndicDigitsBecomeLatin() {
+        assertThat(PersianTextNormalizer.normalize("۰۹۱۲۳۴۵۶۷۸۹")).isEqualTo("09123456789");
+        assertThat(PersianTextNormalizer.normalize("٠١٢٣٤٥٦٧٨٩")).isEqualTo("0123456789");
+        assertThat(PersianTextNormalizer.digits("۰۰۱-۲۳٤ ٥٦7890")).isEqualTo("001234567890");
+        assertThat(PersianTextNormalizer.digits(null)).isEmpty();
+    }
+
+    @Test
+    void zeroWidthNonJoinerIsDroppedOrTreatedAsAWordBreak() {
+        assertThat(PersianTextNormalizer.normalize("محمد\u200Cرضا")).isEqualTo("محمدرضا");
+        assertThat(PersianTextNormalizer.normalizeWordBreaks("محمد\u200Cرضا")).isEqualTo("محمد رضا");
+        assertThat(PersianTextNormalizer.normalize("\u200Fعلی\u200D")).isEqualTo("علی");
+    }
+
+    @Test
+    void diacriticsKashidaAndExtraSpacesAreRemoved() {
+        assertThat(PersianTextNormalizer.normalize("  مُحَمّد   رضـــا\t")).isEqualTo("محمد رضا");
+        assertThat(PersianTextNormalizer.normalize("ALI Rezaei")).isEqualTo("ali rezaei");
+        assertThat(PersianTextNormalizer.normalize(null)).isEmpty();
+    }
+}
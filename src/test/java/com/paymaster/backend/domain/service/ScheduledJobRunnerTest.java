@@ -0,0 +1,113 @@
+package com.paymaster.backend.domain.service;
+
+import com.paymaster.backend.domain.repository.JobLeaseRepository;
+import com.paymaster.backend.domain.repository.JobRunRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * آزمون **تمدید اجاره کارهای زمان‌بندی شده** ({@link ScheduledJobRunner#renewLease}): اجاره کار طولانی پیش از هر
+ * بخش تمدید می‌شود، اگر پس از انقضا نمونه دیگری آن را تصاحب کرده باشد کار پیش از بخش بعدی متوقف می‌شود، و خارج از
+ * کار در حال اجرا اثری ندارد.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ScheduledJobRunnerTest {
+
+    private static final Duration LEASE = Duration.ofMillis(600);
+
+    @Autowired
+    private JobLeaseRepository leaseRepository;
+    @Autowired
+    private JobRunRepository runRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void leaseIsRenewedBetweenChunks() {
+        ScheduledJobRunner runner = runner();
+        List<LocalDateTime> leasedUntil = new ArrayList<>();
+
+        boolean ran = runner.run("test-lease-renewal", () -> {
+            for (int chunk = 0; chunk < 3; chunk++) {
+                runner.renewLease();
+                leasedUntil.add(leasedUntil("test-lease-renewal"));
+                sleep(LEASE.dividedBy(2).plusMillis(50));
+            }
+            return 3;
+        });
+
+        assertThat(ran).isTrue();
+        assertThat(leasedUntil).hasSize(3).doesNotHaveDuplicates().isSorted();
+        // بدون تمدید، اجاره پیش از بخش سوم منقضی شده بود
+        assertThat(leasedUntil.get(2)).isAfter(leasedUntil.get(0).plus(LEASE.dividedBy(2)));
+    }
+
+    @Test
+    void jobStopsWhenAnotherInstanceTookTheLeaseOver() {
+        ScheduledJobRunner runner = runner();
+        List<Integer> chunks = new ArrayList<>();
+
+        boolean ran = runner.run("test-lease-takeover", () -> {
+            for (int chunk = 0; chunk < 3; chunk++) {
+                runner.renewLease();
+                chunks.add(chunk);
+                // کار بیش از مدت اجاره طول کشیده و نمونه دیگری اجاره منقضی شده را تصاحب کرده است
+                jdbcTemplate.update("UPDATE job_leases SET owner = 'other@host', leased_until = ? WHERE job_name = ?",
+                        Timestamp.valueOf(LocalDateTime.now().plusHours(1)), "test-lease-takeover");
+                sleep(LEASE.dividedBy(2).plusMillis(50));
+            }
+            return chunks.size();
+        });
+
+        assertThat(ran).isTrue();
+        assertThat(chunks).containsExactly(0);
+        assertThat(jdbcTemplate.queryForObject("SELECT error_message FROM job_runs WHERE job_name = ?", String.class,
+                "test-lease-takeover")).contains("taken over by another instance");
+        assertThat(jdbcTemplate.queryForObject("SELECT owner FROM job_leases WHERE job_name = ?", String.class,
+                "test-lease-takeover")).isEqualTo("other@host");
+    }
+
+    @Test
+    void renewLeaseOutsideAJobDoesNothing() {
+        ScheduledJobRunner runner = runner();
+        runner.run("test-lease-finished", () -> 0);
+
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            runner.renewLease();
+            assertThat(scope.statements()).isZero();
+        }
+    }
+
+    private ScheduledJobRunner runner() {
+        return new ScheduledJobRunner(leaseRepository, runRepository, transactionManager, LEASE);
+    }
+
+    private LocalDateTime leasedUntil(String jobName) {
+        return jdbcTemplate.queryForObject("SELECT leased_until FROM job_leases WHERE job_name = ?",
+                Timestamp.class, jobName).toLocalDateTime();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
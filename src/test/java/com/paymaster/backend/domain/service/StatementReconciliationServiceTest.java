@@ -0,0 +1,192 @@
+package com.paymaster.backend.domain.service;
+
+import com.paymaster.backend.TestData;
+import com.paymaster.backend.domain.entity.Contract;
+import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.entity.Installment;
+import com.paymaster.backend.domain.entity.ReconciliationItem;
+import com.paymaster.backend.domain.repository.InstallmentRepository;
+import com.paymaster.backend.domain.repository.ReconciliationItemRepository;
+import com.paymaster.backend.domain.valueobject.ImportFormat;
+import com.paymaster.backend.domain.valueobject.InstallmentStatus;
+import com.paymaster.backend.domain.valueobject.PaymentMethod;
+import com.paymaster.backend.domain.valueobject.ReconciliationReason;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * آزمون **تطبیق صورتحساب بانک** ({@link StatementReconciliationService#reconcile}): ثبت ردیف منطبق با بدهی
+ * قدیمی‌ترین قسط باز (اصل و جریمه تا تاریخ تراکنش)، ارجاع ردیف‌های نامنطبق، مبهم و با پرداخت کننده نامشخص به صف
+ * بررسی، کنار گذاشتن شماره مرجع تکراری و بی‌اثر بودن ورود دوباره همان فایل.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class StatementReconciliationServiceTest {
+
+    @Autowired
+    private StatementReconciliationService reconciliationService;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private ContractService contractService;
+    @Autowired
+    private InstallmentRepository installmentRepository;
+    @Autowired
+    private ReconciliationItemRepository itemRepository;
+    @Autowired
+    private PenaltyAccrualService penaltyAccrualService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void exactAmountIsPostedToTheOldestOpenInstallment() throws IOException {
+        Customer customer = TestData.createCustomer(customerService);
+        Contract contract = TestData.createContract(contractService, customer, 12, LocalDate.now());
+        Installment first = installments(contract).get(0);
+        String reference = reference();
+
+        StatementReconciliationService.ReconciliationReport report = reconcile(
+                line(reference, first.getAmount(), customer.getNationalCode()));
+
+        assertThat(report.getPostedLines()).isEqualTo(1);
+        assertThat(report.getPostedAmount()).isEqualTo(first.getAmount());
+        Installment paid = installmentRepository.findById(first.getId()).orElseThrow();
+        assertThat(paid.getStatus()).isEqualTo(InstallmentStatus.PAID);
+        assertThat(paid.getReceiptNumber()).isEqualTo(reference);
+    }
+
+    @Test
+    void overdueInstallmentIsMatchedWithItsPenaltyAndNeverSkipped() throws IOException {
+        // قسط اول معوق است و جریمه دارد؛ مبلغ یک قسط عادی نباید روی قسط دوم (با همان مبلغ) ثبت شود
+        Customer customer = TestData.createCustomer(customerService);
+        Contract contract = TestData.createContract(contractService, customer, 12, LocalDate.now().minusMonths(3));
+        List<Installment> installments = installments(contract);
+        Installment overdue = installments.get(0);
+        long due = dueToday(overdue.getId());
+        assertThat(due).isGreaterThan(overdue.getAmount());
+
+        String shortReference = reference();
+        StatementReconciliationService.ReconciliationReport mismatch = reconcile(
+                line(shortReference, installments.get(1).getAmount(), customer.getMobile()));
+        assertThat(mismatch.getPostedLines()).isZero();
+        ReconciliationItem item = item(shortReference);
+        assertThat(item.getReason()).isEqualTo(ReconciliationReason.AMOUNT_MISMATCH);
+        assertThat(item.getCandidateInstallmentId()).isEqualTo(overdue.getId());
+        assertThat(installmentRepository.findById(installments.get(1).getId()).orElseThrow().getPaidAmount()).isZero();
+
+        StatementReconciliationService.ReconciliationReport exact = reconcile(line(reference(), due, customer.getMobile()));
+        assertThat(exact.getPostedLines()).isEqualTo(1);
+        assertThat(installmentRepository.findById(overdue.getId()).orElseThrow().getStatus()).isEqualTo(InstallmentStatus.PAID);
+    }
+
+    @Test
+    void duplicateReferenceInTheFileIsPostedOnce() throws IOException {
+        Customer customer = TestData.createCustomer(customerService);
+        Contract contract = TestData.createContract(contractService, customer, 12, LocalDate.now());
+        List<Installment> installments = installments(contract);
+        String reference = reference();
+
+        StatementReconciliationService.ReconciliationReport report = reconcile(
+                line(reference, installments.get(0).getAmount(), customer.getNationalCode()),
+                line(reference, installments.get(1).getAmount(), customer.getNationalCode()));
+
+        assertThat(report.getPostedLines()).isEqualTo(1);
+        assertThat(report.getAlreadyRecordedLines()).isEqualTo(1);
+        assertThat(installmentRepository.findById(installments.get(1).getId()).orElseThrow().getPaidAmount()).isZero();
+    }
+
+    @Test
+    void amountMatchingSeveralContractsIsQueuedAsAmbiguous() throws IOException {
+        Customer customer = TestData.createCustomer(customerService);
+        Contract first = TestData.createContract(contractService, customer, 12, LocalDate.now());
+        TestData.createContract(contractService, customer, 12, LocalDate.now());
+        String reference = reference();
+
+        StatementReconciliationService.ReconciliationReport report = reconcile(
+                line(reference, installments(first).get(0).getAmount(), customer.getNationalCode()));
+
+        assertThat(report.getPostedLines()).isZero();
+        assertThat(report.getQueuedLines()).isEqualTo(1);
+        assertThat(item(reference).getReason()).isEqualTo(ReconciliationReason.AMBIGUOUS);
+    }
+
+    @Test
+    void unknownPayerIsQueued() throws IOException {
+        String reference = reference();
+
+        StatementReconciliationService.ReconciliationReport report = reconcile(line(reference, 1_000_000, "09999999999"));
+
+        assertThat(report.getQueuedLines()).isEqualTo(1);
+        assertThat(item(reference).getReason()).isEqualTo(ReconciliationReason.UNKNOWN_PAYER);
+    }
+
+    @Test
+    void reimportingTheSameFileRecordsNothingNew() throws IOException {
+        Customer customer = TestData.createCustomer(customerService);
+        Contract contract = TestData.createContract(contractService, customer, 12, LocalDate.now());
+        Installment first = installments(contract).get(0);
+        String[] file = {
+                line(reference(), first.getAmount(), customer.getNationalCode()),
+                line(reference(), 1_000, customer.getNationalCode()),
+                line(reference(), 1_000, "09999999998")
+        };
+
+        StatementReconciliationService.ReconciliationReport initial = reconcile(file);
+        assertThat(initial.getPostedLines()).isEqualTo(1);
+        assertThat(initial.getQueuedLines()).isEqualTo(2);
+        long itemsBefore = itemRepository.count();
+
+        StatementReconciliationService.ReconciliationReport again = reconcile(file);
+        assertThat(again.getPostedLines()).isZero();
+        assertThat(again.getQueuedLines()).isZero();
+        assertThat(again.getAlreadyRecordedLines()).isEqualTo(3);
+        assertThat(itemRepository.count()).isEqualTo(itemsBefore);
+        assertThat(installmentRepository.findById(installments(contract).get(1).getId()).orElseThrow().getPaidAmount()).isZero();
+    }
+
+    private StatementReconciliationService.ReconciliationReport reconcile(String... lines) throws IOException {
+        String file = "reference,amount,payer\n" + String.join("\n", lines) + "\n";
+        return reconciliationService.reconcile(new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)),
+                ImportFormat.CSV, null, PaymentMethod.TRANSFER);
+    }
+
+    private static String line(String reference, long amount, String payer) {
+        return reference + "," + amount + "," + payer;
+    }
+
+    private static String reference() {
+        return "REF-" + UUID.randomUUID().toString().substring(0, 18);
+    }
+
+    private List<Installment> installments(Contract contract) {
+        return installmentRepository.findByContractIdOrderByInstallmentNumberAsc(contract.getId());
+    }
+
+    /**
+     * بدهی امروز قسط از مسیر موجودیت (اصل باقیمانده، جریمه ذخیره شده و جریمه روزهای محاسبه نشده).
+     */
+    private long dueToday(Long installmentId) {
+        return transactionTemplate.execute(status -> {
+            Installment installment = installmentRepository.findById(installmentId).orElseThrow();
+            return installment.getRemainingAmount() + penaltyAccrualService.pendingPenalty(installment, LocalDate.now());
+        });
+    }
+
+    private ReconciliationItem item(String reference) {
+        return itemRepository.findAll().stream()
+                .filter(item -> item.getReference().equals(reference))
+                .findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,162 @@
+package com.paymaster.backend.presentation.controller;
+
+import com.paymaster.backend.TestData;
+import com.paymaster.backend.domain.entity.Contract;
+import com.paymaster.backend.domain.entity.Customer;
+import com.paymaster.backend.domain.service.ContractService;
+import com.paymaster.backend.domain.service.CustomerService;
+import com.paymaster.backend.domain.service.QueryCounter;
+import com.paymaster.backend.domain.valueobject.KeysetPage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+/**
+ * آزمون **بودجه کوئری صفحات** {@link HomeController}: تعداد دستورات SQL هر صفحه ثابت است و به تعداد ردیف‌ها،
+ * اقساط هر قرارداد یا شماره صفحه بستگی ندارد.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class HomeControllerTest {
+
+    private static final int CONTRACTS = 30;
+    private static final int PAGE_SIZE = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private ContractService contractService;
+
+    private Customer customer;
+    private Contract shortContract;
+    private Contract longContract;
+
+    @BeforeAll
+    void createContracts() {
+        // تاریخ‌های شروع پراکنده، تا هم قسط معوق و هم قسط سررسید این هفته وجود داشته باشد
+        customer = TestData.createCustomer(customerService);
+        for (int i = 0; i < CONTRACTS; i++) {
+            TestData.createContract(contractService, customer, 12, LocalDate.now().minusMonths(i % 6).plusDays(i % 7));
+        }
+        shortContract = TestData.createContract(contractService, customer, 3, LocalDate.now().minusMonths(2));
+        longContract = TestData.createContract(contractService, customer, 36, LocalDate.now().minusMonths(2));
+    }
+
+    @Test
+    void dashboardStaysWithinItsStatementBudget() throws Exception {
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            mockMvc.perform(get("/dashboard")).andExpect(status().isOk());
+            // آمار از شمارنده‌های پرتفوی و دو ویجت اقساط، هر کدام یک کوئری
+            scope.assertStatementsAtMost(3);
+            scope.assertNoRepeatedStatements(1);
+        }
+    }
+
+    @Test
+    void contractViewStatementsDoNotGrowWithInstallments() throws Exception {
+        List<Integer> statements = new ArrayList<>();
+        for (Contract contract : List.of(shortContract, longContract)) {
+            try (QueryCounter.Scope scope = QueryCounter.open()) {
+                mockMvc.perform(get("/contracts/view/{id}", contract.getId())).andExpect(status().isOk());
+                // قرارداد و اقساط آن
+                scope.assertStatementsAtMost(2);
+                scope.assertNoRepeatedStatements(1);
+                statements.add(scope.statements());
+            }
+        }
+        assertThat(statements.get(1)).as("statements for 36 installments").isEqualTo(statements.get(0));
+    }
+
+    @Test
+    void customerViewStaysWithinItsStatementBudget() throws Exception {
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            mockMvc.perform(get("/customers/view/{id}", customer.getId())).andExpect(status().isOk());
+            // مشتری و قراردادهای آن (بدون بارگذاری اقساط هر قرارداد)
+            scope.assertStatementsAtMost(2);
+            scope.assertNoRepeatedStatements(1);
+        }
+    }
+
+    @Test
+    void listsStayWithinTheirStatementBudget() throws Exception {
+        for (String list : List.of("/customers", "/installments/overdue", "/installments/upcoming", "/contracts?count=true")) {
+            try (QueryCounter.Scope scope = QueryCounter.open()) {
+                MvcResult result = mockMvc.perform(get(list)).andExpect(status().isOk()).andReturn();
+                assertThat(((KeysetPage<?>) result.getModelAndView().getModel().get("page")).getContent()).as(list).isNotEmpty();
+                // ردیف‌های صفحه و تعداد کل (تخمینی یا دقیق)
+                scope.assertStatementsAtMost(2);
+                scope.assertNoRepeatedStatements(1);
+            }
+        }
+    }
+
+    @Test
+    void errorPageRendersWithTheLayout() throws Exception {
+        // صفحه خطا از GlobalExceptionHandler ساخته می‌شود و داده‌های مشترک قالب (مثلاً currentPath) را ندارد
+        mockMvc.perform(get("/contracts/view/{id}", "not-a-number"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("error"));
+    }
+
+    @Test
+    void contractListIssuesTheSameStatementsOnEveryPage() throws Exception {
+        List<Integer> statements = new ArrayList<>();
+        String after = null;
+        for (int page = 0; page < CONTRACTS / PAGE_SIZE; page++) {
+            try (QueryCounter.Scope scope = QueryCounter.open()) {
+                KeysetPage<?> contracts = contractsPage(get("/contracts").param("size", String.valueOf(PAGE_SIZE)), after);
+                assertThat(contracts.getContent()).hasSize(PAGE_SIZE);
+                // ردیف‌های صفحه در یک کوئری و تعداد تخمینی از شمارنده‌های پرتفوی
+                scope.assertStatementsAtMost(2);
+                scope.assertNoRepeatedStatements(1);
+                statements.add(scope.statements());
+                after = contracts.getNextCursor();
+            }
+        }
+
+        assertThat(statements).as("statements per page").containsOnly(statements.get(0));
+    }
+
+    @Test
+    void contractListStatementsDoNotGrowWithPageSize() throws Exception {
+        int small = contractListStatements(PAGE_SIZE);
+        int large = contractListStatements(CONTRACTS);
+        assertThat(large).isEqualTo(small);
+    }
+
+    private int contractListStatements(int size) throws Exception {
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            KeysetPage<?> contracts = contractsPage(get("/contracts").param("size", String.valueOf(size)), null);
+            assertThat(contracts.getContent()).hasSize(size);
+            return scope.statements();
+        }
+    }
+
+    private KeysetPage<?> contractsPage(MockHttpServletRequestBuilder request, String after) throws Exception {
+        if (after != null) {
+            request.param("after", after);
+        }
+        MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+        return (KeysetPage<?>) result.getModelAndView().getModel().get("page");
+    }
+}